@@ -0,0 +1,92 @@
+package com.myproject.physics.bench;
+
+import com.myproject.physics.BroadPhase;
+import com.myproject.physics.Collider;
+import com.myproject.physics.DynamicAABBTree;
+import com.myproject.physics.PhysicsWorld;
+import com.myproject.physics.SpatialHashGrid;
+import com.myproject.physics.SweepAndPrune;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time for each broad phase to report the candidate pairs of a scene.
+ * The bounds do not change between calls, so incremental broad phases measure their steady state.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BroadPhaseBenchmark {
+
+    @Param({"SpatialHashGrid", "SweepAndPrune", "DynamicAABBTree"})
+    public String broadPhase;
+
+    @Param({"1000", "10000", "100000"})
+    public int bodies;
+
+    private BroadPhase phase;
+    private int count;
+    private float[] minX;
+    private float[] minY;
+    private float[] maxX;
+    private float[] maxY;
+    private final PairCounter counter = new PairCounter();
+
+    @Setup
+    public void setUp() {
+        switch (broadPhase) {
+            case "SpatialHashGrid" -> phase = new SpatialHashGrid();
+            case "SweepAndPrune" -> phase = new SweepAndPrune();
+            case "DynamicAABBTree" -> phase = new DynamicAABBTree();
+            default -> throw new IllegalArgumentException("Unknown broad phase: " + broadPhase);
+        }
+        PhysicsWorld world = Scenes.balls(bodies, 42);
+        List<Collider> colliders = world.getColliders();
+        count = colliders.size();
+        minX = new float[count];
+        minY = new float[count];
+        maxX = new float[count];
+        maxY = new float[count];
+        for (int i = 0; i < count; i++) {
+            Collider collider = colliders.get(i);
+            minX[i] = collider.getMinX();
+            minY[i] = collider.getMinY();
+            maxX[i] = collider.getMaxX();
+            maxY[i] = collider.getMaxY();
+        }
+    }
+
+    @Benchmark
+    public int findPairs() {
+        counter.pairs = 0;
+        phase.findPairs(count, minX, minY, maxX, maxY, counter);
+        return counter.pairs;
+    }
+
+    /**
+     * Counts the pairs reported by a broad phase.
+     */
+    private static final class PairCounter implements BroadPhase.PairCallback {
+        int pairs;
+
+        @Override
+        public void onPair(int a, int b) {
+            pairs++;
+        }
+    }
+}
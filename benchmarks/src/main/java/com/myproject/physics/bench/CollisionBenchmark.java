@@ -0,0 +1,66 @@
+package com.myproject.physics.bench;
+
+import com.myproject.physics.Collider;
+import com.myproject.physics.ConvexPolygon;
+import com.myproject.physics.Vector2D;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link Collider#checkCollision} for every shape pair, on touching and separate pairs.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CollisionBenchmark {
+
+    @Param({"CIRCLE_CIRCLE", "AABB_AABB", "CIRCLE_AABB", "AABB_CIRCLE",
+            "CIRCLE_POLYGON", "POLYGON_CIRCLE", "AABB_POLYGON", "POLYGON_POLYGON"})
+    public String pair;
+
+    @Param({"true", "false"})
+    public boolean touching;
+
+    private Collider first;
+    private Collider second;
+
+    @Setup
+    public void setUp() {
+        float distance = touching ? 0.15f : 0.5f;
+        first = create(pair.substring(0, pair.indexOf('_')), 0.0f);
+        second = create(pair.substring(pair.indexOf('_') + 1), distance);
+    }
+
+    @Benchmark
+    public boolean checkCollision() {
+        return first.checkCollision(second);
+    }
+
+    /**
+     * Creates a collider of radius or half size 0.1 at the given x coordinate; polygons are boxes of
+     * that size turned by 0.3 radians.
+     */
+    private static Collider create(String type, float x) {
+        if (type.equals("CIRCLE")) {
+            return new Collider(Collider.Type.CIRCLE, new Vector2D(x, 0.05f), 0.1f);
+        }
+        if (type.equals("POLYGON")) {
+            return new Collider(ConvexPolygon.box(0.1f, 0.1f, 0.3f), new Vector2D(x, 0.05f));
+        }
+        return new Collider(Collider.Type.AABB, new Vector2D(x, 0.05f), new Vector2D(0.1f, 0.1f));
+    }
+}
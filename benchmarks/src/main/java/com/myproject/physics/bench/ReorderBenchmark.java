@@ -0,0 +1,57 @@
+package com.myproject.physics.bench;
+
+import com.myproject.physics.PhysicsWorld;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full world steps with bodies left in insertion order, which for the random scenes scatters
+ * spatial neighbours across memory, and reordered along a Morton curve every {@code interval}
+ * steps. The cost of the periodic sort is included in the average. Run with {@code -prof perfnorm}
+ * on Linux to see the cache misses per step next to the time.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReorderBenchmark {
+
+    private static final float DT = 0.016f;
+
+    @Param({"10000", "100000"})
+    public int bodies;
+
+    @Param({"0", "32"})
+    public int interval;
+
+    private PhysicsWorld world;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        world = Scenes.balls(bodies, 42);
+        world.setReorderInterval(interval);
+        for (int i = 0; i < 10; i++) {
+            world.update(DT);
+        }
+    }
+
+    @Benchmark
+    public PhysicsWorld update() {
+        world.update(DT);
+        return world;
+    }
+}
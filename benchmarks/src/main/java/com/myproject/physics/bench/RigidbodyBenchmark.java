@@ -0,0 +1,67 @@
+package com.myproject.physics.bench;
+
+import com.myproject.physics.Rigidbody;
+import com.myproject.physics.Vector2D;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link Rigidbody#integrate} on a body that does not belong to a world, with and
+ * without angular motion.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RigidbodyBenchmark {
+
+    private static final float DT = 0.016f;
+
+    private final Vector2D force = new Vector2D(0.5f, -9.8f);
+    private Rigidbody body;
+    private Rigidbody spinning; // A body with inertia, so integration also turns it.
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        body = new Rigidbody(1.0f);
+        body.velocity = new Vector2D(3.0f, 4.0f);
+        spinning = new Rigidbody(1.0f);
+        spinning.velocity = new Vector2D(3.0f, 4.0f);
+        spinning.setInertia(0.5f);
+        spinning.setAngularVelocity(2.0f);
+    }
+
+    @Benchmark
+    public Rigidbody integrate() {
+        body.integrate(DT);
+        return body;
+    }
+
+    @Benchmark
+    public Rigidbody applyForceAndIntegrate() {
+        body.applyForce(force);
+        body.integrate(DT);
+        return body;
+    }
+
+    @Benchmark
+    public Rigidbody applyTorqueAndIntegrate() {
+        spinning.applyForce(force);
+        spinning.applyTorque(0.25f);
+        spinning.integrate(DT);
+        return spinning;
+    }
+}
@@ -0,0 +1,119 @@
+package com.myproject.physics.bench;
+
+import com.myproject.physics.Collider;
+import com.myproject.physics.PhysicsWorld;
+import com.myproject.physics.Rigidbody;
+import com.myproject.physics.ShardedWorld;
+import com.myproject.physics.Vector2D;
+
+import java.util.Random;
+
+/**
+ * Seeded random scenes shaped like the one built by {@code PhysicsPanel}: balls of radius 0.1 with
+ * velocities between -5 and 5 on each axis. The spawn square grows with the number of balls so the
+ * density is the same at every size, and four static walls keep the balls from flying apart, so a
+ * scene costs about the same per step for as long as a benchmark runs.
+ */
+final class Scenes {
+
+    static final float BALL_RADIUS = 0.1f;
+    private static final float AREA_PER_BALL = 0.25f; // Spawn area per ball, about 12% covered.
+    private static final float WALL_THICKNESS = 0.5f;
+
+    private Scenes() {
+    }
+
+    /**
+     * Gets the side of the square the balls of a scene spawn in.
+     *
+     * @param balls The number of balls.
+     * @return The side length.
+     */
+    static float spawnSize(int balls) {
+        return (float) Math.sqrt(balls * AREA_PER_BALL);
+    }
+
+    /**
+     * Builds a world with the given number of balls inside a closed box.
+     * Sleeping is disabled so every step does the full amount of work.
+     *
+     * @param balls The number of balls.
+     * @param seed  The seed of the random positions and velocities.
+     * @return The new world.
+     */
+    static PhysicsWorld balls(int balls, long seed) {
+        PhysicsWorld world = new PhysicsWorld();
+        world.setSleepingEnabled(false);
+        Random rand = new Random(seed);
+        float half = spawnSize(balls) / 2;
+
+        for (int i = 0; i < balls; i++) {
+            Rigidbody rb = new Rigidbody(1.0f);
+            float x = (rand.nextFloat() * 2 - 1) * (half - BALL_RADIUS);
+            float y = (rand.nextFloat() * 2 - 1) * (half - BALL_RADIUS);
+            rb.position = new Vector2D(x, y);
+            rb.velocity = new Vector2D(rand.nextFloat() * 10 - 5, rand.nextFloat() * 10 - 5);
+            world.addRigidbody(rb, new Collider(Collider.Type.CIRCLE, new Vector2D(x, y), BALL_RADIUS));
+        }
+
+        float offset = half + WALL_THICKNESS;
+        float length = half + 2 * WALL_THICKNESS;
+        addWall(world, 0, -offset, length, WALL_THICKNESS);
+        addWall(world, 0, offset, length, WALL_THICKNESS);
+        addWall(world, -offset, 0, WALL_THICKNESS, length);
+        addWall(world, offset, 0, WALL_THICKNESS, length);
+        return world;
+    }
+
+    /**
+     * Builds the scene of {@link #balls} split into vertical strips, one shard each.
+     *
+     * @param balls  The number of balls.
+     * @param seed   The seed of the random positions and velocities.
+     * @param shards The number of shards.
+     * @return The new sharded world, to be closed by the caller.
+     */
+    static ShardedWorld shardedBalls(int balls, long seed, int shards) {
+        float half = spawnSize(balls) / 2;
+        float offset = half + WALL_THICKNESS;
+        ShardedWorld world = new ShardedWorld(-offset, offset, shards, 4 * BALL_RADIUS);
+        for (int s = 0; s < shards; s++) {
+            world.getShard(s).setSleepingEnabled(false);
+        }
+        Random rand = new Random(seed);
+
+        for (int i = 0; i < balls; i++) {
+            Rigidbody rb = new Rigidbody(1.0f);
+            float x = (rand.nextFloat() * 2 - 1) * (half - BALL_RADIUS);
+            float y = (rand.nextFloat() * 2 - 1) * (half - BALL_RADIUS);
+            rb.position = new Vector2D(x, y);
+            rb.velocity = new Vector2D(rand.nextFloat() * 10 - 5, rand.nextFloat() * 10 - 5);
+            world.addRigidbody(rb, new Collider(Collider.Type.CIRCLE, new Vector2D(x, y), BALL_RADIUS));
+        }
+
+        float length = half + 2 * WALL_THICKNESS;
+        addWall(world, 0, -offset, length, WALL_THICKNESS);
+        addWall(world, 0, offset, length, WALL_THICKNESS);
+        addWall(world, -offset, 0, WALL_THICKNESS, length);
+        addWall(world, offset, 0, WALL_THICKNESS, length);
+        return world;
+    }
+
+    /**
+     * Adds a static box to a world.
+     */
+    private static void addWall(PhysicsWorld world, float x, float y, float halfWidth, float halfHeight) {
+        Rigidbody rb = new Rigidbody(0.0f);
+        rb.position = new Vector2D(x, y);
+        world.addRigidbody(rb, new Collider(Collider.Type.AABB, new Vector2D(x, y), new Vector2D(halfWidth, halfHeight)));
+    }
+
+    /**
+     * Adds a static box to a sharded world.
+     */
+    private static void addWall(ShardedWorld world, float x, float y, float halfWidth, float halfHeight) {
+        Rigidbody rb = new Rigidbody(0.0f);
+        rb.position = new Vector2D(x, y);
+        world.addRigidbody(rb, new Collider(Collider.Type.AABB, new Vector2D(x, y), new Vector2D(halfWidth, halfHeight)));
+    }
+}
@@ -0,0 +1,65 @@
+package com.myproject.physics.bench;
+
+import com.myproject.physics.ShardedWorld;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time of a {@link ShardedWorld#update} on an evenly filled arena split into a growing number of
+ * shards. With as many cores as shards, the time per step should fall close to linearly with the
+ * shard count; the {@code bodySteps} counter gives nanoseconds per body-step for comparison with
+ * {@link WorldStepBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ShardedWorldBenchmark {
+
+    private static final float DT = 0.016f;
+
+    @Param({"100000"})
+    public int bodies;
+
+    @Param({"1", "2", "4", "8"})
+    public int shards;
+
+    private ShardedWorld world;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        world = Scenes.shardedBalls(bodies, 42, shards);
+        // Let the first contacts settle and the ghosts appear so the measured steps are typical ones.
+        for (int i = 0; i < 10; i++) {
+            world.update(DT);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        world.close();
+    }
+
+    @Benchmark
+    public ShardedWorld update(WorldStepBenchmark.BodySteps steps) {
+        world.update(DT);
+        steps.bodySteps += world.getBodyCount();
+        return world;
+    }
+}
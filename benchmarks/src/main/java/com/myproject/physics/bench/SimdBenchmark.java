@@ -0,0 +1,56 @@
+package com.myproject.physics.bench;
+
+import com.myproject.physics.PhysicsWorld;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full world steps with the vectorized integration and circle narrow phase turned on and off.
+ * The forks load {@code jdk.incubator.vector}; if the machine's vectors are too narrow for the
+ * engine to use them, both settings run the scalar code.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class SimdBenchmark {
+
+    private static final float DT = 0.016f;
+
+    @Param({"1000", "10000", "100000"})
+    public int bodies;
+
+    @Param({"false", "true"})
+    public boolean simd;
+
+    private PhysicsWorld world;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        world = Scenes.balls(bodies, 42);
+        world.setSimdEnabled(simd && PhysicsWorld.isSimdAvailable());
+        for (int i = 0; i < 10; i++) {
+            world.update(DT);
+        }
+    }
+
+    @Benchmark
+    public PhysicsWorld update() {
+        world.update(DT);
+        return world;
+    }
+}
@@ -0,0 +1,71 @@
+package com.myproject.physics.bench;
+
+import com.myproject.physics.Vector2D;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the {@link Vector2D} operations, both the allocating and the in-place forms.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VectorBenchmark {
+
+    private final Vector2D a = new Vector2D(1.25f, -0.5f);
+    private final Vector2D b = new Vector2D(-3.0f, 2.75f);
+    private final Vector2D target = new Vector2D();
+
+    @Benchmark
+    public Vector2D add() {
+        return a.add(b);
+    }
+
+    @Benchmark
+    public Vector2D subtract() {
+        return a.subtract(b);
+    }
+
+    @Benchmark
+    public Vector2D multiply() {
+        return a.multiply(0.5f);
+    }
+
+    @Benchmark
+    public float dot() {
+        return a.dot(b);
+    }
+
+    @Benchmark
+    public float magnitude() {
+        return a.magnitude();
+    }
+
+    @Benchmark
+    public Vector2D normalize() {
+        target.set(a).normalize();
+        return target;
+    }
+
+    @Benchmark
+    public Vector2D addLocal() {
+        return target.set(a).addLocal(b);
+    }
+
+    @Benchmark
+    public Vector2D scaleAdd() {
+        return target.set(a).scaleAdd(0.016f, b);
+    }
+}
@@ -0,0 +1,69 @@
+package com.myproject.physics.bench;
+
+import com.myproject.physics.PhysicsWorld;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time of a full {@link PhysicsWorld#update} on scenes of growing size.
+ * The primary score is nanoseconds per step; the {@code bodySteps} counter divides the same time by
+ * the number of bodies, giving nanoseconds per body-step, which stays flat when a step scales linearly.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WorldStepBenchmark {
+
+    private static final float DT = 0.016f;
+
+    @Param({"100", "1000", "10000", "100000"})
+    public int bodies;
+
+    private PhysicsWorld world;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        world = Scenes.balls(bodies, 42);
+        // Let the first contacts settle so the measured steps are typical ones.
+        for (int i = 0; i < 10; i++) {
+            world.update(DT);
+        }
+    }
+
+    @Benchmark
+    public PhysicsWorld update(BodySteps steps) {
+        world.update(DT);
+        steps.bodySteps += world.getBodyCount();
+        return world;
+    }
+
+    /**
+     * Counts simulated body-steps, reported next to the step time.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class BodySteps {
+        public long bodySteps;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bodySteps = 0;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.myproject.physics;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes trajectories in a compact little-endian binary format, about a quarter of the size of
+ * the CSV output and free of number formatting.
+ *
+ * The file starts with the magic number {@link #MAGIC} and the format {@link #VERSION}, both
+ * 32-bit ints. Each sample follows as the step (64-bit int) and the body count (32-bit int), then
+ * per body the handle (32-bit int) and x, y, vx, vy (32-bit floats).
+ */
+public final class BinaryTrajectorySink implements TrajectorySink {
+
+    /**
+     * The first four bytes of every file, "PTRJ" in ASCII when read as a little-endian int.
+     */
+    public static final int MAGIC = 0x4A525450;
+
+    /**
+     * The version of the format written.
+     */
+    public static final int VERSION = 1;
+
+    private static final int BODY_BYTES = 4 + 4 * 4; // Handle and four floats.
+    private static final int BUFFER_SIZE = 1 << 16; // Bytes buffered between channel writes.
+
+    private final FileChannel channel; // The file being written.
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN); // Pending bytes.
+
+    /**
+     * Creates or truncates a file and writes the file header.
+     *
+     * @param file The file to write.
+     * @throws IOException If the file cannot be opened.
+     */
+    public BinaryTrajectorySink(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        buffer.putInt(MAGIC).putInt(VERSION);
+    }
+
+    @Override
+    public void write(StateSnapshot snapshot) throws IOException {
+        int count = snapshot.getCount();
+        ensureRemaining(8 + 4);
+        buffer.putLong(snapshot.getStep()).putInt(count);
+        for (int i = 0; i < count; i++) {
+            ensureRemaining(BODY_BYTES);
+            buffer.putInt(snapshot.getHandle(i))
+                    .putFloat(snapshot.getX(i))
+                    .putFloat(snapshot.getY(i))
+                    .putFloat(snapshot.getVelocityX(i))
+                    .putFloat(snapshot.getVelocityY(i));
+        }
+    }
+
+    /**
+     * Flushes the buffer if fewer than the given number of bytes are free.
+     */
+    private void ensureRemaining(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    /**
+     * Writes the buffered bytes to the channel.
+     */
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+}
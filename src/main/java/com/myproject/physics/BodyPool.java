@@ -0,0 +1,164 @@
+package com.myproject.physics;
+
+import java.util.Arrays;
+
+/**
+ * Recycles the {@link Rigidbody} and {@link Collider} objects of removed bodies, so that workloads
+ * spawning and despawning bodies all the time, such as projectiles, do not allocate a new pair of
+ * views and their vectors for every spawn.
+ * <pre>
+ * Rigidbody rb = pool.obtainRigidbody(1.0f);
+ * rb.position.set(x, y);
+ * int handle = world.addRigidbody(rb, pool.obtainCollider(Collider.Type.CIRCLE, 0.05f, 0, 0));
+ * ...
+ * pool.remove(world, handle); // Removes the body and takes its views back.
+ * </pre>
+ * An object handed back to the pool must no longer be used by its previous owner, and its center
+ * and half-size vectors must not be shared with other colliders. A pool is not thread-safe.
+ */
+public final class BodyPool {
+
+    private final int maxSize; // The most objects of each kind kept; extra ones are left to the collector.
+    private Rigidbody[] rigidbodies = new Rigidbody[16];
+    private int rigidbodyCount;
+    private Collider[] colliders = new Collider[16];
+    private int colliderCount;
+
+    /**
+     * Constructs a pool keeping at most 4096 objects of each kind.
+     */
+    public BodyPool() {
+        this(4096);
+    }
+
+    /**
+     * Constructs a pool.
+     *
+     * @param maxSize The most rigid bodies, and the most colliders, kept for reuse.
+     */
+    public BodyPool(int maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("Max size must not be negative");
+        }
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Gets a rigid body at rest at the origin, reused if one is available.
+     *
+     * @param mass The mass of the rigid body. Use 0 for static objects.
+     * @return The rigid body.
+     */
+    public Rigidbody obtainRigidbody(float mass) {
+        if (rigidbodyCount == 0) {
+            return new Rigidbody(mass);
+        }
+        Rigidbody rb = rigidbodies[--rigidbodyCount];
+        rigidbodies[rigidbodyCount] = null;
+        rb.reset(mass);
+        return rb;
+    }
+
+    /**
+     * Gets a collider with default filter settings, reused if one is available.
+     *
+     * @param type   The type of the collider.
+     * @param radius The radius of the collider (used for CIRCLE type).
+     * @param halfX  The half width of the collider (used for AABB type).
+     * @param halfY  The half height of the collider (used for AABB type).
+     * @return The collider.
+     * @see #obtainCollider(ConvexPolygon)
+     */
+    public Collider obtainCollider(Collider.Type type, float radius, float halfX, float halfY) {
+        if (type == Collider.Type.POLYGON) {
+            throw new IllegalArgumentException("Polygon colliders need a polygon");
+        }
+        if (colliderCount == 0) {
+            return new Collider(type, new Vector2D(0, 0), radius, new Vector2D(halfX, halfY));
+        }
+        Collider collider = colliders[--colliderCount];
+        colliders[colliderCount] = null;
+        collider.reset(type, radius, halfX, halfY, null);
+        return collider;
+    }
+
+    /**
+     * Gets a polygon collider with default filter settings, reused if one is available.
+     *
+     * @param polygon The shape of the collider.
+     * @return The collider.
+     */
+    public Collider obtainCollider(ConvexPolygon polygon) {
+        if (colliderCount == 0) {
+            return new Collider(polygon, new Vector2D(0, 0));
+        }
+        Collider collider = colliders[--colliderCount];
+        colliders[colliderCount] = null;
+        collider.reset(Collider.Type.POLYGON, 0.0f, 0.0f, 0.0f, polygon);
+        return collider;
+    }
+
+    /**
+     * Hands a rigid body back to the pool.
+     *
+     * @param rb The rigid body, which must not belong to a world.
+     */
+    public void release(Rigidbody rb) {
+        if (rb.store != null) {
+            throw new IllegalStateException("Rigidbody still belongs to a world");
+        }
+        if (rigidbodyCount == maxSize) return;
+        if (rigidbodyCount == rigidbodies.length) {
+            rigidbodies = Arrays.copyOf(rigidbodies, rigidbodyCount * 2);
+        }
+        rigidbodies[rigidbodyCount++] = rb;
+    }
+
+    /**
+     * Hands a collider back to the pool.
+     *
+     * @param collider The collider, which must not belong to a world.
+     */
+    public void release(Collider collider) {
+        if (collider.store != null) {
+            throw new IllegalStateException("Collider still belongs to a world");
+        }
+        if (colliderCount == maxSize) return;
+        if (colliderCount == colliders.length) {
+            colliders = Arrays.copyOf(colliders, colliderCount * 2);
+        }
+        colliders[colliderCount++] = collider;
+    }
+
+    /**
+     * Removes a body from a world and hands its rigid body and collider back to the pool.
+     *
+     * @param world  The world.
+     * @param handle The handle of the body.
+     */
+    public void remove(PhysicsWorld world, int handle) {
+        Rigidbody rb = world.getRigidbody(handle);
+        Collider collider = world.getCollider(handle);
+        world.removeRigidbody(handle);
+        release(rb);
+        release(collider);
+    }
+
+    /**
+     * Gets the number of rigid bodies ready for reuse.
+     *
+     * @return The pooled rigid body count.
+     */
+    public int getRigidbodyCount() {
+        return rigidbodyCount;
+    }
+
+    /**
+     * Gets the number of colliders ready for reuse.
+     *
+     * @return The pooled collider count.
+     */
+    public int getColliderCount() {
+        return colliderCount;
+    }
+}
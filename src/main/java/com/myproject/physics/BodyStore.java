@@ -0,0 +1,729 @@
+package com.myproject.physics;
+
+import java.util.Arrays;
+
+/**
+ * Structure-of-arrays storage for the bodies of a world.
+ * Every property of a body lives in a primitive column at the body's index, so the simulation
+ * step walks a few contiguous arrays instead of chasing references through the object graph.
+ * Bodies are referred to from outside by stable integer handles, which map to indices through
+ * a lookup table; {@link Rigidbody} and {@link Collider} objects are thin views bound to a handle.
+ *
+ * The orientation of a body is kept as the cosine and sine of its angle rather than the angle
+ * itself, so the narrow phase turns vertices with two multiplications and integration turns the
+ * body without calling into trigonometry.
+ *
+ * Removing a body moves the last body into its slot, so the columns stay dense. The slot of the
+ * removed handle in the lookup table goes onto a free list and is handed out again by a later
+ * addition, with a generation counter in the upper bits of the handle bumped, so the handle of a
+ * removed body does not silently refer to its successor. Free slots are reused oldest first, so
+ * with churn spread over every free slot a generation only wraps around after 2048 times as many
+ * removals as there are free slots, instead of after 2048 removals of one busy slot.
+ */
+final class BodyStore {
+
+    // Shapes, the ordinals of the collider types, as constants so pairs of them can label cases.
+    static final int CIRCLE = 0;
+    static final int AABB = 1;
+    static final int POLYGON = 2;
+    static final int SHAPES = 3; // The number of shapes.
+
+    static final int SLOT_BITS = 20; // Low bits of a handle: its slot in the lookup table.
+    static final int SLOT_MASK = (1 << SLOT_BITS) - 1;
+    // The other bits but the sign: handles stay positive, so -1 can stand for no body.
+    static final int GENERATION_BITS = 31 - SLOT_BITS;
+    private static final int GENERATION_MASK = (1 << GENERATION_BITS) - 1; // Wraps after 2048 reuses of a slot.
+
+    private static final int MORTON_BITS = 30; // Bits of a Morton code: 15 per axis.
+    private static final int RADIX_BITS = 10; // Bits sorted per pass of the radix sort of Morton codes.
+
+    static final byte BULLET = 1; // Flag: the body is swept for continuous collision every step.
+    static final byte SENSOR = 2; // Flag: the body reports overlaps and takes part in no contact.
+
+    int count; // The number of bodies; columns are valid from 0 to count - 1.
+    float gravityX; // Acceleration applied to every awake dynamic body.
+    float gravityY;
+
+    float[] posX;
+    float[] posY;
+    float[] velX;
+    float[] velY;
+    float[] forceX;
+    float[] forceY;
+    float[] rotCos; // Cosine of the angle of the body; boxes stay at 1.
+    float[] rotSin; // Sine of the angle of the body; boxes stay at 0.
+    float[] angVel; // Angular velocity, in radians per second, counter-clockwise.
+    float[] torque; // Accumulated torque.
+    float[] invMass; // 0 for static bodies.
+    float[] invInertia; // 0 for bodies that do not turn under forces: static bodies and boxes.
+    float[] radius; // Used by circles.
+    float[] halfX; // Used by boxes; the extent of polygons.
+    float[] halfY; // Used by boxes; the extent of polygons.
+    ConvexPolygon[] polygon; // Used by polygons, null for other shapes.
+    int[] shape; // The ordinal of the collider type, as wide as a float so SIMD masks need no cast.
+    boolean[] awake; // Set for awake dynamic bodies, clear for sleeping and static bodies.
+    float[] sleepTime; // How long the body has been slow enough to sleep, in seconds.
+    byte[] flags; // Bit set of per-body options such as BULLET.
+    int[] category; // Collision categories the collider belongs to, as bits.
+    int[] mask; // Collision categories the collider interacts with, as bits.
+
+    Rigidbody[] rigidbodies; // The view objects of each body.
+    Collider[] colliders;
+
+    InputRecorder recorder; // Receives every input while the world is being recorded, or null.
+    boolean moved; // Set when a body is moved or turned through its views, until the world's query index is synced.
+
+    int[] handleOf; // Index to handle.
+    private int[] indexOf = new int[0]; // Slot to index, -1 for free slots.
+    short[] generation = new short[0]; // Slot to the generation of its current or next handle.
+    private int[] freeSlots = new int[0]; // Free slots as a ring, the oldest one reused first.
+    private int freeHead; // The position in freeSlots of the oldest free slot.
+    int freeCount; // The number of free slots.
+    private int slotCount; // The number of slots created so far.
+
+    // Scratch space of sortByMorton: the sort keys and the second buffer and digit counts of their
+    // radix sort, and one spare column of each type that takes the place of a column once its
+    // bodies have been gathered into the spare.
+    private long[] sortKeys = new long[0];
+    private long[] sortScratch = new long[0];
+    private final int[] digitCounts = new int[1 << RADIX_BITS];
+    private float[] spareFloats = new float[0];
+    private byte[] spareBytes = new byte[0];
+    private int[] spareInts = new int[0];
+    private boolean[] spareBooleans = new boolean[0];
+    private Rigidbody[] spareRigidbodies = new Rigidbody[0];
+    private Collider[] spareColliders = new Collider[0];
+    private ConvexPolygon[] sparePolygons = new ConvexPolygon[0];
+
+    /**
+     * Constructs an empty store.
+     */
+    BodyStore() {
+        allocate(16);
+    }
+
+    /**
+     * Copies the state of a rigid body and its collider into a new slot.
+     *
+     * @param rb       The rigid body to copy.
+     * @param collider The collider to copy.
+     * @return The handle of the new body.
+     */
+    int add(Rigidbody rb, Collider collider) {
+        if (freeCount == 0 && slotCount > SLOT_MASK) {
+            throw new IllegalStateException("Too many bodies");
+        }
+        if (count == posX.length) {
+            grow(count * 2);
+        }
+        int i = count++;
+        posX[i] = rb.position.x;
+        posY[i] = rb.position.y;
+        velX[i] = rb.velocity.x;
+        velY[i] = rb.velocity.y;
+        forceX[i] = rb.forceAccum.x;
+        forceY[i] = rb.forceAccum.y;
+        invMass[i] = rb.mass > 0.0f ? 1.0f / rb.mass : 0.0f;
+        radius[i] = collider.getRadius();
+        halfX[i] = collider.getHalfSize().x;
+        halfY[i] = collider.getHalfSize().y;
+        shape[i] = collider.getType().ordinal();
+        polygon[i] = collider.getPolygon();
+        boolean turns = shape[i] != AABB;
+        rotCos[i] = turns ? (float) Math.cos(rb.angle) : 1.0f;
+        rotSin[i] = turns ? (float) Math.sin(rb.angle) : 0.0f;
+        angVel[i] = turns ? rb.angularVelocity : 0.0f;
+        torque[i] = rb.torque;
+        float inertia = rb.inertia > 0.0f ? rb.inertia : collider.inertia(rb.mass);
+        invInertia[i] = turns && invMass[i] != 0.0f && inertia > 0.0f ? 1.0f / inertia : 0.0f;
+        awake[i] = invMass[i] != 0.0f;
+        sleepTime[i] = 0.0f;
+        flags[i] = (byte) ((rb.bullet ? BULLET : 0) | (collider.sensor ? SENSOR : 0));
+        category[i] = collider.category;
+        mask[i] = collider.mask;
+        rigidbodies[i] = rb;
+        colliders[i] = collider;
+
+        int slot;
+        if (freeCount > 0) {
+            slot = freeSlots[freeHead];
+            freeHead = (freeHead + 1) % freeSlots.length;
+            freeCount--;
+        } else {
+            if (slotCount == indexOf.length) {
+                indexOf = Arrays.copyOf(indexOf, Math.max(16, slotCount * 2));
+                generation = Arrays.copyOf(generation, indexOf.length);
+            }
+            slot = slotCount++;
+        }
+        int handle = slot | generation[slot] << SLOT_BITS;
+        indexOf[slot] = i;
+        handleOf[i] = handle;
+        return handle;
+    }
+
+    /**
+     * Removes a body by moving the last body into its index. The views of the removed body are
+     * refreshed and detached, so they can be added to a world again, and the slot of its handle is
+     * freed for a new handle of the next generation.
+     *
+     * @param handle The handle of the body.
+     */
+    void remove(int handle) {
+        int slot = handle & SLOT_MASK;
+        int i = indexOf[slot];
+        Rigidbody rb = rigidbodies[i];
+        Collider collider = colliders[i];
+        rb.getPosition();
+        rb.getVelocity();
+        rb.forceAccum.set(forceX[i], forceY[i]);
+        rb.getAngle();
+        rb.getAngularVelocity();
+        rb.torque = torque[i];
+        collider.getCenter();
+        rb.store = null;
+        collider.store = null;
+
+        int last = --count;
+        if (i != last) {
+            posX[i] = posX[last];
+            posY[i] = posY[last];
+            velX[i] = velX[last];
+            velY[i] = velY[last];
+            forceX[i] = forceX[last];
+            forceY[i] = forceY[last];
+            rotCos[i] = rotCos[last];
+            rotSin[i] = rotSin[last];
+            angVel[i] = angVel[last];
+            torque[i] = torque[last];
+            invMass[i] = invMass[last];
+            invInertia[i] = invInertia[last];
+            radius[i] = radius[last];
+            halfX[i] = halfX[last];
+            halfY[i] = halfY[last];
+            shape[i] = shape[last];
+            polygon[i] = polygon[last];
+            awake[i] = awake[last];
+            sleepTime[i] = sleepTime[last];
+            flags[i] = flags[last];
+            category[i] = category[last];
+            mask[i] = mask[last];
+            rigidbodies[i] = rigidbodies[last];
+            colliders[i] = colliders[last];
+            handleOf[i] = handleOf[last];
+            indexOf[handleOf[i] & SLOT_MASK] = i;
+        }
+        rigidbodies[last] = null;
+        colliders[last] = null;
+        polygon[last] = null;
+        indexOf[slot] = -1;
+        generation[slot] = (short) ((generation[slot] + 1) & GENERATION_MASK);
+        if (freeCount == freeSlots.length) {
+            int[] grown = new int[Math.max(16, freeCount * 2)];
+            copyFreeSlots(grown);
+            freeSlots = grown;
+            freeHead = 0;
+        }
+        freeSlots[(freeHead + freeCount++) % freeSlots.length] = slot;
+    }
+
+    /**
+     * Copies the free slots in the order they will be reused.
+     *
+     * @param to The array to copy into, with room for {@link #freeCount} slots.
+     */
+    void copyFreeSlots(int[] to) {
+        for (int k = 0; k < freeCount; k++) {
+            to[k] = freeSlots[(freeHead + k) % freeSlots.length];
+        }
+    }
+
+    /**
+     * Checks whether a handle refers to a body of the store.
+     *
+     * @param handle The handle to check.
+     * @return True if the handle was handed out and its body has not been removed.
+     */
+    boolean contains(int handle) {
+        if (handle < 0 || (handle & SLOT_MASK) >= slotCount) return false;
+        int i = indexOf[handle & SLOT_MASK];
+        return i >= 0 && handleOf[i] == handle;
+    }
+
+    /**
+     * Gets the current index of a body.
+     *
+     * @param handle The handle of the body.
+     * @return The index of the body in the columns, or -1 if its slot is free. A removed handle
+     *         whose slot was reused gives the index of the new body; see {@link #contains}.
+     */
+    int index(int handle) {
+        return indexOf[handle & SLOT_MASK];
+    }
+
+    /**
+     * Gets the number of slots of the handle lookup table created so far, live or free.
+     *
+     * @return The slot count.
+     */
+    int slotCount() {
+        return slotCount;
+    }
+
+    /**
+     * Reorders the bodies along a Morton (Z-order) curve through their positions, so that bodies
+     * close to each other in space get close indices and a step walks the columns mostly in
+     * order. Positions are quantized to a 32768 by 32768 grid over the bounds of all bodies; bodies
+     * in the same cell keep their relative order. Handles and views keep referring to the same
+     * bodies, but every index may change.
+     *
+     * @return True if any body moved.
+     */
+    boolean sortByMorton() {
+        int n = count;
+        if (n < 2) return false;
+        float minX = Float.POSITIVE_INFINITY, minY = Float.POSITIVE_INFINITY;
+        float maxX = Float.NEGATIVE_INFINITY, maxY = Float.NEGATIVE_INFINITY;
+        for (int i = 0; i < n; i++) {
+            minX = Math.min(minX, posX[i]);
+            minY = Math.min(minY, posY[i]);
+            maxX = Math.max(maxX, posX[i]);
+            maxY = Math.max(maxY, posY[i]);
+        }
+        float scaleX = maxX > minX && maxX - minX < Float.POSITIVE_INFINITY ? 32767.0f / (maxX - minX) : 0.0f;
+        float scaleY = maxY > minY && maxY - minY < Float.POSITIVE_INFINITY ? 32767.0f / (maxY - minY) : 0.0f;
+
+        if (sortKeys.length < n) {
+            sortKeys = new long[posX.length];
+            sortScratch = new long[posX.length];
+        }
+        boolean sorted = true;
+        long previous = Long.MIN_VALUE;
+        for (int i = 0; i < n; i++) {
+            int cellX = Math.max(0, Math.min(32767, (int) ((posX[i] - minX) * scaleX)));
+            int cellY = Math.max(0, Math.min(32767, (int) ((posY[i] - minY) * scaleY)));
+            long key = (long) (spreadBits(cellX) | spreadBits(cellY) << 1) << 32 | i;
+            sorted &= key > previous;
+            previous = key;
+            sortKeys[i] = key;
+        }
+        if (sorted) return false;
+        sortKeysByCode(n);
+
+        int capacity = posX.length;
+        if (spareFloats.length != capacity) {
+            spareFloats = new float[capacity];
+            spareBytes = new byte[capacity];
+            spareInts = new int[capacity];
+            spareBooleans = new boolean[capacity];
+            spareRigidbodies = new Rigidbody[capacity];
+            spareColliders = new Collider[capacity];
+            sparePolygons = new ConvexPolygon[capacity];
+        }
+        posX = gather(posX, n);
+        posY = gather(posY, n);
+        velX = gather(velX, n);
+        velY = gather(velY, n);
+        forceX = gather(forceX, n);
+        forceY = gather(forceY, n);
+        rotCos = gather(rotCos, n);
+        rotSin = gather(rotSin, n);
+        angVel = gather(angVel, n);
+        torque = gather(torque, n);
+        invMass = gather(invMass, n);
+        invInertia = gather(invInertia, n);
+        radius = gather(radius, n);
+        halfX = gather(halfX, n);
+        halfY = gather(halfY, n);
+        sleepTime = gather(sleepTime, n);
+        shape = gather(shape, n);
+        awake = gather(awake, n);
+        flags = gather(flags, n);
+        category = gather(category, n);
+        mask = gather(mask, n);
+        handleOf = gather(handleOf, n);
+
+        Rigidbody[] rbs = spareRigidbodies;
+        Collider[] cols = spareColliders;
+        ConvexPolygon[] polys = sparePolygons;
+        for (int k = 0; k < n; k++) {
+            int from = (int) sortKeys[k];
+            rbs[k] = rigidbodies[from];
+            cols[k] = colliders[from];
+            polys[k] = polygon[from];
+        }
+        Arrays.fill(rigidbodies, 0, n, null);
+        Arrays.fill(colliders, 0, n, null);
+        Arrays.fill(polygon, 0, n, null);
+        spareRigidbodies = rigidbodies;
+        spareColliders = colliders;
+        sparePolygons = polygon;
+        rigidbodies = rbs;
+        colliders = cols;
+        polygon = polys;
+
+        for (int i = 0; i < n; i++) {
+            indexOf[handleOf[i] & SLOT_MASK] = i;
+        }
+        return true;
+    }
+
+    /**
+     * Moves the values of a column into the order of the sort keys, through the spare column.
+     *
+     * @return The reordered column; the old one becomes the spare.
+     */
+    private float[] gather(float[] column, int n) {
+        float[] out = spareFloats;
+        for (int k = 0; k < n; k++) {
+            out[k] = column[(int) sortKeys[k]];
+        }
+        spareFloats = column;
+        return out;
+    }
+
+    /**
+     * Moves the values of a byte column into the order of the sort keys, like {@link #gather(float[], int)}.
+     */
+    private byte[] gather(byte[] column, int n) {
+        byte[] out = spareBytes;
+        for (int k = 0; k < n; k++) {
+            out[k] = column[(int) sortKeys[k]];
+        }
+        spareBytes = column;
+        return out;
+    }
+
+    /**
+     * Moves the values of an int column into the order of the sort keys, like {@link #gather(float[], int)}.
+     */
+    private int[] gather(int[] column, int n) {
+        int[] out = spareInts;
+        for (int k = 0; k < n; k++) {
+            out[k] = column[(int) sortKeys[k]];
+        }
+        spareInts = column;
+        return out;
+    }
+
+    /**
+     * Moves the values of a boolean column into the order of the sort keys, like {@link #gather(float[], int)}.
+     */
+    private boolean[] gather(boolean[] column, int n) {
+        boolean[] out = spareBooleans;
+        for (int k = 0; k < n; k++) {
+            out[k] = column[(int) sortKeys[k]];
+        }
+        spareBooleans = column;
+        return out;
+    }
+
+    /**
+     * Sorts the first {@code n} sort keys by the Morton code in their upper half with a radix sort
+     * over preallocated buffers, so reordering never allocates once warm. The keys start in index
+     * order and the sort is stable, so bodies with the same code keep their relative order.
+     */
+    private void sortKeysByCode(int n) {
+        long[] source = sortKeys;
+        long[] target = sortScratch;
+        int mask = (1 << RADIX_BITS) - 1;
+        for (int shift = 32; shift < 32 + MORTON_BITS; shift += RADIX_BITS) {
+            Arrays.fill(digitCounts, 0);
+            for (int k = 0; k < n; k++) {
+                digitCounts[(int) (source[k] >>> shift) & mask]++;
+            }
+            int offset = 0;
+            for (int digit = 0; digit <= mask; digit++) {
+                int count = digitCounts[digit];
+                digitCounts[digit] = offset;
+                offset += count;
+            }
+            for (int k = 0; k < n; k++) {
+                long key = source[k];
+                target[digitCounts[(int) (key >>> shift) & mask]++] = key;
+            }
+            long[] swap = source;
+            source = target;
+            target = swap;
+        }
+        sortKeys = source;
+        sortScratch = target;
+    }
+
+    /**
+     * Spreads the low 15 bits of a value to the even bits of the result.
+     */
+    private static int spreadBits(int v) {
+        v = (v | v << 8) & 0x00FF00FF;
+        v = (v | v << 4) & 0x0F0F0F0F;
+        v = (v | v << 2) & 0x33333333;
+        return (v | v << 1) & 0x55555555;
+    }
+
+    /**
+     * Empties the store and sizes it for restored columns. The caller fills the columns of the
+     * first {@code count} indices and the generation of every slot, and then calls
+     * {@link #endRestore}.
+     *
+     * @param count     The number of bodies being restored.
+     * @param slotCount The number of slots of the saved store; every slot without a body is free.
+     */
+    void beginRestore(int count, int slotCount) {
+        if (count > posX.length) {
+            grow(count);
+        }
+        Arrays.fill(rigidbodies, null);
+        Arrays.fill(colliders, null);
+        Arrays.fill(polygon, null);
+        this.count = count;
+        this.slotCount = slotCount;
+        if (indexOf.length < slotCount) {
+            indexOf = new int[slotCount];
+            generation = new short[slotCount];
+        }
+    }
+
+    /**
+     * Rebuilds the handle lookup from the restored {@link #handleOf} column, takes the free slots
+     * and creates a pair of view objects bound to every body.
+     *
+     * @param free The free slots in the order they will be reused, one for every slot without a body.
+     */
+    void endRestore(int[] free) {
+        freeCount = slotCount - count;
+        freeHead = 0;
+        if (freeSlots.length < freeCount) {
+            freeSlots = new int[freeCount];
+        }
+        System.arraycopy(free, 0, freeSlots, 0, freeCount);
+        Arrays.fill(indexOf, -1);
+        for (int i = 0; i < count; i++) {
+            int handle = handleOf[i];
+            indexOf[handle & SLOT_MASK] = i;
+            Rigidbody rb = new Rigidbody(invMass[i] != 0.0f ? 1.0f / invMass[i] : 0.0f);
+            rb.position.set(posX[i], posY[i]);
+            rb.velocity.set(velX[i], velY[i]);
+            rb.angle = (float) Math.atan2(rotSin[i], rotCos[i]);
+            rb.angularVelocity = angVel[i];
+            rb.inertia = invInertia[i] != 0.0f ? 1.0f / invInertia[i] : 0.0f;
+            rb.bullet = (flags[i] & BULLET) != 0;
+            Collider collider = new Collider(Collider.Type.values()[shape[i]], new Vector2D(posX[i], posY[i]),
+                    radius[i], new Vector2D(halfX[i], halfY[i]));
+            collider.polygon = polygon[i];
+            collider.category = category[i];
+            collider.mask = mask[i];
+            collider.sensor = (flags[i] & SENSOR) != 0;
+            rb.store = this;
+            rb.handle = handle;
+            collider.store = this;
+            collider.handle = handle;
+            rigidbodies[i] = rb;
+            colliders[i] = collider;
+        }
+    }
+
+    /**
+     * Wakes a body up and restarts its sleep timer. Static bodies stay inactive.
+     *
+     * @param i The index of the body.
+     */
+    void wake(int i) {
+        if (invMass[i] != 0.0f) {
+            awake[i] = true;
+            sleepTime[i] = 0.0f;
+        }
+    }
+
+    /**
+     * Advances the bodies in a range of indices with semi-implicit Euler, then clears their forces
+     * and torques: velocities are updated first, and positions and orientations then move by the new
+     * velocities, which keeps orbits and oscillations from gaining energy step after step.
+     * Gravity is added to the acceleration of every body. Static and sleeping bodies are skipped.
+     *
+     * The orientation is turned by the angle {@code t = angVel * duration}, with its cosine and sine
+     * taken as {@code 1 - t * t / 2} and {@code t}, then normalized back onto the unit circle. That
+     * turns it by {@code atan2(t, 1 - t * t / 2)} instead of {@code t}, about 0.5% too far for turns
+     * of 10 degrees a step and less for smaller ones, and keeps the loop free of calls to sine and
+     * cosine. {@link Rigidbody#integrate} turns a body outside a world by the same angle.
+     *
+     * @param from     The first index, inclusive.
+     * @param to       The last index, exclusive.
+     * @param duration The time step, in seconds.
+     */
+    void integrate(int from, int to, float duration) {
+        for (int i = from; i < to; i++) {
+            if (!awake[i]) continue;
+            float inverseMass = invMass[i];
+            velX[i] += (forceX[i] * inverseMass + gravityX) * duration;
+            velY[i] += (forceY[i] * inverseMass + gravityY) * duration;
+            angVel[i] += torque[i] * invInertia[i] * duration;
+            posX[i] += velX[i] * duration;
+            posY[i] += velY[i] * duration;
+            float turn = angVel[i] * duration;
+            float turnCos = 1.0f - 0.5f * turn * turn;
+            float cos = rotCos[i] * turnCos - rotSin[i] * turn;
+            float sin = rotSin[i] * turnCos + rotCos[i] * turn;
+            float inverseLength = 1.0f / (float) Math.sqrt(cos * cos + sin * sin);
+            rotCos[i] = cos * inverseLength;
+            rotSin[i] = sin * inverseLength;
+            forceX[i] = 0.0f;
+            forceY[i] = 0.0f;
+            torque[i] = 0.0f;
+        }
+    }
+
+    /**
+     * Sets the orientation of a body, unless it is a box, which always stays axis-aligned.
+     *
+     * @param i     The index of the body.
+     * @param angle The angle, counter-clockwise, in radians.
+     */
+    void setAngle(int i, float angle) {
+        if (shape[i] == AABB) return;
+        rotCos[i] = (float) Math.cos(angle);
+        rotSin[i] = (float) Math.sin(angle);
+        moved = true;
+    }
+
+    /**
+     * Gets half the width of the bounding box of a body at its current orientation. For polygons,
+     * this is the box around their turned extent, which holds the turned polygon.
+     *
+     * @param i The index of the body.
+     * @return The half width.
+     */
+    float extentX(int i) {
+        return shape[i] == CIRCLE ? radius[i] : Math.abs(rotCos[i]) * halfX[i] + Math.abs(rotSin[i]) * halfY[i];
+    }
+
+    /**
+     * Gets half the height of the bounding box of a body at its current orientation, like {@link #extentX}.
+     *
+     * @param i The index of the body.
+     * @return The half height.
+     */
+    float extentY(int i) {
+        return shape[i] == CIRCLE ? radius[i] : Math.abs(rotSin[i]) * halfX[i] + Math.abs(rotCos[i]) * halfY[i];
+    }
+
+    /**
+     * Writes the bounding boxes of the bodies in a range of indices into the given arrays.
+     *
+     * @param from The first index, inclusive.
+     * @param to   The last index, exclusive.
+     * @param minX The array receiving the minimum x of each box.
+     * @param minY The array receiving the minimum y of each box.
+     * @param maxX The array receiving the maximum x of each box.
+     * @param maxY The array receiving the maximum y of each box.
+     */
+    void computeBounds(int from, int to, float[] minX, float[] minY, float[] maxX, float[] maxY) {
+        for (int i = from; i < to; i++) {
+            float extentX = extentX(i);
+            float extentY = extentY(i);
+            minX[i] = posX[i] - extentX;
+            minY[i] = posY[i] - extentY;
+            maxX[i] = posX[i] + extentX;
+            maxY[i] = posY[i] + extentY;
+        }
+    }
+
+    /**
+     * Marks the awake circles of a range of indices that need continuous collision this step, and
+     * grows their bounding boxes to cover their whole motion. A circle is swept if it is flagged as
+     * a bullet or moved farther than its radius, which is when a discrete test can miss a contact.
+     * The motion of a step is recovered from the integrated velocity, so no position is saved.
+     *
+     * @param from     The first index, inclusive.
+     * @param to       The last index, exclusive.
+     * @param duration The time step, in seconds.
+     * @param minX     The minimum x of each box, as computed by {@link #computeBounds}.
+     * @param minY     The minimum y of each box.
+     * @param maxX     The maximum x of each box.
+     * @param maxY     The maximum y of each box.
+     * @param swept    Receives 1 for swept bodies and 0 for the others.
+     * @return The number of swept bodies.
+     */
+    int sweepBounds(int from, int to, float duration,
+                    float[] minX, float[] minY, float[] maxX, float[] maxY, byte[] swept) {
+        int sweptCount = 0;
+        for (int i = from; i < to; i++) {
+            swept[i] = 0;
+            if (!awake[i] || shape[i] != CIRCLE || (flags[i] & SENSOR) != 0) continue;
+            float moveX = velX[i] * duration;
+            float moveY = velY[i] * duration;
+            float r = radius[i];
+            if ((flags[i] & BULLET) == 0 && moveX * moveX + moveY * moveY <= r * r) continue;
+            float startX = posX[i] - moveX;
+            float startY = posY[i] - moveY;
+            minX[i] = Math.min(minX[i], startX - r);
+            minY[i] = Math.min(minY[i], startY - r);
+            maxX[i] = Math.max(maxX[i], startX + r);
+            maxY[i] = Math.max(maxY[i], startY + r);
+            swept[i] = 1;
+            sweptCount++;
+        }
+        return sweptCount;
+    }
+
+    /**
+     * Allocates every column with the given capacity.
+     */
+    private void allocate(int capacity) {
+        posX = new float[capacity];
+        posY = new float[capacity];
+        velX = new float[capacity];
+        velY = new float[capacity];
+        forceX = new float[capacity];
+        forceY = new float[capacity];
+        rotCos = new float[capacity];
+        rotSin = new float[capacity];
+        angVel = new float[capacity];
+        torque = new float[capacity];
+        invMass = new float[capacity];
+        invInertia = new float[capacity];
+        radius = new float[capacity];
+        halfX = new float[capacity];
+        halfY = new float[capacity];
+        shape = new int[capacity];
+        polygon = new ConvexPolygon[capacity];
+        awake = new boolean[capacity];
+        sleepTime = new float[capacity];
+        flags = new byte[capacity];
+        category = new int[capacity];
+        mask = new int[capacity];
+        rigidbodies = new Rigidbody[capacity];
+        colliders = new Collider[capacity];
+        handleOf = new int[capacity];
+    }
+
+    /**
+     * Grows every column to the given capacity, keeping its contents.
+     */
+    private void grow(int capacity) {
+        posX = Arrays.copyOf(posX, capacity);
+        posY = Arrays.copyOf(posY, capacity);
+        velX = Arrays.copyOf(velX, capacity);
+        velY = Arrays.copyOf(velY, capacity);
+        forceX = Arrays.copyOf(forceX, capacity);
+        forceY = Arrays.copyOf(forceY, capacity);
+        rotCos = Arrays.copyOf(rotCos, capacity);
+        rotSin = Arrays.copyOf(rotSin, capacity);
+        angVel = Arrays.copyOf(angVel, capacity);
+        torque = Arrays.copyOf(torque, capacity);
+        invMass = Arrays.copyOf(invMass, capacity);
+        invInertia = Arrays.copyOf(invInertia, capacity);
+        radius = Arrays.copyOf(radius, capacity);
+        halfX = Arrays.copyOf(halfX, capacity);
+        halfY = Arrays.copyOf(halfY, capacity);
+        shape = Arrays.copyOf(shape, capacity);
+        polygon = Arrays.copyOf(polygon, capacity);
+        awake = Arrays.copyOf(awake, capacity);
+        sleepTime = Arrays.copyOf(sleepTime, capacity);
+        flags = Arrays.copyOf(flags, capacity);
+        category = Arrays.copyOf(category, capacity);
+        mask = Arrays.copyOf(mask, capacity);
+        rigidbodies = Arrays.copyOf(rigidbodies, capacity);
+        colliders = Arrays.copyOf(colliders, capacity);
+        handleOf = Arrays.copyOf(handleOf, capacity);
+    }
+}
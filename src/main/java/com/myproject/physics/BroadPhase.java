@@ -0,0 +1,74 @@
+package com.myproject.physics;
+
+/**
+ * A broad-phase collision strategy.
+ * Given the bounding boxes of every collider in the world, it reports the candidate
+ * pairs whose boxes overlap so that only those pairs reach the narrow phase.
+ * Bodies are identified by their index in the bounds arrays.
+ */
+public interface BroadPhase {
+
+    /**
+     * Receives candidate pairs produced by a broad phase.
+     */
+    @FunctionalInterface
+    interface PairCallback {
+
+        /**
+         * Called once for every candidate pair.
+         *
+         * @param a The index of the first body (always smaller than {@code b}).
+         * @param b The index of the second body.
+         */
+        void onPair(int a, int b);
+    }
+
+    /**
+     * Finds all pairs of bodies whose bounding boxes overlap (touching boxes count as overlapping).
+     * Every such pair must be reported exactly once, with the smaller index first.
+     * Pairs whose boxes do not overlap may be reported as well; the narrow phase rejects them.
+     *
+     * @param count    The number of bodies; indices run from 0 to {@code count - 1}.
+     * @param minX     The minimum x of each body's bounding box.
+     * @param minY     The minimum y of each body's bounding box.
+     * @param maxX     The maximum x of each body's bounding box.
+     * @param maxY     The maximum y of each body's bounding box.
+     * @param callback The callback receiving the candidate pairs.
+     */
+    void findPairs(int count, float[] minX, float[] minY, float[] maxX, float[] maxY, PairCallback callback);
+
+    /**
+     * Discards any state kept between steps.
+     * Called by the world whenever body indices no longer refer to the same bodies.
+     */
+    default void reset() {
+    }
+
+    /**
+     * Called by the world after removing a body, when the last body has been moved into the index
+     * of the removed one, so that state kept between steps can follow the move instead of being
+     * discarded. Bodies added since the last search may not be known to the broad phase yet.
+     * By default, discards all state with {@link #reset()}.
+     *
+     * @param index The index of the removed body, which now holds the body that was last.
+     * @param last  The former index of the last body, which no longer exists.
+     */
+    default void remove(int index, int last) {
+        reset();
+    }
+
+    /**
+     * Tests whether two bounding boxes overlap, counting touching boxes as overlapping.
+     *
+     * @param a    The index of the first box.
+     * @param b    The index of the second box.
+     * @param minX The minimum x of each box.
+     * @param minY The minimum y of each box.
+     * @param maxX The maximum x of each box.
+     * @param maxY The maximum y of each box.
+     * @return True if the boxes overlap, false otherwise.
+     */
+    static boolean overlaps(int a, int b, float[] minX, float[] minY, float[] maxX, float[] maxY) {
+        return !(maxX[a] < minX[b] || minX[a] > maxX[b] || maxY[a] < minY[b] || minY[a] > maxY[b]);
+    }
+}
@@ -0,0 +1,27 @@
+package com.myproject.physics;
+
+/**
+ * Reference broad phase that reports every pair of bodies.
+ * It is O(n²) and only meant for small scenes and for checking other broad phases for correctness.
+ */
+public class BruteForceBroadPhase implements BroadPhase {
+
+    /**
+     * Reports every pair (i, j) with i &lt; j, in lexicographic order.
+     *
+     * @param count    The number of bodies.
+     * @param minX     The minimum x of each body's bounding box (unused).
+     * @param minY     The minimum y of each body's bounding box (unused).
+     * @param maxX     The maximum x of each body's bounding box (unused).
+     * @param maxY     The maximum y of each body's bounding box (unused).
+     * @param callback The callback receiving the pairs.
+     */
+    @Override
+    public void findPairs(int count, float[] minX, float[] minY, float[] maxX, float[] maxY, PairCallback callback) {
+        for (int i = 0; i < count; i++) {
+            for (int j = i + 1; j < count; j++) {
+                callback.onPair(i, j);
+            }
+        }
+    }
+}
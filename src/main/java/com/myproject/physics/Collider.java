@@ -2,7 +2,10 @@ package com.myproject.physics;
 
 /**
  * Represents a collider used for collision detection in a 2D physics simulation.
- * Supports two types of colliders: Circle and Axis-Aligned Bounding Box (AABB).
+ * Supports three types of colliders: Circle, Axis-Aligned Bounding Box (AABB) and convex polygon.
+ * Once added to a {@link PhysicsWorld}, the collider is centered on its body and its center
+ * is read from and written to the world's arrays. Circles and polygons turn with their body;
+ * boxes are axis-aligned by definition and keep their body from turning.
  */
 public class Collider {
 
@@ -10,13 +13,21 @@ public class Collider {
      * Enum representing the type of the collider.
      */
     public enum Type {
-        CIRCLE, AABB
+        CIRCLE, AABB, POLYGON
     }
 
-    private Type type; // The type of the collider (CIRCLE or AABB).
+    private Type type; // The type of the collider (CIRCLE, AABB or POLYGON).
     private Vector2D center; // The center position of the collider.
     private float radius; // The radius of the collider (used for CIRCLE type only).
-    private Vector2D halfSize; // The half-size dimensions of the collider (used for AABB type only).
+    private Vector2D halfSize; // The half-size dimensions of the collider (used for AABB type, the extent of POLYGON type).
+    ConvexPolygon polygon; // The shape of the collider (used for POLYGON type only).
+
+    int category = 1; // Collision categories this collider belongs to, as bits.
+    int mask = -1; // Collision categories this collider interacts with, as bits.
+    boolean sensor; // Whether the collider reports overlaps instead of colliding.
+
+    BodyStore store; // The storage of the world this collider belongs to, or null.
+    int handle; // The handle of the collider's body in the store.
 
     /**
      * Constructs a collider with the specified type, center, radius, and half-size.
@@ -55,10 +66,47 @@ public class Collider {
         this(type, center, 0.0f, halfSize);
     }
 
+    /**
+     * Constructs a convex polygon collider, turned however its vertices are. Its half size is that of
+     * the smallest box centered on the collider that holds the polygon.
+     *
+     * @param polygon The shape of the collider, relative to its center.
+     * @param center  The center position of the collider.
+     */
+    public Collider(ConvexPolygon polygon, Vector2D center) {
+        this(Type.POLYGON, center, 0.0f, new Vector2D(polygon.halfX, polygon.halfY));
+        this.polygon = polygon;
+    }
+
+    /**
+     * Puts a detached collider back in the state of a new one with the given shape, centered on the
+     * origin, in category 1, interacting with all categories, and not a sensor.
+     *
+     * @param type    The type of the collider.
+     * @param radius  The radius of the collider (used for CIRCLE type).
+     * @param halfX   The half width of the collider (used for AABB type).
+     * @param halfY   The half height of the collider (used for AABB type).
+     * @param polygon The shape of the collider (used for POLYGON type, whose half size it sets).
+     */
+    void reset(Type type, float radius, float halfX, float halfY, ConvexPolygon polygon) {
+        this.type = type;
+        this.radius = radius;
+        this.polygon = type == Type.POLYGON ? polygon : null;
+        center.set(0, 0);
+        if (type == Type.POLYGON) {
+            halfSize.set(polygon.halfX, polygon.halfY);
+        } else {
+            halfSize.set(halfX, halfY);
+        }
+        category = 1;
+        mask = -1;
+        sensor = false;
+    }
+
     /**
      * Gets the type of the collider.
      *
-     * @return The type of the collider (CIRCLE or AABB).
+     * @return The type of the collider (CIRCLE, AABB or POLYGON).
      */
     public Type getType() {
         return type;
@@ -67,9 +115,14 @@ public class Collider {
     /**
      * Gets the center position of the collider.
      *
-     * @return The center position of the collider.
+     * @return The center position of the collider, refreshed from the world if the collider belongs to one.
      */
     public Vector2D getCenter() {
+        if (store != null) {
+            int i = store.index(handle);
+            center.x = store.posX[i];
+            center.y = store.posY[i];
+        }
         return center;
     }
 
@@ -85,21 +138,217 @@ public class Collider {
     /**
      * Gets the half-size dimensions of the collider.
      *
-     * @return The half-size dimensions of the collider (used for AABB type).
+     * @return The half-size dimensions of the collider (used for AABB type, and the extent of POLYGON
+     *         type before it turns with its body).
      */
     public Vector2D getHalfSize() {
         return halfSize;
     }
 
+    /**
+     * Gets the shape of a polygon collider.
+     *
+     * @return The convex polygon, or null if the collider is not of POLYGON type.
+     */
+    public ConvexPolygon getPolygon() {
+        return polygon;
+    }
+
+    /**
+     * Gets the minimum x coordinate of the collider's axis-aligned bounding box.
+     *
+     * @return The left edge of the bounding box.
+     */
+    public float getMinX() {
+        return getCenter().x - extentX();
+    }
+
+    /**
+     * Gets the minimum y coordinate of the collider's axis-aligned bounding box.
+     *
+     * @return The bottom edge of the bounding box.
+     */
+    public float getMinY() {
+        return getCenter().y - extentY();
+    }
+
+    /**
+     * Gets the maximum x coordinate of the collider's axis-aligned bounding box.
+     *
+     * @return The right edge of the bounding box.
+     */
+    public float getMaxX() {
+        return getCenter().x + extentX();
+    }
+
+    /**
+     * Gets the maximum y coordinate of the collider's axis-aligned bounding box.
+     *
+     * @return The top edge of the bounding box.
+     */
+    public float getMaxY() {
+        return getCenter().y + extentY();
+    }
+
+    /**
+     * Gets half the width of the bounding box, turned with the body if the collider belongs to a world.
+     */
+    private float extentX() {
+        if (type == Type.CIRCLE) return radius;
+        return Math.abs(rotationCos()) * halfSize.x + Math.abs(rotationSin()) * halfSize.y;
+    }
+
+    /**
+     * Gets half the height of the bounding box, turned with the body if the collider belongs to a world.
+     */
+    private float extentY() {
+        if (type == Type.CIRCLE) return radius;
+        return Math.abs(rotationSin()) * halfSize.x + Math.abs(rotationCos()) * halfSize.y;
+    }
+
+    /**
+     * Gets the cosine of the angle of the collider's body, or 1 if the collider belongs to no world.
+     */
+    private float rotationCos() {
+        return store != null ? store.rotCos[store.index(handle)] : 1.0f;
+    }
+
+    /**
+     * Gets the sine of the angle of the collider's body, or 0 if the collider belongs to no world.
+     */
+    private float rotationSin() {
+        return store != null ? store.rotSin[store.index(handle)] : 0.0f;
+    }
+
+    /**
+     * Computes the moment of inertia about the center of a body of the given mass with this shape.
+     *
+     * @param mass The mass of the body.
+     * @return The moment of inertia; that of a box is computed, though boxes never turn.
+     */
+    float inertia(float mass) {
+        return switch (type) {
+            case CIRCLE -> 0.5f * mass * radius * radius;
+            case AABB -> mass * (halfSize.x * halfSize.x + halfSize.y * halfSize.y) / 3.0f;
+            case POLYGON -> polygon.getInertia(mass);
+        };
+    }
+
     /**
      * Sets the center position of the collider.
      *
+     * If the collider belongs to a world, this moves and wakes its body, and the vector is copied rather than kept.
+     *
      * @param newCenter The new center position of the collider.
      */
     public void setCenter(Vector2D newCenter) {
+        if (store != null) {
+            int i = store.index(handle);
+            store.posX[i] = newCenter.x;
+            store.posY[i] = newCenter.y;
+            store.moved = true;
+            store.wake(i);
+            if (store.recorder != null) {
+                store.recorder.body(InputRecorder.POSITION, handle, newCenter.x, newCenter.y);
+            }
+            center.x = newCenter.x;
+            center.y = newCenter.y;
+            return;
+        }
         this.center = newCenter;
     }
 
+    /**
+     * Gets the collision categories this collider belongs to.
+     *
+     * @return The category bits.
+     */
+    public int getCategoryBits() {
+        return store != null ? store.category[store.index(handle)] : category;
+    }
+
+    /**
+     * Sets the collision categories this collider belongs to. Two colliders interact only if each
+     * one's categories share a bit with the other's mask; pairs that do not are dropped by the world
+     * as the broad phase reports them. By default a collider is in category 1 and interacts with all.
+     *
+     * @param category The category bits.
+     */
+    public void setCategoryBits(int category) {
+        setFilter(category, getMaskBits());
+    }
+
+    /**
+     * Gets the collision categories this collider interacts with.
+     *
+     * @return The mask bits.
+     */
+    public int getMaskBits() {
+        return store != null ? store.mask[store.index(handle)] : mask;
+    }
+
+    /**
+     * Sets the collision categories this collider interacts with. A mask of 0 lets the collider
+     * pass through everything; see {@link #setCategoryBits}.
+     *
+     * @param mask The mask bits.
+     */
+    public void setMaskBits(int mask) {
+        setFilter(getCategoryBits(), mask);
+    }
+
+    /**
+     * Sets both the categories of this collider and the categories it interacts with.
+     * Sleeping bodies are not woken, so a newly allowed pair of sleeping bodies is only found once
+     * one of them wakes.
+     *
+     * @param category The category bits.
+     * @param mask     The mask bits.
+     */
+    public void setFilter(int category, int mask) {
+        this.category = category;
+        this.mask = mask;
+        if (store != null) {
+            int i = store.index(handle);
+            store.category[i] = category;
+            store.mask[i] = mask;
+            if (store.recorder != null) {
+                store.recorder.filter(handle, category, mask);
+            }
+        }
+    }
+
+    /**
+     * Checks whether the collider is a sensor.
+     *
+     * @return True if the collider reports overlaps instead of colliding.
+     */
+    public boolean isSensor() {
+        if (store != null) {
+            return (store.flags[store.index(handle)] & BodyStore.SENSOR) != 0;
+        }
+        return sensor;
+    }
+
+    /**
+     * Sets whether the collider is a sensor. A sensor is tested against the bodies its filter allows
+     * like any collider, but its overlaps are reported to the world's
+     * {@link PhysicsWorld#setSensorListener sensor listener} instead of being resolved: nothing
+     * bounces off it, and it wakes nothing. Two sensors never report each other.
+     *
+     * @param sensor True to make the collider a sensor.
+     */
+    public void setSensor(boolean sensor) {
+        this.sensor = sensor;
+        if (store != null) {
+            int i = store.index(handle);
+            store.flags[i] = (byte) (sensor ? store.flags[i] | BodyStore.SENSOR : store.flags[i] & ~BodyStore.SENSOR);
+            if (store.recorder != null) {
+                store.recorder.flags(handle, store.flags[i]);
+            }
+        }
+    }
+
     /**
      * Checks for a collision between this collider and another collider.
      *
@@ -107,16 +356,184 @@ public class Collider {
      * @return True if a collision is detected, false otherwise.
      */
     public boolean checkCollision(Collider other) {
-        if (this.type == Type.CIRCLE && other.type == Type.CIRCLE) {
-            return checkCircleCircleCollision(other);
-        } else if (this.type == Type.AABB && other.type == Type.AABB) {
-            return checkAABBAABBCollision(other);
-        } else if (this.type == Type.CIRCLE && other.type == Type.AABB) {
-            return checkCircleAABBCollision(other);
-        } else if (this.type == Type.AABB && other.type == Type.CIRCLE) {
-            return other.checkCircleAABBCollision(this);
+        this.getCenter();
+        other.getCenter();
+        return switch (this.type.ordinal() * BodyStore.SHAPES + other.type.ordinal()) {
+            case BodyStore.CIRCLE * BodyStore.SHAPES + BodyStore.CIRCLE -> checkCircleCircleCollision(other);
+            case BodyStore.AABB * BodyStore.SHAPES + BodyStore.AABB -> checkAABBAABBCollision(other);
+            case BodyStore.CIRCLE * BodyStore.SHAPES + BodyStore.AABB -> checkCircleAABBCollision(other);
+            case BodyStore.AABB * BodyStore.SHAPES + BodyStore.CIRCLE -> other.checkCircleAABBCollision(this);
+            case BodyStore.CIRCLE * BodyStore.SHAPES + BodyStore.POLYGON -> other.checkPolygonCircleCollision(this);
+            case BodyStore.POLYGON * BodyStore.SHAPES + BodyStore.CIRCLE -> checkPolygonCircleCollision(other);
+            default -> checkPolygonPolygonCollision(other); // Boxes are tested as polygons against polygons.
+        };
+    }
+
+    /**
+     * Checks whether this collider overlaps an axis-aligned region.
+     *
+     * @param minX The minimum x of the region.
+     * @param minY The minimum y of the region.
+     * @param maxX The maximum x of the region.
+     * @param maxY The maximum y of the region.
+     * @return True if the collider's shape touches the region, false otherwise.
+     */
+    public boolean overlapsRegion(float minX, float minY, float maxX, float maxY) {
+        getCenter();
+        if (type == Type.AABB) {
+            return !(getMaxX() < minX || getMinX() > maxX || getMaxY() < minY || getMinY() > maxY);
+        }
+        if (type == Type.POLYGON) {
+            // Test the region in the frame of the polygon, where it is turned the other way.
+            float halfX = (maxX - minX) * 0.5f;
+            float halfY = (maxY - minY) * 0.5f;
+            float cos = rotationCos();
+            float sin = rotationSin();
+            float dx = minX + halfX - center.x;
+            float dy = minY + halfY - center.y;
+            return NarrowPhase.polygonsOverlap(polygon, 1.0f, 1.0f, ConvexPolygon.UNIT_BOX, halfX, halfY,
+                    cos, -sin, cos * dx + sin * dy, cos * dy - sin * dx);
+        }
+        float closestX = Math.max(minX, Math.min(center.x, maxX));
+        float closestY = Math.max(minY, Math.min(center.y, maxY));
+        float distanceX = center.x - closestX;
+        float distanceY = center.y - closestY;
+        return distanceX * distanceX + distanceY * distanceY <= radius * radius;
+    }
+
+    /**
+     * Casts a ray {@code origin + t * direction} against this collider.
+     *
+     * @param origin    The start of the ray.
+     * @param direction The direction of the ray; it does not need to be normalized.
+     * @param maxT      The largest ray parameter to consider.
+     * @return The hit with the smallest {@code t} in {@code [0, maxT]}, or null if the ray misses.
+     */
+    public RaycastHit raycast(Vector2D origin, Vector2D direction, float maxT) {
+        getCenter();
+        if (type == Type.CIRCLE) {
+            return raycastCircle(origin, direction, maxT);
+        }
+        if (type == Type.POLYGON) {
+            return raycastPolygon(origin, direction, maxT);
+        }
+        return raycastAABB(origin, direction, maxT);
+    }
+
+    /**
+     * Casts a ray against a circle by solving |origin + t * direction - center|² = radius².
+     */
+    private RaycastHit raycastCircle(Vector2D origin, Vector2D direction, float maxT) {
+        Vector2D m = origin.subtract(center);
+        float c = m.dot(m) - radius * radius;
+        if (c <= 0.0f) {
+            return new RaycastHit(this, 0.0f, origin, insideNormal(direction));
         }
-        return false;
+        float a = direction.dot(direction);
+        float b = m.dot(direction);
+        if (b >= 0.0f || a == 0.0f) return null;
+        float discriminant = b * b - a * c;
+        if (discriminant < 0.0f) return null;
+        float t = (-b - (float) Math.sqrt(discriminant)) / a;
+        if (t > maxT) return null;
+        Vector2D point = origin.add(direction.multiply(t));
+        Vector2D normal = point.subtract(center);
+        normal.normalize();
+        return new RaycastHit(this, t, point, normal);
+    }
+
+    /**
+     * Casts a ray against a box using the slab method.
+     */
+    private RaycastHit raycastAABB(Vector2D origin, Vector2D direction, float maxT) {
+        if (origin.x >= getMinX() && origin.x <= getMaxX() && origin.y >= getMinY() && origin.y <= getMaxY()) {
+            return new RaycastHit(this, 0.0f, origin, insideNormal(direction));
+        }
+        float tEnter = 0.0f;
+        float tExit = maxT;
+        Vector2D normal = null;
+        float[] origins = {origin.x, origin.y};
+        float[] directions = {direction.x, direction.y};
+        float[] mins = {getMinX(), getMinY()};
+        float[] maxs = {getMaxX(), getMaxY()};
+        for (int axis = 0; axis < 2; axis++) {
+            if (directions[axis] == 0.0f) {
+                if (origins[axis] < mins[axis] || origins[axis] > maxs[axis]) return null;
+                continue;
+            }
+            float inverse = 1.0f / directions[axis];
+            float t1 = (mins[axis] - origins[axis]) * inverse;
+            float t2 = (maxs[axis] - origins[axis]) * inverse;
+            float sign = -1.0f;
+            if (t1 > t2) {
+                float swap = t1;
+                t1 = t2;
+                t2 = swap;
+                sign = 1.0f;
+            }
+            if (t1 > tEnter) {
+                tEnter = t1;
+                normal = axis == 0 ? new Vector2D(sign, 0) : new Vector2D(0, sign);
+            }
+            tExit = Math.min(tExit, t2);
+            if (tEnter > tExit) return null;
+        }
+        if (normal == null) return null;
+        return new RaycastHit(this, tEnter, origin.add(direction.multiply(tEnter)), normal);
+    }
+
+    /**
+     * Casts a ray against a convex polygon by clipping it against the half-plane of every edge.
+     */
+    private RaycastHit raycastPolygon(Vector2D origin, Vector2D direction, float maxT) {
+        // Cast in the frame of the polygon.
+        float cos = rotationCos();
+        float sin = rotationSin();
+        float offsetX = origin.x - center.x;
+        float offsetY = origin.y - center.y;
+        float startX = cos * offsetX + sin * offsetY;
+        float startY = cos * offsetY - sin * offsetX;
+        float directionX = cos * direction.x + sin * direction.y;
+        float directionY = cos * direction.y - sin * direction.x;
+        float tEnter = 0.0f;
+        float tExit = maxT;
+        int edge = -1;
+        for (int i = 0; i < polygon.count; i++) {
+            float nx = polygon.normalX[i];
+            float ny = polygon.normalY[i];
+            float outside = nx * (startX - polygon.x[i]) + ny * (startY - polygon.y[i]);
+            float approach = nx * directionX + ny * directionY;
+            if (approach == 0.0f) {
+                if (outside > 0.0f) return null;
+                continue;
+            }
+            float t = -outside / approach;
+            if (approach < 0.0f) {
+                if (t > tEnter) {
+                    tEnter = t;
+                    edge = i;
+                }
+            } else {
+                tExit = Math.min(tExit, t);
+            }
+            if (tEnter > tExit) return null;
+        }
+        if (edge < 0) {
+            return new RaycastHit(this, 0.0f, origin, insideNormal(direction));
+        }
+        float nx = polygon.normalX[edge];
+        float ny = polygon.normalY[edge];
+        return new RaycastHit(this, tEnter, origin.add(direction.multiply(tEnter)),
+                new Vector2D(cos * nx - sin * ny, sin * nx + cos * ny));
+    }
+
+    /**
+     * Normal reported for rays that start inside a collider: the reversed ray direction.
+     */
+    private static Vector2D insideNormal(Vector2D direction) {
+        Vector2D normal = direction.multiply(-1.0f);
+        normal.normalize();
+        return normal;
     }
 
     /**
@@ -126,8 +543,9 @@ public class Collider {
      * @return True if a collision is detected, false otherwise.
      */
     private boolean checkCircleCircleCollision(Collider other) {
-        Vector2D diff = other.center.subtract(this.center);
-        float distanceSquared = diff.dot(diff);
+        float dx = other.center.x - this.center.x;
+        float dy = other.center.y - this.center.y;
+        float distanceSquared = dx * dx + dy * dy;
         float radiusSum = this.radius + other.radius;
         return distanceSquared <= radiusSum * radiusSum;
     }
@@ -167,4 +585,60 @@ public class Collider {
         return (distanceX * distanceX + distanceY * distanceY)
                 < (this.radius * this.radius);
     }
-}
\ No newline at end of file
+
+    /**
+     * Checks for a collision between a polygon collider and a circle collider.
+     *
+     * @param circle The circle collider.
+     * @return True if a collision is detected, false otherwise.
+     */
+    private boolean checkPolygonCircleCollision(Collider circle) {
+        float cos = rotationCos();
+        float sin = rotationSin();
+        float dx = circle.center.x - this.center.x;
+        float dy = circle.center.y - this.center.y;
+        return NarrowPhase.polygonTouchesCircle(polygon, 1.0f, 1.0f, cos * dx + sin * dy, cos * dy - sin * dx,
+                circle.radius);
+    }
+
+    /**
+     * Checks for a collision between two colliders that are each a box or a polygon, with the
+     * separating axis test.
+     *
+     * @param other The other collider.
+     * @return True if a collision is detected, false otherwise.
+     */
+    private boolean checkPolygonPolygonCollision(Collider other) {
+        // Test in the frame of this collider, with the other turned by the difference of their angles.
+        float cosA = this.rotationCos();
+        float sinA = this.rotationSin();
+        float cosB = other.rotationCos();
+        float sinB = other.rotationSin();
+        float dx = other.center.x - this.center.x;
+        float dy = other.center.y - this.center.y;
+        return NarrowPhase.polygonsOverlap(this.satPolygon(), this.satScaleX(), this.satScaleY(),
+                other.satPolygon(), other.satScaleX(), other.satScaleY(),
+                cosA * cosB + sinA * sinB, cosA * sinB - sinA * cosB, cosA * dx + sinA * dy, cosA * dy - sinA * dx);
+    }
+
+    /**
+     * Gets the polygon a box or polygon collider is tested as: its own, or the unit box for boxes.
+     */
+    private ConvexPolygon satPolygon() {
+        return type == Type.AABB ? ConvexPolygon.UNIT_BOX : polygon;
+    }
+
+    /**
+     * Gets the horizontal scale of {@link #satPolygon()}: the half width of boxes, 1 for polygons.
+     */
+    private float satScaleX() {
+        return type == Type.AABB ? halfSize.x : 1.0f;
+    }
+
+    /**
+     * Gets the vertical scale of {@link #satPolygon()}: the half height of boxes, 1 for polygons.
+     */
+    private float satScaleY() {
+        return type == Type.AABB ? halfSize.y : 1.0f;
+    }
+}
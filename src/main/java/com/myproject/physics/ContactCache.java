@@ -0,0 +1,131 @@
+package com.myproject.physics;
+
+/**
+ * Open-addressing hash map from a body pair key to the impulse its contact accumulated.
+ * Clearing only bumps a stamp, so a cache can be reused every step without touching its arrays.
+ */
+final class ContactCache {
+
+    private long[] keys = new long[64];
+    private float[] values = new float[64];
+    private int[] stamps = new int[64];
+    private int stamp = 1;
+    private int size;
+
+    /**
+     * Builds the key of a body pair from the handles of its bodies, independent of their order.
+     *
+     * @param handleA The handle of one body.
+     * @param handleB The handle of the other body.
+     * @return The pair key.
+     */
+    static long key(int handleA, int handleB) {
+        int low = Math.min(handleA, handleB);
+        int high = Math.max(handleA, handleB);
+        return ((long) low << 32) | (high & 0xffffffffL);
+    }
+
+    /**
+     * Removes every entry.
+     */
+    void clear() {
+        size = 0;
+        if (++stamp == 0) {
+            java.util.Arrays.fill(stamps, 0);
+            stamp = 1;
+        }
+    }
+
+    /**
+     * Gets the value stored for a key.
+     *
+     * @param key The pair key.
+     * @return The stored value, or 0 if the key is absent.
+     */
+    float get(long key) {
+        int mask = keys.length - 1;
+        for (int slot = hash(key) & mask; stamps[slot] == stamp; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) return values[slot];
+        }
+        return 0.0f;
+    }
+
+    /**
+     * Stores a value for a key, replacing any previous value.
+     *
+     * @param key   The pair key.
+     * @param value The value to store.
+     */
+    void put(long key, float value) {
+        if (2 * (size + 1) > keys.length) {
+            rehash(keys.length * 2);
+        }
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (stamps[slot] == stamp && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        if (stamps[slot] != stamp) {
+            stamps[slot] = stamp;
+            keys[slot] = key;
+            size++;
+        }
+        values[slot] = value;
+    }
+
+    /**
+     * Gets the number of entries.
+     *
+     * @return The number of keys in the cache.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Copies every entry into the given arrays, in table order.
+     *
+     * @param keysOut   Receives the keys; must hold at least {@link #size()} entries.
+     * @param valuesOut Receives the values, at the same positions as their keys.
+     * @return The number of entries copied.
+     */
+    int copyTo(long[] keysOut, float[] valuesOut) {
+        int n = 0;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (stamps[slot] == stamp) {
+                keysOut[n] = keys[slot];
+                valuesOut[n] = values[slot];
+                n++;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Moves every entry into larger arrays.
+     */
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        float[] oldValues = values;
+        int[] oldStamps = stamps;
+        int oldStamp = stamp;
+        keys = new long[capacity];
+        values = new float[capacity];
+        stamps = new int[capacity];
+        stamp = 1;
+        size = 0;
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldStamps[slot] == oldStamp) {
+                put(oldKeys[slot], oldValues[slot]);
+            }
+        }
+    }
+
+    /**
+     * Mixes the bits of a key into a table index.
+     */
+    private static int hash(long key) {
+        key *= 0x9E3779B97F4A7C15L;
+        return (int) (key ^ (key >>> 32));
+    }
+}
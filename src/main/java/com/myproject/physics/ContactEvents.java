@@ -0,0 +1,155 @@
+package com.myproject.physics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Single-producer, single-consumer ring of contact events.
+ * A world the stream is {@link PhysicsWorld#setContactEvents attached} to writes the events of a
+ * step into preallocated columns and publishes them all at once at the end of the step; one
+ * consumer thread, typically game logic, calls {@link #drain} whenever it likes and receives every
+ * event published since its last call, in step order. The world never waits for the consumer and
+ * never allocates: when the ring is full, new events are dropped and counted instead, and
+ * {@link #getDroppedCount()} tells the consumer that its view of the contacts is incomplete.
+ */
+public final class ContactEvents {
+
+    static final byte BEGIN = 0;
+    static final byte PERSIST = 1;
+    static final byte END = 2;
+
+    private final int mask; // Capacity - 1; the capacity is a power of two.
+    private final boolean persistEvents; // Whether persisting contacts are reported every step.
+    private final byte[] types;
+    private final long[] steps;
+    private final int[] bodyA;
+    private final int[] bodyB;
+
+    private final AtomicLong published = new AtomicLong(); // Events written and visible to the consumer.
+    private final AtomicLong consumed = new AtomicLong(); // Events drained by the consumer.
+    private final AtomicLong dropped = new AtomicLong(); // Events lost because the ring was full.
+    private long written; // Events written by the producer, published or not.
+    private long consumedSeen; // The last consumed count read by the producer.
+
+    /**
+     * Constructs a stream reporting begin and end events.
+     *
+     * @param capacity The number of events the ring holds, rounded up to a power of two.
+     */
+    public ContactEvents(int capacity) {
+        this(capacity, false);
+    }
+
+    /**
+     * Constructs a stream.
+     *
+     * @param capacity      The number of events the ring holds, rounded up to a power of two.
+     * @param persistEvents True to also report every contact that persists, every step.
+     */
+    public ContactEvents(int capacity, boolean persistEvents) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Capacity must be between 1 and 2^30");
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) size <<= 1;
+        this.mask = size - 1;
+        this.persistEvents = persistEvents;
+        this.types = new byte[size];
+        this.steps = new long[size];
+        this.bodyA = new int[size];
+        this.bodyB = new int[size];
+    }
+
+    /**
+     * Gets the number of events the ring holds.
+     *
+     * @return The capacity.
+     */
+    public int getCapacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Checks whether persisting contacts are reported.
+     *
+     * @return True if persist events are written every step.
+     */
+    public boolean isPersistEvents() {
+        return persistEvents;
+    }
+
+    /**
+     * Gets the number of events dropped because the consumer fell behind and the ring was full.
+     *
+     * @return The dropped event count.
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Gets the number of published events not drained yet.
+     *
+     * @return The number of pending events.
+     */
+    public int getPendingCount() {
+        return (int) (published.get() - consumed.get());
+    }
+
+    /**
+     * Delivers every published event to a listener, in the order they were written, and frees
+     * their slots. Must only be called from one thread at a time.
+     *
+     * @param listener The listener receiving the events.
+     * @return The number of events delivered.
+     */
+    public int drain(ContactListener listener) {
+        long from = consumed.get();
+        long to = published.get();
+        long position = from;
+        try {
+            for (; position < to; position++) {
+                int slot = (int) position & mask;
+                switch (types[slot]) {
+                    case BEGIN -> listener.onContactBegin(steps[slot], bodyA[slot], bodyB[slot]);
+                    case PERSIST -> listener.onContactPersist(steps[slot], bodyA[slot], bodyB[slot]);
+                    default -> listener.onContactEnd(steps[slot], bodyA[slot], bodyB[slot]);
+                }
+            }
+        } finally {
+            consumed.lazySet(position);
+        }
+        return (int) (to - from);
+    }
+
+    /**
+     * Writes an event without publishing it, or counts it as dropped if the ring is full.
+     * Called by the world on its stepping thread.
+     *
+     * @param type  The event type.
+     * @param step  The number of the step.
+     * @param a     The smaller body handle.
+     * @param b     The larger body handle.
+     */
+    void write(byte type, long step, int a, int b) {
+        if (written - consumedSeen > mask) {
+            consumedSeen = consumed.get();
+            if (written - consumedSeen > mask) {
+                dropped.lazySet(dropped.get() + 1);
+                return;
+            }
+        }
+        int slot = (int) written & mask;
+        types[slot] = type;
+        steps[slot] = step;
+        bodyA[slot] = a;
+        bodyB[slot] = b;
+        written++;
+    }
+
+    /**
+     * Makes every written event visible to the consumer.
+     */
+    void publish() {
+        published.lazySet(written);
+    }
+}
@@ -0,0 +1,38 @@
+package com.myproject.physics;
+
+/**
+ * Receives the contact events drained from a {@link ContactEvents} stream.
+ * Bodies are identified by their handles, the smaller handle first. A sensor overlapping a body
+ * produces events like any other contact; use {@link Collider#isSensor()} to tell them apart.
+ */
+public interface ContactListener {
+
+    /**
+     * Called for a pair of bodies that touch after a step and did not touch before it.
+     *
+     * @param step  The number of the step, as returned by {@link PhysicsWorld#getStepCount()} right after it.
+     * @param bodyA The handle of one body.
+     * @param bodyB The handle of the other body, larger than {@code bodyA}.
+     */
+    void onContactBegin(long step, int bodyA, int bodyB);
+
+    /**
+     * Called for a pair of bodies that touched before a step and still touch after it. Only
+     * reported by streams created with persist events enabled.
+     *
+     * @param step  The number of the step.
+     * @param bodyA The handle of one body.
+     * @param bodyB The handle of the other body, larger than {@code bodyA}.
+     */
+    default void onContactPersist(long step, int bodyA, int bodyB) {
+    }
+
+    /**
+     * Called for a pair of bodies that touched before a step and no longer touch after it.
+     *
+     * @param step  The number of the step.
+     * @param bodyA The handle of one body.
+     * @param bodyB The handle of the other body, larger than {@code bodyA}.
+     */
+    void onContactEnd(long step, int bodyA, int bodyB);
+}
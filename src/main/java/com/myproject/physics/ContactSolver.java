@@ -0,0 +1,266 @@
+package com.myproject.physics;
+
+import java.util.Arrays;
+
+/**
+ * Sequential-impulse solver for the contacts of a step.
+ * Contacts are kept in a manifold list (body pair, normal, penetration and contact point) and solved with a fixed
+ * number of velocity iterations. Each contact accumulates the impulse applied over the iterations and
+ * clamps the total, not each increment, to be non-negative, so the iterations converge towards the
+ * impulses that satisfy all contacts together. Accumulated impulses are kept in a cache keyed by body
+ * handle pair and applied up front on the next step (warm starting), so resting contacts start close
+ * to their solution instead of from zero. Restitution is applied in a separate pass after the
+ * iterations and left out of the cache: a bounce belongs to a single impact, and replaying it on the
+ * next step, or letting small solver errors trigger it inside the iterations, would add energy.
+ * Impulses act at the contact point, so a contact off the line between the centers also turns the
+ * bodies; penetration is corrected by moving the bodies along the normal only.
+ */
+final class ContactSolver {
+
+    private static final float CORRECTION_PERCENT = 0.2f; // Share of the penetration removed per step.
+    private static final float CORRECTION_SLOP = 0.01f; // Penetration allowed without correction.
+
+    int iterations = 8; // Velocity iterations per step.
+    int positionIterations = 3; // Penetration correction iterations per step.
+    boolean warmStarting = true; // Whether cached impulses seed the next step.
+    float restitution = 0.9f; // Bounciness of every contact.
+    float restitutionThreshold = 0.5f; // Approach speed below which contacts do not bounce.
+
+    int count; // The number of contacts.
+    int[] bodyA = new int[0];
+    int[] bodyB = new int[0];
+    float[] normalX = new float[0]; // Unit normal from body A to body B.
+    float[] normalY = new float[0];
+    float[] penetration = new float[0];
+    float[] pointX = new float[0]; // Contact point, midway between the surfaces.
+    float[] pointY = new float[0];
+    private long[] key = new long[0]; // Handle pair of each contact, for the cache.
+    private float[] armAX = new float[0]; // Contact point relative to the center of body A.
+    private float[] armAY = new float[0];
+    private float[] armBX = new float[0]; // Contact point relative to the center of body B.
+    private float[] armBY = new float[0];
+    private float[] normalMass = new float[0]; // Inverse of the effective mass along the normal at the contact point.
+    private float[] linearMass = new float[0]; // Inverse of the effective mass of moving both bodies along the normal.
+    private float[] bias = new float[0]; // Separating speed required by restitution.
+    private float[] impulse = new float[0]; // Impulse accumulated this step.
+    private float[] restingImpulse = new float[0]; // Impulse before the restitution pass, for the cache.
+    private float[] separation = new float[0]; // Distance between the bodies along the normal when prepared.
+
+    final ContactCache cache = new ContactCache(); // Impulses of the last step.
+
+    /**
+     * Removes every contact of the current step.
+     */
+    void clear() {
+        count = 0;
+    }
+
+    /**
+     * Appends a contact.
+     *
+     * @param store The body storage.
+     * @param a     The index of the first body.
+     * @param b     The index of the second body.
+     * @param nx    The x component of the normal from a to b.
+     * @param ny    The y component of the normal from a to b.
+     * @param depth The penetration depth.
+     * @param px    The x coordinate of the contact point.
+     * @param py    The y coordinate of the contact point.
+     */
+    void add(BodyStore store, int a, int b, float nx, float ny, float depth, float px, float py) {
+        if (count == bodyA.length) {
+            grow(Math.max(64, count * 2));
+        }
+        int k = count++;
+        bodyA[k] = a;
+        bodyB[k] = b;
+        normalX[k] = nx;
+        normalY[k] = ny;
+        penetration[k] = depth;
+        pointX[k] = px;
+        pointY[k] = py;
+        key[k] = ContactCache.key(store.handleOf[a], store.handleOf[b]);
+    }
+
+    /**
+     * Solves a group of contacts: prepares them, applies the warm-start impulses, runs the velocity
+     * iterations, applies restitution and corrects positions. Groups that share no dynamic body can be
+     * solved concurrently.
+     *
+     * @param store The body storage.
+     * @param order The contact indices to solve, or null to use the positions themselves.
+     * @param from  The first position in {@code order}.
+     * @param to    The position after the last one.
+     */
+    void solve(BodyStore store, int[] order, int from, int to) {
+        for (int i = from; i < to; i++) {
+            prepare(store, order == null ? i : order[i]);
+        }
+        for (int i = from; i < to; i++) {
+            warmStart(store, order == null ? i : order[i]);
+        }
+        for (int iteration = 0; iteration < iterations; iteration++) {
+            for (int i = from; i < to; i++) {
+                solveVelocity(store, order == null ? i : order[i], 0.0f);
+            }
+        }
+        for (int i = from; i < to; i++) {
+            int k = order == null ? i : order[i];
+            restingImpulse[k] = impulse[k];
+            if (bias[k] > 0.0f) {
+                solveVelocity(store, k, bias[k]);
+            }
+        }
+        for (int iteration = 0; iteration < positionIterations; iteration++) {
+            for (int i = from; i < to; i++) {
+                correctPosition(store, order == null ? i : order[i]);
+            }
+        }
+    }
+
+    /**
+     * Stores the impulses of this step for warm starting the next one, once every group is solved.
+     * Pairs that are no longer touching drop out of the cache.
+     */
+    void storeImpulses() {
+        cache.clear();
+        if (!warmStarting) return;
+        for (int k = 0; k < count; k++) {
+            cache.put(key[k], restingImpulse[k]);
+        }
+    }
+
+    /**
+     * Computes the lever arms, effective masses and restitution bias of a contact.
+     * The bias uses the velocities before any warm-start impulse, so the impulses that hold a stack
+     * up are not mistaken for an impact.
+     */
+    private void prepare(BodyStore store, int k) {
+        int a = bodyA[k];
+        int b = bodyB[k];
+        float invMassA = store.invMass[a];
+        float invMassB = store.invMass[b];
+        float nx = normalX[k];
+        float ny = normalY[k];
+        float rAX = pointX[k] - store.posX[a];
+        float rAY = pointY[k] - store.posY[a];
+        float rBX = pointX[k] - store.posX[b];
+        float rBY = pointY[k] - store.posY[b];
+        armAX[k] = rAX;
+        armAY[k] = rAY;
+        armBX[k] = rBX;
+        armBY[k] = rBY;
+        float turnA = rAX * ny - rAY * nx; // How far an impulse along the normal turns each body.
+        float turnB = rBX * ny - rBY * nx;
+        linearMass[k] = 1.0f / (invMassA + invMassB);
+        normalMass[k] = 1.0f / (invMassA + invMassB
+                + store.invInertia[a] * turnA * turnA + store.invInertia[b] * turnB * turnB);
+        separation[k] = (store.posX[b] - store.posX[a]) * nx + (store.posY[b] - store.posY[a]) * ny;
+
+        float velAlongNormal = normalVelocity(store, k);
+        bias[k] = velAlongNormal < -restitutionThreshold ? -restitution * velAlongNormal : 0.0f;
+    }
+
+    /**
+     * Computes the speed at which the bodies of a contact approach each other at the contact point,
+     * negative when they approach.
+     */
+    private float normalVelocity(BodyStore store, int k) {
+        int a = bodyA[k];
+        int b = bodyB[k];
+        float angVelA = store.angVel[a];
+        float angVelB = store.angVel[b];
+        float relativeX = store.velX[b] - angVelB * armBY[k] - store.velX[a] + angVelA * armAY[k];
+        float relativeY = store.velY[b] + angVelB * armBX[k] - store.velY[a] - angVelA * armAX[k];
+        return relativeX * normalX[k] + relativeY * normalY[k];
+    }
+
+    /**
+     * Applies the impulse a contact accumulated on the previous step.
+     */
+    private void warmStart(BodyStore store, int k) {
+        float warm = warmStarting ? cache.get(key[k]) : 0.0f;
+        impulse[k] = warm;
+        if (warm != 0.0f) {
+            applyImpulse(store, k, normalX[k] * warm, normalY[k] * warm);
+        }
+    }
+
+    /**
+     * Runs one velocity iteration on a contact, driving its normal velocity towards a target speed.
+     */
+    private void solveVelocity(BodyStore store, int k, float targetSpeed) {
+        float velAlongNormal = normalVelocity(store, k);
+        float lambda = normalMass[k] * (targetSpeed - velAlongNormal);
+        float accumulated = Math.max(impulse[k] + lambda, 0.0f);
+        lambda = accumulated - impulse[k];
+        impulse[k] = accumulated;
+        if (lambda != 0.0f) {
+            applyImpulse(store, k, normalX[k] * lambda, normalY[k] * lambda);
+        }
+    }
+
+    /**
+     * Pushes the bodies of a contact apart along its normal to remove part of the penetration.
+     * The penetration is updated from how far the bodies have moved along the normal since the
+     * contact was prepared, so repeated passes see the corrections of the other contacts.
+     */
+    private void correctPosition(BodyStore store, int k) {
+        int a = bodyA[k];
+        int b = bodyB[k];
+        float invMassA = store.invMass[a];
+        float invMassB = store.invMass[b];
+        float nx = normalX[k];
+        float ny = normalY[k];
+        float moved = (store.posX[b] - store.posX[a]) * nx + (store.posY[b] - store.posY[a]) * ny - separation[k];
+        float depth = penetration[k] - moved;
+        float magnitude = Math.max(depth - CORRECTION_SLOP, 0.0f) * linearMass[k] * CORRECTION_PERCENT;
+        if (magnitude == 0.0f) return;
+        float correctionX = nx * magnitude;
+        float correctionY = ny * magnitude;
+        store.posX[a] -= correctionX * invMassA;
+        store.posY[a] -= correctionY * invMassA;
+        store.posX[b] += correctionX * invMassB;
+        store.posY[b] += correctionY * invMassB;
+    }
+
+    /**
+     * Applies an impulse at the contact point to body b and its opposite to body a.
+     */
+    private void applyImpulse(BodyStore store, int k, float impulseX, float impulseY) {
+        int a = bodyA[k];
+        int b = bodyB[k];
+        float invMassA = store.invMass[a];
+        float invMassB = store.invMass[b];
+        store.velX[a] -= impulseX * invMassA;
+        store.velY[a] -= impulseY * invMassA;
+        store.angVel[a] -= (armAX[k] * impulseY - armAY[k] * impulseX) * store.invInertia[a];
+        store.velX[b] += impulseX * invMassB;
+        store.velY[b] += impulseY * invMassB;
+        store.angVel[b] += (armBX[k] * impulseY - armBY[k] * impulseX) * store.invInertia[b];
+    }
+
+    /**
+     * Grows the contact arrays to the given capacity, keeping their contents.
+     */
+    private void grow(int capacity) {
+        bodyA = Arrays.copyOf(bodyA, capacity);
+        bodyB = Arrays.copyOf(bodyB, capacity);
+        normalX = Arrays.copyOf(normalX, capacity);
+        normalY = Arrays.copyOf(normalY, capacity);
+        penetration = Arrays.copyOf(penetration, capacity);
+        pointX = Arrays.copyOf(pointX, capacity);
+        pointY = Arrays.copyOf(pointY, capacity);
+        key = Arrays.copyOf(key, capacity);
+        armAX = Arrays.copyOf(armAX, capacity);
+        armAY = Arrays.copyOf(armAY, capacity);
+        armBX = Arrays.copyOf(armBX, capacity);
+        armBY = Arrays.copyOf(armBY, capacity);
+        normalMass = Arrays.copyOf(normalMass, capacity);
+        linearMass = Arrays.copyOf(linearMass, capacity);
+        bias = Arrays.copyOf(bias, capacity);
+        impulse = Arrays.copyOf(impulse, capacity);
+        restingImpulse = Arrays.copyOf(restingImpulse, capacity);
+        separation = Arrays.copyOf(separation, capacity);
+    }
+}
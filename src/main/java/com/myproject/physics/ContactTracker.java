@@ -0,0 +1,85 @@
+package com.myproject.physics;
+
+/**
+ * Turns the touching pairs of each step into contact begin, persist and end events.
+ * The pairs of a step are collected by body handle, sorted, and merged with the sorted pairs of the
+ * previous step in a single pass. Pairs left out of the narrow phase because both bodies sleep
+ * are carried over silently, so a resting stack does not end its contacts when it falls asleep.
+ */
+final class ContactTracker {
+
+    private final PairBuffer current = new PairBuffer(); // Touching pairs of the step in progress.
+    private long[] previous = new long[64]; // Touching pairs of the last step, sorted.
+    private long[] next = new long[64]; // Receives the merged pairs of the step in progress.
+    private int previousCount;
+
+    /**
+     * Empties the tracker, so that every pair touching after the next step begins.
+     */
+    void reset() {
+        current.clear();
+        previousCount = 0;
+    }
+
+    /**
+     * Adds a touching pair of the step in progress.
+     *
+     * @param handleA The handle of one body.
+     * @param handleB The handle of the other body.
+     */
+    void add(int handleA, int handleB) {
+        current.onPair(Math.min(handleA, handleB), Math.max(handleA, handleB));
+    }
+
+    /**
+     * Compares the pairs of the step in progress with those of the last step, writes the events to a
+     * stream and publishes them, then makes the step in progress the last one.
+     *
+     * @param store  The body storage, used to tell whether the bodies of a vanished pair sleep or were removed.
+     * @param step   The number of the step.
+     * @param events The stream receiving the events.
+     */
+    void diff(BodyStore store, long step, ContactEvents events) {
+        current.sort();
+        int currentCount = current.size();
+        if (next.length < currentCount + previousCount) {
+            next = new long[Math.max(currentCount + previousCount, next.length * 2)];
+        }
+        boolean persist = events.isPersistEvents();
+        boolean[] awake = store.awake;
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < currentCount || j < previousCount) {
+            long now = i < currentCount ? ((long) current.first(i) << 32) | current.second(i) : Long.MAX_VALUE;
+            long before = j < previousCount ? previous[j] : Long.MAX_VALUE;
+            int a = (int) (Math.min(now, before) >>> 32);
+            int b = (int) Math.min(now, before);
+            if (now < before) {
+                events.write(ContactEvents.BEGIN, step, a, b);
+                next[n++] = now;
+                i++;
+            } else if (now == before) {
+                if (persist) events.write(ContactEvents.PERSIST, step, a, b);
+                next[n++] = now;
+                i++;
+                j++;
+            } else {
+                // A removed body's slot may already hold a new body, so check the whole handle:
+                // pairs of a removed body always end.
+                if (store.contains(a) && store.contains(b) && !awake[store.index(a)] && !awake[store.index(b)]) {
+                    next[n++] = before;
+                } else {
+                    events.write(ContactEvents.END, step, a, b);
+                }
+                j++;
+            }
+        }
+        events.publish();
+        current.clear();
+        long[] swap = previous;
+        previous = next;
+        next = swap;
+        previousCount = n;
+    }
+}
@@ -0,0 +1,246 @@
+package com.myproject.physics;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * An immutable convex polygon, the shape of {@link Collider.Type#POLYGON} colliders.
+ * Vertices are given relative to the center of the body and kept in counter-clockwise order.
+ * The outward unit normal of every edge, the axes the separating axis test projects onto, is
+ * computed once when the polygon is built, so colliding a polygon only has to turn its vertices
+ * and axes by the body's angle and move them by its position. A polygon can be shared by any
+ * number of colliders.
+ */
+public final class ConvexPolygon {
+
+    /**
+     * The largest number of vertices a polygon can have.
+     */
+    public static final int MAX_VERTICES = 8;
+
+    /**
+     * Size of a polygon in the binary formats: the vertex count, then every vertex slot.
+     */
+    static final int BYTES = 1 + 2 * MAX_VERTICES * Float.BYTES;
+
+    /**
+     * The square from (-1, -1) to (1, 1). Boxes collide as this square scaled by their half size,
+     * which leaves its axis-aligned normals unchanged.
+     */
+    static final ConvexPolygon UNIT_BOX = box(1.0f, 1.0f, 0.0f);
+
+    final int count; // The number of vertices.
+    final float[] x; // Vertices, counter-clockwise.
+    final float[] y;
+    final float[] normalX; // Outward unit normal of the edge from each vertex to the next.
+    final float[] normalY;
+    final float halfX; // Largest distance of a vertex from the center along x.
+    final float halfY; // Largest distance of a vertex from the center along y.
+    final float unitInertia; // Moment of inertia about the center for a mass of 1.
+
+    /**
+     * Constructs a polygon from the coordinates of its vertices. The vertices may go around either
+     * way, but must form a convex polygon with no two consecutive edges in line.
+     *
+     * @param coordinates The x and y of each vertex in turn, relative to the center of the body.
+     * @throws IllegalArgumentException If there are fewer than 3 or more than {@value #MAX_VERTICES}
+     *                                  vertices, or they do not form a convex polygon.
+     */
+    public ConvexPolygon(float... coordinates) {
+        if (coordinates.length % 2 != 0) {
+            throw new IllegalArgumentException("Coordinates must come in x, y pairs");
+        }
+        int n = coordinates.length / 2;
+        if (n < 3 || n > MAX_VERTICES) {
+            throw new IllegalArgumentException("A polygon needs 3 to " + MAX_VERTICES + " vertices");
+        }
+        float area = 0.0f;
+        for (int i = 0; i < n; i++) {
+            int j = i + 1 == n ? 0 : i + 1;
+            area += coordinates[2 * i] * coordinates[2 * j + 1] - coordinates[2 * j] * coordinates[2 * i + 1];
+        }
+        count = n;
+        x = new float[n];
+        y = new float[n];
+        for (int i = 0; i < n; i++) {
+            int from = area < 0.0f ? n - 1 - i : i; // Reverse clockwise polygons.
+            x[i] = coordinates[2 * from];
+            y[i] = coordinates[2 * from + 1];
+            if (!Float.isFinite(x[i]) || !Float.isFinite(y[i])) {
+                throw new IllegalArgumentException("Vertices must be finite");
+            }
+        }
+
+        normalX = new float[n];
+        normalY = new float[n];
+        float extentX = 0.0f;
+        float extentY = 0.0f;
+        for (int i = 0; i < n; i++) {
+            int j = i + 1 == n ? 0 : i + 1;
+            float edgeX = x[j] - x[i];
+            float edgeY = y[j] - y[i];
+            float length = (float) Math.sqrt(edgeX * edgeX + edgeY * edgeY);
+            if (!(length > 0.0f)) {
+                throw new IllegalArgumentException("Polygon has a zero-length edge");
+            }
+            normalX[i] = edgeY / length;
+            normalY[i] = -edgeX / length;
+            extentX = Math.max(extentX, Math.abs(x[i]));
+            extentY = Math.max(extentY, Math.abs(y[i]));
+        }
+        // Every vertex off an edge must lie strictly inside it, which rules out dents, vertices in
+        // line and polygons that wind around more than once.
+        for (int i = 0; i < n; i++) {
+            int j = i + 1 == n ? 0 : i + 1;
+            float offset = normalX[i] * x[i] + normalY[i] * y[i];
+            for (int k = 0; k < n; k++) {
+                if (k != i && k != j && !(normalX[i] * x[k] + normalY[i] * y[k] < offset)) {
+                    throw new IllegalArgumentException("Polygon is not strictly convex");
+                }
+            }
+        }
+        halfX = extentX;
+        halfY = extentY;
+
+        // Sum the triangles fanned out from the center, each weighted by its doubled area.
+        float doubledArea = 0.0f;
+        float moment = 0.0f;
+        for (int i = 0; i < n; i++) {
+            int j = i + 1 == n ? 0 : i + 1;
+            float cross = x[i] * y[j] - x[j] * y[i];
+            doubledArea += cross;
+            moment += cross * (x[i] * x[i] + x[i] * x[j] + x[j] * x[j] + y[i] * y[i] + y[i] * y[j] + y[j] * y[j]);
+        }
+        unitInertia = moment / (6.0f * doubledArea);
+    }
+
+    /**
+     * Creates a box turned by an angle about its center, for boxes that are not axis-aligned.
+     *
+     * @param halfWidth  The half width of the box before turning.
+     * @param halfHeight The half height of the box before turning.
+     * @param angle      The angle to turn the box by, counter-clockwise, in radians.
+     * @return The polygon.
+     */
+    public static ConvexPolygon box(float halfWidth, float halfHeight, float angle) {
+        float cos = (float) Math.cos(angle);
+        float sin = (float) Math.sin(angle);
+        float[] coordinates = new float[8];
+        float[] cornersX = {-halfWidth, halfWidth, halfWidth, -halfWidth};
+        float[] cornersY = {-halfHeight, -halfHeight, halfHeight, halfHeight};
+        for (int i = 0; i < 4; i++) {
+            coordinates[2 * i] = cornersX[i] * cos - cornersY[i] * sin;
+            coordinates[2 * i + 1] = cornersX[i] * sin + cornersY[i] * cos;
+        }
+        return new ConvexPolygon(coordinates);
+    }
+
+    /**
+     * Gets the number of vertices.
+     *
+     * @return The vertex count, from 3 to {@value #MAX_VERTICES}.
+     */
+    public int getVertexCount() {
+        return count;
+    }
+
+    /**
+     * Gets the x coordinate of a vertex relative to the center of the body.
+     *
+     * @param i The index of the vertex, counter-clockwise.
+     * @return The x coordinate.
+     */
+    public float getX(int i) {
+        return x[i];
+    }
+
+    /**
+     * Gets the y coordinate of a vertex relative to the center of the body.
+     *
+     * @param i The index of the vertex, counter-clockwise.
+     * @return The y coordinate.
+     */
+    public float getY(int i) {
+        return y[i];
+    }
+
+    /**
+     * Gets the x component of the outward unit normal of the edge from a vertex to the next.
+     *
+     * @param i The index of the edge's first vertex.
+     * @return The x component.
+     */
+    public float getNormalX(int i) {
+        return normalX[i];
+    }
+
+    /**
+     * Gets the y component of the outward unit normal of the edge from a vertex to the next.
+     *
+     * @param i The index of the edge's first vertex.
+     * @return The y component.
+     */
+    public float getNormalY(int i) {
+        return normalY[i];
+    }
+
+    /**
+     * Gets the half width of the smallest box centered on the body that holds the polygon.
+     *
+     * @return The largest distance of a vertex from the center along x.
+     */
+    public float getHalfWidth() {
+        return halfX;
+    }
+
+    /**
+     * Gets the half height of the smallest box centered on the body that holds the polygon.
+     *
+     * @return The largest distance of a vertex from the center along y.
+     */
+    public float getHalfHeight() {
+        return halfY;
+    }
+
+    /**
+     * Gets the moment of inertia of a body of this shape about its center, the point the vertices
+     * are relative to, which is where the body turns about.
+     *
+     * @param mass The mass of the body, spread evenly over the polygon.
+     * @return The moment of inertia.
+     */
+    public float getInertia(float mass) {
+        return mass * unitInertia;
+    }
+
+    /**
+     * Writes the polygon at the position of a buffer in {@value #BYTES} bytes, and advances the position.
+     *
+     * @param buffer The buffer.
+     */
+    void write(ByteBuffer buffer) {
+        buffer.put((byte) count);
+        for (int i = 0; i < MAX_VERTICES; i++) {
+            buffer.putFloat(i < count ? x[i] : 0.0f).putFloat(i < count ? y[i] : 0.0f);
+        }
+    }
+
+    /**
+     * Reads a polygon written by {@link #write}, and advances the position of the buffer.
+     *
+     * @param buffer The buffer.
+     * @return The polygon.
+     * @throws IllegalArgumentException If the bytes do not hold a valid polygon.
+     */
+    static ConvexPolygon read(ByteBuffer buffer) {
+        int n = buffer.get();
+        float[] coordinates = new float[2 * MAX_VERTICES];
+        for (int i = 0; i < coordinates.length; i++) {
+            coordinates[i] = buffer.getFloat();
+        }
+        if (n < 3 || n > MAX_VERTICES) {
+            throw new IllegalArgumentException("A polygon needs 3 to " + MAX_VERTICES + " vertices");
+        }
+        return new ConvexPolygon(Arrays.copyOf(coordinates, 2 * n));
+    }
+}
@@ -0,0 +1,85 @@
+package com.myproject.physics;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes trajectories as CSV text with one row per body and sample:
+ * {@code step,handle,x,y,vx,vy}, after a header row.
+ * Rows are formatted into a reused builder and copied into a buffer that is written to a file
+ * channel when full, so the file sees few large writes.
+ */
+public final class CsvTrajectorySink implements TrajectorySink {
+
+    private static final String HEADER = "step,handle,x,y,vx,vy\n";
+    private static final int BUFFER_SIZE = 1 << 16; // Bytes buffered between channel writes.
+
+    private final FileChannel channel; // The file being written.
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE); // Pending bytes.
+    private final StringBuilder row = new StringBuilder(64); // The row being formatted.
+
+    /**
+     * Creates or truncates a file and writes the header row.
+     *
+     * @param file The file to write.
+     * @throws IOException If the file cannot be opened.
+     */
+    public CsvTrajectorySink(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        row.append(HEADER);
+        put(row);
+    }
+
+    @Override
+    public void write(StateSnapshot snapshot) throws IOException {
+        long step = snapshot.getStep();
+        for (int i = 0; i < snapshot.getCount(); i++) {
+            row.setLength(0);
+            row.append(step).append(',')
+                    .append(snapshot.getHandle(i)).append(',')
+                    .append(snapshot.getX(i)).append(',')
+                    .append(snapshot.getY(i)).append(',')
+                    .append(snapshot.getVelocityX(i)).append(',')
+                    .append(snapshot.getVelocityY(i)).append('\n');
+            put(row);
+        }
+    }
+
+    /**
+     * Copies a formatted row into the buffer, flushing the buffer first if the row does not fit.
+     * Rows are plain ASCII, so each character is one byte.
+     */
+    private void put(CharSequence text) throws IOException {
+        int length = text.length();
+        if (buffer.remaining() < length) {
+            flush();
+        }
+        for (int i = 0; i < length; i++) {
+            buffer.put((byte) text.charAt(i));
+        }
+    }
+
+    /**
+     * Writes the buffered bytes to the channel.
+     */
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,625 @@
+package com.myproject.physics;
+
+import java.util.Arrays;
+
+/**
+ * A dynamic bounding volume hierarchy over axis-aligned boxes.
+ * Leaves store fattened boxes, so a body only has to be reinserted once it leaves its fat box;
+ * slow bodies therefore rarely touch the tree. Insertions pick the sibling that grows the tree's
+ * total perimeter the least, and tree rotations keep it balanced as leaves come and go.
+ * It can be used as a broad phase and answers region and ray queries for the world.
+ */
+public class DynamicAABBTree implements BroadPhase {
+
+    /**
+     * Receives leaves found by a region query.
+     */
+    @FunctionalInterface
+    public interface QueryCallback {
+
+        /**
+         * Called for every leaf whose fat box overlaps the query region.
+         *
+         * @param userData The value stored with the leaf (the body index when used by the world).
+         * @return True to continue the query, false to stop it.
+         */
+        boolean onLeaf(int userData);
+    }
+
+    /**
+     * Receives leaves crossed by a ray.
+     */
+    @FunctionalInterface
+    public interface RayCallback {
+
+        /**
+         * Called for every leaf whose fat box is crossed by the ray before the current maximum distance.
+         *
+         * @param userData The value stored with the leaf (the body index when used by the world).
+         * @param maxT     The current maximum ray parameter.
+         * @return The new maximum ray parameter; return {@code maxT} to keep it, or a smaller value
+         * to clip the ray at a hit. Returning 0 stops the cast.
+         */
+        float onLeaf(int userData, float maxT);
+    }
+
+    private static final int NULL = -1;
+    private static final float DEFAULT_MARGIN = 0.05f;
+    private static final float DISPLACEMENT_MULTIPLIER = 2.0f; // How many steps of motion the fat box anticipates.
+
+    private final float margin; // How far fat boxes extend beyond the tight box on every side.
+
+    // Node storage; a node is a leaf when child1 is NULL. Free nodes are chained through parent.
+    private float[] box = new float[64]; // minX, minY, maxX, maxY of each node, interleaved.
+    private int[] parent = new int[16];
+    private int[] child1 = new int[16];
+    private int[] child2 = new int[16];
+    private int[] height = new int[16];
+    private int[] userData = new int[16];
+    private int root = NULL;
+    private int freeList = NULL;
+    private int nodeCount;
+    private int[] stack = new int[64];
+
+    // Broad phase bookkeeping: the leaf of each body and the center of its box at the last update.
+    private int[] leafOf = new int[0];
+    private float[] lastCenterX = new float[0];
+    private float[] lastCenterY = new float[0];
+    private int tracked;
+
+    /**
+     * Constructs an empty tree with the default fat box margin.
+     */
+    public DynamicAABBTree() {
+        this(DEFAULT_MARGIN);
+    }
+
+    /**
+     * Constructs an empty tree.
+     *
+     * @param margin How far fat boxes extend beyond the tight box on every side.
+     */
+    public DynamicAABBTree(float margin) {
+        if (!(margin >= 0.0f) || Float.isInfinite(margin)) {
+            throw new IllegalArgumentException("Margin must be a finite value >= 0: " + margin);
+        }
+        this.margin = margin;
+    }
+
+    /**
+     * Inserts a leaf for the given box.
+     *
+     * @param minX     The minimum x of the tight box.
+     * @param minY     The minimum y of the tight box.
+     * @param maxX     The maximum x of the tight box.
+     * @param maxY     The maximum y of the tight box.
+     * @param userData The value reported for this leaf by queries.
+     * @return The id of the new leaf.
+     */
+    public int createProxy(float minX, float minY, float maxX, float maxY, int userData) {
+        int leaf = allocateNode();
+        box[4 * leaf] = minX - margin;
+        box[4 * leaf + 1] = minY - margin;
+        box[4 * leaf + 2] = maxX + margin;
+        box[4 * leaf + 3] = maxY + margin;
+        this.userData[leaf] = userData;
+        height[leaf] = 0;
+        insertLeaf(leaf);
+        return leaf;
+    }
+
+    /**
+     * Removes a leaf from the tree.
+     *
+     * @param proxy The id of the leaf returned by {@link #createProxy}.
+     */
+    public void destroyProxy(int proxy) {
+        removeLeaf(proxy);
+        freeNode(proxy);
+    }
+
+    /**
+     * Moves a leaf to a new box.
+     * Nothing happens while the tight box stays inside the leaf's fat box.
+     *
+     * @param proxy The id of the leaf.
+     * @param minX  The minimum x of the new tight box.
+     * @param minY  The minimum y of the new tight box.
+     * @param maxX  The maximum x of the new tight box.
+     * @param maxY  The maximum y of the new tight box.
+     * @param dx    The expected x displacement until the next move, used to stretch the fat box.
+     * @param dy    The expected y displacement until the next move, used to stretch the fat box.
+     * @return True if the leaf was reinserted, false if its fat box still contained the tight box.
+     */
+    public boolean moveProxy(int proxy, float minX, float minY, float maxX, float maxY, float dx, float dy) {
+        if (box[4 * proxy] <= minX && box[4 * proxy + 1] <= minY
+                && box[4 * proxy + 2] >= maxX && box[4 * proxy + 3] >= maxY) {
+            return false;
+        }
+        removeLeaf(proxy);
+        float fatMinX = minX - margin;
+        float fatMinY = minY - margin;
+        float fatMaxX = maxX + margin;
+        float fatMaxY = maxY + margin;
+        if (dx < 0) fatMinX += dx; else fatMaxX += dx;
+        if (dy < 0) fatMinY += dy; else fatMaxY += dy;
+        box[4 * proxy] = fatMinX;
+        box[4 * proxy + 1] = fatMinY;
+        box[4 * proxy + 2] = fatMaxX;
+        box[4 * proxy + 3] = fatMaxY;
+        insertLeaf(proxy);
+        return true;
+    }
+
+    /**
+     * Reports every leaf whose fat box overlaps the given region.
+     *
+     * @param minX     The minimum x of the region.
+     * @param minY     The minimum y of the region.
+     * @param maxX     The maximum x of the region.
+     * @param maxY     The maximum y of the region.
+     * @param callback The callback receiving the leaves.
+     */
+    public void query(float minX, float minY, float maxX, float maxY, QueryCallback callback) {
+        if (root == NULL) return;
+        int top = 0;
+        stack[top++] = root;
+        while (top > 0) {
+            int node = stack[--top];
+            if (box[4 * node + 2] < minX || box[4 * node] > maxX || box[4 * node + 3] < minY || box[4 * node + 1] > maxY) {
+                continue;
+            }
+            if (child1[node] == NULL) {
+                if (!callback.onLeaf(userData[node])) return;
+            } else {
+                top = push(top, child1[node]);
+                top = push(top, child2[node]);
+            }
+        }
+    }
+
+    /**
+     * Reports the leaves whose fat boxes are crossed by the ray {@code origin + t * direction}
+     * for {@code 0 <= t <= maxT}. The callback can clip the ray so farther leaves are skipped.
+     *
+     * @param originX    The x coordinate of the ray origin.
+     * @param originY    The y coordinate of the ray origin.
+     * @param directionX The x component of the ray direction.
+     * @param directionY The y component of the ray direction.
+     * @param maxT       The maximum ray parameter.
+     * @param callback   The callback receiving the leaves.
+     */
+    public void raycast(float originX, float originY, float directionX, float directionY, float maxT,
+                        RayCallback callback) {
+        if (root == NULL) return;
+        float invX = 1.0f / directionX;
+        float invY = 1.0f / directionY;
+        int top = 0;
+        stack[top++] = root;
+        while (top > 0) {
+            int node = stack[--top];
+            if (!rayHitsBox(originX, originY, invX, invY, maxT,
+                    box[4 * node], box[4 * node + 1], box[4 * node + 2], box[4 * node + 3])) {
+                continue;
+            }
+            if (child1[node] == NULL) {
+                maxT = callback.onLeaf(userData[node], maxT);
+                if (maxT <= 0.0f) return;
+            } else {
+                top = push(top, child1[node]);
+                top = push(top, child2[node]);
+            }
+        }
+    }
+
+    /**
+     * Gets the height of the tree, for diagnostics.
+     *
+     * @return The number of edges on the longest root-to-leaf path, or 0 for an empty tree.
+     */
+    public int getHeight() {
+        return root == NULL ? 0 : height[root];
+    }
+
+    /**
+     * Brings the tree in sync with the bounding boxes of the world's bodies.
+     * Leaves are created for new bodies and moved for bodies that left their fat box.
+     *
+     * @param count The number of bodies.
+     * @param minX  The minimum x of each body's bounding box.
+     * @param minY  The minimum y of each body's bounding box.
+     * @param maxX  The maximum x of each body's bounding box.
+     * @param maxY  The maximum y of each body's bounding box.
+     */
+    public void update(int count, float[] minX, float[] minY, float[] maxX, float[] maxY) {
+        if (count < tracked) {
+            reset();
+        }
+        if (leafOf.length < count) {
+            int capacity = Math.max(count, leafOf.length * 2);
+            leafOf = Arrays.copyOf(leafOf, capacity);
+            lastCenterX = Arrays.copyOf(lastCenterX, capacity);
+            lastCenterY = Arrays.copyOf(lastCenterY, capacity);
+        }
+        for (int i = 0; i < tracked; i++) {
+            float centerX = 0.5f * (minX[i] + maxX[i]);
+            float centerY = 0.5f * (minY[i] + maxY[i]);
+            float dx = DISPLACEMENT_MULTIPLIER * (centerX - lastCenterX[i]);
+            float dy = DISPLACEMENT_MULTIPLIER * (centerY - lastCenterY[i]);
+            lastCenterX[i] = centerX;
+            lastCenterY[i] = centerY;
+            moveProxy(leafOf[i], minX[i], minY[i], maxX[i], maxY[i], dx, dy);
+        }
+        for (int i = tracked; i < count; i++) {
+            leafOf[i] = createProxy(minX[i], minY[i], maxX[i], maxY[i], i);
+            lastCenterX[i] = 0.5f * (minX[i] + maxX[i]);
+            lastCenterY[i] = 0.5f * (minY[i] + maxY[i]);
+        }
+        tracked = count;
+    }
+
+    /**
+     * Finds overlapping pairs with a single traversal of the tree against itself, so every pair of
+     * overlapping subtrees is visited once instead of querying the whole tree for each body.
+     */
+    @Override
+    public void findPairs(int count, float[] minX, float[] minY, float[] maxX, float[] maxY, PairCallback callback) {
+        update(count, minX, minY, maxX, maxY);
+        if (root == NULL) return;
+        // Each stack entry is either a node to be tested against itself (second == NULL) or a pair of nodes.
+        int top = 0;
+        top = pushPair(top, root, NULL);
+        while (top > 0) {
+            top--;
+            int a = stack[2 * top];
+            int b = stack[2 * top + 1];
+            if (b == NULL) {
+                if (child1[a] != NULL) {
+                    top = pushPair(top, child1[a], NULL);
+                    top = pushPair(top, child2[a], NULL);
+                    top = pushPair(top, child1[a], child2[a]);
+                }
+                continue;
+            }
+            if (!nodesOverlap(a, b)) continue;
+            boolean leafA = child1[a] == NULL;
+            boolean leafB = child1[b] == NULL;
+            if (leafA && leafB) {
+                int i = Math.min(userData[a], userData[b]);
+                int j = Math.max(userData[a], userData[b]);
+                if (BroadPhase.overlaps(i, j, minX, minY, maxX, maxY)) {
+                    callback.onPair(i, j);
+                }
+            } else if (leafB || (!leafA && height[a] >= height[b])) {
+                top = pushPair(top, child1[a], b);
+                top = pushPair(top, child2[a], b);
+            } else {
+                top = pushPair(top, a, child1[b]);
+                top = pushPair(top, a, child2[b]);
+            }
+        }
+    }
+
+    /**
+     * Destroys the leaf of the removed body and hands the leaf of the last body to its index.
+     */
+    @Override
+    public void remove(int index, int last) {
+        if (last >= tracked) return; // The leaf of the removed body, if any, is moved by the next update.
+        destroyProxy(leafOf[index]);
+        leafOf[index] = leafOf[last];
+        userData[leafOf[index]] = index;
+        lastCenterX[index] = lastCenterX[last];
+        lastCenterY[index] = lastCenterY[last];
+        tracked--;
+    }
+
+    @Override
+    public void reset() {
+        root = NULL;
+        freeList = NULL;
+        nodeCount = 0;
+        tracked = 0;
+    }
+
+    /**
+     * Pushes a pair of nodes on the traversal stack, growing it if needed.
+     */
+    private int pushPair(int top, int first, int second) {
+        if (2 * top + 1 >= stack.length) {
+            stack = Arrays.copyOf(stack, stack.length * 2);
+        }
+        stack[2 * top] = first;
+        stack[2 * top + 1] = second;
+        return top + 1;
+    }
+
+    /**
+     * Tests whether the boxes of two nodes overlap.
+     */
+    private boolean nodesOverlap(int a, int b) {
+        return !(box[4 * a + 2] < box[4 * b] || box[4 * a] > box[4 * b + 2]
+                || box[4 * a + 3] < box[4 * b + 1] || box[4 * a + 1] > box[4 * b + 3]);
+    }
+
+    /**
+     * Pushes a node on the traversal stack, growing it if needed.
+     */
+    private int push(int top, int node) {
+        if (top == stack.length) {
+            stack = Arrays.copyOf(stack, top * 2);
+        }
+        stack[top] = node;
+        return top + 1;
+    }
+
+    /**
+     * Slab test of a ray against a box.
+     */
+    private static boolean rayHitsBox(float originX, float originY, float invX, float invY, float maxT,
+                                      float minX, float minY, float maxX, float maxY) {
+        float tMin = 0.0f;
+        float tMax = maxT;
+        float t1 = (minX - originX) * invX;
+        float t2 = (maxX - originX) * invX;
+        if (Float.isNaN(t1) || Float.isNaN(t2)) {
+            // Ray parallel to the slab and starting on its boundary.
+            if (originX < minX || originX > maxX) return false;
+        } else {
+            tMin = Math.max(tMin, Math.min(t1, t2));
+            tMax = Math.min(tMax, Math.max(t1, t2));
+        }
+        t1 = (minY - originY) * invY;
+        t2 = (maxY - originY) * invY;
+        if (Float.isNaN(t1) || Float.isNaN(t2)) {
+            if (originY < minY || originY > maxY) return false;
+        } else {
+            tMin = Math.max(tMin, Math.min(t1, t2));
+            tMax = Math.min(tMax, Math.max(t1, t2));
+        }
+        return tMin <= tMax;
+    }
+
+    /**
+     * Takes a node from the free list, growing the node arrays if it is empty.
+     */
+    private int allocateNode() {
+        if (freeList == NULL) {
+            if (nodeCount == parent.length) {
+                int capacity = nodeCount * 2;
+                box = Arrays.copyOf(box, 4 * capacity);
+                parent = Arrays.copyOf(parent, capacity);
+                child1 = Arrays.copyOf(child1, capacity);
+                child2 = Arrays.copyOf(child2, capacity);
+                height = Arrays.copyOf(height, capacity);
+                userData = Arrays.copyOf(userData, capacity);
+            }
+            int node = nodeCount++;
+            parent[node] = NULL;
+            child1[node] = NULL;
+            child2[node] = NULL;
+            return node;
+        }
+        int node = freeList;
+        freeList = parent[node];
+        parent[node] = NULL;
+        child1[node] = NULL;
+        child2[node] = NULL;
+        return node;
+    }
+
+    /**
+     * Returns a node to the free list.
+     */
+    private void freeNode(int node) {
+        parent[node] = freeList;
+        height[node] = -1;
+        freeList = node;
+    }
+
+    /**
+     * Inserts a leaf next to the sibling that increases the total perimeter of the tree the least.
+     */
+    private void insertLeaf(int leaf) {
+        if (root == NULL) {
+            root = leaf;
+            parent[leaf] = NULL;
+            return;
+        }
+
+        float leafMinX = box[4 * leaf], leafMinY = box[4 * leaf + 1];
+        float leafMaxX = box[4 * leaf + 2], leafMaxY = box[4 * leaf + 3];
+        int index = root;
+        while (child1[index] != NULL) {
+            float area = perimeter(box[4 * index], box[4 * index + 1], box[4 * index + 2], box[4 * index + 3]);
+            float combinedArea = perimeter(Math.min(box[4 * index], leafMinX), Math.min(box[4 * index + 1], leafMinY),
+                    Math.max(box[4 * index + 2], leafMaxX), Math.max(box[4 * index + 3], leafMaxY));
+            // Cost of making a new parent for this node and the leaf.
+            float cost = 2.0f * combinedArea;
+            // Minimum cost of pushing the leaf further down the tree.
+            float inheritanceCost = 2.0f * (combinedArea - area);
+            float cost1 = descendCost(child1[index], leafMinX, leafMinY, leafMaxX, leafMaxY) + inheritanceCost;
+            float cost2 = descendCost(child2[index], leafMinX, leafMinY, leafMaxX, leafMaxY) + inheritanceCost;
+            if (cost < cost1 && cost < cost2) break;
+            index = cost1 < cost2 ? child1[index] : child2[index];
+        }
+
+        int sibling = index;
+        int oldParent = parent[sibling];
+        int newParent = allocateNode();
+        parent[newParent] = oldParent;
+        userData[newParent] = NULL;
+        setUnion(newParent, leaf, sibling);
+        height[newParent] = height[sibling] + 1;
+        if (oldParent != NULL) {
+            if (child1[oldParent] == sibling) {
+                child1[oldParent] = newParent;
+            } else {
+                child2[oldParent] = newParent;
+            }
+        } else {
+            root = newParent;
+        }
+        child1[newParent] = sibling;
+        child2[newParent] = leaf;
+        parent[sibling] = newParent;
+        parent[leaf] = newParent;
+
+        refitAncestors(parent[leaf]);
+    }
+
+    /**
+     * Cost of descending into a child when inserting a box.
+     */
+    private float descendCost(int child, float minX, float minY, float maxX, float maxY) {
+        float combined = perimeter(Math.min(box[4 * child], minX), Math.min(box[4 * child + 1], minY),
+                Math.max(box[4 * child + 2], maxX), Math.max(box[4 * child + 3], maxY));
+        if (child1[child] == NULL) {
+            return combined;
+        }
+        return combined - perimeter(box[4 * child], box[4 * child + 1], box[4 * child + 2], box[4 * child + 3]);
+    }
+
+    /**
+     * Removes a leaf, replacing its parent by its sibling.
+     */
+    private void removeLeaf(int leaf) {
+        if (leaf == root) {
+            root = NULL;
+            return;
+        }
+        int leafParent = parent[leaf];
+        int grandParent = parent[leafParent];
+        int sibling = child1[leafParent] == leaf ? child2[leafParent] : child1[leafParent];
+        if (grandParent != NULL) {
+            if (child1[grandParent] == leafParent) {
+                child1[grandParent] = sibling;
+            } else {
+                child2[grandParent] = sibling;
+            }
+            parent[sibling] = grandParent;
+            freeNode(leafParent);
+            refitAncestors(grandParent);
+        } else {
+            root = sibling;
+            parent[sibling] = NULL;
+            freeNode(leafParent);
+        }
+    }
+
+    /**
+     * Walks from a node up to the root, rebalancing and refitting boxes and heights.
+     */
+    private void refitAncestors(int index) {
+        while (index != NULL) {
+            index = balance(index);
+            int c1 = child1[index];
+            int c2 = child2[index];
+            height[index] = 1 + Math.max(height[c1], height[c2]);
+            setUnion(index, c1, c2);
+            index = parent[index];
+        }
+    }
+
+    /**
+     * Performs a left or right rotation if node A is imbalanced.
+     *
+     * @param a The node to balance.
+     * @return The node now at A's position in the tree.
+     */
+    private int balance(int a) {
+        if (child1[a] == NULL || height[a] < 2) {
+            return a;
+        }
+        int b = child1[a];
+        int c = child2[a];
+        int difference = height[c] - height[b];
+
+        if (difference > 1) {
+            // Rotate C up.
+            int f = child1[c];
+            int g = child2[c];
+            child1[c] = a;
+            parent[c] = parent[a];
+            parent[a] = c;
+            replaceChild(parent[c], a, c);
+            if (height[f] > height[g]) {
+                child2[c] = f;
+                child2[a] = g;
+                parent[g] = a;
+                setUnion(a, b, g);
+                setUnion(c, a, f);
+                height[a] = 1 + Math.max(height[b], height[g]);
+                height[c] = 1 + Math.max(height[a], height[f]);
+            } else {
+                child2[c] = g;
+                child2[a] = f;
+                parent[f] = a;
+                setUnion(a, b, f);
+                setUnion(c, a, g);
+                height[a] = 1 + Math.max(height[b], height[f]);
+                height[c] = 1 + Math.max(height[a], height[g]);
+            }
+            return c;
+        }
+
+        if (difference < -1) {
+            // Rotate B up.
+            int d = child1[b];
+            int e = child2[b];
+            child1[b] = a;
+            parent[b] = parent[a];
+            parent[a] = b;
+            replaceChild(parent[b], a, b);
+            if (height[d] > height[e]) {
+                child2[b] = d;
+                child1[a] = e;
+                parent[e] = a;
+                setUnion(a, c, e);
+                setUnion(b, a, d);
+                height[a] = 1 + Math.max(height[c], height[e]);
+                height[b] = 1 + Math.max(height[a], height[d]);
+            } else {
+                child2[b] = e;
+                child1[a] = d;
+                parent[d] = a;
+                setUnion(a, c, d);
+                setUnion(b, a, e);
+                height[a] = 1 + Math.max(height[c], height[d]);
+                height[b] = 1 + Math.max(height[a], height[e]);
+            }
+            return b;
+        }
+        return a;
+    }
+
+    /**
+     * Points a parent (or the root) at a new child in place of an old one.
+     */
+    private void replaceChild(int parentNode, int oldChild, int newChild) {
+        if (parentNode == NULL) {
+            root = newChild;
+        } else if (child1[parentNode] == oldChild) {
+            child1[parentNode] = newChild;
+        } else {
+            child2[parentNode] = newChild;
+        }
+    }
+
+    /**
+     * Sets the box of a node to the union of the boxes of two other nodes.
+     */
+    private void setUnion(int node, int first, int second) {
+        box[4 * node] = Math.min(box[4 * first], box[4 * second]);
+        box[4 * node + 1] = Math.min(box[4 * first + 1], box[4 * second + 1]);
+        box[4 * node + 2] = Math.max(box[4 * first + 2], box[4 * second + 2]);
+        box[4 * node + 3] = Math.max(box[4 * first + 3], box[4 * second + 3]);
+    }
+
+    /**
+     * Perimeter of a box, used as its cost when building the tree.
+     */
+    private static float perimeter(float minX, float minY, float maxX, float maxY) {
+        return 2.0f * ((maxX - minX) + (maxY - minY));
+    }
+}
@@ -0,0 +1,345 @@
+package com.myproject.physics;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs simulations without a user interface, as fast as the world can step.
+ * A single run builds a world from a {@link SceneSpec}, steps it a fixed number of times and sends
+ * every n-th state to a {@link TrajectorySink}. A sweep runs many independent scenes at once on a
+ * thread pool, one world per task, for Monte Carlo studies over restitution, ball count and seed.
+ *
+ * From the command line:
+ * <pre>
+ * java -cp physics-engine.jar com.myproject.physics.HeadlessRunner [scene.properties] [options]
+ *   --steps N            steps per run (default 1000)
+ *   --dt SECONDS         time step (default 0.016)
+ *   --sample N           write every N-th step, 0 for none (default 1)
+ *   --format csv|bin     trajectory format (default csv)
+ *   --out PREFIX         trajectory file prefix; omit to run without output
+ *   --threads N          concurrent runs (default: available processors)
+ *   --balls A,B,...      ball counts to sweep
+ *   --restitution A,B,.. restitutions to sweep
+ *   --seeds A,B,...      seeds to sweep
+ * </pre>
+ * Every combination of the swept values is run, and one summary line is printed per run.
+ */
+public final class HeadlessRunner {
+
+    /**
+     * The outcome of one run.
+     */
+    public static final class Result {
+        private final SceneSpec spec; // The scene that was run.
+        private final int bodies; // The number of bodies in the world.
+        private final int steps; // The number of steps taken.
+        private final int samples; // The number of samples written.
+        private final long elapsedNanos; // Wall time of the steps and writes.
+        private final int sleepingBodies; // Bodies asleep after the last step.
+
+        Result(SceneSpec spec, int bodies, int steps, int samples, long elapsedNanos, int sleepingBodies) {
+            this.spec = spec;
+            this.bodies = bodies;
+            this.steps = steps;
+            this.samples = samples;
+            this.elapsedNanos = elapsedNanos;
+            this.sleepingBodies = sleepingBodies;
+        }
+
+        /**
+         * Gets the scene that was run.
+         *
+         * @return The spec.
+         */
+        public SceneSpec getSpec() {
+            return spec;
+        }
+
+        /**
+         * Gets the number of bodies in the world.
+         *
+         * @return The number of bodies.
+         */
+        public int getBodies() {
+            return bodies;
+        }
+
+        /**
+         * Gets the number of steps taken.
+         *
+         * @return The number of steps.
+         */
+        public int getSteps() {
+            return steps;
+        }
+
+        /**
+         * Gets the number of samples sent to the sink.
+         *
+         * @return The number of samples.
+         */
+        public int getSamples() {
+            return samples;
+        }
+
+        /**
+         * Gets the wall time spent stepping and writing samples.
+         *
+         * @return The time, in nanoseconds.
+         */
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /**
+         * Gets the number of bodies asleep after the last step.
+         *
+         * @return The number of sleeping bodies.
+         */
+        public int getSleepingBodies() {
+            return sleepingBodies;
+        }
+
+        /**
+         * Summarizes the run on one line.
+         *
+         * @return The summary.
+         */
+        @Override
+        public String toString() {
+            double ms = elapsedNanos / 1e6;
+            return String.format(Locale.ROOT, "%s bodies=%d steps=%d samples=%d sleeping=%d time=%.1fms (%.1f steps/s)",
+                    spec, bodies, steps, samples, sleepingBodies, ms, steps / (elapsedNanos / 1e9));
+        }
+    }
+
+    /**
+     * Creates the sink of one run of a sweep.
+     */
+    @FunctionalInterface
+    public interface SinkFactory {
+        /**
+         * Creates a sink for a scene.
+         *
+         * @param spec The scene about to run.
+         * @return The sink, or null to run without output.
+         * @throws IOException If the sink cannot be created.
+         */
+        TrajectorySink create(SceneSpec spec) throws IOException;
+    }
+
+    private HeadlessRunner() {
+    }
+
+    /**
+     * Builds and runs one scene on the calling thread.
+     * The first sample is the initial state, then one every {@code sampleInterval} steps.
+     * The sink is not closed.
+     *
+     * @param spec           The scene.
+     * @param steps          The number of steps, at least 0.
+     * @param deltaTime      The time step, in seconds.
+     * @param sampleInterval Steps between samples; 0 or less writes none.
+     * @param sink           The sink receiving samples, or null.
+     * @return The outcome.
+     * @throws IOException If the sink fails.
+     */
+    public static Result run(SceneSpec spec, int steps, float deltaTime, int sampleInterval,
+                             TrajectorySink sink) throws IOException {
+        if (steps < 0) {
+            throw new IllegalArgumentException("Step count must not be negative");
+        }
+        if (!(deltaTime > 0.0f)) {
+            throw new IllegalArgumentException("Time step must be positive");
+        }
+        PhysicsWorld world = spec.build();
+        world.setSyncViews(false); // Nobody reads the views of a headless world.
+        boolean sampling = sink != null && sampleInterval > 0;
+        StateSnapshot snapshot = new StateSnapshot();
+        int samples = 0;
+
+        long start = System.nanoTime();
+        if (sampling) {
+            world.snapshot(snapshot);
+            sink.write(snapshot);
+            samples++;
+        }
+        for (int s = 1; s <= steps; s++) {
+            world.update(deltaTime);
+            if (sampling && s % sampleInterval == 0) {
+                world.snapshot(snapshot);
+                sink.write(snapshot);
+                samples++;
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        return new Result(spec, world.getBodyCount(), steps, samples, elapsed, world.getSleepingBodyCount());
+    }
+
+    /**
+     * Runs many scenes concurrently, each in its own world on one thread of a fixed pool.
+     * Each run's sink is created on its pool thread just before the run and closed after it.
+     *
+     * @param specs          The scenes.
+     * @param steps          The number of steps of every run.
+     * @param deltaTime      The time step, in seconds.
+     * @param sampleInterval Steps between samples; 0 or less writes none.
+     * @param sinks          Creates the sink of each run.
+     * @param threads        The number of concurrent runs, at least 1.
+     * @return The outcomes, in the order of the scenes.
+     * @throws IOException          If a sink fails.
+     * @throws InterruptedException If the calling thread is interrupted while waiting.
+     */
+    public static List<Result> sweep(List<SceneSpec> specs, int steps, float deltaTime, int sampleInterval,
+                                     SinkFactory sinks, int threads) throws IOException, InterruptedException {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Thread count must be at least 1");
+        }
+        List<Callable<Result>> tasks = new ArrayList<>(specs.size());
+        for (SceneSpec spec : specs) {
+            tasks.add(() -> {
+                try (TrajectorySink sink = sinks.create(spec)) {
+                    return run(spec, steps, deltaTime, sampleInterval, sink);
+                }
+            });
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Result> results = new ArrayList<>(specs.size());
+            for (Future<Result> future : executor.invokeAll(tasks)) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof IOException io) throw io;
+                    if (cause instanceof RuntimeException re) throw re;
+                    if (cause instanceof Error err) throw err;
+                    throw new IllegalStateException(cause);
+                }
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Makes every combination of the given ball counts, restitutions and seeds on top of a base scene.
+     * An empty array keeps the base value for that parameter.
+     *
+     * @param base         The scene the combinations start from.
+     * @param ballCounts   The ball counts.
+     * @param restitutions The restitutions.
+     * @param seeds        The seeds.
+     * @return The scenes, with seeds varying fastest.
+     */
+    public static List<SceneSpec> combinations(SceneSpec base, int[] ballCounts, float[] restitutions, long[] seeds) {
+        List<SceneSpec> specs = new ArrayList<>();
+        int nb = Math.max(1, ballCounts.length);
+        int nr = Math.max(1, restitutions.length);
+        int ns = Math.max(1, seeds.length);
+        for (int b = 0; b < nb; b++) {
+            for (int r = 0; r < nr; r++) {
+                for (int s = 0; s < ns; s++) {
+                    SceneSpec spec = new SceneSpec(base);
+                    if (ballCounts.length > 0) spec.setBalls(ballCounts[b]);
+                    if (restitutions.length > 0) spec.setRestitution(restitutions[r]);
+                    if (seeds.length > 0) spec.setSeed(seeds[s]);
+                    specs.add(spec);
+                }
+            }
+        }
+        return specs;
+    }
+
+    /**
+     * Runs a sweep described by command line arguments and prints a summary line per run.
+     *
+     * @param args The arguments; see the class documentation.
+     * @throws Exception If a scene cannot be loaded or a run fails.
+     */
+    public static void main(String[] args) throws Exception {
+        SceneSpec base = new SceneSpec();
+        int steps = 1000;
+        float deltaTime = 0.016f;
+        int sampleInterval = 1;
+        boolean binary = false;
+        String out = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int[] ballCounts = new int[0];
+        float[] restitutions = new float[0];
+        long[] seeds = new long[0];
+
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (!arg.startsWith("--")) {
+                base = SceneSpec.load(Path.of(arg));
+                continue;
+            }
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + arg);
+            }
+            String value = args[++i];
+            switch (arg) {
+                case "--steps" -> steps = Integer.parseInt(value);
+                case "--dt" -> deltaTime = Float.parseFloat(value);
+                case "--sample" -> sampleInterval = Integer.parseInt(value);
+                case "--format" -> {
+                    if (!value.equals("csv") && !value.equals("bin")) {
+                        throw new IllegalArgumentException("Format must be csv or bin: " + value);
+                    }
+                    binary = value.equals("bin");
+                }
+                case "--out" -> out = value;
+                case "--threads" -> threads = Integer.parseInt(value);
+                case "--balls" -> ballCounts = splitList(value).stream().mapToInt(Integer::parseInt).toArray();
+                case "--restitution" -> {
+                    List<String> parts = splitList(value);
+                    restitutions = new float[parts.size()];
+                    for (int j = 0; j < restitutions.length; j++) {
+                        restitutions[j] = Float.parseFloat(parts.get(j));
+                    }
+                }
+                case "--seeds" -> seeds = splitList(value).stream().mapToLong(Long::parseLong).toArray();
+                default -> throw new IllegalArgumentException("Unknown option: " + arg);
+            }
+        }
+
+        List<SceneSpec> specs = combinations(base, ballCounts, restitutions, seeds);
+        String prefix = out;
+        boolean bin = binary;
+        SinkFactory sinks = spec -> {
+            if (prefix == null) return null;
+            String name = String.format(Locale.ROOT, "%s-b%d-r%s-s%d.%s",
+                    prefix, spec.getBalls(), spec.getRestitution(), spec.getSeed(), bin ? "bin" : "csv");
+            return bin ? new BinaryTrajectorySink(Path.of(name)) : new CsvTrajectorySink(Path.of(name));
+        };
+
+        long start = System.nanoTime();
+        List<Result> results = sweep(specs, steps, deltaTime, sampleInterval, sinks, threads);
+        for (Result result : results) {
+            System.out.println(result);
+        }
+        System.out.printf(Locale.ROOT, "%d runs in %.1fms%n", results.size(), (System.nanoTime() - start) / 1e6);
+    }
+
+    /**
+     * Splits a comma-separated list.
+     */
+    private static List<String> splitList(String value) {
+        List<String> parts = new ArrayList<>();
+        for (String part : value.split(",")) {
+            if (!part.isBlank()) parts.add(part.trim());
+        }
+        return parts;
+    }
+}
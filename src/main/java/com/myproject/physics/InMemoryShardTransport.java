@@ -0,0 +1,42 @@
+package com.myproject.physics;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A {@link ShardTransport} for shards in the same process: each shard has a queue of copied batches.
+ */
+public final class InMemoryShardTransport implements ShardTransport {
+
+    private final Queue<ByteBuffer>[] inboxes; // Batches waiting for each shard.
+
+    /**
+     * Constructs a transport for a number of shards.
+     *
+     * @param shardCount The number of shards.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public InMemoryShardTransport(int shardCount) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("Shard count must be at least 1");
+        }
+        inboxes = new Queue[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            inboxes[i] = new ConcurrentLinkedQueue<>();
+        }
+    }
+
+    @Override
+    public void send(int from, int to, ByteBuffer batch) {
+        ByteBuffer copy = ByteBuffer.allocate(batch.remaining()).order(ByteOrder.LITTLE_ENDIAN);
+        copy.put(batch.duplicate()).flip();
+        inboxes[to].add(copy);
+    }
+
+    @Override
+    public ByteBuffer receive(int to) {
+        return inboxes[to].poll();
+    }
+}
@@ -0,0 +1,328 @@
+package com.myproject.physics;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Records every input to a {@link PhysicsWorld} in an append-only binary journal, so that
+ * {@link InputReplayer} can re-execute the session exactly.
+ *
+ * The journal starts with a {@link WorldCheckpoint} of the world when recording begins, followed by
+ * one event per input: bodies added and removed, forces and torques applied, positions, angles,
+ * velocities and angular velocities set,
+ * bodies woken, body flags, collision filters and settings changed, bodies reordered, and steps
+ * taken with their time step. Every {@code hashInterval} steps the step event also carries
+ * {@link PhysicsWorld#stateHash()}, so a replay can tell the first step at which it no longer
+ * matches. Inputs made through {@link Rigidbody} and {@link Collider} views are
+ * recorded as well as those made through the world.
+ *
+ * Events are a tag byte followed by a fixed-size little-endian payload, buffered in memory and
+ * appended to the file in large writes. Recording is only ever called from the thread stepping the
+ * world. If a write fails, recording stops and the error is thrown by {@link #close()}.
+ */
+public final class InputRecorder implements Closeable {
+
+    /**
+     * The first four bytes of every journal, "PWRJ" in ASCII when read as a little-endian int.
+     */
+    public static final int MAGIC = 0x4A525750;
+
+    /**
+     * The version of the journal format.
+     */
+    public static final int VERSION = 8;
+
+    // Event tags.
+    static final byte ADD = 1;
+    static final byte FORCE = 2;
+    static final byte POSITION = 3;
+    static final byte VELOCITY = 4;
+    static final byte WAKE = 5;
+    static final byte SETTING = 6;
+    static final byte STEP = 7;
+    static final byte STEP_HASH = 8;
+    static final byte FLAGS = 9;
+    static final byte FILTER = 10;
+    static final byte REMOVE = 11;
+    static final byte REORDER = 12;
+    static final byte ADD_POLYGON = 13; // ADD followed by the polygon of the collider.
+    static final byte ANGLE = 14;
+    static final byte ANGULAR_VELOCITY = 15;
+    static final byte TORQUE = 16;
+
+    /**
+     * Payload size of each event, indexed by tag; -1 for unknown tags.
+     */
+    static final int[] PAYLOAD_BYTES = {-1, 70, 12, 12, 12, 4, 9, 4, 20, 5, 12, 4, 0, 70 + ConvexPolygon.BYTES, 8, 8, 8};
+
+    // Settings carried by SETTING events.
+    static final byte VELOCITY_ITERATIONS = 0;
+    static final byte WARM_STARTING = 1;
+    static final byte RESTITUTION = 2;
+    static final byte RESTITUTION_THRESHOLD = 3;
+    static final byte GRAVITY = 4;
+    static final byte SLEEPING_ENABLED = 5;
+    static final byte SLEEP_VELOCITY = 6;
+    static final byte TIME_TO_SLEEP = 7;
+    static final byte CONTINUOUS_COLLISION = 8;
+    static final byte REORDER_INTERVAL = 9;
+
+    static final int HEADER_BYTES = 20; // Magic, version, hash interval and checkpoint size.
+    private static final int BUFFER_SIZE = 1 << 16; // Bytes buffered between channel writes.
+
+    private final PhysicsWorld world; // The world being recorded.
+    private final BodyStore store; // The storage of the world.
+    private final int hashInterval; // Steps between state hashes; 0 for none.
+    private final FileChannel channel; // The journal file.
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN); // Pending events.
+    private long bytesWritten; // Bytes handed to the channel so far.
+    private IOException failure; // The first write error, or null.
+    private boolean closed; // Whether recording has ended.
+
+    /**
+     * Starts recording a world into a new journal, replacing the file if it exists.
+     * Only one recorder can be attached to a world at a time.
+     *
+     * @param world        The world to record.
+     * @param file         The journal file.
+     * @param hashInterval Steps between state hashes, or 0 to record none.
+     * @throws IOException If the file cannot be written.
+     */
+    public InputRecorder(PhysicsWorld world, Path file, int hashInterval) throws IOException {
+        if (hashInterval < 0) {
+            throw new IllegalArgumentException("Hash interval must not be negative");
+        }
+        this.world = world;
+        this.store = world.store();
+        if (store.recorder != null) {
+            throw new IllegalStateException("World is already being recorded");
+        }
+        this.hashInterval = hashInterval;
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            WorldCheckpoint checkpoint = new WorldCheckpoint();
+            world.checkpoint(checkpoint);
+            long size = checkpoint.getFileSize();
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(hashInterval).putLong(size);
+            flush();
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, bytesWritten, size);
+            checkpoint.writeTo(mapped);
+            bytesWritten += size;
+            channel.position(bytesWritten);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        store.recorder = this;
+    }
+
+    /**
+     * Gets the number of steps between state hashes.
+     *
+     * @return The hash interval, or 0 if no hashes are recorded.
+     */
+    public int getHashInterval() {
+        return hashInterval;
+    }
+
+    /**
+     * Gets the size of the journal so far, including events not yet written to the file.
+     *
+     * @return The size, in bytes.
+     */
+    public long getSize() {
+        return bytesWritten + buffer.position();
+    }
+
+    /**
+     * Records a body added to the world.
+     *
+     * @param handle   The handle the body received.
+     * @param rb       The rigid body, as it was added.
+     * @param collider The collider, as it was added.
+     */
+    void added(int handle, Rigidbody rb, Collider collider) {
+        if (!begin(collider.getPolygon() != null ? ADD_POLYGON : ADD)) return;
+        buffer.putInt(handle).putFloat(rb.mass)
+                .putFloat(rb.position.x).putFloat(rb.position.y)
+                .putFloat(rb.velocity.x).putFloat(rb.velocity.y)
+                .putFloat(rb.forceAccum.x).putFloat(rb.forceAccum.y)
+                .putFloat(rb.angle).putFloat(rb.angularVelocity)
+                .putFloat(rb.torque).putFloat(rb.inertia)
+                .put((byte) collider.getType().ordinal())
+                .putFloat(collider.getRadius())
+                .putFloat(collider.getHalfSize().x).putFloat(collider.getHalfSize().y)
+                .putInt(collider.getCategoryBits()).putInt(collider.getMaskBits())
+                .put(store.flags[store.index(handle)]);
+        if (collider.getPolygon() != null) {
+            collider.getPolygon().write(buffer);
+        }
+    }
+
+    /**
+     * Records an input that targets one body with two values: a force, a position or a velocity.
+     *
+     * @param tag    The event tag.
+     * @param handle The handle of the body.
+     * @param x      The x component.
+     * @param y      The y component.
+     */
+    void body(byte tag, int handle, float x, float y) {
+        if (!begin(tag)) return;
+        buffer.putInt(handle).putFloat(x).putFloat(y);
+    }
+
+    /**
+     * Records an input that targets one body with one value: an angle, an angular velocity or a torque.
+     *
+     * @param tag    The event tag.
+     * @param handle The handle of the body.
+     * @param value  The value.
+     */
+    void angular(byte tag, int handle, float value) {
+        if (!begin(tag)) return;
+        buffer.putInt(handle).putFloat(value);
+    }
+
+    /**
+     * Records a body being woken up.
+     *
+     * @param handle The handle of the body.
+     */
+    void wake(int handle) {
+        if (!begin(WAKE)) return;
+        buffer.putInt(handle);
+    }
+
+    /**
+     * Records a body being removed.
+     *
+     * @param handle The handle of the body.
+     */
+    void removed(int handle) {
+        if (!begin(REMOVE)) return;
+        buffer.putInt(handle);
+    }
+
+    /**
+     * Records the bodies being reordered in memory.
+     */
+    void reorder() {
+        begin(REORDER);
+    }
+
+    /**
+     * Records a change of the flags of a body.
+     *
+     * @param handle The handle of the body.
+     * @param flags  The new flags.
+     */
+    void flags(int handle, byte flags) {
+        if (!begin(FLAGS)) return;
+        buffer.putInt(handle).put(flags);
+    }
+
+    /**
+     * Records a change of the collision filter of a body.
+     *
+     * @param handle   The handle of the body.
+     * @param category The new category bits.
+     * @param mask     The new mask bits.
+     */
+    void filter(int handle, int category, int mask) {
+        if (!begin(FILTER)) return;
+        buffer.putInt(handle).putInt(category).putInt(mask);
+    }
+
+    /**
+     * Records a change of a world setting.
+     *
+     * @param setting The setting.
+     * @param a       The new value, or its first component.
+     * @param b       The second component, or 0.
+     */
+    void setting(byte setting, float a, float b) {
+        if (!begin(SETTING)) return;
+        buffer.put(setting).putFloat(a).putFloat(b);
+    }
+
+    /**
+     * Records a completed step, with a state hash if the step falls on the hash interval.
+     *
+     * @param deltaTime The time step.
+     */
+    void step(float deltaTime) {
+        long stepCount = world.getStepCount();
+        if (hashInterval > 0 && stepCount % hashInterval == 0) {
+            long hash = world.stateHash();
+            if (!begin(STEP_HASH)) return;
+            buffer.putFloat(deltaTime).putLong(stepCount).putLong(hash);
+        } else {
+            if (!begin(STEP)) return;
+            buffer.putFloat(deltaTime);
+        }
+    }
+
+    /**
+     * Makes room for an event and writes its tag.
+     *
+     * @return False if recording has failed and the event must be dropped.
+     */
+    private boolean begin(byte tag) {
+        if (failure != null) return false;
+        if (buffer.remaining() < 1 + PAYLOAD_BYTES[tag]) {
+            try {
+                flush();
+            } catch (IOException e) {
+                failure = e;
+                return false;
+            }
+        }
+        buffer.put(tag);
+        return true;
+    }
+
+    /**
+     * Writes the buffered events to the file.
+     *
+     * @throws IOException If the write fails.
+     */
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            bytesWritten += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Stops recording, detaches from the world and closes the journal.
+     *
+     * @throws IOException If an event could not be written at any point during recording.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        if (store.recorder == this) {
+            store.recorder = null;
+        }
+        try {
+            if (failure == null) {
+                flush();
+            }
+        } finally {
+            channel.close();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
@@ -0,0 +1,356 @@
+package com.myproject.physics;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Re-executes a journal written by {@link InputRecorder} as fast as the world can step, and
+ * compares the state hashes recorded in it with those of the replayed world. The replay stops at
+ * the first step whose hash differs, which is where the replayed world left the recorded one.
+ *
+ * From the command line:
+ * <pre>
+ * java -cp physics-engine.jar com.myproject.physics.InputReplayer journal.bin [threads]
+ * </pre>
+ */
+public final class InputReplayer {
+
+    private static final int BUFFER_SIZE = 1 << 16; // Bytes read from the journal at a time.
+    private static final Collider.Type[] TYPES = Collider.Type.values();
+
+    /**
+     * The outcome of a replay.
+     */
+    public static final class Result {
+        private final PhysicsWorld world; // The replayed world, as it was when the replay stopped.
+        private final long steps; // The number of steps replayed.
+        private final long hashesChecked; // The number of recorded hashes compared.
+        private final long divergentStep; // The first step whose hash differed, or -1.
+        private final long expectedHash; // The recorded hash of the divergent step.
+        private final long actualHash; // The replayed hash of the divergent step.
+        private final boolean truncated; // Whether the journal ended in the middle of an event.
+
+        Result(PhysicsWorld world, long steps, long hashesChecked, long divergentStep,
+               long expectedHash, long actualHash, boolean truncated) {
+            this.world = world;
+            this.steps = steps;
+            this.hashesChecked = hashesChecked;
+            this.divergentStep = divergentStep;
+            this.expectedHash = expectedHash;
+            this.actualHash = actualHash;
+            this.truncated = truncated;
+        }
+
+        /**
+         * Gets the replayed world, as it was when the replay stopped.
+         *
+         * @return The world.
+         */
+        public PhysicsWorld getWorld() {
+            return world;
+        }
+
+        /**
+         * Gets the number of steps replayed.
+         *
+         * @return The number of steps.
+         */
+        public long getSteps() {
+            return steps;
+        }
+
+        /**
+         * Gets the number of recorded state hashes compared.
+         *
+         * @return The number of hashes checked.
+         */
+        public long getHashesChecked() {
+            return hashesChecked;
+        }
+
+        /**
+         * Checks whether the replay left the recorded session.
+         *
+         * @return True if a state hash differed.
+         */
+        public boolean isDiverged() {
+            return divergentStep >= 0;
+        }
+
+        /**
+         * Gets the step count of the world at the first hash that differed.
+         *
+         * @return The step, or -1 if every hash matched.
+         */
+        public long getDivergentStep() {
+            return divergentStep;
+        }
+
+        /**
+         * Gets the recorded hash at the divergent step.
+         *
+         * @return The recorded hash, or 0 if there was no divergence.
+         */
+        public long getExpectedHash() {
+            return expectedHash;
+        }
+
+        /**
+         * Gets the replayed hash at the divergent step.
+         *
+         * @return The replayed hash, or 0 if there was no divergence.
+         */
+        public long getActualHash() {
+            return actualHash;
+        }
+
+        /**
+         * Checks whether the journal ended in the middle of an event, as when the recording
+         * process died before closing it. Everything before that event was replayed.
+         *
+         * @return True if the journal was cut short.
+         */
+        public boolean isTruncated() {
+            return truncated;
+        }
+
+        /**
+         * Summarizes the replay on one line.
+         *
+         * @return The summary.
+         */
+        @Override
+        public String toString() {
+            String outcome = isDiverged()
+                    ? String.format("diverged at step %d (expected %016x, got %016x)", divergentStep, expectedHash, actualHash)
+                    : "no divergence";
+            return "Replayed " + steps + " steps, checked " + hashesChecked + " hashes: " + outcome
+                    + (truncated ? " (journal truncated)" : "");
+        }
+    }
+
+    private InputReplayer() {
+    }
+
+    /**
+     * Replays a journal on a single thread with a spatial hash grid broad phase.
+     *
+     * @param file The journal.
+     * @return The outcome.
+     * @throws IOException If the journal cannot be read or is not a journal of this version.
+     */
+    public static Result replay(Path file) throws IOException {
+        return replay(file, new SpatialHashGrid(), 1);
+    }
+
+    /**
+     * Replays a journal. Since results do not depend on the broad phase or the thread count,
+     * replaying with other ones than the recording also checks that they agree.
+     *
+     * @param file       The journal.
+     * @param broadPhase The broad phase of the replayed world.
+     * @param threads    The number of threads stepping the replayed world.
+     * @return The outcome.
+     * @throws IOException If the journal cannot be read or is not a journal of this version.
+     */
+    public static Result replay(Path file, BroadPhase broadPhase, int threads) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(InputRecorder.HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(channel, header);
+            if (header.remaining() < InputRecorder.HEADER_BYTES || header.getInt() != InputRecorder.MAGIC) {
+                throw new IOException("Not an input journal: " + file);
+            }
+            int version = header.getInt();
+            if (version != InputRecorder.VERSION) {
+                throw new IOException("Unsupported journal version " + version + ": " + file);
+            }
+            header.getInt(); // Hash interval; the hashes themselves mark where to check.
+            long checkpointSize = header.getLong();
+            if (checkpointSize < 0 || channel.position() + checkpointSize > channel.size()) {
+                throw new IOException("Truncated input journal: " + file);
+            }
+
+            WorldCheckpoint checkpoint = new WorldCheckpoint();
+            checkpoint.readFrom(channel.map(FileChannel.MapMode.READ_ONLY, channel.position(), checkpointSize),
+                    file.toString());
+            channel.position(channel.position() + checkpointSize);
+            PhysicsWorld world = checkpoint.restore(broadPhase);
+            world.setThreadCount(threads);
+            try {
+                return run(channel, world, file);
+            } finally {
+                world.setThreadCount(1);
+            }
+        }
+    }
+
+    /**
+     * Applies the events of a journal to a world until the end or the first divergence.
+     */
+    private static Result run(FileChannel channel, PhysicsWorld world, Path file) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.flip();
+        Vector2D force = new Vector2D(0, 0);
+        long steps = 0;
+        long hashesChecked = 0;
+        boolean truncated = false;
+
+        while (true) {
+            if (buffer.remaining() < 256) { // More than the largest event.
+                buffer.compact();
+                readFully(channel, buffer);
+            }
+            if (!buffer.hasRemaining()) break;
+            byte tag = buffer.get();
+            if (tag < 1 || tag >= InputRecorder.PAYLOAD_BYTES.length) {
+                throw new IOException("Corrupt input journal: unknown event " + tag + " in " + file);
+            }
+            if (buffer.remaining() < InputRecorder.PAYLOAD_BYTES[tag]) {
+                truncated = true;
+                break;
+            }
+            switch (tag) {
+                case InputRecorder.ADD, InputRecorder.ADD_POLYGON -> {
+                    int handle = buffer.getInt();
+                    Rigidbody rb = new Rigidbody(buffer.getFloat());
+                    rb.position.set(buffer.getFloat(), buffer.getFloat());
+                    rb.velocity.set(buffer.getFloat(), buffer.getFloat());
+                    rb.forceAccum.set(buffer.getFloat(), buffer.getFloat());
+                    rb.angle = buffer.getFloat();
+                    rb.angularVelocity = buffer.getFloat();
+                    rb.torque = buffer.getFloat();
+                    float inertia = buffer.getFloat();
+                    if (!(inertia >= 0.0f)) {
+                        throw new IOException("Corrupt input journal: bad inertia in " + file);
+                    }
+                    rb.inertia = inertia;
+                    byte shape = buffer.get();
+                    float radius = buffer.getFloat();
+                    Vector2D halfSize = new Vector2D(buffer.getFloat(), buffer.getFloat());
+                    int category = buffer.getInt();
+                    int mask = buffer.getInt();
+                    byte flags = buffer.get();
+                    Vector2D center = new Vector2D(rb.position.x, rb.position.y);
+                    Collider collider;
+                    if (tag == InputRecorder.ADD_POLYGON) {
+                        try {
+                            collider = new Collider(ConvexPolygon.read(buffer), center);
+                        } catch (IllegalArgumentException e) {
+                            throw new IOException("Corrupt input journal: bad polygon in " + file, e);
+                        }
+                    } else if (shape >= 0 && shape < BodyStore.POLYGON) {
+                        collider = new Collider(TYPES[shape], center, radius, halfSize);
+                    } else {
+                        throw new IOException("Corrupt input journal: unknown shape " + shape + " in " + file);
+                    }
+                    collider.setFilter(category, mask);
+                    if (world.addRigidbody(rb, collider) != handle) {
+                        throw new IOException("Input journal does not match its checkpoint: " + file);
+                    }
+                    setFlags(world, handle, flags);
+                }
+                case InputRecorder.FORCE -> {
+                    Rigidbody rb = world.getRigidbody(buffer.getInt());
+                    rb.applyForce(force.set(buffer.getFloat(), buffer.getFloat()));
+                }
+                case InputRecorder.POSITION -> {
+                    Rigidbody rb = world.getRigidbody(buffer.getInt());
+                    rb.setPosition(buffer.getFloat(), buffer.getFloat());
+                }
+                case InputRecorder.VELOCITY -> {
+                    Rigidbody rb = world.getRigidbody(buffer.getInt());
+                    rb.setVelocity(buffer.getFloat(), buffer.getFloat());
+                }
+                case InputRecorder.ANGLE -> world.getRigidbody(buffer.getInt()).setAngle(buffer.getFloat());
+                case InputRecorder.ANGULAR_VELOCITY -> world.getRigidbody(buffer.getInt()).setAngularVelocity(buffer.getFloat());
+                case InputRecorder.TORQUE -> world.getRigidbody(buffer.getInt()).applyTorque(buffer.getFloat());
+                case InputRecorder.WAKE -> world.getRigidbody(buffer.getInt()).wakeUp();
+                case InputRecorder.REMOVE -> world.removeRigidbody(buffer.getInt());
+                case InputRecorder.REORDER -> world.reorderBodies();
+                case InputRecorder.FLAGS -> setFlags(world, buffer.getInt(), buffer.get());
+                case InputRecorder.FILTER -> world.getCollider(buffer.getInt()).setFilter(buffer.getInt(), buffer.getInt());
+                case InputRecorder.SETTING -> applySetting(world, buffer.get(), buffer.getFloat(), buffer.getFloat(), file);
+                case InputRecorder.STEP -> {
+                    world.update(buffer.getFloat());
+                    steps++;
+                }
+                case InputRecorder.STEP_HASH -> {
+                    world.update(buffer.getFloat());
+                    steps++;
+                    long step = buffer.getLong();
+                    long expected = buffer.getLong();
+                    long actual = world.stateHash();
+                    hashesChecked++;
+                    if (step != world.getStepCount() || expected != actual) {
+                        return new Result(world, steps, hashesChecked, world.getStepCount(), expected, actual, false);
+                    }
+                }
+                default -> throw new IOException("Corrupt input journal: unknown event " + tag + " in " + file);
+            }
+        }
+        return new Result(world, steps, hashesChecked, -1, 0, 0, truncated);
+    }
+
+    /**
+     * Applies a recorded setting change.
+     */
+    private static void applySetting(PhysicsWorld world, byte setting, float a, float b, Path file) throws IOException {
+        switch (setting) {
+            case InputRecorder.VELOCITY_ITERATIONS -> world.setVelocityIterations((int) a);
+            case InputRecorder.WARM_STARTING -> world.setWarmStarting(a != 0.0f);
+            case InputRecorder.RESTITUTION -> world.setRestitution(a);
+            case InputRecorder.RESTITUTION_THRESHOLD -> world.setRestitutionThreshold(a);
+            case InputRecorder.GRAVITY -> world.setGravity(a, b);
+            case InputRecorder.SLEEPING_ENABLED -> world.setSleepingEnabled(a != 0.0f);
+            case InputRecorder.SLEEP_VELOCITY -> world.setSleepVelocity(a);
+            case InputRecorder.TIME_TO_SLEEP -> world.setTimeToSleep(a);
+            case InputRecorder.CONTINUOUS_COLLISION -> world.setContinuousCollision(a != 0.0f);
+            case InputRecorder.REORDER_INTERVAL -> world.setReorderInterval((int) a);
+            default -> throw new IOException("Corrupt input journal: unknown setting " + setting + " in " + file);
+        }
+    }
+
+    /**
+     * Sets the flags of a body, and of its views.
+     */
+    private static void setFlags(PhysicsWorld world, int handle, byte flags) {
+        BodyStore store = world.store();
+        int i = store.index(handle);
+        store.flags[i] = flags;
+        store.rigidbodies[i].bullet = (flags & BodyStore.BULLET) != 0;
+        store.colliders[i].sensor = (flags & BodyStore.SENSOR) != 0;
+    }
+
+    /**
+     * Fills a buffer from the channel until it is full or the file ends, then flips it for reading.
+     */
+    private static void readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+            // Keep reading.
+        }
+        buffer.flip();
+    }
+
+    /**
+     * Replays a journal and prints the outcome.
+     *
+     * @param args The journal file, and optionally the number of threads.
+     * @throws IOException If the journal cannot be read.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: InputReplayer <journal> [threads]");
+            System.exit(2);
+        }
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+        long start = System.nanoTime();
+        Result result = replay(Path.of(args[0]), new SpatialHashGrid(), threads);
+        System.out.println(result);
+        System.out.printf("%.1fms%n", (System.nanoTime() - start) / 1e6);
+        System.exit(result.isDiverged() ? 1 : 0);
+    }
+}
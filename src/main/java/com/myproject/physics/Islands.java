@@ -0,0 +1,117 @@
+package com.myproject.physics;
+
+import java.util.Arrays;
+
+/**
+ * Partitions the contacts of a step into islands: connected components of the graph whose nodes
+ * are dynamic bodies and whose edges are contacts. Static bodies are never written while resolving
+ * contacts, so they do not join islands together. Contacts of different islands touch disjoint sets
+ * of dynamic bodies and can be resolved concurrently; within an island, contacts keep their
+ * original order, so the result is the same as resolving every contact in order on one thread.
+ */
+final class Islands {
+
+    private int[] parent = new int[0]; // Union-find forest over body indices.
+    private int[] islandOfRoot = new int[0]; // The island id of each root, or -1.
+
+    int[] order = new int[0]; // Contact indices grouped by island.
+    int[] start = new int[1]; // Island i owns order[start[i]] to order[start[i + 1] - 1].
+    int count; // The number of islands.
+    private int[] islandOfContact = new int[0];
+
+    /**
+     * Groups contacts into islands.
+     * Contacts between two static bodies belong to no island.
+     *
+     * @param invMass      The inverse mass of each body; 0 marks a static body.
+     * @param bodyCount    The number of bodies.
+     * @param contactA     The first body index of each contact.
+     * @param contactB     The second body index of each contact.
+     * @param contactCount The number of contacts.
+     */
+    void build(float[] invMass, int bodyCount, int[] contactA, int[] contactB, int contactCount) {
+        if (parent.length < bodyCount) {
+            parent = new int[Math.max(bodyCount, parent.length * 2)];
+            islandOfRoot = new int[parent.length];
+        }
+        if (islandOfContact.length < contactCount) {
+            islandOfContact = new int[Math.max(contactCount, islandOfContact.length * 2)];
+            order = new int[islandOfContact.length];
+        }
+        for (int i = 0; i < bodyCount; i++) {
+            parent[i] = i;
+            islandOfRoot[i] = -1;
+        }
+        for (int k = 0; k < contactCount; k++) {
+            int a = contactA[k];
+            int b = contactB[k];
+            if (invMass[a] != 0.0f && invMass[b] != 0.0f) {
+                int rootA = find(a);
+                int rootB = find(b);
+                if (rootA != rootB) {
+                    parent[rootA] = rootB;
+                }
+            }
+        }
+
+        // Number islands in order of their first contact and count their contacts.
+        count = 0;
+        for (int k = 0; k < contactCount; k++) {
+            int a = contactA[k];
+            int b = contactB[k];
+            if (invMass[a] == 0.0f && invMass[b] == 0.0f) {
+                islandOfContact[k] = -1;
+                continue;
+            }
+            int root = find(invMass[a] != 0.0f ? a : b);
+            if (islandOfRoot[root] == -1) {
+                islandOfRoot[root] = count++;
+                if (start.length < count + 1) {
+                    start = Arrays.copyOf(start, Math.max(count + 1, start.length * 2));
+                }
+                start[count] = 0;
+            }
+            int island = islandOfRoot[root];
+            islandOfContact[k] = island;
+            start[island + 1]++;
+        }
+        start[0] = 0;
+        for (int i = 0; i < count; i++) {
+            start[i + 1] += start[i];
+        }
+
+        // Place contacts, keeping their order within each island.
+        for (int k = 0; k < contactCount; k++) {
+            int island = islandOfContact[k];
+            if (island == -1) continue;
+            order[start[island]++] = k;
+        }
+        for (int i = count; i > 0; i--) {
+            start[i] = start[i - 1];
+        }
+        start[0] = 0;
+    }
+
+    /**
+     * Gets a representative body of the island a body belongs to, as of the last build.
+     * Bodies share a representative exactly when they are connected through contacts between
+     * dynamic bodies; a body without such contacts is its own representative.
+     *
+     * @param body The index of the body.
+     * @return The index of the representative body.
+     */
+    int root(int body) {
+        return find(body);
+    }
+
+    /**
+     * Finds the root of a body's tree, halving the path on the way.
+     */
+    private int find(int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+}
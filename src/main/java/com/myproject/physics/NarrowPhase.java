@@ -0,0 +1,739 @@
+package com.myproject.physics;
+
+/**
+ * Exact collision tests between bodies, working directly on the columns of a {@link BodyStore}.
+ * Each test mirrors the overlap test in {@link Collider} and, on contact, produces a manifold:
+ * the unit normal pointing from the first body to the second, the penetration depth, and a contact
+ * point midway between the two surfaces.
+ * Boxes and polygons are tested against each other with the separating axis test; a box is the
+ * unit box scaled by its half size, so every pair of them shares one routine. Polygons turn with
+ * their body: each test works in the frame of one of the bodies, with the other moved and turned
+ * into it, and turns the resulting normal and contact point back into the world.
+ * {@link #sweep} finds the time of impact of a moving circle for continuous collision.
+ */
+final class NarrowPhase {
+
+    private static final float SWEEP_SLOP = 0.02f; // Gap or overlap at the start of a sweep still counted as touching, twice the solver slop.
+    private static final float REFERENCE_TOLERANCE = 0.0005f; // Extra separation the second body's axis needs to become the reference face.
+
+    private NarrowPhase() {
+    }
+
+    /**
+     * Tests two bodies for contact and writes the manifold into the given arrays at {@code slot}.
+     *
+     * @param store       The body storage.
+     * @param a           The index of the first body.
+     * @param b           The index of the second body.
+     * @param normalX     Receives the x component of the normal from a to b.
+     * @param normalY     Receives the y component of the normal from a to b.
+     * @param penetration Receives the penetration depth.
+     * @param pointX      Receives the x coordinate of the contact point.
+     * @param pointY      Receives the y coordinate of the contact point.
+     * @param slot        The position to write the manifold at.
+     * @return True if the bodies touch, false otherwise (the arrays are then left unspecified).
+     */
+    static boolean collide(BodyStore store, int a, int b, float[] normalX, float[] normalY, float[] penetration,
+                           float[] pointX, float[] pointY, int slot) {
+        // One jump on the pair of shapes, so more shapes do not slow down the common pairs.
+        return switch (store.shape[a] * BodyStore.SHAPES + store.shape[b]) {
+            case BodyStore.CIRCLE * BodyStore.SHAPES + BodyStore.CIRCLE ->
+                    circleCircle(store, a, b, normalX, normalY, penetration, pointX, pointY, slot);
+            case BodyStore.AABB * BodyStore.SHAPES + BodyStore.AABB ->
+                    aabbAABB(store, a, b, normalX, normalY, penetration, pointX, pointY, slot);
+            case BodyStore.CIRCLE * BodyStore.SHAPES + BodyStore.AABB ->
+                    circleAABB(store, a, b, normalX, normalY, penetration, pointX, pointY, slot, 1.0f);
+            case BodyStore.AABB * BodyStore.SHAPES + BodyStore.CIRCLE ->
+                    circleAABB(store, b, a, normalX, normalY, penetration, pointX, pointY, slot, -1.0f);
+            case BodyStore.CIRCLE * BodyStore.SHAPES + BodyStore.POLYGON ->
+                    circlePolygon(store, a, b, normalX, normalY, penetration, pointX, pointY, slot, 1.0f);
+            case BodyStore.POLYGON * BodyStore.SHAPES + BodyStore.CIRCLE ->
+                    circlePolygon(store, b, a, normalX, normalY, penetration, pointX, pointY, slot, -1.0f);
+            default -> polygonPolygon(store, a, b, normalX, normalY, penetration, pointX, pointY, slot);
+        };
+    }
+
+    /**
+     * Collides two circles.
+     */
+    private static boolean circleCircle(BodyStore store, int a, int b, float[] normalX, float[] normalY,
+                                        float[] penetration, float[] pointX, float[] pointY, int slot) {
+        float dx = store.posX[b] - store.posX[a];
+        float dy = store.posY[b] - store.posY[a];
+        float radiusSum = store.radius[a] + store.radius[b];
+        float distanceSquared = dx * dx + dy * dy;
+        if (distanceSquared > radiusSum * radiusSum) return false;
+        float distance = (float) Math.sqrt(distanceSquared);
+        if (distance > 0.0f) {
+            normalX[slot] = dx / distance;
+            normalY[slot] = dy / distance;
+        } else {
+            // Concentric circles: any direction separates them.
+            normalX[slot] = 0.0f;
+            normalY[slot] = 1.0f;
+        }
+        penetration[slot] = radiusSum - distance;
+        float reach = store.radius[a] - penetration[slot] * 0.5f;
+        pointX[slot] = store.posX[a] + normalX[slot] * reach;
+        pointY[slot] = store.posY[a] + normalY[slot] * reach;
+        return true;
+    }
+
+    /**
+     * Collides two boxes, separating them along the axis of least overlap. The contact point is the
+     * center of the overlap.
+     */
+    private static boolean aabbAABB(BodyStore store, int a, int b, float[] normalX, float[] normalY,
+                                    float[] penetration, float[] pointX, float[] pointY, int slot) {
+        float dx = store.posX[b] - store.posX[a];
+        float dy = store.posY[b] - store.posY[a];
+        float overlapX = store.halfX[a] + store.halfX[b] - Math.abs(dx);
+        float overlapY = store.halfY[a] + store.halfY[b] - Math.abs(dy);
+        if (overlapX < 0.0f || overlapY < 0.0f) return false;
+        if (overlapX < overlapY) {
+            normalX[slot] = dx < 0.0f ? -1.0f : 1.0f;
+            normalY[slot] = 0.0f;
+            penetration[slot] = overlapX;
+        } else {
+            normalX[slot] = 0.0f;
+            normalY[slot] = dy < 0.0f ? -1.0f : 1.0f;
+            penetration[slot] = overlapY;
+        }
+        pointX[slot] = (Math.max(store.posX[a] - store.halfX[a], store.posX[b] - store.halfX[b])
+                + Math.min(store.posX[a] + store.halfX[a], store.posX[b] + store.halfX[b])) * 0.5f;
+        pointY[slot] = (Math.max(store.posY[a] - store.halfY[a], store.posY[b] - store.halfY[b])
+                + Math.min(store.posY[a] + store.halfY[a], store.posY[b] + store.halfY[b])) * 0.5f;
+        return true;
+    }
+
+    /**
+     * Collides a circle with a box. The normal points from the circle to the box, multiplied by
+     * {@code sign} so callers can flip it when the box is the first body of the pair.
+     */
+    private static boolean circleAABB(BodyStore store, int circle, int box, float[] normalX, float[] normalY,
+                                      float[] penetration, float[] pointX, float[] pointY, int slot, float sign) {
+        float centerX = store.posX[circle];
+        float centerY = store.posY[circle];
+        float boxX = store.posX[box];
+        float boxY = store.posY[box];
+        float halfX = store.halfX[box];
+        float halfY = store.halfY[box];
+        float r = store.radius[circle];
+        float closestX = Math.max(boxX - halfX, Math.min(centerX, boxX + halfX));
+        float closestY = Math.max(boxY - halfY, Math.min(centerY, boxY + halfY));
+        float distanceX = centerX - closestX;
+        float distanceY = centerY - closestY;
+        float distanceSquared = distanceX * distanceX + distanceY * distanceY;
+        if (distanceSquared >= r * r) return false;
+
+        if (distanceSquared > 0.0f) {
+            float distance = (float) Math.sqrt(distanceSquared);
+            normalX[slot] = -distanceX / distance * sign;
+            normalY[slot] = -distanceY / distance * sign;
+            penetration[slot] = r - distance;
+        } else {
+            // The center is inside the box: push the circle out through the nearest face.
+            float localX = centerX - boxX;
+            float localY = centerY - boxY;
+            float faceX = halfX - Math.abs(localX);
+            float faceY = halfY - Math.abs(localY);
+            if (faceX < faceY) {
+                normalX[slot] = (localX < 0.0f ? 1.0f : -1.0f) * sign;
+                normalY[slot] = 0.0f;
+                penetration[slot] = r + faceX;
+            } else {
+                normalX[slot] = 0.0f;
+                normalY[slot] = (localY < 0.0f ? 1.0f : -1.0f) * sign;
+                penetration[slot] = r + faceY;
+            }
+        }
+        circlePoint(centerX, centerY, r, normalX[slot] * sign, normalY[slot] * sign, penetration, pointX, pointY, slot);
+        return true;
+    }
+
+    /**
+     * Collides a circle with a convex polygon. The normal points from the circle to the polygon,
+     * multiplied by {@code sign} like {@link #circleAABB}.
+     */
+    private static boolean circlePolygon(BodyStore store, int circle, int poly, float[] normalX, float[] normalY,
+                                         float[] penetration, float[] pointX, float[] pointY, int slot, float sign) {
+        ConvexPolygon polygon = store.polygon[poly];
+        float cos = store.rotCos[poly];
+        float sin = store.rotSin[poly];
+        float centerX = store.posX[circle];
+        float centerY = store.posY[circle];
+        float offsetX = centerX - store.posX[poly];
+        float offsetY = centerY - store.posY[poly];
+        float localX = cos * offsetX + sin * offsetY;
+        float localY = cos * offsetY - sin * offsetX;
+        float r = store.radius[circle];
+        int edge = deepestEdge(polygon, 1.0f, 1.0f, localX, localY);
+        float separation = pointSeparation(polygon, 1.0f, 1.0f, edge, localX, localY);
+        if (separation >= r) return false;
+
+        // Normal from the polygon to the circle: the edge's, or towards the center past a vertex.
+        float nx = polygon.normalX[edge];
+        float ny = polygon.normalY[edge];
+        float depth = r - separation;
+        if (separation > 0.0f) {
+            int next = edge + 1 == polygon.count ? 0 : edge + 1;
+            int vertex = -1;
+            if ((localX - polygon.x[edge]) * (polygon.x[next] - polygon.x[edge])
+                    + (localY - polygon.y[edge]) * (polygon.y[next] - polygon.y[edge]) <= 0.0f) {
+                vertex = edge;
+            } else if ((localX - polygon.x[next]) * (polygon.x[edge] - polygon.x[next])
+                    + (localY - polygon.y[next]) * (polygon.y[edge] - polygon.y[next]) <= 0.0f) {
+                vertex = next;
+            }
+            if (vertex >= 0) {
+                float dx = localX - polygon.x[vertex];
+                float dy = localY - polygon.y[vertex];
+                float distanceSquared = dx * dx + dy * dy;
+                if (distanceSquared >= r * r) return false;
+                float distance = (float) Math.sqrt(distanceSquared);
+                nx = dx / distance;
+                ny = dy / distance;
+                depth = r - distance;
+            }
+        }
+        float worldX = cos * nx - sin * ny;
+        float worldY = sin * nx + cos * ny;
+        normalX[slot] = -worldX * sign;
+        normalY[slot] = -worldY * sign;
+        penetration[slot] = depth;
+        circlePoint(centerX, centerY, r, -worldX, -worldY, penetration, pointX, pointY, slot);
+        return true;
+    }
+
+    /**
+     * Writes the contact point of a circle: on the normal from its center, midway between its
+     * surface and the other body's.
+     *
+     * @param nx The x component of the unit normal from the circle to the other body.
+     * @param ny The y component of that normal.
+     */
+    private static void circlePoint(float centerX, float centerY, float r, float nx, float ny,
+                                    float[] penetration, float[] pointX, float[] pointY, int slot) {
+        float reach = r - penetration[slot] * 0.5f;
+        pointX[slot] = centerX + nx * reach;
+        pointY[slot] = centerY + ny * reach;
+    }
+
+    /**
+     * Collides two bodies that are each a box or a polygon with the separating axis test. The edge
+     * whose axis separates the bodies most becomes the reference face; the other body's edge facing
+     * it most is clipped to the sides of the reference face, and the contact point is the average of
+     * the clipped points that lie behind it, each moved halfway to the face.
+     */
+    private static boolean polygonPolygon(BodyStore store, int a, int b, float[] normalX, float[] normalY,
+                                          float[] penetration, float[] pointX, float[] pointY, int slot) {
+        boolean boxA = store.shape[a] == BodyStore.AABB;
+        boolean boxB = store.shape[b] == BodyStore.AABB;
+        ConvexPolygon polygonA = boxA ? ConvexPolygon.UNIT_BOX : store.polygon[a];
+        ConvexPolygon polygonB = boxB ? ConvexPolygon.UNIT_BOX : store.polygon[b];
+        float scaleAX = boxA ? store.halfX[a] : 1.0f;
+        float scaleAY = boxA ? store.halfY[a] : 1.0f;
+        float scaleBX = boxB ? store.halfX[b] : 1.0f;
+        float scaleBY = boxB ? store.halfY[b] : 1.0f;
+        float cosA = store.rotCos[a];
+        float sinA = store.rotSin[a];
+        float cosB = store.rotCos[b];
+        float sinB = store.rotSin[b];
+        float worldDX = store.posX[b] - store.posX[a];
+        float worldDY = store.posY[b] - store.posY[a];
+        // B in the frame of A, and A in the frame of B.
+        float cos = cosA * cosB + sinA * sinB;
+        float sin = cosA * sinB - sinA * cosB;
+        float dx = cosA * worldDX + sinA * worldDY;
+        float dy = cosA * worldDY - sinA * worldDX;
+        float backX = -(cos * dx + sin * dy);
+        float backY = sin * dx - cos * dy;
+
+        int edgeA = deepestEdge(polygonA, scaleAX, scaleAY, polygonB, scaleBX, scaleBY, cos, sin, dx, dy);
+        float separationA = edgeSeparation(polygonA, scaleAX, scaleAY, edgeA, polygonB, scaleBX, scaleBY, cos, sin, dx, dy);
+        if (separationA > 0.0f) return false;
+        int edgeB = deepestEdge(polygonB, scaleBX, scaleBY, polygonA, scaleAX, scaleAY, cos, -sin, backX, backY);
+        float separationB = edgeSeparation(polygonB, scaleBX, scaleBY, edgeB, polygonA, scaleAX, scaleAY, cos, -sin, backX, backY);
+        if (separationB > 0.0f) return false;
+
+        // Work in the frame of the reference body, with the incident body moved and turned into it.
+        boolean flip = separationB > separationA + REFERENCE_TOLERANCE;
+        ConvexPolygon reference = flip ? polygonB : polygonA;
+        float refScaleX = flip ? scaleBX : scaleAX;
+        float refScaleY = flip ? scaleBY : scaleAY;
+        ConvexPolygon incident = flip ? polygonA : polygonB;
+        float incScaleX = flip ? scaleAX : scaleBX;
+        float incScaleY = flip ? scaleAY : scaleBY;
+        float incCos = cos;
+        float incSin = flip ? -sin : sin;
+        float offsetX = flip ? backX : dx;
+        float offsetY = flip ? backY : dy;
+        int edge = flip ? edgeB : edgeA;
+        float nx = reference.normalX[edge];
+        float ny = reference.normalY[edge];
+        int next = edge + 1 == reference.count ? 0 : edge + 1;
+        float ref1X = reference.x[edge] * refScaleX;
+        float ref1Y = reference.y[edge] * refScaleY;
+        float ref2X = reference.x[next] * refScaleX;
+        float ref2Y = reference.y[next] * refScaleY;
+
+        // The incident edge faces the reference normal most, compared in the incident body's frame.
+        float incidentNX = incCos * nx + incSin * ny;
+        float incidentNY = incCos * ny - incSin * nx;
+        int incidentEdge = 0;
+        float facing = Float.POSITIVE_INFINITY;
+        for (int i = 0; i < incident.count; i++) {
+            float dot = incident.normalX[i] * incidentNX + incident.normalY[i] * incidentNY;
+            if (dot < facing) {
+                facing = dot;
+                incidentEdge = i;
+            }
+        }
+        int incidentNext = incidentEdge + 1 == incident.count ? 0 : incidentEdge + 1;
+        float v1X = incident.x[incidentEdge] * incScaleX;
+        float v1Y = incident.y[incidentEdge] * incScaleY;
+        float v2X = incident.x[incidentNext] * incScaleX;
+        float v2Y = incident.y[incidentNext] * incScaleY;
+        float p1X = incCos * v1X - incSin * v1Y + offsetX;
+        float p1Y = incSin * v1X + incCos * v1Y + offsetY;
+        float p2X = incCos * v2X - incSin * v2Y + offsetX;
+        float p2Y = incSin * v2X + incCos * v2Y + offsetY;
+
+        // Clip the incident edge to the side planes of the reference face, along its tangent.
+        float tangentX = ref2X - ref1X;
+        float tangentY = ref2Y - ref1Y;
+        float lower = tangentX * ref1X + tangentY * ref1Y;
+        float upper = tangentX * ref2X + tangentY * ref2Y;
+        float s1 = tangentX * p1X + tangentY * p1Y;
+        float s2 = tangentX * p2X + tangentY * p2Y;
+        if (s1 < lower != s2 < lower) {
+            float t = (lower - s1) / (s2 - s1);
+            float clipX = p1X + (p2X - p1X) * t;
+            float clipY = p1Y + (p2Y - p1Y) * t;
+            if (s1 < lower) {
+                p1X = clipX;
+                p1Y = clipY;
+                s1 = lower;
+            } else {
+                p2X = clipX;
+                p2Y = clipY;
+                s2 = lower;
+            }
+        }
+        if (s1 > upper != s2 > upper) {
+            float t = (upper - s1) / (s2 - s1);
+            float clipX = p1X + (p2X - p1X) * t;
+            float clipY = p1Y + (p2Y - p1Y) * t;
+            if (s1 > upper) {
+                p1X = clipX;
+                p1Y = clipY;
+            } else {
+                p2X = clipX;
+                p2Y = clipY;
+            }
+        }
+
+        float face = nx * ref1X + ny * ref1Y;
+        float depth1 = nx * p1X + ny * p1Y - face;
+        float depth2 = nx * p2X + ny * p2Y - face;
+        float sumX = 0.0f;
+        float sumY = 0.0f;
+        int points = 0;
+        if (depth1 <= 0.0f) {
+            sumX += p1X - nx * depth1 * 0.5f;
+            sumY += p1Y - ny * depth1 * 0.5f;
+            points++;
+        }
+        if (depth2 <= 0.0f) {
+            sumX += p2X - nx * depth2 * 0.5f;
+            sumY += p2Y - ny * depth2 * 0.5f;
+            points++;
+        }
+        if (points == 0) {
+            // Only rounding can leave no point behind the face: use the middle of the clipped edge.
+            sumX = p1X + p2X;
+            sumY = p1Y + p2Y;
+            points = 2;
+        }
+        float originX = flip ? store.posX[b] : store.posX[a];
+        float originY = flip ? store.posY[b] : store.posY[a];
+        float refCos = flip ? cosB : cosA;
+        float refSin = flip ? sinB : sinA;
+        float localX = sumX / points;
+        float localY = sumY / points;
+        pointX[slot] = originX + refCos * localX - refSin * localY;
+        pointY[slot] = originY + refSin * localX + refCos * localY;
+        float worldNX = refCos * nx - refSin * ny;
+        float worldNY = refSin * nx + refCos * ny;
+        normalX[slot] = flip ? -worldNX : worldNX;
+        normalY[slot] = flip ? -worldNY : worldNY;
+        penetration[slot] = -(flip ? separationB : separationA);
+        return true;
+    }
+
+    /**
+     * Checks whether two polygons overlap, with the separating axis test, in the frame of the first.
+     * A polygon is scaled along x and y before it is turned; only polygons whose normals are all
+     * axis-aligned, such as {@link ConvexPolygon#UNIT_BOX}, may be scaled by other than 1.
+     *
+     * @param cos The cosine of the angle the second polygon is turned by relative to the first.
+     * @param sin The sine of that angle.
+     * @param dx  The x offset of the second polygon's center from the first's, in the first's frame.
+     * @param dy  The y offset of the second polygon's center from the first's, in the first's frame.
+     * @return True if the polygons touch, false otherwise.
+     */
+    static boolean polygonsOverlap(ConvexPolygon a, float scaleAX, float scaleAY,
+                                   ConvexPolygon b, float scaleBX, float scaleBY,
+                                   float cos, float sin, float dx, float dy) {
+        int edgeA = deepestEdge(a, scaleAX, scaleAY, b, scaleBX, scaleBY, cos, sin, dx, dy);
+        if (edgeSeparation(a, scaleAX, scaleAY, edgeA, b, scaleBX, scaleBY, cos, sin, dx, dy) > 0.0f) return false;
+        float backX = -(cos * dx + sin * dy);
+        float backY = sin * dx - cos * dy;
+        int edgeB = deepestEdge(b, scaleBX, scaleBY, a, scaleAX, scaleAY, cos, -sin, backX, backY);
+        return edgeSeparation(b, scaleBX, scaleBY, edgeB, a, scaleAX, scaleAY, cos, -sin, backX, backY) <= 0.0f;
+    }
+
+    /**
+     * Checks whether a polygon, scaled as in {@link #polygonsOverlap}, touches a circle.
+     *
+     * @param x      The x offset of the circle's center from the polygon's.
+     * @param y      The y offset of the circle's center from the polygon's.
+     * @param radius The radius of the circle.
+     * @return True if the shapes touch, false otherwise.
+     */
+    static boolean polygonTouchesCircle(ConvexPolygon polygon, float scaleX, float scaleY,
+                                        float x, float y, float radius) {
+        int edge = deepestEdge(polygon, scaleX, scaleY, x, y);
+        float separation = pointSeparation(polygon, scaleX, scaleY, edge, x, y);
+        if (separation >= radius) return false;
+        if (separation <= 0.0f) return true;
+        int next = edge + 1 == polygon.count ? 0 : edge + 1;
+        float x1 = polygon.x[edge] * scaleX;
+        float y1 = polygon.y[edge] * scaleY;
+        float x2 = polygon.x[next] * scaleX;
+        float y2 = polygon.y[next] * scaleY;
+        float closestX = x1;
+        float closestY = y1;
+        if ((x - x1) * (x2 - x1) + (y - y1) * (y2 - y1) > 0.0f) {
+            closestX = x2;
+            closestY = y2;
+            if ((x - x2) * (x1 - x2) + (y - y2) * (y1 - y2) > 0.0f) return true; // Facing the edge.
+        }
+        float distanceX = x - closestX;
+        float distanceY = y - closestY;
+        return distanceX * distanceX + distanceY * distanceY < radius * radius;
+    }
+
+    /**
+     * Finds the edge of a polygon along whose axis another polygon lies farthest out.
+     */
+    private static int deepestEdge(ConvexPolygon a, float scaleAX, float scaleAY,
+                                   ConvexPolygon b, float scaleBX, float scaleBY,
+                                   float cos, float sin, float dx, float dy) {
+        int best = 0;
+        float bestSeparation = Float.NEGATIVE_INFINITY;
+        for (int i = 0; i < a.count; i++) {
+            float separation = edgeSeparation(a, scaleAX, scaleAY, i, b, scaleBX, scaleBY, cos, sin, dx, dy);
+            if (separation > bestSeparation) {
+                bestSeparation = separation;
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Measures how far the vertex of a polygon {@code b} deepest behind an edge of a polygon
+     * {@code a} lies in front of it, with {@code b} turned by {@code (cos, sin)} and offset by
+     * {@code (dx, dy)}; negative when it is behind. The edge normal is turned into the frame of
+     * {@code b} instead of every vertex of {@code b} into the frame of {@code a}.
+     */
+    private static float edgeSeparation(ConvexPolygon a, float scaleAX, float scaleAY, int edge,
+                                        ConvexPolygon b, float scaleBX, float scaleBY,
+                                        float cos, float sin, float dx, float dy) {
+        float nx = a.normalX[edge];
+        float ny = a.normalY[edge];
+        float axisX = (cos * nx + sin * ny) * scaleBX;
+        float axisY = (cos * ny - sin * nx) * scaleBY;
+        float deepest = Float.POSITIVE_INFINITY;
+        for (int i = 0; i < b.count; i++) {
+            deepest = Math.min(deepest, axisX * b.x[i] + axisY * b.y[i]);
+        }
+        return deepest + nx * dx + ny * dy - (nx * a.x[edge] * scaleAX + ny * a.y[edge] * scaleAY);
+    }
+
+    /**
+     * Finds the edge of a polygon a point lies farthest in front of.
+     */
+    private static int deepestEdge(ConvexPolygon polygon, float scaleX, float scaleY, float x, float y) {
+        int best = 0;
+        float bestSeparation = Float.NEGATIVE_INFINITY;
+        for (int i = 0; i < polygon.count; i++) {
+            float separation = pointSeparation(polygon, scaleX, scaleY, i, x, y);
+            if (separation > bestSeparation) {
+                bestSeparation = separation;
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Measures how far a point lies in front of an edge of a polygon; negative when it is behind.
+     */
+    private static float pointSeparation(ConvexPolygon polygon, float scaleX, float scaleY, int edge, float x, float y) {
+        float nx = polygon.normalX[edge];
+        float ny = polygon.normalY[edge];
+        return nx * (x - polygon.x[edge] * scaleX) + ny * (y - polygon.y[edge] * scaleY);
+    }
+
+    /**
+     * Finds when a circle moving through the last step first touched another body, which is taken
+     * to stand still at its current position. The circle moved in a straight line from
+     * {@code position - velocity * duration} to its current position. A circle that starts touching
+     * the body, give or take the slop the solver leaves in resting contacts, hits it at 0 if it moves
+     * into it farther than its radius; shallower moves, and bodies that overlap
+     * deeper at the start, are left to the discrete test, which separates them better.
+     *
+     * @param store    The body storage.
+     * @param circle   The index of the moving circle.
+     * @param other    The index of the other body, of any shape.
+     * @param duration The time step, in seconds.
+     * @param limit    The fraction of the motion to search, at most 1; impacts at or after it are ignored.
+     * @param normalX  Receives the x component of the normal from the circle to the other body at impact.
+     * @param normalY  Receives the y component of the normal at impact.
+     * @param slot     The position to write the normal at.
+     * @return The fraction of the motion done at impact, from 0 inclusive, or {@code limit} if the
+     *         circle did not hit the body before it (the arrays are then left untouched).
+     */
+    static float sweep(BodyStore store, int circle, int other, float duration, float limit,
+                       float[] normalX, float[] normalY, int slot) {
+        float moveX = store.velX[circle] * duration;
+        float moveY = store.velY[circle] * duration;
+        float startX = store.posX[circle] - moveX;
+        float startY = store.posY[circle] - moveY;
+        float r = store.radius[circle];
+        if (store.shape[other] == BodyStore.CIRCLE) {
+            return sweepCircle(startX, startY, moveX, moveY, store.posX[other], store.posY[other],
+                    r + store.radius[other], r, limit, normalX, normalY, slot);
+        }
+        if (store.shape[other] == BodyStore.POLYGON) {
+            // Sweep in the frame of the polygon, then turn the normal of an impact back.
+            float cos = store.rotCos[other];
+            float sin = store.rotSin[other];
+            float offsetX = startX - store.posX[other];
+            float offsetY = startY - store.posY[other];
+            float t = sweepPolygon(cos * offsetX + sin * offsetY, cos * offsetY - sin * offsetX,
+                    cos * moveX + sin * moveY, cos * moveY - sin * moveX, r, store.polygon[other],
+                    limit, normalX, normalY, slot);
+            if (t < limit) {
+                float nx = normalX[slot];
+                float ny = normalY[slot];
+                normalX[slot] = cos * nx - sin * ny;
+                normalY[slot] = sin * nx + cos * ny;
+            }
+            return t;
+        }
+
+        float boxX = store.posX[other];
+        float boxY = store.posY[other];
+        float halfX = store.halfX[other];
+        float halfY = store.halfY[other];
+        float closestX = Math.max(boxX - halfX, Math.min(startX, boxX + halfX));
+        float closestY = Math.max(boxY - halfY, Math.min(startY, boxY + halfY));
+        float gapX = startX - closestX;
+        float gapY = startY - closestY;
+        float gapSquared = gapX * gapX + gapY * gapY;
+        float reach = r + SWEEP_SLOP;
+        if (gapSquared <= reach * reach) {
+            return gapSquared > 0.0f
+                    ? touchingStart(-gapX, -gapY, (float) Math.sqrt(gapSquared), r, r, moveX, moveY, limit,
+                    normalX, normalY, slot)
+                    : limit;
+        }
+
+        // Clip the motion against the box grown by the radius, one slab per axis.
+        float enter = Float.NEGATIVE_INFINITY;
+        float exit = 1.0f;
+        boolean enterX = false;
+        if (moveX != 0.0f) {
+            float t0 = (boxX - halfX - r - startX) / moveX;
+            float t1 = (boxX + halfX + r - startX) / moveX;
+            float near = Math.min(t0, t1);
+            if (near > enter) {
+                enter = near;
+                enterX = true;
+            }
+            exit = Math.min(exit, Math.max(t0, t1));
+        } else if (Math.abs(startX - boxX) > halfX + r) {
+            return limit;
+        }
+        if (moveY != 0.0f) {
+            float t0 = (boxY - halfY - r - startY) / moveY;
+            float t1 = (boxY + halfY + r - startY) / moveY;
+            float near = Math.min(t0, t1);
+            if (near > enter) {
+                enter = near;
+                enterX = false;
+            }
+            exit = Math.min(exit, Math.max(t0, t1));
+        } else if (Math.abs(startY - boxY) > halfY + r) {
+            return limit;
+        }
+        if (enter > exit || enter >= limit) return limit;
+
+        // Entering the grown box beside a corner only touches the box if the rounded corner is hit.
+        float hitX = startX + moveX * Math.max(enter, 0.0f);
+        float hitY = startY + moveY * Math.max(enter, 0.0f);
+        float outsideX = Math.abs(hitX - boxX) - halfX;
+        float outsideY = Math.abs(hitY - boxY) - halfY;
+        if (outsideX > 0.0f && outsideY > 0.0f) {
+            float cornerX = hitX < boxX ? boxX - halfX : boxX + halfX;
+            float cornerY = hitY < boxY ? boxY - halfY : boxY + halfY;
+            return sweepCircle(startX, startY, moveX, moveY, cornerX, cornerY, r, r, limit, normalX, normalY, slot);
+        }
+        if (enter <= 0.0f) return limit;
+        if (enterX) {
+            normalX[slot] = moveX > 0.0f ? 1.0f : -1.0f;
+            normalY[slot] = 0.0f;
+        } else {
+            normalX[slot] = 0.0f;
+            normalY[slot] = moveY > 0.0f ? 1.0f : -1.0f;
+        }
+        return enter;
+    }
+
+    /**
+     * Sweeps a circle against a convex polygon, like the box case of {@link #sweep}: the motion is
+     * clipped against every edge pushed out by the radius, and an entry beside a vertex is swept
+     * against the rounded corner instead. The start, motion and normal are in the polygon's frame.
+     */
+    private static float sweepPolygon(float localX, float localY, float moveX, float moveY, float r,
+                                      ConvexPolygon polygon, float limit,
+                                      float[] normalX, float[] normalY, int slot) {
+        int nearest = deepestEdge(polygon, 1.0f, 1.0f, localX, localY);
+        float separation = pointSeparation(polygon, 1.0f, 1.0f, nearest, localX, localY);
+        if (separation <= 0.0f) return limit; // Starts inside: left to the discrete test.
+        int next = nearest + 1 == polygon.count ? 0 : nearest + 1;
+        float closestX = localX - polygon.normalX[nearest] * separation;
+        float closestY = localY - polygon.normalY[nearest] * separation;
+        if ((localX - polygon.x[nearest]) * (polygon.x[next] - polygon.x[nearest])
+                + (localY - polygon.y[nearest]) * (polygon.y[next] - polygon.y[nearest]) <= 0.0f) {
+            closestX = polygon.x[nearest];
+            closestY = polygon.y[nearest];
+        } else if ((localX - polygon.x[next]) * (polygon.x[nearest] - polygon.x[next])
+                + (localY - polygon.y[next]) * (polygon.y[nearest] - polygon.y[next]) <= 0.0f) {
+            closestX = polygon.x[next];
+            closestY = polygon.y[next];
+        }
+        float gapX = localX - closestX;
+        float gapY = localY - closestY;
+        float gapSquared = gapX * gapX + gapY * gapY;
+        float reach = r + SWEEP_SLOP;
+        if (gapSquared <= reach * reach) {
+            return touchingStart(-gapX, -gapY, (float) Math.sqrt(gapSquared), r, r, moveX, moveY, limit,
+                    normalX, normalY, slot);
+        }
+
+        float enter = Float.NEGATIVE_INFINITY;
+        float exit = 1.0f;
+        int entered = -1;
+        for (int i = 0; i < polygon.count; i++) {
+            float nx = polygon.normalX[i];
+            float ny = polygon.normalY[i];
+            float outside = nx * (localX - polygon.x[i]) + ny * (localY - polygon.y[i]) - r;
+            float approach = nx * moveX + ny * moveY;
+            if (approach == 0.0f) {
+                if (outside > 0.0f) return limit;
+                continue;
+            }
+            float t = -outside / approach;
+            if (approach < 0.0f) {
+                if (t > enter) {
+                    enter = t;
+                    entered = i;
+                }
+            } else {
+                exit = Math.min(exit, t);
+            }
+        }
+        if (entered < 0 || enter > exit || enter >= limit) return limit;
+
+        float hitX = localX + moveX * Math.max(enter, 0.0f);
+        float hitY = localY + moveY * Math.max(enter, 0.0f);
+        int after = entered + 1 == polygon.count ? 0 : entered + 1;
+        int corner = -1;
+        if ((hitX - polygon.x[entered]) * (polygon.x[after] - polygon.x[entered])
+                + (hitY - polygon.y[entered]) * (polygon.y[after] - polygon.y[entered]) < 0.0f) {
+            corner = entered;
+        } else if ((hitX - polygon.x[after]) * (polygon.x[entered] - polygon.x[after])
+                + (hitY - polygon.y[after]) * (polygon.y[entered] - polygon.y[after]) < 0.0f) {
+            corner = after;
+        }
+        if (corner >= 0) {
+            return sweepCircle(localX, localY, moveX, moveY, polygon.x[corner], polygon.y[corner],
+                    r, r, limit, normalX, normalY, slot);
+        }
+        if (enter <= 0.0f) return limit;
+        normalX[slot] = -polygon.normalX[entered];
+        normalY[slot] = -polygon.normalY[entered];
+        return enter;
+    }
+
+    /**
+     * Finds when a point moving from a start by a motion first comes within a distance of a fixed
+     * center: a circle swept against a circle, with the radii summed.
+     */
+    private static float sweepCircle(float startX, float startY, float moveX, float moveY,
+                                     float centerX, float centerY, float distance, float radius, float limit,
+                                     float[] normalX, float[] normalY, int slot) {
+        float offsetX = startX - centerX;
+        float offsetY = startY - centerY;
+        float reach = distance + SWEEP_SLOP;
+        if (offsetX * offsetX + offsetY * offsetY <= reach * reach) {
+            float length = (float) Math.sqrt(offsetX * offsetX + offsetY * offsetY);
+            return length > 0.0f
+                    ? touchingStart(-offsetX, -offsetY, length, distance, radius, moveX, moveY, limit,
+                    normalX, normalY, slot)
+                    : limit;
+        }
+        float c = offsetX * offsetX + offsetY * offsetY - distance * distance;
+        float b = offsetX * moveX + offsetY * moveY;
+        if (b >= 0.0f) return limit; // Moving away.
+        float a = moveX * moveX + moveY * moveY;
+        float discriminant = b * b - a * c;
+        if (discriminant < 0.0f) return limit;
+        float t = (-b - (float) Math.sqrt(discriminant)) / a;
+        if (t >= limit) return limit;
+        t = Math.max(t, 0.0f);
+        float towardX = centerX - (startX + moveX * t);
+        float towardY = centerY - (startY + moveY * t);
+        float length = (float) Math.sqrt(towardX * towardX + towardY * towardY);
+        normalX[slot] = length > 0.0f ? towardX / length : 0.0f;
+        normalY[slot] = length > 0.0f ? towardY / length : 1.0f;
+        return t;
+    }
+
+    /**
+     * Handles a sweep that starts with the circle touching the body: an impact at 0 if the circle
+     * overlaps the body by no more than the slop and moves into it farther than its radius, after
+     * which the discrete test could no longer find the contact; no impact otherwise.
+     *
+     * @param towardX The x component of the vector from the circle to the closest point of the body.
+     * @param towardY The y component of that vector.
+     * @param length  The length of that vector, greater than 0.
+     * @param contact The length at which the bodies just touch.
+     * @param radius  The radius of the moving circle.
+     */
+    private static float touchingStart(float towardX, float towardY, float length, float contact, float radius,
+                                       float moveX, float moveY, float limit,
+                                       float[] normalX, float[] normalY, int slot) {
+        float into = (towardX * moveX + towardY * moveY) / length;
+        if (contact - length > SWEEP_SLOP || into <= radius || limit <= 0.0f) {
+            return limit;
+        }
+        normalX[slot] = towardX / length;
+        normalY[slot] = towardY / length;
+        return 0.0f;
+    }
+}
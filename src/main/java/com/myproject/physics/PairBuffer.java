@@ -0,0 +1,135 @@
+package com.myproject.physics;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of body index pairs collected from a broad phase.
+ * Each pair is packed into a single long so the list can be sorted into the same
+ * lexicographic order the brute-force loop produces.
+ * Pairs that cannot interact are dropped as they are reported, with a few loads and bit tests,
+ * so they are never stored, sorted or tested by the narrow phase.
+ * Sorting uses a radix sort over preallocated buffers, so a warmed-up buffer never allocates.
+ */
+class PairBuffer implements BroadPhase.PairCallback {
+
+    private static final int RADIX_BITS = 11;
+    private static final int INSERTION_SORT_LIMIT = 64; // Smaller lists are sorted by insertion.
+
+    private long[] pairs = new long[64];
+    private long[] scratch = new long[64]; // Second buffer of the radix sort, same length as pairs.
+    private final int[] counts = new int[1 << RADIX_BITS];
+    private int size;
+    boolean[] awake; // If set, pairs where neither body is awake are dropped.
+    int[] category; // If set, pairs whose categories and masks exclude each other are dropped.
+    int[] mask; // Set together with category.
+    byte[] flags; // If set, pairs of two sensors are dropped.
+
+    @Override
+    public void onPair(int a, int b) {
+        if (awake != null && !awake[a] && !awake[b]) return;
+        if (category != null && ((category[a] & mask[b]) == 0 || (category[b] & mask[a]) == 0)) return;
+        if (flags != null && (flags[a] & flags[b] & BodyStore.SENSOR) != 0) return;
+        if (size == pairs.length) {
+            pairs = Arrays.copyOf(pairs, size * 2);
+            scratch = new long[pairs.length];
+        }
+        pairs[size++] = ((long) a << 32) | b;
+    }
+
+    /**
+     * Removes all pairs.
+     */
+    void clear() {
+        size = 0;
+    }
+
+    /**
+     * Sorts the pairs by first index, then by second index.
+     */
+    void sort() {
+        if (size < INSERTION_SORT_LIMIT) {
+            for (int k = 1; k < size; k++) {
+                long pair = pairs[k];
+                int j = k - 1;
+                while (j >= 0 && pairs[j] > pair) {
+                    pairs[j + 1] = pairs[j];
+                    j--;
+                }
+                pairs[j + 1] = pair;
+            }
+            return;
+        }
+
+        // Repack as (a << bitsB) | b using only the bits the indices need, to minimize passes.
+        int orA = 0;
+        int orB = 0;
+        for (int k = 0; k < size; k++) {
+            orA |= (int) (pairs[k] >>> 32);
+            orB |= (int) pairs[k];
+        }
+        int bitsB = 32 - Integer.numberOfLeadingZeros(orB);
+        int totalBits = bitsB + 32 - Integer.numberOfLeadingZeros(orA);
+        for (int k = 0; k < size; k++) {
+            pairs[k] = ((pairs[k] >>> 32) << bitsB) | (pairs[k] & 0xffffffffL);
+        }
+
+        long[] source = pairs;
+        long[] target = scratch;
+        int mask = (1 << RADIX_BITS) - 1;
+        for (int shift = 0; shift < totalBits; shift += RADIX_BITS) {
+            Arrays.fill(counts, 0);
+            for (int k = 0; k < size; k++) {
+                counts[(int) (source[k] >>> shift) & mask]++;
+            }
+            int offset = 0;
+            for (int digit = 0; digit <= mask; digit++) {
+                int count = counts[digit];
+                counts[digit] = offset;
+                offset += count;
+            }
+            for (int k = 0; k < size; k++) {
+                long key = source[k];
+                target[counts[(int) (key >>> shift) & mask]++] = key;
+            }
+            long[] swap = source;
+            source = target;
+            target = swap;
+        }
+        pairs = source;
+        scratch = target;
+
+        long lowMask = (1L << bitsB) - 1;
+        for (int k = 0; k < size; k++) {
+            pairs[k] = ((pairs[k] >>> bitsB) << 32) | (pairs[k] & lowMask);
+        }
+    }
+
+    /**
+     * Gets the number of pairs.
+     *
+     * @return The number of pairs in the buffer.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Gets the first body index of a pair.
+     *
+     * @param k The position of the pair in the buffer.
+     * @return The smaller body index of the pair.
+     */
+    int first(int k) {
+        return (int) (pairs[k] >>> 32);
+    }
+
+    /**
+     * Gets the second body index of a pair.
+     *
+     * @param k The position of the pair in the buffer.
+     * @return The larger body index of the pair.
+     */
+    int second(int k) {
+        return (int) pairs[k];
+    }
+}
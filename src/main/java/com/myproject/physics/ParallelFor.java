@@ -0,0 +1,74 @@
+package com.myproject.physics;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Runs a loop body over an index range, split into fork-join batches.
+ */
+final class ParallelFor {
+
+    /**
+     * A loop body that processes a contiguous range of indices.
+     */
+    @FunctionalInterface
+    interface Body {
+
+        /**
+         * Processes indices {@code from} (inclusive) to {@code to} (exclusive).
+         *
+         * @param from The first index.
+         * @param to   The index after the last one.
+         */
+        void run(int from, int to);
+    }
+
+    private ParallelFor() {
+    }
+
+    /**
+     * Runs the body over {@code [0, count)}.
+     * Without a pool, or when the range fits in one batch, the body runs on the calling thread.
+     *
+     * @param pool  The pool to run batches on, or null to run on the calling thread.
+     * @param count The number of indices.
+     * @param grain The largest number of indices processed by one batch.
+     * @param body  The loop body.
+     */
+    static void run(ForkJoinPool pool, int count, int grain, Body body) {
+        if (pool == null || count <= grain) {
+            body.run(0, count);
+            return;
+        }
+        pool.invoke(new Batch(body, 0, count, grain));
+    }
+
+    /**
+     * A fork-join task that splits its range in halves until it is small enough.
+     */
+    private static final class Batch extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Body body;
+        private final int from;
+        private final int to;
+        private final int grain;
+
+        Batch(Body body, int from, int to, int grain) {
+            this.body = body;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= grain) {
+                body.run(from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new Batch(body, from, middle, grain), new Batch(body, middle, to, grain));
+        }
+    }
+}
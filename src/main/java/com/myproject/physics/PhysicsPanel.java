@@ -5,25 +5,24 @@ package com.myproject.physics;
 
 import javax.swing.JPanel;
 import javax.swing.Timer;
-import java.util.List;
-import java.util.ArrayList;
 import java.util.Random;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
-import java.awt.RenderingHints;
+import java.awt.GraphicsConfiguration;
 import java.awt.Color;
-import java.awt.Stroke;
-import java.awt.BasicStroke;
-import java.awt.geom.AffineTransform;
-import java.awt.event.ActionListener;
+import java.awt.image.VolatileImage;
 
 public class PhysicsPanel extends JPanel {
+    private static final int MAX_SUBSTEPS = 5; // Most physics steps per loop iteration.
+
     private PhysicsWorld world;
-    private Timer timer;
-    private final float deltaTime = 0.016f; // ~60 FPS
+    private SimulationLoop loop; // Steps the world on its own thread.
+    private Timer timer; // Repaints the panel; runs independently of the physics.
+    private final float deltaTime = 0.016f; // Fixed physics step, ~60 steps per second
+    private final int frameInterval = 16; // Milliseconds between repaints
     private final float scale = 200.0f;
-    private List<Rigidbody> bodies;
-    private List<Collider> colliders;
+    private final SnapshotRenderer renderer = new SnapshotRenderer(scale); // Draws the snapshots.
+    private VolatileImage backBuffer; // Accelerated image each frame is drawn into.
     private Color ballColor;
 
     /**
@@ -31,9 +30,8 @@ public class PhysicsPanel extends JPanel {
      */
     public PhysicsPanel(int numBalls, Color ballColor) {
         this.ballColor = ballColor;
+        setDoubleBuffered(false); // Frames go through the panel's own back buffer
         world = new PhysicsWorld();
-        bodies = new ArrayList<>();
-        colliders = new ArrayList<>();
         Random rand = new Random();
 
         // Create dynamic balls centered around origin
@@ -46,8 +44,6 @@ public class PhysicsPanel extends JPanel {
             Collider col = new Collider(Collider.Type.CIRCLE, new Vector2D(x, y), 0.1f);
 
             world.addRigidbody(rb, col);
-            bodies.add(rb);
-            colliders.add(col);
         }
 
         // Create static ground at center bottom
@@ -55,24 +51,18 @@ public class PhysicsPanel extends JPanel {
         rbGround.position = new Vector2D(0, 0);
         Collider colGround = new Collider(Collider.Type.AABB, new Vector2D(0, 0), new Vector2D(2, 0.5f));
         world.addRigidbody(rbGround, colGround);
-        bodies.add(rbGround);
-        colliders.add(colGround);
 
-        // Prepare timer but do NOT start until UI triggers it
-        ActionListener step = e -> {
-            world.update(deltaTime);
-            for (int i = 0; i < bodies.size(); i++) {
-                colliders.get(i).setCenter(bodies.get(i).position);
-            }
-            repaint();
-        };
-        timer = new Timer((int)(deltaTime * 1000), step);
+        // Prepare the loop and the repaint timer but do NOT start until UI triggers it
+        loop = new SimulationLoop(world, deltaTime, MAX_SUBSTEPS);
+        timer = new Timer(frameInterval, e -> repaint());
     }
 
     /**
      * Starts or restarts the simulation.
      */
     public void startSimulation() {
+        loop.setPaused(false);
+        loop.start();
         if (timer.isRunning()) {
             timer.stop();
         }
@@ -83,66 +73,68 @@ public class PhysicsPanel extends JPanel {
      * Pauses the simulation.
      */
     public void pauseSimulation() {
-        if (timer.isRunning()) {
-            timer.stop();
-        }
+        loop.setPaused(true);
     }
 
     /**
      * Resumes the simulation.
      */
     public void resumeSimulation() {
-        if (!timer.isRunning()) {
-            timer.start();
+        loop.setPaused(false);
+    }
+
+    /**
+     * Stops the simulation thread and the repaint timer for good.
+     */
+    public void stopSimulation() {
+        timer.stop();
+        loop.stop();
+        if (backBuffer != null) {
+            backBuffer.flush();
         }
     }
 
     @Override
     protected void paintComponent(Graphics g) {
-        super.paintComponent(g);
-        Graphics2D g2d = (Graphics2D) g;
-        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-        // Clear background
-        g2d.setColor(Color.BLACK);
-        g2d.fillRect(0, 0, getWidth(), getHeight());
-
-        // Draw all colliders
-        for (Collider col : colliders) {
-            if (col.getType() == Collider.Type.CIRCLE) {
-                g2d.setColor(ballColor);
-                drawCircle(g2d, col);
+        int width = getWidth();
+        int height = getHeight();
+        if (width <= 0 || height <= 0) return;
+        // Read the latest states in place; the loop keeps stepping into other buffers meanwhile
+        try (SimulationLoop.Frame frame = loop.acquireFrame()) {
+            if (frame != null) {
+                draw(g, width, height, frame.getPrevious(), frame.getCurrent(), frame.getAlpha());
             } else {
-                g2d.setColor(Color.RED);
-                drawAABB(g2d, col);
+                g.setColor(Color.BLACK);
+                g.fillRect(0, 0, width, height);
             }
         }
     }
 
-    private Vector2D simulationToScreen(Vector2D pos) {
-        int width = getWidth();
-        int height = getHeight();
-        float screenX = width / 2 + pos.x * scale;
-        float screenY = height / 2 - pos.y * scale;
-        return new Vector2D(screenX, screenY);
-    }
-
-    private void drawCircle(Graphics2D g2d, Collider collider) {
-        Vector2D center = simulationToScreen(collider.getCenter());
-        int radius = (int)(collider.getRadius() * scale);
-        g2d.fillOval((int)(center.x - radius), (int)(center.y - radius), 2 * radius, 2 * radius);
-    }
-
-    private void drawAABB(Graphics2D g2d, Collider collider) {
-        Stroke oldStroke = g2d.getStroke();
-        AffineTransform oldTx = g2d.getTransform();
-        Vector2D screenCenter = simulationToScreen(collider.getCenter());
-        g2d.translate(screenCenter.x, screenCenter.y);
-        double fullWidth  = collider.getHalfSize().x * 1.05 * scale;
-        double fullHeight = collider.getHalfSize().y * 1.2 * scale;
-        g2d.scale(fullWidth, fullHeight);
-        g2d.setStroke(new BasicStroke((float) (10 / Math.max(fullWidth, fullHeight))));
-        g2d.drawRect(-1, -1, 2, 2);
-        g2d.setStroke(oldStroke);
-        g2d.setTransform(oldTx);
+    /**
+     * Draws a frame into the accelerated back buffer, again if its contents were lost meanwhile.
+     */
+    private void draw(Graphics g, int width, int height, StateSnapshot previous, StateSnapshot current, float alpha) {
+        GraphicsConfiguration gc = getGraphicsConfiguration();
+        do {
+            if (backBuffer == null || backBuffer.getWidth() != width || backBuffer.getHeight() != height
+                    || backBuffer.validate(gc) == VolatileImage.IMAGE_INCOMPATIBLE) {
+                if (backBuffer != null) {
+                    backBuffer.flush();
+                }
+                backBuffer = createVolatileImage(width, height);
+                if (backBuffer == null) {
+                    // Not displayable yet: draw straight to the component
+                    renderer.draw((Graphics2D) g, width, height, previous, current, alpha, ballColor, Color.RED);
+                    return;
+                }
+            }
+            Graphics2D g2d = backBuffer.createGraphics();
+            try {
+                renderer.draw(g2d, width, height, previous, current, alpha, ballColor, Color.RED);
+            } finally {
+                g2d.dispose();
+            }
+            g.drawImage(backBuffer, 0, 0, null);
+        } while (backBuffer.contentsLost());
     }
 }
@@ -51,6 +51,7 @@ public class PhysicsUI {
                 }
                 PhysicsPanel old = panelRef.get();
                 if (old != null) {
+                    old.stopSimulation();
                     frame.remove(old);
                 }
                 PhysicsPanel newPanel = new PhysicsPanel(num, colorRef.get());
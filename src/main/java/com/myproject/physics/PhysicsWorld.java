@@ -2,150 +2,1319 @@ package com.myproject.physics;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Represents the physics simulation world.
  * Manages rigid bodies, their colliders, and handles integration, collision detection, and resolution.
+ * Body state is kept in structure-of-arrays form (see {@link BodyStore}); the {@link Rigidbody} and
+ * {@link Collider} objects passed to {@link #addRigidbody} become views of that state.
+ * A step can run on a {@link ForkJoinPool}; its result does not depend on the number of threads.
  */
 public class PhysicsWorld {
 
+    private static final int INTEGRATION_GRAIN = 4096; // Bodies per integration batch.
+    private static final int NARROW_PHASE_GRAIN = 2048; // Candidate pairs per narrow phase batch.
+
+    private final BodyStore store = new BodyStore(); // The state of every body.
+    private BroadPhase broadPhase; // Strategy producing candidate pairs for the narrow phase.
+    private final PairBuffer pairs = new PairBuffer(); // Candidate pairs of the current step.
+    private DynamicAABBTree queryTree; // Index for region and ray queries when the broad phase is not a tree.
+    private boolean queryTreeStale = true; // Whether bodies were added or moved since the index was synced.
+    private boolean syncViews = true; // Whether the public fields of the views are refreshed after each step.
+
+    private boolean sleepingEnabled = true; // Whether resting bodies are put to sleep.
+    private float sleepVelocity = 0.05f; // Speed below which a body counts as resting.
+    private float timeToSleep = 0.5f; // How long a whole island must rest before it sleeps, in seconds.
+    private float[] islandSleepTime = new float[0]; // Shortest rest time in each island, indexed by representative.
+
+    private ForkJoinPool pool; // The pool running parallel steps, or null to step on the calling thread.
+    private boolean ownsPool; // Whether the pool was created by setThreadCount and must be shut down.
+    private final Islands islands = new Islands(); // Independent groups of contacts for parallel resolution.
+    private final ContactSolver solver = new ContactSolver(); // Contacts of the current step and their impulses.
+    private float stepDuration; // The time step of the update in progress.
+    private long stepCount; // The number of completed updates.
+    private final StepStats stats = new StepStats(); // Timings and counters of the measured steps.
+    private boolean statsEnabled; // Whether steps are measured.
+    private boolean simdEnabled = Simd.AVAILABLE; // Whether the vectorized loops are used.
+    private boolean continuousCollision = true; // Whether fast and bullet circles are swept.
+    private boolean anySwept; // Whether a body of the step in progress is swept; set by the integration batches.
+    private int reorderInterval; // Steps between reorders of the bodies along a Morton curve; 0 for never.
+    private SensorListener sensorListener; // Receives the overlaps of sensors, or null.
+    private ContactEvents contactEvents; // Receives the contact events of each step, or null.
+    private StatePublisher statePublisher; // Receives the state of the world after each step, or null.
+    private final ContactTracker contactTracker = new ContactTracker(); // Touching pairs of the last step.
+
+    // Loop bodies of the parallel phases, created once so stepping does not allocate them.
+    private final ParallelFor.Body integrateBatch = this::integrateBatch;
+    private final ParallelFor.Body narrowPhaseBatch = this::narrowPhaseBatch;
+    private final ParallelFor.Body resolveBatch = this::resolveIslands;
+
+    // Narrow phase results per candidate pair: whether it touches (1 or 0, an int so the vectorized
+    // circle test can store it without casting masks), and its manifold.
+    private int[] touching = new int[0];
+    private float[] pairNormalX = new float[0];
+    private float[] pairNormalY = new float[0];
+    private float[] pairPenetration = new float[0];
+    private float[] pairPointX = new float[0];
+    private float[] pairPointY = new float[0];
+
+    // Candidate pairs laid out for the vectorized narrow phase: whether both bodies are circles, and
+    // if so the center and radius of each, gathered here so the kernel only reads contiguous lanes.
+    private int[] pairCircles = new int[0];
+    private float[] circleAX = new float[0];
+    private float[] circleAY = new float[0];
+    private float[] circleAR = new float[0];
+    private float[] circleBX = new float[0];
+    private float[] circleBY = new float[0];
+    private float[] circleBR = new float[0];
+
+    // Bounding boxes of every body, indexed like the store.
+    private float[] minX = new float[0];
+    private float[] minY = new float[0];
+    private float[] maxX = new float[0];
+    private float[] maxY = new float[0];
+
+    // Continuous collision per body, indexed like the store: whether it is swept this step (2 once
+    // moved back to its impact), the fraction of its motion before its first impact, the pair of
+    // that impact, and the normal towards the body it hit.
+    private byte[] swept = new byte[0];
+    private float[] impactFraction = new float[0];
+    private int[] impactPair = new int[0];
+    private float[] impactNormalX = new float[0];
+    private float[] impactNormalY = new float[0];
+
+    /**
+     * Constructs a new PhysicsWorld instance using a spatial hash grid broad phase.
+     */
+    public PhysicsWorld() {
+        this(new SpatialHashGrid());
+    }
+
+    /**
+     * Constructs a new PhysicsWorld instance using the given broad phase.
+     *
+     * @param broadPhase The broad phase used to find candidate collision pairs.
+     */
+    public PhysicsWorld(BroadPhase broadPhase) {
+        setBroadPhase(broadPhase);
+    }
+
+    /**
+     * Constructs a new PhysicsWorld instance that steps on the given pool.
+     *
+     * @param broadPhase The broad phase used to find candidate collision pairs.
+     * @param pool       The pool running the parallel parts of each step, or null for single-threaded steps.
+     */
+    public PhysicsWorld(BroadPhase broadPhase, ForkJoinPool pool) {
+        this(broadPhase);
+        setForkJoinPool(pool);
+    }
+
+    /**
+     * Gets the pool running the parallel parts of each step.
+     *
+     * @return The pool, or null if steps run on the calling thread.
+     */
+    public ForkJoinPool getForkJoinPool() {
+        return pool;
+    }
+
     /**
-     * Inner class to encapsulate a physics object, which includes a rigid body and its collider.
+     * Sets the pool running the parallel parts of each step.
+     * The pool is not shut down by the world.
+     *
+     * @param pool The pool to use, or null to step on the calling thread.
      */
-    private class PhysicsObject {
-        public Rigidbody rigidbody;
-        public Collider collider;
+    public void setForkJoinPool(ForkJoinPool pool) {
+        releasePool();
+        this.pool = pool;
+    }
 
-        /**
-         * Constructs a PhysicsObject with the specified rigid body and collider.
-         *
-         * @param rb  The rigid body associated with the object.
-         * @param col The collider associated with the object.
-         */
-        public PhysicsObject(Rigidbody rb, Collider col) {
-            this.rigidbody = rb;
-            this.collider = col;
+    /**
+     * Sets the number of threads used by each step, creating a pool owned by the world.
+     * Results are identical for every thread count.
+     *
+     * @param threads The number of threads; 1 or less steps on the calling thread.
+     */
+    public void setThreadCount(int threads) {
+        releasePool();
+        if (threads > 1) {
+            pool = new ForkJoinPool(threads);
+            ownsPool = true;
         }
     }
 
-    private List<PhysicsObject> objects;
+    /**
+     * Shuts down the pool if the world created it, and forgets it.
+     */
+    private void releasePool() {
+        if (ownsPool) {
+            pool.shutdown();
+        }
+        pool = null;
+        ownsPool = false;
+    }
 
     /**
-     * Constructs a new PhysicsWorld instance.
-     * Initializes the list of physics objects.
+     * Gets the broad phase used to find candidate collision pairs.
+     *
+     * @return The current broad phase.
      */
-    public PhysicsWorld() {
-        objects = new ArrayList<>();
+    public BroadPhase getBroadPhase() {
+        return broadPhase;
+    }
+
+    /**
+     * Sets the broad phase used to find candidate collision pairs.
+     * Use {@link BruteForceBroadPhase} as a reference when checking other strategies.
+     *
+     * @param broadPhase The broad phase to use.
+     */
+    public void setBroadPhase(BroadPhase broadPhase) {
+        if (broadPhase == null) {
+            throw new IllegalArgumentException("Broad phase must not be null");
+        }
+        broadPhase.reset();
+        this.broadPhase = broadPhase;
+        queryTreeStale = true;
+    }
+
+    /**
+     * Gets the number of velocity iterations the contact solver runs per step.
+     *
+     * @return The number of iterations.
+     */
+    public int getVelocityIterations() {
+        return solver.iterations;
+    }
+
+    /**
+     * Sets the number of velocity iterations the contact solver runs per step.
+     * More iterations make stacks and piles settle faster at a higher cost per step.
+     *
+     * @param iterations The number of iterations, at least 1.
+     */
+    public void setVelocityIterations(int iterations) {
+        if (iterations < 1) {
+            throw new IllegalArgumentException("Velocity iterations must be at least 1");
+        }
+        solver.iterations = iterations;
+        if (store.recorder != null) {
+            store.recorder.setting(InputRecorder.VELOCITY_ITERATIONS, iterations, 0.0f);
+        }
+    }
+
+    /**
+     * Checks whether contact impulses of the previous step seed the solver.
+     *
+     * @return True if warm starting is enabled.
+     */
+    public boolean isWarmStarting() {
+        return solver.warmStarting;
+    }
+
+    /**
+     * Sets whether contact impulses of the previous step seed the solver.
+     * Warm starting lets resting contacts converge in a few iterations.
+     *
+     * @param warmStarting True to enable warm starting.
+     */
+    public void setWarmStarting(boolean warmStarting) {
+        solver.warmStarting = warmStarting;
+        if (store.recorder != null) {
+            store.recorder.setting(InputRecorder.WARM_STARTING, warmStarting ? 1.0f : 0.0f, 0.0f);
+        }
+    }
+
+    /**
+     * Gets the coefficient of restitution used for every contact.
+     *
+     * @return The coefficient of restitution.
+     */
+    public float getRestitution() {
+        return solver.restitution;
+    }
+
+    /**
+     * Sets the coefficient of restitution used for every contact.
+     *
+     * @param restitution The coefficient, from 0 (no bounce) to 1 (fully elastic).
+     */
+    public void setRestitution(float restitution) {
+        if (!(restitution >= 0.0f && restitution <= 1.0f)) {
+            throw new IllegalArgumentException("Restitution must be between 0 and 1");
+        }
+        solver.restitution = restitution;
+        if (store.recorder != null) {
+            store.recorder.setting(InputRecorder.RESTITUTION, restitution, 0.0f);
+        }
+    }
+
+    /**
+     * Gets the approach speed below which contacts do not bounce.
+     *
+     * @return The threshold speed.
+     */
+    public float getRestitutionThreshold() {
+        return solver.restitutionThreshold;
+    }
+
+    /**
+     * Sets the approach speed below which contacts do not bounce.
+     * Resting contacts then come to rest instead of jittering.
+     *
+     * @param threshold The threshold speed, at least 0.
+     */
+    public void setRestitutionThreshold(float threshold) {
+        if (!(threshold >= 0.0f)) {
+            throw new IllegalArgumentException("Restitution threshold must not be negative");
+        }
+        solver.restitutionThreshold = threshold;
+        if (store.recorder != null) {
+            store.recorder.setting(InputRecorder.RESTITUTION_THRESHOLD, threshold, 0.0f);
+        }
+    }
+
+    /**
+     * Sets the acceleration applied to every awake dynamic body during integration.
+     * Unlike a force applied every step through {@link Rigidbody#applyForce}, gravity does not keep
+     * resting bodies awake.
+     *
+     * @param x The x component of the acceleration.
+     * @param y The y component of the acceleration.
+     */
+    public void setGravity(float x, float y) {
+        store.gravityX = x;
+        store.gravityY = y;
+        if (store.recorder != null) {
+            store.recorder.setting(InputRecorder.GRAVITY, x, y);
+        }
+    }
+
+    /**
+     * Gets the acceleration applied to every awake dynamic body during integration.
+     *
+     * @return A new vector holding the gravity.
+     */
+    public Vector2D getGravity() {
+        return new Vector2D(store.gravityX, store.gravityY);
+    }
+
+    /**
+     * Checks whether resting bodies are put to sleep.
+     *
+     * @return True if sleeping is enabled.
+     */
+    public boolean isSleepingEnabled() {
+        return sleepingEnabled;
+    }
+
+    /**
+     * Sets whether resting bodies are put to sleep. Sleeping bodies are not integrated, and pairs
+     * without an awake body are skipped before the narrow phase. Disabling sleeping wakes every body.
+     *
+     * @param sleepingEnabled True to enable sleeping.
+     */
+    public void setSleepingEnabled(boolean sleepingEnabled) {
+        this.sleepingEnabled = sleepingEnabled;
+        if (!sleepingEnabled) {
+            for (int i = 0; i < store.count; i++) {
+                store.wake(i);
+            }
+        }
+        if (store.recorder != null) {
+            store.recorder.setting(InputRecorder.SLEEPING_ENABLED, sleepingEnabled ? 1.0f : 0.0f, 0.0f);
+        }
+    }
+
+    /**
+     * Gets the speed below which a body counts as resting.
+     *
+     * @return The sleep velocity threshold.
+     */
+    public float getSleepVelocity() {
+        return sleepVelocity;
+    }
+
+    /**
+     * Sets the speed below which a body counts as resting.
+     *
+     * @param sleepVelocity The threshold speed, at least 0.
+     */
+    public void setSleepVelocity(float sleepVelocity) {
+        if (!(sleepVelocity >= 0.0f)) {
+            throw new IllegalArgumentException("Sleep velocity must not be negative");
+        }
+        this.sleepVelocity = sleepVelocity;
+        if (store.recorder != null) {
+            store.recorder.setting(InputRecorder.SLEEP_VELOCITY, sleepVelocity, 0.0f);
+        }
+    }
+
+    /**
+     * Gets how long a body and everything touching it must rest before they go to sleep.
+     *
+     * @return The time to sleep, in seconds.
+     */
+    public float getTimeToSleep() {
+        return timeToSleep;
+    }
+
+    /**
+     * Sets how long a body and everything touching it must rest before they go to sleep.
+     *
+     * @param timeToSleep The time to sleep, in seconds, at least 0.
+     */
+    public void setTimeToSleep(float timeToSleep) {
+        if (!(timeToSleep >= 0.0f)) {
+            throw new IllegalArgumentException("Time to sleep must not be negative");
+        }
+        this.timeToSleep = timeToSleep;
+        if (store.recorder != null) {
+            store.recorder.setting(InputRecorder.TIME_TO_SLEEP, timeToSleep, 0.0f);
+        }
+    }
+
+    /**
+     * Gets the number of dynamic bodies that are awake.
+     *
+     * @return The number of awake bodies.
+     */
+    public int getAwakeBodyCount() {
+        int awake = 0;
+        for (int i = 0; i < store.count; i++) {
+            if (store.awake[i]) awake++;
+        }
+        return awake;
+    }
+
+    /**
+     * Gets the number of dynamic bodies that are sleeping.
+     *
+     * @return The number of sleeping bodies.
+     */
+    public int getSleepingBodyCount() {
+        int sleeping = 0;
+        for (int i = 0; i < store.count; i++) {
+            if (!store.awake[i] && store.invMass[i] != 0.0f) {
+                sleeping++;
+            }
+        }
+        return sleeping;
+    }
+
+    /**
+     * Checks whether the public {@code position} and {@code velocity} fields of every
+     * {@link Rigidbody} are refreshed after each step.
+     *
+     * @return True if the fields are refreshed after each step.
+     */
+    public boolean isSyncViews() {
+        return syncViews;
+    }
+
+    /**
+     * Sets whether the public {@code position} and {@code velocity} fields of every {@link Rigidbody}
+     * are refreshed after each step. Turning this off saves a pass over all bodies; the accessor
+     * methods of the views always read the current state either way.
+     *
+     * @param syncViews True to refresh the fields after each step.
+     */
+    public void setSyncViews(boolean syncViews) {
+        this.syncViews = syncViews;
     }
 
     /**
      * Adds a rigid body and its collider to the physics world.
+     * The body's current position, angle, velocity, angular velocity, force, torque, mass and inertia,
+     * and the collider's shape, are copied into the world; the collider is centered on the body's
+     * position and turns with it from then on. The inertia is computed from the mass and the
+     * collider unless it was set, and is 0 for static bodies and bodies with an AABB collider,
+     * which never turn.
      *
      * @param rb       The rigid body to add.
      * @param collider The collider associated with the rigid body.
+     * @return The handle of the new body.
+     */
+    public int addRigidbody(Rigidbody rb, Collider collider) {
+        if (rb.store != null || collider.store != null) {
+            throw new IllegalStateException("Rigidbody or collider already belongs to a world");
+        }
+        if (collider.getType() == Collider.Type.POLYGON && collider.getPolygon() == null) {
+            throw new IllegalArgumentException("Polygon collider without a polygon");
+        }
+        int handle = store.add(rb, collider);
+        rb.store = store;
+        rb.handle = handle;
+        collider.store = store;
+        collider.handle = handle;
+        queryTreeStale = true;
+        if (store.recorder != null) {
+            store.recorder.added(handle, rb, collider);
+        }
+        return handle;
+    }
+
+    /**
+     * Removes a body from the world in constant time: the last body of the storage moves into its
+     * index, and the broad phase follows the move. The rigid body and collider are detached with
+     * their final state and can be added again, here or to another world, or returned to a
+     * {@link BodyPool}. The handle becomes invalid; a later body may reuse its slot with a new handle.
+     *
+     * @param handle The handle of the body.
+     */
+    public void removeRigidbody(int handle) {
+        if (!store.contains(handle)) {
+            throw new IllegalArgumentException("No body with handle " + handle);
+        }
+        int index = store.index(handle);
+        int last = store.count - 1;
+        store.remove(handle);
+        broadPhase.remove(index, last);
+        if (queryTree != null) {
+            queryTree.remove(index, last);
+        }
+        queryTreeStale = true;
+        if (store.recorder != null) {
+            store.recorder.removed(handle);
+        }
+    }
+
+    /**
+     * Gets the number of bodies in the world.
+     *
+     * @return The number of bodies.
+     */
+    public int getBodyCount() {
+        return store.count;
+    }
+
+    /**
+     * Checks whether a handle refers to a body of the world.
+     *
+     * @param handle The handle to check.
+     * @return True if the handle was returned by {@link #addRigidbody} and the body was not removed.
+     */
+    public boolean containsBody(int handle) {
+        return store.contains(handle);
+    }
+
+    /**
+     * Gets the rigid body view of a body.
+     *
+     * @param handle The handle returned by {@link #addRigidbody}.
+     * @return The rigid body.
+     */
+    public Rigidbody getRigidbody(int handle) {
+        if (!store.contains(handle)) {
+            throw new IllegalArgumentException("No body with handle " + handle);
+        }
+        return store.rigidbodies[store.index(handle)];
+    }
+
+    /**
+     * Gets the collider view of a body.
+     *
+     * @param handle The handle returned by {@link #addRigidbody}.
+     * @return The collider.
      */
-    public void addRigidbody(Rigidbody rb, Collider collider) {
-        objects.add(new PhysicsObject(rb, collider));
+    public Collider getCollider(int handle) {
+        if (!store.contains(handle)) {
+            throw new IllegalArgumentException("No body with handle " + handle);
+        }
+        return store.colliders[store.index(handle)];
     }
 
     /**
      * Updates the physics world by integrating motion and checking for collisions.
+     * The step runs in phases: integration, candidate pair search, narrow phase, resolution, and
+     * putting resting islands to sleep.
+     * Every candidate pair is tested before any contact is resolved, and contacts are solved in
+     * index order within each island, so parallel and single-threaded steps give identical results.
      *
      * @param deltaTime The time step for the simulation update.
      */
     public void update(float deltaTime) {
-        // Integrate motion for each object
-        for (PhysicsObject obj : objects) {
-            if (obj.rigidbody.mass != 0.0f) {
-                obj.rigidbody.integrate(deltaTime);
+        boolean measure = statsEnabled;
+        int integrated = 0;
+        if (measure) {
+            integrated = getAwakeBodyCount();
+            stats.begin();
+        }
+        stepDuration = deltaTime;
+        if (reorderInterval > 0 && stepCount % reorderInterval == 0) {
+            reorder();
+        }
+        ensureBoundsCapacity();
+        anySwept = false;
+        ParallelFor.run(pool, store.count, INTEGRATION_GRAIN, integrateBatch);
+        if (measure) stats.phase(StepStats.INTEGRATION);
+        checkCollisions(measure);
+        if (sleepingEnabled) {
+            updateSleep();
+            if (measure) stats.phase(StepStats.SLEEP);
+        }
+        if (syncViews) {
+            syncViews();
+            if (measure) stats.phase(StepStats.VIEW_SYNC);
+        }
+        if (measure) {
+            stats.count(integrated, pairs.size(), solver.count, (long) solver.count * solver.iterations);
+            stats.end();
+        }
+        queryTreeStale = true;
+        stepCount++;
+        if (statePublisher != null) {
+            statePublisher.publish(store, stepCount);
+        }
+        if (store.recorder != null) {
+            store.recorder.step(deltaTime);
+        }
+    }
+
+    /**
+     * Checks whether fast circles are swept for continuous collision.
+     *
+     * @return True if continuous collision is enabled.
+     */
+    public boolean isContinuousCollision() {
+        return continuousCollision;
+    }
+
+    /**
+     * Sets whether fast circles are swept for continuous collision. When enabled, each awake circle
+     * that is a {@link Rigidbody#setBullet bullet} or moved farther than its radius in a step is
+     * tested along its whole motion against the bodies near its path, and stopped at the first one it
+     * would have passed through. The contact is then resolved like any other. Without it, such
+     * circles can tunnel through thin bodies, and only small time steps prevent it.
+     *
+     * @param continuousCollision True to enable continuous collision.
+     */
+    public void setContinuousCollision(boolean continuousCollision) {
+        this.continuousCollision = continuousCollision;
+        if (store.recorder != null) {
+            store.recorder.setting(InputRecorder.CONTINUOUS_COLLISION, continuousCollision ? 1.0f : 0.0f, 0.0f);
+        }
+    }
+
+    /**
+     * Gets the number of steps between reorders of the bodies in memory.
+     *
+     * @return The interval, or 0 if bodies are only reordered by {@link #reorderBodies()}.
+     */
+    public int getReorderInterval() {
+        return reorderInterval;
+    }
+
+    /**
+     * Sets how often the bodies are reordered in memory along a Morton curve, as by
+     * {@link #reorderBodies()}, at the start of a step. Bodies that move keep drifting away from
+     * the bodies stored next to them, so large scenes of moving bodies gain from reordering every
+     * few dozen steps; the sort costs about as much as a few integration passes.
+     *
+     * @param reorderInterval The number of steps between reorders, or 0 to never reorder automatically.
+     */
+    public void setReorderInterval(int reorderInterval) {
+        if (reorderInterval < 0) {
+            throw new IllegalArgumentException("Reorder interval must not be negative");
+        }
+        this.reorderInterval = reorderInterval;
+        if (store.recorder != null) {
+            store.recorder.setting(InputRecorder.REORDER_INTERVAL, reorderInterval, 0.0f);
+        }
+    }
+
+    /**
+     * Reorders the bodies in memory along a Morton (Z-order) curve through their positions, so that
+     * bodies near each other in space are stored near each other. Integration, the broad phase and
+     * contact resolution then walk the body arrays mostly in order instead of jumping across them.
+     * Handles, views and cached contact impulses are unaffected, but the order of bodies in
+     * snapshots changes, and so may the last bits of later results, since contacts are solved in
+     * storage order. The broad phase rebuilds its state on the next step.
+     */
+    public void reorderBodies() {
+        reorder();
+        if (store.recorder != null) {
+            store.recorder.reorder();
+        }
+    }
+
+    /**
+     * Sorts the bodies along a Morton curve and drops the state the broad phase and query tree
+     * keep by index.
+     */
+    private void reorder() {
+        if (!store.sortByMorton()) return;
+        broadPhase.reset();
+        if (queryTree != null) {
+            queryTree.reset();
+        }
+        queryTreeStale = true;
+    }
+
+    /**
+     * Gets the listener receiving the overlaps of sensor colliders.
+     *
+     * @return The listener, or null if there is none.
+     */
+    public SensorListener getSensorListener() {
+        return sensorListener;
+    }
+
+    /**
+     * Sets the listener receiving the overlaps of {@link Collider#setSensor sensor} colliders.
+     * It is called during {@link #update}, after the narrow phase, once for every overlapping pair.
+     *
+     * @param sensorListener The listener, or null to ignore sensor overlaps.
+     */
+    public void setSensorListener(SensorListener sensorListener) {
+        this.sensorListener = sensorListener;
+    }
+
+    /**
+     * Gets the stream receiving the contact events of each step.
+     *
+     * @return The stream, or null if contact events are not reported.
+     */
+    public ContactEvents getContactEvents() {
+        return contactEvents;
+    }
+
+    /**
+     * Sets the stream receiving the contact events of each step. After every step, the world
+     * compares the pairs touching after the narrow phase with those of the step before, writes a
+     * begin event for each new pair and an end event for each pair that separated, and publishes
+     * them together; another thread drains them with {@link ContactEvents#drain}. Pairs of sleeping
+     * bodies keep touching without events. A stream must be attached to one world at most.
+     *
+     * @param contactEvents The stream, or null to stop reporting contacts.
+     */
+    public void setContactEvents(ContactEvents contactEvents) {
+        this.contactEvents = contactEvents;
+        contactTracker.reset();
+    }
+
+    /**
+     * Gets the publisher receiving the state of the world after each step.
+     *
+     * @return The publisher, or null if the state is not published.
+     */
+    public StatePublisher getStatePublisher() {
+        return statePublisher;
+    }
+
+    /**
+     * Sets the publisher receiving the state of the world after each step, from which other threads
+     * read it while the world keeps stepping. The current state is published right away.
+     * A publisher must be attached to one world at most.
+     *
+     * @param statePublisher The publisher, or null to stop publishing.
+     */
+    public void setStatePublisher(StatePublisher statePublisher) {
+        this.statePublisher = statePublisher;
+        if (statePublisher != null) {
+            statePublisher.publish(store, stepCount);
+        }
+    }
+
+    /**
+     * Checks whether this JVM can run the vectorized loops of a step. They need the incubating
+     * Vector API, enabled with {@code --add-modules jdk.incubator.vector}, and a CPU with vectors of
+     * at least 8 floats.
+     *
+     * @return True if vectorized stepping is available.
+     */
+    public static boolean isSimdAvailable() {
+        return Simd.AVAILABLE;
+    }
+
+    /**
+     * Checks whether steps use the vectorized loops for integration and circle pairs.
+     *
+     * @return True if the vectorized loops are used.
+     */
+    public boolean isSimdEnabled() {
+        return simdEnabled;
+    }
+
+    /**
+     * Sets whether steps use the vectorized loops for integration and circle pairs. They are on by
+     * default when available. Both paths give bit-identical results.
+     *
+     * @param simdEnabled True to use the vectorized loops.
+     */
+    public void setSimdEnabled(boolean simdEnabled) {
+        if (simdEnabled && !Simd.AVAILABLE) {
+            throw new IllegalStateException("Vector API not available; run with --add-modules jdk.incubator.vector");
+        }
+        this.simdEnabled = simdEnabled;
+    }
+
+    /**
+     * Checks whether steps are measured into {@link #getStats()}.
+     *
+     * @return True if statistics are enabled.
+     */
+    public boolean isStatsEnabled() {
+        return statsEnabled;
+    }
+
+    /**
+     * Sets whether steps are measured into {@link #getStats()}. Measuring costs a few clock reads
+     * and a count of the awake bodies per step; when disabled, nothing is measured.
+     *
+     * @param statsEnabled True to measure steps.
+     */
+    public void setStatsEnabled(boolean statsEnabled) {
+        this.statsEnabled = statsEnabled;
+    }
+
+    /**
+     * Gets the timings and counters of the measured steps. The same object is returned for the
+     * life of the world, and keeps its values while statistics are disabled.
+     *
+     * @return The statistics.
+     */
+    public StepStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Gets the number of updates the world has completed.
+     *
+     * @return The step count.
+     */
+    public long getStepCount() {
+        return stepCount;
+    }
+
+    /**
+     * Copies the state of every body into a snapshot, for reading on another thread.
+     *
+     * @param into The snapshot to fill.
+     */
+    public void snapshot(StateSnapshot into) {
+        into.copyFrom(store, stepCount);
+    }
+
+    /**
+     * Captures the complete state of the world, from which {@link WorldCheckpoint#restore()} builds a
+     * world that steps exactly like this one. Only arrays are copied, so this is cheap enough to call
+     * between steps; write the checkpoint to a file afterwards, on any thread.
+     *
+     * @param into The checkpoint to fill.
+     */
+    public void checkpoint(WorldCheckpoint into) {
+        into.copyFrom(this, store, solver);
+    }
+
+    /**
+     * Computes a 64-bit hash of the state that decides how the world evolves: the handle, position,
+     * velocity, orientation, angular velocity and sleep state of every body, and the step count. Two
+     * worlds with the same hash are, for all practical purposes, in the same state; replays compare
+     * hashes to detect divergence.
+     *
+     * @return The hash.
+     */
+    public long stateHash() {
+        long h = mix(0x9E3779B97F4A7C15L, stepCount);
+        h = mix(h, store.count);
+        for (int i = 0; i < store.count; i++) {
+            h = mix(h, store.handleOf[i]);
+            h = mix(h, ((long) Float.floatToRawIntBits(store.posX[i]) << 32) | (Float.floatToRawIntBits(store.posY[i]) & 0xffffffffL));
+            h = mix(h, ((long) Float.floatToRawIntBits(store.velX[i]) << 32) | (Float.floatToRawIntBits(store.velY[i]) & 0xffffffffL));
+            h = mix(h, ((long) Float.floatToRawIntBits(store.rotCos[i]) << 32) | (Float.floatToRawIntBits(store.rotSin[i]) & 0xffffffffL));
+            h = mix(h, Float.floatToRawIntBits(store.angVel[i]));
+            h = mix(h, ((store.awake[i] ? 1L : 0L) << 32) | (Float.floatToRawIntBits(store.sleepTime[i]) & 0xffffffffL));
+        }
+        return h ^ (h >>> 29);
+    }
+
+    /**
+     * Folds a value into a running hash.
+     */
+    private static long mix(long h, long value) {
+        value *= 0xBF58476D1CE4E5B9L;
+        value ^= value >>> 31;
+        return Long.rotateLeft(h ^ value, 27) * 0x94D049BB133111EBL;
+    }
+
+    /**
+     * Gets the body storage of the world.
+     *
+     * @return The store.
+     */
+    BodyStore store() {
+        return store;
+    }
+
+    /**
+     * Replaces the state of this new, empty world with a captured one.
+     *
+     * @param from The checkpoint to restore.
+     */
+    void restore(WorldCheckpoint from) {
+        if (store.count != 0) {
+            throw new IllegalStateException("Only an empty world can be restored");
+        }
+        from.copyTo(store, solver);
+        sleepingEnabled = from.sleepingEnabled;
+        sleepVelocity = from.sleepVelocity;
+        timeToSleep = from.timeToSleep;
+        reorderInterval = from.reorderInterval;
+        syncViews = from.syncViews;
+        continuousCollision = from.continuousCollision;
+        stepCount = from.stepCount;
+        queryTreeStale = true;
+    }
+
+    /**
+     * Integrates a batch of bodies and computes their bounding boxes, grown along the motion of the
+     * bodies swept for continuous collision.
+     *
+     * @param from The first body index.
+     * @param to   The index after the last body.
+     */
+    private void integrateBatch(int from, int to) {
+        if (simdEnabled) {
+            SimdKernels.integrate(store, from, to, stepDuration);
+            SimdKernels.computeBounds(store, from, to, minX, minY, maxX, maxY);
+        } else {
+            store.integrate(from, to, stepDuration);
+            store.computeBounds(from, to, minX, minY, maxX, maxY);
+        }
+        if (continuousCollision && store.sweepBounds(from, to, stepDuration, minX, minY, maxX, maxY, swept) > 0) {
+            for (int i = from; i < to; i++) {
+                if (swept[i] == 0) continue;
+                impactFraction[i] = 1.0f;
+                impactPair[i] = -1;
             }
+            anySwept = true; // Only ever set to true, and read after the batches are joined.
         }
-        checkCollisions();
     }
 
     /**
-     * Checks for collisions between all objects in the physics world.
-     * Resolves any detected collisions.
+     * Finds the touching pairs among the candidates reported by the broad phase and resolves them.
+     * Only pairs whose boxes overlapped after integration are considered, so every broad phase
+     * gives the same result. Pairs without an awake body, pairs excluded by the collision filters
+     * and pairs of two sensors are dropped before they are stored, and the broad phase is skipped
+     * altogether while every body sleeps. Touching pairs with a sensor are reported, not resolved.
      */
-    private void checkCollisions() {
-        int n = objects.size();
-        for (int i = 0; i < n; i++) {
-            for (int j = i + 1; j < n; j++) {
-                PhysicsObject obj1 = objects.get(i);
-                PhysicsObject obj2 = objects.get(j);
-                if (obj1.collider.checkCollision(obj2.collider)) {
-                    resolveCollision(obj1, obj2);
-//                    System.out.println("Collision detected and resolved between objects!");
+    private void checkCollisions(boolean measure) {
+        pairs.clear();
+        pairs.awake = store.awake;
+        pairs.category = store.category;
+        pairs.mask = store.mask;
+        pairs.flags = store.flags;
+        if (anyAwake()) {
+            broadPhase.findPairs(store.count, minX, minY, maxX, maxY, pairs);
+            pairs.sort();
+        }
+        if (measure) stats.phase(StepStats.BROAD_PHASE);
+
+        int pairCount = pairs.size();
+        if (touching.length < pairCount) {
+            int capacity = Math.max(pairCount, touching.length * 2);
+            touching = new int[capacity];
+            pairNormalX = new float[capacity];
+            pairNormalY = new float[capacity];
+            pairPenetration = new float[capacity];
+            pairPointX = new float[capacity];
+            pairPointY = new float[capacity];
+        }
+        if (simdEnabled && pairCircles.length < touching.length) {
+            pairCircles = new int[touching.length];
+            circleAX = new float[touching.length];
+            circleAY = new float[touching.length];
+            circleAR = new float[touching.length];
+            circleBX = new float[touching.length];
+            circleBY = new float[touching.length];
+            circleBR = new float[touching.length];
+        }
+        ParallelFor.run(pool, pairCount, NARROW_PHASE_GRAIN, narrowPhaseBatch);
+        if (anySwept) {
+            sweepContacts(pairCount);
+        }
+        if (contactEvents != null) {
+            reportContacts(pairCount);
+        }
+        if (measure) stats.phase(StepStats.NARROW_PHASE);
+
+        // A contact with an awake body wakes a sleeping one. Pairs of two static bodies never
+        // move, so they are left out of the solver.
+        solver.clear();
+        float[] invMass = store.invMass;
+        boolean[] awake = store.awake;
+        byte[] flags = store.flags;
+        for (int k = 0; k < pairCount; k++) {
+            if (touching[k] == 0) continue;
+            int a = pairs.first(k);
+            int b = pairs.second(k);
+            if (((flags[a] | flags[b]) & BodyStore.SENSOR) != 0) {
+                if (sensorListener != null) {
+                    boolean aSensor = (flags[a] & BodyStore.SENSOR) != 0;
+                    sensorListener.onOverlap(store.colliders[aSensor ? a : b], store.colliders[aSensor ? b : a]);
                 }
+                continue;
+            }
+            if (!awake[a]) store.wake(a);
+            if (!awake[b]) store.wake(b);
+            if (invMass[a] == 0.0f && invMass[b] == 0.0f) continue;
+            solver.add(store, a, b, pairNormalX[k], pairNormalY[k], pairPenetration[k], pairPointX[k], pairPointY[k]);
+        }
+
+        if (pool == null) {
+            solver.solve(store, null, 0, solver.count);
+        } else {
+            islands.build(invMass, store.count, solver.bodyA, solver.bodyB, solver.count);
+            int grain = Math.max(1, islands.count / (4 * pool.getParallelism()));
+            ParallelFor.run(pool, islands.count, grain, resolveBatch);
+        }
+        solver.storeImpulses();
+        if (measure) stats.phase(StepStats.SOLVER);
+    }
+
+    /**
+     * Writes the contact events of the step to the attached stream. Runs before contacts wake
+     * sleeping bodies, so that the pairs the broad phase skipped are exactly those of two sleeping bodies.
+     *
+     * @param pairCount The number of candidate pairs.
+     */
+    private void reportContacts(int pairCount) {
+        int[] handleOf = store.handleOf;
+        for (int k = 0; k < pairCount; k++) {
+            if (touching[k] != 0) {
+                contactTracker.add(handleOf[pairs.first(k)], handleOf[pairs.second(k)]);
             }
         }
+        contactTracker.diff(store, stepCount + 1, contactEvents);
     }
 
     /**
-     * Resolves a collision between two physics objects.
+     * Checks whether any body is awake.
      *
-     * @param obj1 The first physics object involved in the collision.
-     * @param obj2 The second physics object involved in the collision.
+     * @return True if at least one dynamic body is awake.
      */
-    private void resolveCollision(PhysicsObject obj1, PhysicsObject obj2) {
-        Rigidbody rb1 = obj1.rigidbody;
-        Rigidbody rb2 = obj2.rigidbody;
+    private boolean anyAwake() {
+        boolean[] awake = store.awake;
+        for (int i = 0, n = store.count; i < n; i++) {
+            if (awake[i]) return true;
+        }
+        return false;
+    }
 
-        if (rb1.mass == 0.0f && rb2.mass == 0.0f) return; // both static
+    /**
+     * Advances the sleep timers of awake bodies and puts islands to sleep once every body in them
+     * has rested for the time to sleep. Islands sleep as a whole so that a body at rest is not woken
+     * again by a neighbour that is still settling. A body rests while its center, and the farthest
+     * corner of its bounding box turning about it, both move slower than the sleep velocity.
+     */
+    private void updateSleep() {
+        if (pool == null) {
+            islands.build(store.invMass, store.count, solver.bodyA, solver.bodyB, solver.count);
+        }
+        int n = store.count;
+        if (islandSleepTime.length < n) {
+            islandSleepTime = new float[Math.max(n, islandSleepTime.length * 2)];
+        }
+        boolean[] awake = store.awake;
+        float[] sleepTime = store.sleepTime;
+        float[] velX = store.velX;
+        float[] velY = store.velY;
+        float[] angVel = store.angVel;
+        float threshold = sleepVelocity * sleepVelocity;
+        for (int i = 0; i < n; i++) {
+            if (!awake[i]) continue;
+            float speedSquared = velX[i] * velX[i] + velY[i] * velY[i];
+            float reachX = store.shape[i] == BodyStore.CIRCLE ? store.radius[i] : store.halfX[i];
+            float reachY = store.shape[i] == BodyStore.CIRCLE ? store.radius[i] : store.halfY[i];
+            float turnSquared = angVel[i] * angVel[i] * (reachX * reachX + reachY * reachY);
+            sleepTime[i] = speedSquared > threshold || turnSquared > threshold ? 0.0f : sleepTime[i] + stepDuration;
+            islandSleepTime[i] = Float.POSITIVE_INFINITY;
+        }
+        for (int i = 0; i < n; i++) {
+            if (!awake[i]) continue;
+            int root = islands.root(i);
+            islandSleepTime[root] = Math.min(islandSleepTime[root], sleepTime[i]);
+        }
+        for (int i = 0; i < n; i++) {
+            if (!awake[i] || islandSleepTime[islands.root(i)] < timeToSleep) continue;
+            awake[i] = false;
+            velX[i] = 0.0f;
+            velY[i] = 0.0f;
+            angVel[i] = 0.0f;
+        }
+    }
+
+    /**
+     * Runs the narrow phase on a batch of candidate pairs, flagging the touching ones and
+     * recording their manifolds.
+     *
+     * @param from The first pair position.
+     * @param to   The position after the last pair.
+     */
+    private void narrowPhaseBatch(int from, int to) {
+        if (simdEnabled) {
+            narrowPhaseBatchSimd(from, to);
+            return;
+        }
+        for (int k = from; k < to; k++) {
+            int a = pairs.first(k);
+            int b = pairs.second(k);
+            boolean hit = BroadPhase.overlaps(a, b, minX, minY, maxX, maxY)
+                    && NarrowPhase.collide(store, a, b, pairNormalX, pairNormalY, pairPenetration, pairPointX, pairPointY, k);
+            touching[k] = hit ? 1 : 0;
+        }
+    }
 
-        Vector2D normal = rb2.position.subtract(rb1.position);
-        if (obj1.collider.getType() == Collider.Type.AABB || obj2.collider.getType() == Collider.Type.AABB) {
-            if (obj1.collider.getType() == Collider.Type.CIRCLE) {
-                normal = rb1.position.subtract(
-                        closestPointOnAABB(obj2.collider.getCenter(), obj2.collider.getHalfSize(), rb1.position)
-                );
+    /**
+     * Tests a batch of candidate pairs with the vectorized circle test, then the remaining pairs
+     * one by one. The broad phase only reports pairs whose boxes overlap, so the circle test can
+     * skip the box check and still give the same results as {@link #narrowPhaseBatch}.
+     *
+     * @param from The first pair index.
+     * @param to   The index after the last pair.
+     */
+    private void narrowPhaseBatchSimd(int from, int to) {
+        int[] shape = store.shape;
+        float[] posX = store.posX;
+        float[] posY = store.posY;
+        float[] radius = store.radius;
+        for (int k = from; k < to; k++) {
+            int a = pairs.first(k);
+            int b = pairs.second(k);
+            touching[k] = 0;
+            if (shape[a] != BodyStore.CIRCLE || shape[b] != BodyStore.CIRCLE) {
+                pairCircles[k] = 0;
+                continue;
+            }
+            pairCircles[k] = 1;
+            circleAX[k] = posX[a];
+            circleAY[k] = posY[a];
+            circleAR[k] = radius[a];
+            circleBX[k] = posX[b];
+            circleBY[k] = posY[b];
+            circleBR[k] = radius[b];
+        }
+        int vectorized = SimdKernels.circlePairs(pairCircles, circleAX, circleAY, circleAR, circleBX, circleBY, circleBR,
+                from, to, touching, pairNormalX, pairNormalY, pairPenetration, pairPointX, pairPointY);
+        for (int k = from; k < to; k++) {
+            if (k < vectorized && pairCircles[k] != 0) continue;
+            int a = pairs.first(k);
+            int b = pairs.second(k);
+            boolean hit = BroadPhase.overlaps(a, b, minX, minY, maxX, maxY)
+                    && NarrowPhase.collide(store, a, b, pairNormalX, pairNormalY, pairPenetration, pairPointX, pairPointY, k);
+            touching[k] = hit ? 1 : 0;
+        }
+    }
+
+    /**
+     * Stops every swept circle at its first impact along its motion. Each swept circle is tested
+     * against the other body of each of its candidate pairs other than sensors, in pair order;
+     * circles that hit something are moved back to where they first touched it, and every pair of a
+     * moved circle is tested again at the new position. The pair of the impact itself gets a contact
+     * along the impact normal even where the bodies only just touch, so the solver stops or bounces
+     * the circle there. Runs on the stepping thread; swept bodies are few, and the order keeps steps
+     * deterministic.
+     *
+     * @param pairCount The number of candidate pairs.
+     */
+    private void sweepContacts(int pairCount) {
+        float duration = stepDuration;
+        byte[] flags = store.flags;
+        for (int k = 0; k < pairCount; k++) {
+            int a = pairs.first(k);
+            int b = pairs.second(k);
+            if (((flags[a] | flags[b]) & BodyStore.SENSOR) != 0) continue;
+            if (swept[a] != 0) {
+                float t = NarrowPhase.sweep(store, a, b, duration, impactFraction[a], impactNormalX, impactNormalY, a);
+                if (t < impactFraction[a]) {
+                    impactFraction[a] = t;
+                    impactPair[a] = k;
+                }
+            }
+            if (swept[b] != 0) {
+                float t = NarrowPhase.sweep(store, b, a, duration, impactFraction[b], impactNormalX, impactNormalY, b);
+                if (t < impactFraction[b]) {
+                    impactFraction[b] = t;
+                    impactPair[b] = k;
+                }
+            }
+        }
+
+        boolean moved = false;
+        for (int k = 0; k < pairCount; k++) {
+            moved |= moveToImpact(pairs.first(k));
+            moved |= moveToImpact(pairs.second(k));
+        }
+        if (!moved) return;
+
+        for (int k = 0; k < pairCount; k++) {
+            int a = pairs.first(k);
+            int b = pairs.second(k);
+            if (swept[a] != 2 && swept[b] != 2) continue;
+            if (NarrowPhase.collide(store, a, b, pairNormalX, pairNormalY, pairPenetration, pairPointX, pairPointY, k)) {
+                touching[k] = 1;
+            } else if (swept[a] == 2 && impactPair[a] == k) {
+                touching[k] = 1;
+                pairNormalX[k] = impactNormalX[a];
+                pairNormalY[k] = impactNormalY[a];
+                pairPenetration[k] = 0.0f;
+                pairPointX[k] = store.posX[a] + impactNormalX[a] * store.radius[a];
+                pairPointY[k] = store.posY[a] + impactNormalY[a] * store.radius[a];
+            } else if (swept[b] == 2 && impactPair[b] == k) {
+                touching[k] = 1;
+                pairNormalX[k] = -impactNormalX[b];
+                pairNormalY[k] = -impactNormalY[b];
+                pairPenetration[k] = 0.0f;
+                pairPointX[k] = store.posX[b] + impactNormalX[b] * store.radius[b];
+                pairPointY[k] = store.posY[b] + impactNormalY[b] * store.radius[b];
             } else {
-                normal = rb2.position.subtract(
-                        closestPointOnAABB(obj1.collider.getCenter(), obj1.collider.getHalfSize(), rb2.position)
-                );
+                touching[k] = 0;
             }
         }
-        normal.normalize();
+    }
 
-        Vector2D relVel = rb2.velocity.subtract(rb1.velocity);
-        float velAlongNormal = relVel.dot(normal);
-        if (velAlongNormal > 0) return;
-        float restitution = 0.9f;
-        float invMass1 = rb1.mass > 0 ? 1f / rb1.mass : 0f;
-        float invMass2 = rb2.mass > 0 ? 1f / rb2.mass : 0f;
-        float j = -(1 + restitution) * velAlongNormal / (invMass1 + invMass2);
-        Vector2D impulse = normal.multiply(j);
+    /**
+     * Moves a swept circle that hit something back to the point of its first impact, once.
+     *
+     * @param i The index of the body.
+     * @return True if the body was moved by this call.
+     */
+    private boolean moveToImpact(int i) {
+        if (swept[i] != 1 || impactPair[i] < 0) return false;
+        float moveX = store.velX[i] * stepDuration;
+        float moveY = store.velY[i] * stepDuration;
+        float t = impactFraction[i];
+        store.posX[i] = store.posX[i] - moveX + moveX * t;
+        store.posY[i] = store.posY[i] - moveY + moveY * t;
+        swept[i] = 2;
+        return true;
+    }
 
-        if (rb1.mass > 0) rb1.velocity = rb1.velocity.subtract(impulse.multiply(invMass1));
-        if (rb2.mass > 0) rb2.velocity = rb2.velocity.add   (impulse.multiply(invMass2));
+    /**
+     * Solves the contacts of a batch of islands, each island in contact order.
+     *
+     * @param from The first island.
+     * @param to   The island after the last one.
+     */
+    private void resolveIslands(int from, int to) {
+        for (int island = from; island < to; island++) {
+            solver.solve(store, islands.order, islands.start[island], islands.start[island + 1]);
+        }
+    }
+
+    /**
+     * Makes sure the bounds arrays can hold every body.
+     */
+    private void ensureBoundsCapacity() {
+        int n = store.count;
+        if (minX.length < n) {
+            int capacity = Math.max(n, minX.length * 2);
+            minX = new float[capacity];
+            minY = new float[capacity];
+            maxX = new float[capacity];
+            maxY = new float[capacity];
+            swept = new byte[capacity];
+            impactFraction = new float[capacity];
+            impactPair = new int[capacity];
+            impactNormalX = new float[capacity];
+            impactNormalY = new float[capacity];
+        }
+    }
 
-        final float percent = 0.2f;
-        final float slop = 0.01f;
-        float penetration = 0f;
-        if (obj1.collider.getType() == Collider.Type.CIRCLE &&
-                obj2.collider.getType() == Collider.Type.CIRCLE) {
-            penetration = (obj1.collider.getRadius() + obj2.collider.getRadius()) -
-                    obj1.rigidbody.position.subtract(obj2.rigidbody.position).magnitude();
+    /**
+     * Computes the bounding box of every body into the bounds arrays.
+     */
+    private void refreshBounds() {
+        ensureBoundsCapacity();
+        store.computeBounds(0, store.count, minX, minY, maxX, maxY);
+    }
+
+    /**
+     * Copies positions, velocities and angular velocities from the store into the fields of every
+     * rigid body. Angles are left to {@link Rigidbody#getAngle()}, which turns the stored cosine and
+     * sine back into an angle only for the bodies that are asked.
+     */
+    private void syncViews() {
+        for (int i = 0; i < store.count; i++) {
+            Rigidbody rb = store.rigidbodies[i];
+            rb.position.x = store.posX[i];
+            rb.position.y = store.posY[i];
+            rb.velocity.x = store.velX[i];
+            rb.velocity.y = store.velY[i];
+            rb.angularVelocity = store.angVel[i];
         }
-        float correctionMag = Math.max(penetration - slop, 0f) / (invMass1 + invMass2) * percent;
-        Vector2D correction = normal.multiply(correctionMag);
-        if (rb1.mass > 0) rb1.position = rb1.position.subtract(correction.multiply(invMass1));
-        if (rb2.mass > 0) rb2.position = rb2.position.add   (correction.multiply(invMass2));
     }
 
+    /**
+     * Finds all colliders that overlap an axis-aligned region.
+     * Uses a bounding volume tree, so the cost grows with the number of results rather than
+     * the number of bodies.
+     *
+     * @param minX The minimum x of the region.
+     * @param minY The minimum y of the region.
+     * @param maxX The maximum x of the region.
+     * @param maxY The maximum y of the region.
+     * @return The colliders touching the region.
+     */
+    public List<Collider> queryRegion(float minX, float minY, float maxX, float maxY) {
+        List<Collider> result = new ArrayList<>();
+        spatialIndex().query(minX, minY, maxX, maxY, index -> {
+            Collider collider = store.colliders[index];
+            if (collider.overlapsRegion(minX, minY, maxX, maxY)) {
+                result.add(collider);
+            }
+            return true;
+        });
+        return result;
+    }
 
     /**
-     * Finds the closest point on an AABB to a given point.
+     * Casts a ray {@code origin + t * dir} into the world and finds the first collider it hits.
      *
-     * @param aabbCenter The center of the AABB.
-     * @param aabbHalfSize The half-size dimensions of the AABB.
-     * @param point The point to find the closest point to.
-     * @return The closest point on the AABB.
+     * @param origin The start of the ray.
+     * @param dir    The direction of the ray; with a unit direction, {@code t} is a distance.
+     * @param maxT   The largest ray parameter to consider.
+     * @return The closest hit with {@code t} in {@code [0, maxT]}, or null if nothing is hit.
      */
-    private Vector2D closestPointOnAABB(Vector2D aabbCenter, Vector2D aabbHalfSize, Vector2D point) {
-        float closestX = Math.max(aabbCenter.x - aabbHalfSize.x, Math.min(point.x, aabbCenter.x + aabbHalfSize.x));
-        float closestY = Math.max(aabbCenter.y - aabbHalfSize.y, Math.min(point.y, aabbCenter.y + aabbHalfSize.y));
-        return new Vector2D(closestX, closestY);
+    public RaycastHit raycast(Vector2D origin, Vector2D dir, float maxT) {
+        RaycastHit[] closest = new RaycastHit[1];
+        spatialIndex().raycast(origin.x, origin.y, dir.x, dir.y, maxT, (index, currentMaxT) -> {
+            RaycastHit hit = store.colliders[index].raycast(origin, dir, currentMaxT);
+            if (hit == null) return currentMaxT;
+            closest[0] = hit;
+            return hit.getT();
+        });
+        return closest[0];
+    }
+
+    /**
+     * Returns the bounding volume tree used for queries, synced with the current body positions.
+     * The broad phase is reused when it is a tree; otherwise a separate tree is kept.
+     * Syncing only happens on the first query after a step, an added or removed body, or a body
+     * moved or turned through its views.
+     *
+     * @return The synced tree.
+     */
+    private DynamicAABBTree spatialIndex() {
+        DynamicAABBTree tree;
+        if (broadPhase instanceof DynamicAABBTree) {
+            tree = (DynamicAABBTree) broadPhase;
+        } else {
+            if (queryTree == null) {
+                queryTree = new DynamicAABBTree();
+            }
+            tree = queryTree;
+        }
+        if (queryTreeStale || store.moved) {
+            refreshBounds();
+            tree.update(store.count, minX, minY, maxX, maxY);
+            queryTreeStale = false;
+            store.moved = false;
+        }
+        return tree;
     }
 
     /**
@@ -155,9 +1324,9 @@ public class PhysicsWorld {
      */
     public List<Collider> getColliders() {
         List<Collider> colliders = new ArrayList<>();
-        for (PhysicsObject obj : objects) {
-            colliders.add(obj.collider);
+        for (int i = 0; i < store.count; i++) {
+            colliders.add(store.colliders[i]);
         }
         return colliders;
     }
-}
\ No newline at end of file
+}
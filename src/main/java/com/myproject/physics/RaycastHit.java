@@ -0,0 +1,64 @@
+package com.myproject.physics;
+
+/**
+ * Describes where a ray hit a collider.
+ */
+public class RaycastHit {
+    private final Collider collider; // The collider that was hit.
+    private final float t; // The ray parameter of the hit point.
+    private final Vector2D point; // The hit point.
+    private final Vector2D normal; // The surface normal at the hit point.
+
+    /**
+     * Constructs a hit record.
+     *
+     * @param collider The collider that was hit.
+     * @param t        The ray parameter of the hit, so that {@code point = origin + t * direction}.
+     * @param point    The hit point.
+     * @param normal   The unit surface normal at the hit point.
+     */
+    public RaycastHit(Collider collider, float t, Vector2D point, Vector2D normal) {
+        this.collider = collider;
+        this.t = t;
+        this.point = point;
+        this.normal = normal;
+    }
+
+    /**
+     * Gets the collider that was hit.
+     *
+     * @return The collider that was hit.
+     */
+    public Collider getCollider() {
+        return collider;
+    }
+
+    /**
+     * Gets the ray parameter of the hit.
+     * It is the distance to the hit when the ray direction has unit length.
+     *
+     * @return The ray parameter of the hit point.
+     */
+    public float getT() {
+        return t;
+    }
+
+    /**
+     * Gets the hit point.
+     *
+     * @return The point where the ray enters the collider.
+     */
+    public Vector2D getPoint() {
+        return point;
+    }
+
+    /**
+     * Gets the surface normal at the hit point.
+     * If the ray starts inside the collider, the normal points against the ray.
+     *
+     * @return The unit surface normal.
+     */
+    public Vector2D getNormal() {
+        return normal;
+    }
+}
@@ -2,13 +2,25 @@ package com.myproject.physics;
 
 /**
  * Represents a rigid body in the physics simulation.
- * Handles position, velocity, forces, and mass for motion integration.
+ * Handles position, orientation, linear and angular velocity, forces, torques, mass and moment of
+ * inertia for motion integration.
+ * Once added to a {@link PhysicsWorld}, the body's state lives in the world's arrays and this
+ * object becomes a view of it: the accessor methods read and write the world directly, while the
+ * public fields are refreshed by the world after each step.
  */
 public class Rigidbody {
     public Vector2D position; // The position of the rigid body.
     public Vector2D velocity; // The velocity of the rigid body.
     public Vector2D forceAccum; // Accumulated forces acting on the rigid body.
     public float mass; // The mass of the rigid body (0 for static objects).
+    float angle; // The orientation, counter-clockwise, in radians.
+    float angularVelocity; // In radians per second, counter-clockwise.
+    float torque; // Accumulated torque acting on the rigid body.
+    float inertia; // The moment of inertia, or 0 to derive it from the collider when added to a world.
+    boolean bullet; // Whether the body is swept for continuous collision every step.
+
+    BodyStore store; // The storage of the world this body belongs to, or null.
+    int handle; // The handle of this body in the store.
 
     /**
      * Constructs a new Rigidbody with the specified mass.
@@ -23,29 +35,336 @@ public class Rigidbody {
         this.forceAccum = new Vector2D(0, 0);
     }
 
+    /**
+     * Puts a detached rigid body back in the state of a new one with the given mass.
+     *
+     * @param mass The mass of the rigid body.
+     */
+    void reset(float mass) {
+        this.mass = mass;
+        position.set(0, 0);
+        velocity.set(0, 0);
+        forceAccum.set(0, 0);
+        angle = 0.0f;
+        angularVelocity = 0.0f;
+        torque = 0.0f;
+        inertia = 0.0f;
+        bullet = false;
+    }
+
+    /**
+     * Gets the position of the rigid body.
+     *
+     * @return The position vector, refreshed from the world if the body belongs to one.
+     */
+    public Vector2D getPosition() {
+        if (store != null) {
+            int i = store.index(handle);
+            position.x = store.posX[i];
+            position.y = store.posY[i];
+        }
+        return position;
+    }
+
+    /**
+     * Sets the position of the rigid body.
+     *
+     * @param x The new x coordinate.
+     * @param y The new y coordinate.
+     */
+    public void setPosition(float x, float y) {
+        position.x = x;
+        position.y = y;
+        if (store != null) {
+            int i = store.index(handle);
+            store.posX[i] = x;
+            store.posY[i] = y;
+            store.moved = true;
+            store.wake(i);
+            if (store.recorder != null) {
+                store.recorder.body(InputRecorder.POSITION, handle, x, y);
+            }
+        }
+    }
+
+    /**
+     * Gets the velocity of the rigid body.
+     *
+     * @return The velocity vector, refreshed from the world if the body belongs to one.
+     */
+    public Vector2D getVelocity() {
+        if (store != null) {
+            int i = store.index(handle);
+            velocity.x = store.velX[i];
+            velocity.y = store.velY[i];
+        }
+        return velocity;
+    }
+
+    /**
+     * Sets the velocity of the rigid body.
+     *
+     * @param x The new x component.
+     * @param y The new y component.
+     */
+    public void setVelocity(float x, float y) {
+        velocity.x = x;
+        velocity.y = y;
+        if (store != null) {
+            int i = store.index(handle);
+            store.velX[i] = x;
+            store.velY[i] = y;
+            store.wake(i);
+            if (store.recorder != null) {
+                store.recorder.body(InputRecorder.VELOCITY, handle, x, y);
+            }
+        }
+    }
+
+    /**
+     * Gets the orientation of the rigid body.
+     *
+     * @return The angle, counter-clockwise, in radians; from -pi to pi if the body belongs to a world.
+     */
+    public float getAngle() {
+        if (store != null) {
+            int i = store.index(handle);
+            angle = (float) Math.atan2(store.rotSin[i], store.rotCos[i]);
+        }
+        return angle;
+    }
+
+    /**
+     * Sets the orientation of the rigid body. A body with an AABB collider stays axis-aligned, so
+     * once it belongs to a world, this leaves it unchanged.
+     *
+     * @param angle The angle, counter-clockwise, in radians.
+     */
+    public void setAngle(float angle) {
+        this.angle = angle;
+        if (store != null) {
+            int i = store.index(handle);
+            store.setAngle(i, angle);
+            store.wake(i);
+            if (store.recorder != null) {
+                store.recorder.angular(InputRecorder.ANGLE, handle, angle);
+            }
+        }
+    }
+
+    /**
+     * Gets the angular velocity of the rigid body.
+     *
+     * @return The angular velocity, counter-clockwise, in radians per second.
+     */
+    public float getAngularVelocity() {
+        if (store != null) {
+            angularVelocity = store.angVel[store.index(handle)];
+        }
+        return angularVelocity;
+    }
+
+    /**
+     * Sets the angular velocity of the rigid body. A body with an AABB collider does not turn, so
+     * once it belongs to a world, this leaves it unchanged.
+     *
+     * @param angularVelocity The angular velocity, counter-clockwise, in radians per second.
+     */
+    public void setAngularVelocity(float angularVelocity) {
+        this.angularVelocity = angularVelocity;
+        if (store != null) {
+            int i = store.index(handle);
+            if (store.shape[i] != BodyStore.AABB) {
+                store.angVel[i] = angularVelocity;
+            }
+            store.wake(i);
+            if (store.recorder != null) {
+                store.recorder.angular(InputRecorder.ANGULAR_VELOCITY, handle, angularVelocity);
+            }
+        }
+    }
+
+    /**
+     * Gets the moment of inertia of the rigid body about its center.
+     *
+     * @return The moment of inertia. Once the body belongs to a world, 0 for bodies that do not turn
+     *         under forces: static bodies and bodies with an AABB collider. Before that, 0 unless set.
+     */
+    public float getInertia() {
+        if (store != null) {
+            float inverse = store.invInertia[store.index(handle)];
+            return inverse != 0.0f ? 1.0f / inverse : 0.0f;
+        }
+        return inertia;
+    }
+
+    /**
+     * Sets the moment of inertia of the rigid body about its center, which is otherwise computed
+     * from the mass and the shape of its collider, spread evenly, when the body is added to a world.
+     *
+     * @param inertia The moment of inertia, or 0 to compute it from the collider.
+     * @throws IllegalStateException If the body already belongs to a world.
+     */
+    public void setInertia(float inertia) {
+        if (store != null) {
+            throw new IllegalStateException("Inertia is fixed once the body belongs to a world");
+        }
+        if (!(inertia >= 0.0f)) {
+            throw new IllegalArgumentException("Inertia must not be negative");
+        }
+        this.inertia = inertia;
+    }
+
+    /**
+     * Gets the handle of this body in its world.
+     *
+     * @return The handle, or -1 if the body has not been added to a world.
+     */
+    public int getHandle() {
+        return store != null ? handle : -1;
+    }
+
+    /**
+     * Checks whether the rigid body is awake.
+     * Sleeping bodies are not integrated until a force, a new position or velocity, or a contact
+     * with an awake body wakes them. Static bodies are never awake.
+     *
+     * @return True if the body is awake, or if it has not been added to a world and has mass.
+     */
+    public boolean isAwake() {
+        if (store != null) {
+            return store.awake[store.index(handle)];
+        }
+        return mass > 0.0f;
+    }
+
+    /**
+     * Wakes the rigid body up and restarts its sleep timer.
+     */
+    public void wakeUp() {
+        if (store != null) {
+            store.wake(store.index(handle));
+            if (store.recorder != null) {
+                store.recorder.wake(handle);
+            }
+        }
+    }
+
+    /**
+     * Checks whether the rigid body is a bullet.
+     *
+     * @return True if the body is swept for continuous collision every step.
+     */
+    public boolean isBullet() {
+        if (store != null) {
+            return (store.flags[store.index(handle)] & BodyStore.BULLET) != 0;
+        }
+        return bullet;
+    }
+
+    /**
+     * Sets whether the rigid body is a bullet. A bullet circle is swept from its previous position to
+     * its new one every step and stopped at the first contact along the way, so it cannot pass
+     * through thin or small colliders however fast it moves. Circles moving farther than their radius
+     * in a step are swept whether or not they are bullets; the flag is for bodies that must never
+     * tunnel, such as projectiles, at the cost of a few more candidate pairs.
+     *
+     * @param bullet True to sweep the body every step.
+     */
+    public void setBullet(boolean bullet) {
+        this.bullet = bullet;
+        if (store != null) {
+            int i = store.index(handle);
+            store.flags[i] = (byte) (bullet ? store.flags[i] | BodyStore.BULLET : store.flags[i] & ~BodyStore.BULLET);
+            if (store.recorder != null) {
+                store.recorder.flags(handle, store.flags[i]);
+            }
+        }
+    }
+
     /**
      * Applies a force to the rigid body.
-     * The force is added to the accumulated forces for the current simulation step.
+     * The force is added to the accumulated forces for the current simulation step, and wakes the
+     * body up if it is sleeping.
      *
      * @param force The force to apply, represented as a 2D vector.
      */
     public void applyForce(Vector2D force) {
-        this.forceAccum = this.forceAccum.add(force);
+        if (store != null) {
+            int i = store.index(handle);
+            store.forceX[i] += force.x;
+            store.forceY[i] += force.y;
+            store.wake(i);
+            if (store.recorder != null) {
+                store.recorder.body(InputRecorder.FORCE, handle, force.x, force.y);
+            }
+            return;
+        }
+        forceAccum.addLocal(force);
+    }
+
+    /**
+     * Applies a force at a point of the rigid body, which also turns it unless the point lies on the
+     * line of the force through the body's center.
+     *
+     * @param force The force to apply.
+     * @param point The point the force acts at, in world coordinates.
+     */
+    public void applyForce(Vector2D force, Vector2D point) {
+        Vector2D center = getPosition();
+        float armX = point.x - center.x;
+        float armY = point.y - center.y;
+        applyForce(force);
+        applyTorque(armX * force.y - armY * force.x);
+    }
+
+    /**
+     * Applies a torque to the rigid body.
+     * The torque is added to the accumulated torques for the current simulation step, and wakes the
+     * body up if it is sleeping.
+     *
+     * @param torque The torque to apply, counter-clockwise.
+     */
+    public void applyTorque(float torque) {
+        if (store != null) {
+            int i = store.index(handle);
+            store.torque[i] += torque;
+            store.wake(i);
+            if (store.recorder != null) {
+                store.recorder.angular(InputRecorder.TORQUE, handle, torque);
+            }
+            return;
+        }
+        this.torque += torque;
     }
 
     /**
-     * Integrates the motion of the rigid body over a given time step.
-     * Updates position and velocity based on accumulated forces and mass.
-     * Resets the force accumulator after integration.
+     * Integrates the motion of the rigid body over a given time step with semi-implicit Euler: the
+     * velocities are updated from the accumulated forces and torque first, and the position and
+     * angle then move by the new velocities. Resets the force and torque accumulators after integration.
+     * A body that does not belong to a world only turns under torque if its inertia was set.
      *
      * @param duration The time step for the integration, in seconds.
      */
     public void integrate(float duration) {
+        if (store != null) {
+            int i = store.index(handle);
+            store.integrate(i, i + 1, duration);
+            return;
+        }
         if (mass <= 0.0f) return; // Static objects do not move
 
-        Vector2D acceleration = forceAccum.multiply(1.0f / mass);
-        velocity = velocity.add(acceleration.multiply(duration));
-        position = position.add(velocity.multiply(duration));
-        forceAccum = new Vector2D(0, 0);
+        // The force accumulator is turned into the acceleration in place, then cleared.
+        Vector2D acceleration = forceAccum.multiplyLocal(1.0f / mass);
+        velocity.scaleAdd(duration, acceleration);
+        position.scaleAdd(duration, velocity);
+        forceAccum.set(0, 0);
+        if (inertia > 0.0f) {
+            angularVelocity += torque / inertia * duration;
+        }
+        // Turned like a body in a world, so the same motion gives the same angle either way.
+        float turn = angularVelocity * duration;
+        angle += (float) Math.atan2(turn, 1.0f - 0.5f * turn * turn);
+        torque = 0.0f;
     }
-}
\ No newline at end of file
+}
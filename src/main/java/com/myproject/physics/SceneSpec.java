@@ -0,0 +1,384 @@
+package com.myproject.physics;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+import java.util.Random;
+
+/**
+ * Describes a scene of balls for {@link HeadlessRunner}: how many there are, where and how fast
+ * they start, the static boxes around them, and the world settings. The defaults reproduce the
+ * scene of {@link PhysicsPanel}. Building the same spec twice gives identical worlds, since every
+ * random value comes from the seed.
+ *
+ * A spec can be read from a properties file whose keys are the property names below, for example
+ * {@code balls=500}, {@code seed=7}, {@code restitution=0.5}, {@code walls=true}.
+ */
+public final class SceneSpec {
+
+    private int balls = 2; // The number of balls.
+    private long seed; // The seed of the random positions and velocities.
+    private float ballRadius = 0.1f; // The radius of every ball.
+    private float ballMass = 1.0f; // The mass of every ball.
+    private float spawnSize = 1.0f; // The side of the square centered on the origin the balls spawn in.
+    private float maxSpeed = 5.0f; // The largest initial speed along each axis.
+    private boolean ground = true; // Whether the static ground box of the panel scene is added.
+    private boolean walls; // Whether four static walls enclose the spawn square.
+    private float restitution = 0.9f; // The restitution of the world.
+    private float gravityX; // The x component of gravity.
+    private float gravityY; // The y component of gravity.
+    private boolean sleeping = true; // Whether resting bodies are put to sleep.
+
+    /**
+     * Constructs a spec with the defaults of the panel scene.
+     */
+    public SceneSpec() {
+    }
+
+    /**
+     * Constructs a copy of another spec.
+     *
+     * @param other The spec to copy.
+     */
+    public SceneSpec(SceneSpec other) {
+        balls = other.balls;
+        seed = other.seed;
+        ballRadius = other.ballRadius;
+        ballMass = other.ballMass;
+        spawnSize = other.spawnSize;
+        maxSpeed = other.maxSpeed;
+        ground = other.ground;
+        walls = other.walls;
+        restitution = other.restitution;
+        gravityX = other.gravityX;
+        gravityY = other.gravityY;
+        sleeping = other.sleeping;
+    }
+
+    /**
+     * Reads a spec from a properties file. Missing keys keep their defaults.
+     *
+     * @param file The file to read.
+     * @return The spec.
+     * @throws IOException If the file cannot be read.
+     */
+    public static SceneSpec load(Path file) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        return fromProperties(properties);
+    }
+
+    /**
+     * Builds a spec from properties. Missing keys keep their defaults.
+     *
+     * @param properties The properties, keyed by property name.
+     * @return The spec.
+     */
+    public static SceneSpec fromProperties(Properties properties) {
+        SceneSpec spec = new SceneSpec();
+        for (String key : properties.stringPropertyNames()) {
+            String value = properties.getProperty(key).trim();
+            try {
+                switch (key) {
+                    case "balls" -> spec.setBalls(Integer.parseInt(value));
+                    case "seed" -> spec.setSeed(Long.parseLong(value));
+                    case "ballRadius" -> spec.setBallRadius(Float.parseFloat(value));
+                    case "ballMass" -> spec.setBallMass(Float.parseFloat(value));
+                    case "spawnSize" -> spec.setSpawnSize(Float.parseFloat(value));
+                    case "maxSpeed" -> spec.setMaxSpeed(Float.parseFloat(value));
+                    case "ground" -> spec.setGround(Boolean.parseBoolean(value));
+                    case "walls" -> spec.setWalls(Boolean.parseBoolean(value));
+                    case "restitution" -> spec.setRestitution(Float.parseFloat(value));
+                    case "gravityX" -> spec.setGravity(Float.parseFloat(value), spec.gravityY);
+                    case "gravityY" -> spec.setGravity(spec.gravityX, Float.parseFloat(value));
+                    case "sleeping" -> spec.setSleeping(Boolean.parseBoolean(value));
+                    default -> throw new IllegalArgumentException("Unknown scene property: " + key);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid value for " + key + ": " + value, e);
+            }
+        }
+        return spec;
+    }
+
+    /**
+     * Builds a new world holding the scene.
+     * Balls get handles 0 to {@code balls - 1}, followed by the ground and the walls.
+     *
+     * @return The world.
+     */
+    public PhysicsWorld build() {
+        PhysicsWorld world = new PhysicsWorld();
+        world.setRestitution(restitution);
+        world.setGravity(gravityX, gravityY);
+        world.setSleepingEnabled(sleeping);
+        Random rand = new Random(seed);
+        float half = spawnSize / 2;
+
+        for (int i = 0; i < balls; i++) {
+            Rigidbody rb = new Rigidbody(ballMass);
+            float x = (rand.nextFloat() * 2 - 1) * half;
+            float y = (rand.nextFloat() * 2 - 1) * half;
+            rb.position = new Vector2D(x, y);
+            rb.velocity = new Vector2D((rand.nextFloat() * 2 - 1) * maxSpeed, (rand.nextFloat() * 2 - 1) * maxSpeed);
+            world.addRigidbody(rb, new Collider(Collider.Type.CIRCLE, new Vector2D(x, y), ballRadius));
+        }
+
+        if (ground) {
+            addBox(world, 0, 0, 2, 0.5f);
+        }
+        if (walls) {
+            float thickness = 0.5f;
+            float offset = half + ballRadius + thickness;
+            float length = offset + thickness;
+            addBox(world, 0, -offset, length, thickness);
+            addBox(world, 0, offset, length, thickness);
+            addBox(world, -offset, 0, thickness, length);
+            addBox(world, offset, 0, thickness, length);
+        }
+        return world;
+    }
+
+    /**
+     * Adds a static box to a world.
+     */
+    private static void addBox(PhysicsWorld world, float x, float y, float halfWidth, float halfHeight) {
+        Rigidbody rb = new Rigidbody(0.0f);
+        rb.position = new Vector2D(x, y);
+        world.addRigidbody(rb, new Collider(Collider.Type.AABB, new Vector2D(x, y), new Vector2D(halfWidth, halfHeight)));
+    }
+
+    /**
+     * Gets the number of balls.
+     *
+     * @return The number of balls.
+     */
+    public int getBalls() {
+        return balls;
+    }
+
+    /**
+     * Sets the number of balls.
+     *
+     * @param balls The number of balls, at least 0.
+     */
+    public void setBalls(int balls) {
+        if (balls < 0) {
+            throw new IllegalArgumentException("Ball count must not be negative");
+        }
+        this.balls = balls;
+    }
+
+    /**
+     * Gets the seed of the random positions and velocities.
+     *
+     * @return The seed.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Sets the seed of the random positions and velocities.
+     *
+     * @param seed The seed.
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Gets the radius of every ball.
+     *
+     * @return The radius.
+     */
+    public float getBallRadius() {
+        return ballRadius;
+    }
+
+    /**
+     * Sets the radius of every ball.
+     *
+     * @param ballRadius The radius, positive.
+     */
+    public void setBallRadius(float ballRadius) {
+        if (!(ballRadius > 0.0f)) {
+            throw new IllegalArgumentException("Ball radius must be positive");
+        }
+        this.ballRadius = ballRadius;
+    }
+
+    /**
+     * Gets the mass of every ball.
+     *
+     * @return The mass.
+     */
+    public float getBallMass() {
+        return ballMass;
+    }
+
+    /**
+     * Sets the mass of every ball.
+     *
+     * @param ballMass The mass, positive.
+     */
+    public void setBallMass(float ballMass) {
+        if (!(ballMass > 0.0f)) {
+            throw new IllegalArgumentException("Ball mass must be positive");
+        }
+        this.ballMass = ballMass;
+    }
+
+    /**
+     * Gets the side of the square the balls spawn in.
+     *
+     * @return The side length.
+     */
+    public float getSpawnSize() {
+        return spawnSize;
+    }
+
+    /**
+     * Sets the side of the square, centered on the origin, the balls spawn in.
+     *
+     * @param spawnSize The side length, at least 0.
+     */
+    public void setSpawnSize(float spawnSize) {
+        if (!(spawnSize >= 0.0f)) {
+            throw new IllegalArgumentException("Spawn size must not be negative");
+        }
+        this.spawnSize = spawnSize;
+    }
+
+    /**
+     * Gets the largest initial speed along each axis.
+     *
+     * @return The speed.
+     */
+    public float getMaxSpeed() {
+        return maxSpeed;
+    }
+
+    /**
+     * Sets the largest initial speed along each axis; each component is drawn between
+     * {@code -maxSpeed} and {@code maxSpeed}.
+     *
+     * @param maxSpeed The speed, at least 0.
+     */
+    public void setMaxSpeed(float maxSpeed) {
+        if (!(maxSpeed >= 0.0f)) {
+            throw new IllegalArgumentException("Max speed must not be negative");
+        }
+        this.maxSpeed = maxSpeed;
+    }
+
+    /**
+     * Checks whether the static ground box of the panel scene is added.
+     *
+     * @return True if the ground is added.
+     */
+    public boolean isGround() {
+        return ground;
+    }
+
+    /**
+     * Sets whether the static ground box of the panel scene, 4 by 1 at the origin, is added.
+     *
+     * @param ground True to add the ground.
+     */
+    public void setGround(boolean ground) {
+        this.ground = ground;
+    }
+
+    /**
+     * Checks whether four static walls enclose the spawn square.
+     *
+     * @return True if the walls are added.
+     */
+    public boolean isWalls() {
+        return walls;
+    }
+
+    /**
+     * Sets whether four static walls enclose the spawn square, keeping the balls together.
+     *
+     * @param walls True to add the walls.
+     */
+    public void setWalls(boolean walls) {
+        this.walls = walls;
+    }
+
+    /**
+     * Gets the restitution of the world.
+     *
+     * @return The restitution.
+     */
+    public float getRestitution() {
+        return restitution;
+    }
+
+    /**
+     * Sets the restitution of the world.
+     *
+     * @param restitution The restitution, from 0 to 1.
+     */
+    public void setRestitution(float restitution) {
+        if (!(restitution >= 0.0f && restitution <= 1.0f)) {
+            throw new IllegalArgumentException("Restitution must be between 0 and 1");
+        }
+        this.restitution = restitution;
+    }
+
+    /**
+     * Gets the gravity of the world.
+     *
+     * @return A new vector holding the gravity.
+     */
+    public Vector2D getGravity() {
+        return new Vector2D(gravityX, gravityY);
+    }
+
+    /**
+     * Sets the gravity of the world.
+     *
+     * @param x The x component.
+     * @param y The y component.
+     */
+    public void setGravity(float x, float y) {
+        gravityX = x;
+        gravityY = y;
+    }
+
+    /**
+     * Checks whether resting bodies are put to sleep.
+     *
+     * @return True if sleeping is enabled.
+     */
+    public boolean isSleeping() {
+        return sleeping;
+    }
+
+    /**
+     * Sets whether resting bodies are put to sleep.
+     *
+     * @param sleeping True to enable sleeping.
+     */
+    public void setSleeping(boolean sleeping) {
+        this.sleeping = sleeping;
+    }
+
+    /**
+     * Describes the parameters usually swept.
+     *
+     * @return The ball count, restitution and seed.
+     */
+    @Override
+    public String toString() {
+        return "balls=" + balls + " restitution=" + restitution + " seed=" + seed;
+    }
+}
@@ -0,0 +1,18 @@
+package com.myproject.physics;
+
+/**
+ * Receives the overlaps of {@link Collider#setSensor sensor} colliders found by a step.
+ */
+@FunctionalInterface
+public interface SensorListener {
+
+    /**
+     * Called on the thread stepping the world, once per step for every body overlapping a sensor,
+     * in a fixed order. Pairs where both bodies sleep are not reported. The world must not be
+     * modified from this method.
+     *
+     * @param sensor The sensor collider.
+     * @param other  The collider overlapping it, never a sensor.
+     */
+    void onOverlap(Collider sensor, Collider other);
+}
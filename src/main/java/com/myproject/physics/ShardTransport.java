@@ -0,0 +1,33 @@
+package com.myproject.physics;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Carries the messages exchanged by the shards of a {@link ShardedWorld}: bodies migrating to the
+ * shard whose region they entered, and ghost copies of bodies near a region boundary.
+ * Each exchange has two phases. First every shard sends at most one batch to each other shard;
+ * then, once every shard has sent, each shard receives the batches addressed to it. Batches are
+ * opaque little-endian bytes, so an implementation can keep them in memory or ship them over a
+ * network, as long as every batch sent in the first phase is received in the second.
+ */
+public interface ShardTransport {
+
+    /**
+     * Sends a batch of messages. The bytes between the position and the limit of the buffer must
+     * be copied or sent before the method returns, as the buffer is reused by the sender.
+     * Called concurrently for different senders.
+     *
+     * @param from  The index of the sending shard.
+     * @param to    The index of the receiving shard.
+     * @param batch The messages.
+     */
+    void send(int from, int to, ByteBuffer batch);
+
+    /**
+     * Takes the next batch sent to a shard. Called concurrently for different receivers.
+     *
+     * @param to The index of the receiving shard.
+     * @return The batch, positioned at its first byte, or null if every batch has been taken.
+     */
+    ByteBuffer receive(int to);
+}
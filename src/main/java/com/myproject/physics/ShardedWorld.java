@@ -0,0 +1,508 @@
+package com.myproject.physics;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A simulation split into vertical strips of the plane, each owned by its own {@link PhysicsWorld}
+ * stepped on its own thread, for arenas too large for one core.
+ *
+ * Bodies are identified by ids handed out by {@link #addRigidbody}; each body is owned by the shard
+ * whose strip contains its center. Before every step the shards exchange messages through a
+ * {@link ShardTransport}: a body whose center left its strip migrates to the shard it entered, and
+ * a body whose box comes within the ghost margin of another strip is copied there as a ghost. A
+ * ghost is an ordinary body of the other shard, with the mass and velocity of the original, that is
+ * overwritten by a fresh copy every step and removed once the original moves away. Contacts across a
+ * boundary are thus solved on both sides from the same state, and each shard keeps the result for
+ * the body it owns. The margin must cover the size of the largest body plus the distance a body
+ * travels in a step.
+ *
+ * Messages are processed in shard order and bodies in storage order, so a sharded simulation is
+ * deterministic whatever the thread timing. The view objects of a body change when it migrates;
+ * use {@link #getRigidbody(int)} rather than keeping them.
+ */
+public final class ShardedWorld implements AutoCloseable {
+
+    private static final byte MIGRATE = 1; // Message: a body now owned by the receiver.
+    private static final byte GHOST = 2; // Message: the current state of a body near the receiver's strip.
+    private static final int HEADER_BYTES = 8; // Sender index and message count.
+    private static final int MESSAGE_BYTES = 80; // Tag and body state, followed by the polygon of polygon bodies.
+
+    private final float minX; // Left edge of the first strip; the outer strips extend to infinity.
+    private final float stripWidth; // The width of every strip.
+    private final float ghostMargin; // Distance from a boundary within which bodies are copied across.
+    private final ShardTransport transport;
+    private final Shard[] shards;
+    private final ForkJoinPool pool; // One thread per shard, or null for a single shard.
+
+    private int bodyCount; // The number of ids handed out.
+    private int[] shardOf = new int[64]; // Id to owning shard.
+    private int[] handleOf = new int[64]; // Id to handle in the owning shard.
+    private float stepDuration; // The time step of the update in progress.
+
+    // Loop bodies of the parallel phases, created once so stepping does not allocate them.
+    private final ParallelFor.Body sendBatch = this::sendBatch;
+    private final ParallelFor.Body receiveBatch = this::receiveBatch;
+    private final ParallelFor.Body stepBatch = this::stepBatch;
+
+    /**
+     * Constructs a sharded world whose shards exchange messages in memory.
+     *
+     * @param minX        The left edge of the first strip.
+     * @param maxX        The right edge of the last strip.
+     * @param shardCount  The number of strips and shards.
+     * @param ghostMargin The distance from a boundary within which bodies are copied to the neighbouring shard.
+     */
+    public ShardedWorld(float minX, float maxX, int shardCount, float ghostMargin) {
+        this(minX, maxX, shardCount, ghostMargin, new InMemoryShardTransport(shardCount));
+    }
+
+    /**
+     * Constructs a sharded world.
+     *
+     * @param minX        The left edge of the first strip.
+     * @param maxX        The right edge of the last strip.
+     * @param shardCount  The number of strips and shards.
+     * @param ghostMargin The distance from a boundary within which bodies are copied to the neighbouring shard.
+     * @param transport   The transport carrying messages between shards.
+     */
+    public ShardedWorld(float minX, float maxX, int shardCount, float ghostMargin, ShardTransport transport) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("Shard count must be at least 1");
+        }
+        if (!(maxX > minX)) {
+            throw new IllegalArgumentException("Max x must be greater than min x");
+        }
+        if (!(ghostMargin >= 0.0f)) {
+            throw new IllegalArgumentException("Ghost margin must not be negative");
+        }
+        if (transport == null) {
+            throw new IllegalArgumentException("Transport must not be null");
+        }
+        this.minX = minX;
+        this.stripWidth = (maxX - minX) / shardCount;
+        this.ghostMargin = ghostMargin;
+        this.transport = transport;
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(i, shardCount);
+        }
+        this.pool = shardCount > 1 ? new ForkJoinPool(shardCount) : null;
+    }
+
+    /**
+     * Gets the number of shards.
+     *
+     * @return The shard count.
+     */
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    /**
+     * Gets the world of a shard, for instance to change its settings. Besides the bodies the shard
+     * owns, it holds the ghosts of bodies owned by its neighbours.
+     *
+     * @param shard The index of the shard, from left to right.
+     * @return The world of the shard.
+     */
+    public PhysicsWorld getShard(int shard) {
+        return shards[shard].world;
+    }
+
+    /**
+     * Gets the shard whose strip contains an x coordinate.
+     *
+     * @param x The x coordinate.
+     * @return The index of the shard.
+     */
+    public int shardAt(float x) {
+        int shard = (int) Math.floor((x - minX) / stripWidth);
+        return Math.max(0, Math.min(shards.length - 1, shard));
+    }
+
+    /**
+     * Adds a rigid body and its collider to the shard owning its position.
+     *
+     * @param rb       The rigid body to add.
+     * @param collider The collider associated with the rigid body.
+     * @return The id of the new body.
+     */
+    public int addRigidbody(Rigidbody rb, Collider collider) {
+        Shard shard = shards[shardAt(rb.position.x)];
+        int handle = shard.world.addRigidbody(rb, collider);
+        int id = bodyCount++;
+        if (id == shardOf.length) {
+            shardOf = Arrays.copyOf(shardOf, id * 2);
+            handleOf = Arrays.copyOf(handleOf, id * 2);
+        }
+        shardOf[id] = shard.index;
+        handleOf[id] = handle;
+        shard.bind(handle, id, false);
+        return id;
+    }
+
+    /**
+     * Gets the number of bodies, not counting ghosts.
+     *
+     * @return The number of ids handed out.
+     */
+    public int getBodyCount() {
+        return bodyCount;
+    }
+
+    /**
+     * Gets the shard currently owning a body.
+     *
+     * @param id The id returned by {@link #addRigidbody}.
+     * @return The index of the shard.
+     */
+    public int getShardOf(int id) {
+        return shardOf[id];
+    }
+
+    /**
+     * Gets the rigid body view of a body in the shard owning it.
+     *
+     * @param id The id returned by {@link #addRigidbody}.
+     * @return The rigid body, valid until the body migrates.
+     */
+    public Rigidbody getRigidbody(int id) {
+        return shards[shardOf[id]].world.getRigidbody(handleOf[id]);
+    }
+
+    /**
+     * Gets the collider view of a body in the shard owning it.
+     *
+     * @param id The id returned by {@link #addRigidbody}.
+     * @return The collider, valid until the body migrates.
+     */
+    public Collider getCollider(int id) {
+        return shards[shardOf[id]].world.getCollider(handleOf[id]);
+    }
+
+    /**
+     * Exchanges migrating bodies and ghosts between the shards, then steps every shard on its own
+     * thread.
+     *
+     * @param deltaTime The time step for the simulation update.
+     */
+    public void update(float deltaTime) {
+        stepDuration = deltaTime;
+        ParallelFor.run(pool, shards.length, 1, sendBatch);
+        ParallelFor.run(pool, shards.length, 1, receiveBatch);
+        ParallelFor.run(pool, shards.length, 1, stepBatch);
+    }
+
+    /**
+     * Shuts down the threads of the shards.
+     */
+    @Override
+    public void close() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Sends the migrations and ghosts of a range of shards.
+     */
+    private void sendBatch(int from, int to) {
+        for (int s = from; s < to; s++) {
+            send(shards[s]);
+        }
+    }
+
+    /**
+     * Applies the messages received by a range of shards.
+     */
+    private void receiveBatch(int from, int to) {
+        for (int s = from; s < to; s++) {
+            receive(shards[s]);
+        }
+    }
+
+    /**
+     * Steps the worlds of a range of shards.
+     */
+    private void stepBatch(int from, int to) {
+        for (int s = from; s < to; s++) {
+            shards[s].world.update(stepDuration);
+        }
+    }
+
+    /**
+     * Writes a message for every owned body that left the strip of a shard or is near another
+     * strip, removes the bodies that migrated, and sends one batch to each shard with messages.
+     */
+    private void send(Shard shard) {
+        BodyStore store = shard.world.store();
+        shard.migrating = 0;
+        for (int i = 0; i < store.count; i++) {
+            int handle = store.handleOf[i];
+            if (shard.ghost[handle & BodyStore.SLOT_MASK]) continue;
+            int owner = shardAt(store.posX[i]);
+            if (owner != shard.index) {
+                shard.message(owner, MIGRATE, store, i);
+                if (shard.migrating == shard.migrated.length) {
+                    shard.migrated = Arrays.copyOf(shard.migrated, shard.migrating * 2);
+                }
+                shard.migrated[shard.migrating++] = handle;
+            }
+            // Ghosts go to every other shard near the body, including this one if the body left it.
+            float extent = store.extentX(i);
+            int first = shardAt(store.posX[i] - extent - ghostMargin);
+            int last = shardAt(store.posX[i] + extent + ghostMargin);
+            for (int s = first; s <= last; s++) {
+                if (s != owner) shard.message(s, GHOST, store, i);
+            }
+        }
+        for (int k = 0; k < shard.migrating; k++) {
+            shard.pool.remove(shard.world, shard.migrated[k]);
+        }
+        for (int s = 0; s < shards.length; s++) {
+            ByteBuffer batch = shard.outbox[s];
+            if (batch.position() == HEADER_BYTES) continue;
+            batch.putInt(4, shard.messageCount[s]).flip();
+            transport.send(shard.index, s, batch);
+            batch.clear();
+            batch.position(HEADER_BYTES);
+            shard.messageCount[s] = 0;
+        }
+    }
+
+    /**
+     * Applies the batches sent to a shard in the order of their senders, then removes the ghosts
+     * that were not refreshed.
+     */
+    private void receive(Shard shard) {
+        ByteBuffer batch;
+        while ((batch = transport.receive(shard.index)) != null) {
+            batch.order(ByteOrder.LITTLE_ENDIAN);
+            shard.inbox[batch.getInt(0)] = batch;
+        }
+        shard.stamp++;
+        for (int s = 0; s < shards.length; s++) {
+            batch = shard.inbox[s];
+            if (batch == null) continue;
+            shard.inbox[s] = null;
+            int messages = batch.getInt(4);
+            batch.position(HEADER_BYTES);
+            for (int m = 0; m < messages; m++) {
+                apply(shard, batch);
+            }
+        }
+
+        BodyStore store = shard.world.store();
+        shard.migrating = 0;
+        for (int i = 0; i < store.count; i++) {
+            int handle = store.handleOf[i];
+            if (!shard.ghost[handle & BodyStore.SLOT_MASK] || shard.refreshed[handle & BodyStore.SLOT_MASK] == shard.stamp) continue;
+            if (shard.migrating == shard.migrated.length) {
+                shard.migrated = Arrays.copyOf(shard.migrated, shard.migrating * 2);
+            }
+            shard.migrated[shard.migrating++] = handle;
+        }
+        for (int k = 0; k < shard.migrating; k++) {
+            int handle = shard.migrated[k];
+            shard.setGhostHandle(shard.idOf[handle & BodyStore.SLOT_MASK], -1);
+            shard.ghost[handle & BodyStore.SLOT_MASK] = false;
+            shard.pool.remove(shard.world, handle);
+        }
+    }
+
+    /**
+     * Applies one message to a shard: creates or refreshes a ghost, or takes ownership of a body,
+     * turning its ghost into the owned body if the shard had one.
+     */
+    private void apply(Shard shard, ByteBuffer message) {
+        byte tag = message.get();
+        int id = message.getInt();
+        float invMass = message.getFloat();
+        float posX = message.getFloat();
+        float posY = message.getFloat();
+        float velX = message.getFloat();
+        float velY = message.getFloat();
+        float forceX = message.getFloat();
+        float forceY = message.getFloat();
+        float rotCos = message.getFloat();
+        float rotSin = message.getFloat();
+        float angVel = message.getFloat();
+        float torque = message.getFloat();
+        float invInertia = message.getFloat();
+        byte shape = message.get();
+        float radius = message.getFloat();
+        float halfX = message.getFloat();
+        float halfY = message.getFloat();
+        int category = message.getInt();
+        int mask = message.getInt();
+        byte flags = message.get();
+        boolean awake = message.get() != 0;
+        float sleepTime = message.getFloat();
+
+        int ghostHandle = shard.ghostHandle(id);
+        int handle;
+        if (ghostHandle != -1) {
+            handle = ghostHandle;
+            if (shape == BodyStore.POLYGON) {
+                message.position(message.position() + ConvexPolygon.BYTES); // The ghost already has it.
+            }
+        } else {
+            Rigidbody rb = shard.pool.obtainRigidbody(invMass != 0.0f ? 1.0f / invMass : 0.0f);
+            rb.position.set(posX, posY);
+            Collider collider = shape == BodyStore.POLYGON
+                    ? shard.pool.obtainCollider(ConvexPolygon.read(message))
+                    : shard.pool.obtainCollider(Collider.Type.values()[shape], radius, halfX, halfY);
+            collider.getCenter().set(posX, posY);
+            handle = shard.world.addRigidbody(rb, collider);
+        }
+        BodyStore store = shard.world.store();
+        int i = store.index(handle);
+        store.invMass[i] = invMass;
+        store.posX[i] = posX;
+        store.posY[i] = posY;
+        store.moved = true;
+        store.velX[i] = velX;
+        store.velY[i] = velY;
+        store.forceX[i] = forceX;
+        store.forceY[i] = forceY;
+        store.rotCos[i] = rotCos;
+        store.rotSin[i] = rotSin;
+        store.angVel[i] = angVel;
+        store.torque[i] = torque;
+        store.invInertia[i] = invInertia;
+        store.category[i] = category;
+        store.mask[i] = mask;
+        store.flags[i] = flags;
+        store.awake[i] = awake;
+        store.sleepTime[i] = sleepTime;
+        refreshViews(store, i);
+
+        if (tag == GHOST) {
+            if (ghostHandle == -1) {
+                shard.bind(handle, id, true);
+                shard.setGhostHandle(id, handle);
+            }
+            shard.refreshed[handle & BodyStore.SLOT_MASK] = shard.stamp;
+        } else {
+            if (ghostHandle != -1) {
+                shard.setGhostHandle(id, -1);
+                shard.ghost[handle & BodyStore.SLOT_MASK] = false;
+            } else {
+                shard.bind(handle, id, false);
+            }
+            shardOf[id] = shard.index;
+            handleOf[id] = handle;
+        }
+    }
+
+    /**
+     * Copies the columns of a body that views keep a copy of into its views.
+     */
+    private static void refreshViews(BodyStore store, int i) {
+        Rigidbody rb = store.rigidbodies[i];
+        rb.position.set(store.posX[i], store.posY[i]);
+        rb.velocity.set(store.velX[i], store.velY[i]);
+        rb.angularVelocity = store.angVel[i];
+        rb.bullet = (store.flags[i] & BodyStore.BULLET) != 0;
+        Collider collider = store.colliders[i];
+        collider.category = store.category[i];
+        collider.mask = store.mask[i];
+        collider.sensor = (store.flags[i] & BodyStore.SENSOR) != 0;
+    }
+
+    /**
+     * One strip of the plane: its world, which of its bodies are ghosts, and its message buffers.
+     */
+    private static final class Shard {
+        final int index; // The position of the strip, from left to right.
+        final PhysicsWorld world = new PhysicsWorld();
+        final ByteBuffer[] outbox; // Batch being written for each shard, with room for its header.
+        final int[] messageCount; // The number of messages in each outbox.
+        final ByteBuffer[] inbox; // Batch received from each shard, or null.
+        final BodyPool pool = new BodyPool(); // Views of removed ghosts and migrated bodies, reused for new ones.
+        int[] ghostHandles = new int[0]; // Id to handle of the ghost of that body, -1 for none.
+        int[] idOf = new int[64]; // Slot of a handle to id.
+        boolean[] ghost = new boolean[64]; // Whether the body in a slot is a ghost.
+        int[] refreshed = new int[64]; // Exchange in which the ghost in a slot was last refreshed.
+        int stamp; // The current exchange.
+        int[] migrated = new int[64]; // Handles of the bodies to remove after an exchange.
+        int migrating; // The number of handles in migrated.
+
+        Shard(int index, int shardCount) {
+            this.index = index;
+            outbox = new ByteBuffer[shardCount];
+            messageCount = new int[shardCount];
+            inbox = new ByteBuffer[shardCount];
+            for (int s = 0; s < shardCount; s++) {
+                outbox[s] = ByteBuffer.allocate(HEADER_BYTES + 64 * MESSAGE_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                outbox[s].putInt(0, index).position(HEADER_BYTES);
+            }
+        }
+
+        /**
+         * Records the id of a handle and whether it is a ghost.
+         */
+        void bind(int handle, int id, boolean isGhost) {
+            int slot = handle & BodyStore.SLOT_MASK;
+            if (slot >= idOf.length) {
+                int capacity = Math.max(slot + 1, idOf.length * 2);
+                idOf = Arrays.copyOf(idOf, capacity);
+                ghost = Arrays.copyOf(ghost, capacity);
+                refreshed = Arrays.copyOf(refreshed, capacity);
+            }
+            idOf[slot] = id;
+            ghost[slot] = isGhost;
+        }
+
+        /**
+         * Gets the handle of the ghost of a body.
+         *
+         * @return The handle, or -1 if the shard holds no ghost of the body.
+         */
+        int ghostHandle(int id) {
+            return id < ghostHandles.length ? ghostHandles[id] : -1;
+        }
+
+        /**
+         * Records the handle of the ghost of a body, or -1 once the shard no longer holds one.
+         */
+        void setGhostHandle(int id, int handle) {
+            if (id >= ghostHandles.length) {
+                int length = ghostHandles.length;
+                ghostHandles = Arrays.copyOf(ghostHandles, Math.max(id + 1, Math.max(64, length * 2)));
+                Arrays.fill(ghostHandles, length, ghostHandles.length, -1);
+            }
+            ghostHandles[id] = handle;
+        }
+
+        /**
+         * Appends a message with the state of a body to the batch for another shard.
+         */
+        void message(int to, byte tag, BodyStore store, int i) {
+            ByteBuffer batch = outbox[to];
+            if (batch.remaining() < MESSAGE_BYTES + ConvexPolygon.BYTES) {
+                ByteBuffer larger = ByteBuffer.allocate(batch.capacity() * 2).order(ByteOrder.LITTLE_ENDIAN);
+                batch.flip();
+                outbox[to] = batch = larger.put(batch);
+            }
+            batch.put(tag).putInt(idOf[store.handleOf[i] & BodyStore.SLOT_MASK])
+                    .putFloat(store.invMass[i])
+                    .putFloat(store.posX[i]).putFloat(store.posY[i])
+                    .putFloat(store.velX[i]).putFloat(store.velY[i])
+                    .putFloat(store.forceX[i]).putFloat(store.forceY[i])
+                    .putFloat(store.rotCos[i]).putFloat(store.rotSin[i])
+                    .putFloat(store.angVel[i]).putFloat(store.torque[i]).putFloat(store.invInertia[i])
+                    .put((byte) store.shape[i]).putFloat(store.radius[i])
+                    .putFloat(store.halfX[i]).putFloat(store.halfY[i])
+                    .putInt(store.category[i]).putInt(store.mask[i])
+                    .put(store.flags[i]).put((byte) (store.awake[i] ? 1 : 0)).putFloat(store.sleepTime[i]);
+            if (store.shape[i] == BodyStore.POLYGON) {
+                store.polygon[i].write(batch);
+            }
+            messageCount[to]++;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.myproject.physics;
+
+/**
+ * Decides whether the vectorized loops of {@link SimdKernels} can be used.
+ * They need the {@code jdk.incubator.vector} module, which the JVM only loads when started with
+ * {@code --add-modules jdk.incubator.vector}, and vectors of at least {@value #MIN_LANES} floats.
+ * Setting the system property {@code physics.simd} to {@code false} turns them off everywhere.
+ * This class never touches the module itself, so it is safe to load without it.
+ */
+final class Simd {
+
+    private static final int MIN_LANES = 8; // Narrower vectors do not pay for the gathers and masks.
+
+    /**
+     * Whether the vectorized loops can be used in this JVM.
+     */
+    static final boolean AVAILABLE = detect();
+
+    private Simd() {
+    }
+
+    /**
+     * Checks for the module and the vector width.
+     */
+    private static boolean detect() {
+        if ("false".equalsIgnoreCase(System.getProperty("physics.simd"))) {
+            return false;
+        }
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return false;
+        }
+        try {
+            return SimdKernels.lanes() >= MIN_LANES;
+        } catch (LinkageError e) {
+            return false;
+        }
+    }
+}
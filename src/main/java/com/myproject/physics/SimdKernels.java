@@ -0,0 +1,205 @@
+package com.myproject.physics;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Vectorized versions of the hottest loops of a step, written with the incubating Vector API.
+ * Each loop handles as many bodies or pairs per instruction as the widest float vector of the
+ * machine holds, and finishes the remainder with the scalar code. The arithmetic is done in the
+ * same order as the scalar code, without fused multiply-adds, so both paths give bit-identical results.
+ *
+ * Masks are only built from boolean arrays or from int lanes of the same shape as the float
+ * lanes: casting a mask between shapes, such as from bytes to floats, is not compiled to vector
+ * instructions on every machine and allocates on each call where it is not.
+ *
+ * This is the only class that refers to {@code jdk.incubator.vector}. It is only loaded when
+ * {@link Simd#AVAILABLE} is true, so the engine runs without the module, on the scalar path.
+ */
+final class SimdKernels {
+
+    private static final VectorSpecies<Float> FLOATS = FloatVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Integer> INTS = VectorSpecies.of(int.class, FLOATS.vectorShape());
+
+    private SimdKernels() {
+    }
+
+    /**
+     * Gets the number of floats processed per instruction.
+     *
+     * @return The number of lanes.
+     */
+    static int lanes() {
+        return FLOATS.length();
+    }
+
+    /**
+     * Vectorized {@link BodyStore#integrate}: advances velocities, positions and orientations of the
+     * awake bodies in a range of indices and clears their forces and torques.
+     *
+     * @param store    The body storage.
+     * @param from     The first index, inclusive.
+     * @param to       The last index, exclusive.
+     * @param duration The time step, in seconds.
+     */
+    static void integrate(BodyStore store, int from, int to, float duration) {
+        float[] posX = store.posX;
+        float[] posY = store.posY;
+        float[] velX = store.velX;
+        float[] velY = store.velY;
+        float[] forceX = store.forceX;
+        float[] forceY = store.forceY;
+        float[] rotCos = store.rotCos;
+        float[] rotSin = store.rotSin;
+        float[] angVel = store.angVel;
+        float[] torque = store.torque;
+        float[] invMass = store.invMass;
+        float[] invInertia = store.invInertia;
+        boolean[] awake = store.awake;
+        FloatVector zero = FloatVector.zero(FLOATS);
+        FloatVector one = FloatVector.broadcast(FLOATS, 1.0f);
+
+        int i = from;
+        int upper = from + FLOATS.loopBound(to - from);
+        for (; i < upper; i += FLOATS.length()) {
+            VectorMask<Float> active = VectorMask.fromArray(FLOATS, awake, i);
+            if (!active.anyTrue()) continue;
+            FloatVector inverseMass = FloatVector.fromArray(FLOATS, invMass, i);
+            FloatVector fx = FloatVector.fromArray(FLOATS, forceX, i);
+            FloatVector fy = FloatVector.fromArray(FLOATS, forceY, i);
+            FloatVector vx0 = FloatVector.fromArray(FLOATS, velX, i);
+            FloatVector vy0 = FloatVector.fromArray(FLOATS, velY, i);
+            FloatVector vx = vx0.add(fx.mul(inverseMass).add(store.gravityX).mul(duration));
+            FloatVector vy = vy0.add(fy.mul(inverseMass).add(store.gravityY).mul(duration));
+            FloatVector px0 = FloatVector.fromArray(FLOATS, posX, i);
+            FloatVector py0 = FloatVector.fromArray(FLOATS, posY, i);
+            vx0.blend(vx, active).intoArray(velX, i);
+            vy0.blend(vy, active).intoArray(velY, i);
+            px0.blend(px0.add(vx.mul(duration)), active).intoArray(posX, i);
+            py0.blend(py0.add(vy.mul(duration)), active).intoArray(posY, i);
+            fx.blend(zero, active).intoArray(forceX, i);
+            fy.blend(zero, active).intoArray(forceY, i);
+
+            FloatVector t = FloatVector.fromArray(FLOATS, torque, i);
+            FloatVector w0 = FloatVector.fromArray(FLOATS, angVel, i);
+            FloatVector w = w0.add(t.mul(FloatVector.fromArray(FLOATS, invInertia, i)).mul(duration));
+            FloatVector cos0 = FloatVector.fromArray(FLOATS, rotCos, i);
+            FloatVector sin0 = FloatVector.fromArray(FLOATS, rotSin, i);
+            FloatVector turn = w.mul(duration);
+            FloatVector turnCos = one.sub(turn.mul(0.5f).mul(turn));
+            FloatVector cos = cos0.mul(turnCos).sub(sin0.mul(turn));
+            FloatVector sin = sin0.mul(turnCos).add(cos0.mul(turn));
+            FloatVector inverseLength = one
+                    .div(cos.mul(cos).add(sin.mul(sin)).lanewise(VectorOperators.SQRT));
+            w0.blend(w, active).intoArray(angVel, i);
+            cos0.blend(cos.mul(inverseLength), active).intoArray(rotCos, i);
+            sin0.blend(sin.mul(inverseLength), active).intoArray(rotSin, i);
+            t.blend(zero, active).intoArray(torque, i);
+        }
+        store.integrate(i, to, duration);
+    }
+
+    /**
+     * Vectorized {@link BodyStore#computeBounds}, with the extents of {@link BodyStore#extentX} and
+     * {@link BodyStore#extentY}.
+     *
+     * @param store The body storage.
+     * @param from  The first index, inclusive.
+     * @param to    The last index, exclusive.
+     * @param minX  The array receiving the minimum x of each box.
+     * @param minY  The array receiving the minimum y of each box.
+     * @param maxX  The array receiving the maximum x of each box.
+     * @param maxY  The array receiving the maximum y of each box.
+     */
+    static void computeBounds(BodyStore store, int from, int to,
+                              float[] minX, float[] minY, float[] maxX, float[] maxY) {
+        int i = from;
+        int upper = from + FLOATS.loopBound(to - from);
+        for (; i < upper; i += FLOATS.length()) {
+            VectorMask<Float> circle = IntVector.fromArray(INTS, store.shape, i)
+                    .compare(VectorOperators.EQ, BodyStore.CIRCLE).cast(FLOATS);
+            FloatVector radius = FloatVector.fromArray(FLOATS, store.radius, i);
+            FloatVector halfX = FloatVector.fromArray(FLOATS, store.halfX, i);
+            FloatVector halfY = FloatVector.fromArray(FLOATS, store.halfY, i);
+            FloatVector cos = FloatVector.fromArray(FLOATS, store.rotCos, i).lanewise(VectorOperators.ABS);
+            FloatVector sin = FloatVector.fromArray(FLOATS, store.rotSin, i).lanewise(VectorOperators.ABS);
+            FloatVector extentX = cos.mul(halfX).add(sin.mul(halfY)).blend(radius, circle);
+            FloatVector extentY = sin.mul(halfX).add(cos.mul(halfY)).blend(radius, circle);
+            FloatVector px = FloatVector.fromArray(FLOATS, store.posX, i);
+            FloatVector py = FloatVector.fromArray(FLOATS, store.posY, i);
+            px.sub(extentX).intoArray(minX, i);
+            py.sub(extentY).intoArray(minY, i);
+            px.add(extentX).intoArray(maxX, i);
+            py.add(extentY).intoArray(maxY, i);
+        }
+        store.computeBounds(i, to, minX, minY, maxX, maxY);
+    }
+
+    /**
+     * Tests a block of candidate pairs of circles at once: each lane takes the two circles of one
+     * pair, gathered by the caller, and computes whether they touch, and if so the normal,
+     * penetration and contact point as {@link NarrowPhase#collide} would. Lanes whose pair is not
+     * two circles are left untouched. The kernel reads no body indices: gathering through an index
+     * vector is miscompiled by the JDK 17 compiler on AVX-512 machines.
+     *
+     * @param circles     1 for the pairs of two circles, 0 for the others.
+     * @param centerAX    The x coordinate of the first circle of each pair.
+     * @param centerAY    The y coordinate of the first circle of each pair.
+     * @param radiusA     The radius of the first circle of each pair.
+     * @param centerBX    The x coordinate of the second circle of each pair.
+     * @param centerBY    The y coordinate of the second circle of each pair.
+     * @param radiusB     The radius of the second circle of each pair.
+     * @param from        The first pair, inclusive.
+     * @param to          The last pair, exclusive.
+     * @param touching    Receives 1 for touching circle pairs; the caller clears it beforehand.
+     * @param normalX     Receives the x component of the normal of touching pairs.
+     * @param normalY     Receives the y component of the normal of touching pairs.
+     * @param penetration Receives the penetration depth of touching pairs.
+     * @param pointX      Receives the x coordinate of the contact point of touching pairs.
+     * @param pointY      Receives the y coordinate of the contact point of touching pairs.
+     * @return The index of the first pair not processed; the caller handles the rest.
+     */
+    static int circlePairs(int[] circles, float[] centerAX, float[] centerAY, float[] radiusA,
+                           float[] centerBX, float[] centerBY, float[] radiusB, int from, int to,
+                           int[] touching, float[] normalX, float[] normalY, float[] penetration,
+                           float[] pointX, float[] pointY) {
+        int k = from;
+        int upper = from + FLOATS.loopBound(to - from);
+        for (; k < upper; k += FLOATS.length()) {
+            VectorMask<Integer> bothCircles = IntVector.fromArray(INTS, circles, k).compare(VectorOperators.NE, 0);
+            if (!bothCircles.anyTrue()) continue;
+            VectorMask<Float> circle = bothCircles.cast(FLOATS);
+
+            FloatVector ax = FloatVector.fromArray(FLOATS, centerAX, k);
+            FloatVector ay = FloatVector.fromArray(FLOATS, centerAY, k);
+            FloatVector ar = FloatVector.fromArray(FLOATS, radiusA, k);
+            FloatVector bx = FloatVector.fromArray(FLOATS, centerBX, k);
+            FloatVector by = FloatVector.fromArray(FLOATS, centerBY, k);
+            FloatVector br = FloatVector.fromArray(FLOATS, radiusB, k);
+
+            FloatVector dx = bx.sub(ax);
+            FloatVector dy = by.sub(ay);
+            FloatVector radiusSum = ar.add(br);
+            FloatVector distanceSquared = dx.mul(dx).add(dy.mul(dy));
+            VectorMask<Float> hit = distanceSquared.compare(VectorOperators.LE, radiusSum.mul(radiusSum)).and(circle);
+            FloatVector distance = distanceSquared.lanewise(VectorOperators.SQRT);
+            // Concentric circles get the normal (0, 1), like the scalar code.
+            VectorMask<Float> concentric = distance.compare(VectorOperators.GT, 0.0f).not();
+            FloatVector nx = dx.div(distance).blend(0.0f, concentric);
+            FloatVector ny = dy.div(distance).blend(1.0f, concentric);
+
+            FloatVector.fromArray(FLOATS, normalX, k).blend(nx, hit).intoArray(normalX, k);
+            FloatVector.fromArray(FLOATS, normalY, k).blend(ny, hit).intoArray(normalY, k);
+            FloatVector depth = radiusSum.sub(distance);
+            FloatVector reach = ar.sub(depth.mul(0.5f));
+            FloatVector.fromArray(FLOATS, penetration, k).blend(depth, hit).intoArray(penetration, k);
+            FloatVector.fromArray(FLOATS, pointX, k).blend(ax.add(nx.mul(reach)), hit).intoArray(pointX, k);
+            FloatVector.fromArray(FLOATS, pointY, k).blend(ay.add(ny.mul(reach)), hit).intoArray(pointY, k);
+            IntVector.fromArray(INTS, touching, k).blend(1, hit.cast(INTS)).intoArray(touching, k);
+        }
+        return k;
+    }
+}
@@ -0,0 +1,318 @@
+package com.myproject.physics;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Steps a {@link PhysicsWorld} on a dedicated thread with a fixed time step.
+ * Real elapsed time is added to an accumulator and consumed in whole steps, so the simulation
+ * advances at the same rate whatever the frame rate. At most a fixed number of steps run per
+ * iteration; when the world cannot keep up, the backlog is dropped instead of piling up.
+ *
+ * After each iteration that stepped, the states before and after the last step are published as a
+ * pair of {@link StateSnapshot}s together with an interpolation factor, the fraction of a step left
+ * in the accumulator. Readers draw {@code previous + (current - previous) * alpha} for smooth motion.
+ * Pairs are triple buffered without locks: the loop fills a free {@link Frame} and swaps it in
+ * atomically, while any number of readers read the latest frame in place, each at its own rate.
+ *
+ * While the loop runs, only its thread may touch the world; use {@link #invokeLater(Runnable)}
+ * to change the world from elsewhere.
+ */
+public final class SimulationLoop {
+
+    private final PhysicsWorld world; // The world being stepped.
+    private final float fixedStep; // Duration of one step, in seconds.
+    private final int maxSubsteps; // Most steps taken per iteration.
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>(); // Work to run on the loop thread.
+
+    private final TripleBuffer<Frame> frames = new TripleBuffer<>(() -> new Frame(this)); // Published pairs.
+    private volatile long alpha; // Low 32 bits of the step of the latest pair, then the bits of its current interpolation factor.
+
+    private Thread thread; // The loop thread, or null when stopped.
+    private volatile boolean running; // Whether the loop thread should keep going.
+    private volatile boolean paused; // Whether stepping is suspended.
+    private volatile long droppedSteps; // Steps skipped because the world could not keep up.
+
+    /**
+     * Constructs a loop for a world.
+     *
+     * @param world       The world to step.
+     * @param fixedStep   The duration of one step, in seconds.
+     * @param maxSubsteps The most steps taken per iteration, at least 1.
+     */
+    public SimulationLoop(PhysicsWorld world, float fixedStep, int maxSubsteps) {
+        if (world == null) {
+            throw new IllegalArgumentException("World must not be null");
+        }
+        if (!(fixedStep > 0.0f)) {
+            throw new IllegalArgumentException("Fixed step must be positive");
+        }
+        if (maxSubsteps < 1) {
+            throw new IllegalArgumentException("Max substeps must be at least 1");
+        }
+        this.world = world;
+        this.fixedStep = fixedStep;
+        this.maxSubsteps = maxSubsteps;
+        for (int k = 0; k < 3; k++) {
+            frames.get(k).index = k;
+        }
+    }
+
+    /**
+     * Starts the loop thread. Does nothing if the loop is already running.
+     */
+    public synchronized void start() {
+        if (thread != null) return;
+        Frame frame = frames.beginWrite();
+        if (frame != null) {
+            world.snapshot(frame.current);
+            frame.previous.copyFrom(frame.current);
+            frame.alpha = 0.0f;
+            frames.publish();
+        }
+        setAlpha(world.getStepCount(), 0.0f);
+        running = true;
+        thread = new Thread(this::run, "physics-simulation");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops the loop thread and waits for it to finish its iteration.
+     */
+    public void stop() {
+        Thread t;
+        synchronized (this) {
+            t = thread;
+            thread = null;
+            running = false;
+        }
+        if (t == null) return;
+        LockSupport.unpark(t);
+        try {
+            t.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Checks whether the loop thread is running.
+     *
+     * @return True if the loop has been started and not stopped.
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Suspends or resumes stepping. Time spent paused is not simulated afterwards.
+     *
+     * @param paused True to pause, false to resume.
+     */
+    public void setPaused(boolean paused) {
+        this.paused = paused;
+    }
+
+    /**
+     * Checks whether stepping is suspended.
+     *
+     * @return True if the loop is paused.
+     */
+    public boolean isPaused() {
+        return paused;
+    }
+
+    /**
+     * Gets the duration of one step.
+     *
+     * @return The fixed step, in seconds.
+     */
+    public float getFixedStep() {
+        return fixedStep;
+    }
+
+    /**
+     * Gets the number of steps skipped because the world could not keep up with real time.
+     *
+     * @return The number of dropped steps.
+     */
+    public long getDroppedSteps() {
+        return droppedSteps;
+    }
+
+    /**
+     * Runs a task on the loop thread before its next step, or right away on the calling
+     * thread if the loop is not running.
+     *
+     * @param task The task, which may change the world.
+     */
+    public void invokeLater(Runnable task) {
+        synchronized (this) {
+            if (running) {
+                tasks.add(task);
+                return;
+            }
+        }
+        task.run();
+    }
+
+    /**
+     * Acquires the latest published pair of states for reading in place, without copying.
+     * Close the frame as soon as it has been read; the loop does not reuse it until then.
+     *
+     * @return The frame, or null if the loop was never started.
+     */
+    public Frame acquireFrame() {
+        int index = frames.acquire();
+        if (index < 0) return null;
+        return frames.get(index);
+    }
+
+    /**
+     * Copies the latest published states into the given snapshots.
+     *
+     * @param previous Receives the state before the last step.
+     * @param current  Receives the state after the last step.
+     * @return The interpolation factor between the two, from 0 to 1.
+     */
+    public float readLatest(StateSnapshot previous, StateSnapshot current) {
+        try (Frame frame = acquireFrame()) {
+            if (frame == null) return 0.0f;
+            previous.copyFrom(frame.previous);
+            current.copyFrom(frame.current);
+            return frame.getAlpha();
+        }
+    }
+
+    /**
+     * Gets the number of iterations whose states were not published because readers held every
+     * free frame.
+     *
+     * @return The skipped count.
+     */
+    public long getSkippedFrames() {
+        return frames.getSkippedCount();
+    }
+
+    /**
+     * Body of the loop thread.
+     */
+    private void run() {
+        long stepNanos = (long) (fixedStep * 1e9);
+        long last = System.nanoTime();
+        double accumulator = 0.0;
+        while (running) {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                task.run();
+            }
+
+            long now = System.nanoTime();
+            if (paused) {
+                last = now;
+                LockSupport.parkNanos(stepNanos);
+                continue;
+            }
+            accumulator += (now - last) * 1e-9;
+            last = now;
+
+            int steps = (int) Math.min(maxSubsteps, Math.floor(accumulator / fixedStep));
+            Frame frame = null;
+            for (int s = 0; s < steps; s++) {
+                if (s == steps - 1) {
+                    frame = frames.beginWrite();
+                    if (frame != null) {
+                        world.snapshot(frame.previous);
+                    }
+                }
+                world.update(fixedStep);
+            }
+            accumulator -= steps * (double) fixedStep;
+            if (accumulator >= fixedStep) {
+                long dropped = (long) (accumulator / fixedStep);
+                droppedSteps += dropped;
+                accumulator -= dropped * (double) fixedStep;
+            }
+
+            float fraction = (float) (accumulator / fixedStep);
+            if (frame != null) {
+                world.snapshot(frame.current);
+                frame.alpha = fraction;
+                frames.publish();
+            }
+            setAlpha(world.getStepCount(), fraction);
+            LockSupport.parkNanos((long) ((fixedStep - accumulator) * 1e9));
+        }
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            task.run();
+        }
+    }
+
+    /**
+     * Publishes the interpolation factor of the latest step, which readers prefer over the factor
+     * stored in a frame when the frame is of that step.
+     */
+    private void setAlpha(long step, float fraction) {
+        alpha = (long) (int) step << 32 | (Float.floatToRawIntBits(fraction) & 0xFFFFFFFFL);
+    }
+
+    /**
+     * The states before and after a step, published together, with the interpolation factor
+     * between them. Frames are owned by the loop: read them in place without changing them, and
+     * close them once read.
+     */
+    public static final class Frame implements AutoCloseable {
+        private final SimulationLoop loop; // The loop publishing this frame.
+        final StateSnapshot previous = new StateSnapshot(); // The state before the step.
+        final StateSnapshot current = new StateSnapshot(); // The state after the step.
+        float alpha; // The interpolation factor when the frame was published.
+        int index; // The slot of the frame in the loop's buffer.
+
+        Frame(SimulationLoop loop) {
+            this.loop = loop;
+        }
+
+        /**
+         * Gets the state before the last step.
+         *
+         * @return The snapshot.
+         */
+        public StateSnapshot getPrevious() {
+            return previous;
+        }
+
+        /**
+         * Gets the state after the last step.
+         *
+         * @return The snapshot.
+         */
+        public StateSnapshot getCurrent() {
+            return current;
+        }
+
+        /**
+         * Gets the interpolation factor between the two states, the fraction of a step the loop has
+         * accumulated since. It keeps growing while no new step is published.
+         *
+         * @return The factor, from 0 to 1.
+         */
+        public float getAlpha() {
+            long latest = loop.alpha;
+            if ((int) (latest >>> 32) == (int) current.getStep()) {
+                return Float.intBitsToFloat((int) latest);
+            }
+            return alpha;
+        }
+
+        /**
+         * Releases the frame to the loop.
+         */
+        @Override
+        public void close() {
+            loop.frames.release(index);
+        }
+    }
+}
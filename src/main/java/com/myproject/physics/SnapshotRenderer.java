@@ -0,0 +1,287 @@
+package com.myproject.physics;
+
+import java.awt.AlphaComposite;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Draws the bodies of a pair of {@link StateSnapshot}s, interpolated between them, into any
+ * {@link Graphics2D}, with the world origin at the center of the target and y pointing up.
+ *
+ * Drawing reads the snapshot arrays directly and allocates nothing once warm:
+ * <ul>
+ *     <li>Circles are blitted from sprites rendered once, antialiased, for each color and pixel
+ *     radius, instead of being filled one by one.</li>
+ *     <li>Static bodies are rendered into a cached layer, redrawn only when one of them, the target
+ *     size or the colors change, and copied as a single image every frame.</li>
+ *     <li>Polygons are turned and filled through reused vertex arrays; their orientation is
+ *     interpolated as a normalized blend of the two snapshots' cosine and sine, with no trigonometry.</li>
+ *     <li>Bodies wholly outside the target are skipped.</li>
+ * </ul>
+ * The sprites and the static layer are ordinary images, which Java2D keeps in video memory when
+ * the target is accelerated. A renderer is used from one thread at a time.
+ */
+public final class SnapshotRenderer {
+
+    private static final int MAX_SPRITES = 256; // Cached sprites before the cache is cleared.
+    private static final float BOX_SCALE_X = 1.05f; // Horizontal scale of box outlines.
+    private static final float BOX_SCALE_Y = 1.2f; // Vertical scale of box outlines.
+    private static final float BOX_LINE = 10.0f; // Line width of box outlines along their larger side, in pixels.
+
+    private final float scale; // Pixels per world unit.
+    private final Map<Long, BufferedImage> sprites = new HashMap<>(); // Circle sprites by color and radius.
+    private BufferedImage lastSprite; // The sprite used last, to skip the map for runs of equal circles.
+    private long lastSpriteKey = -1; // The key of lastSprite.
+    private BufferedImage staticLayer; // Static bodies, drawn once for the current target size.
+    private long staticKey; // Signature of the static bodies and settings staticLayer was drawn for.
+    private boolean staticEmpty = true; // Whether staticLayer has nothing on it.
+    private int drawnCount; // Bodies drawn by the last frame, static ones included.
+    private int culledCount; // Bodies skipped by the last frame as off-screen.
+    private final int[] polygonX = new int[ConvexPolygon.MAX_VERTICES]; // Screen vertices of the polygon being drawn.
+    private final int[] polygonY = new int[ConvexPolygon.MAX_VERTICES];
+
+    /**
+     * Constructs a renderer.
+     *
+     * @param scale The number of pixels per world unit.
+     */
+    public SnapshotRenderer(float scale) {
+        if (!(scale > 0.0f)) {
+            throw new IllegalArgumentException("Scale must be positive");
+        }
+        this.scale = scale;
+    }
+
+    /**
+     * Draws a frame: clears the target, then draws the static layer and the moving bodies. A body
+     * present at the same position of both snapshots is drawn between its two positions.
+     *
+     * @param g         The target.
+     * @param width     The width of the target, in pixels.
+     * @param height    The height of the target, in pixels.
+     * @param previous  The state before the last step.
+     * @param current   The state after the last step.
+     * @param alpha     The fraction of the way from previous to current.
+     * @param ballColor The color of circles.
+     * @param boxColor  The color of box outlines and polygons.
+     */
+    public void draw(Graphics2D g, int width, int height, StateSnapshot previous, StateSnapshot current,
+                     float alpha, Color ballColor, Color boxColor) {
+        g.setColor(Color.BLACK);
+        g.fillRect(0, 0, width, height);
+        drawnCount = 0;
+        culledCount = 0;
+
+        updateStaticLayer(width, height, current, ballColor, boxColor);
+        if (!staticEmpty) {
+            g.drawImage(staticLayer, 0, 0, null);
+        }
+
+        float originX = width / 2;
+        float originY = height / 2;
+        int rgb = ballColor.getRGB();
+        int previousCount = previous.getCount();
+        for (int i = 0; i < current.getCount(); i++) {
+            if (current.isStatic(i)) continue;
+            float x = current.getX(i);
+            float y = current.getY(i);
+            boolean both = i < previousCount && previous.getHandle(i) == current.getHandle(i);
+            if (both) {
+                x = previous.getX(i) + (x - previous.getX(i)) * alpha;
+                y = previous.getY(i) + (y - previous.getY(i)) * alpha;
+            }
+            float screenX = originX + x * scale;
+            float screenY = originY - y * scale;
+            if (current.getType(i) == Collider.Type.CIRCLE) {
+                int radius = (int) (current.getRadius(i) * scale);
+                if (radius <= 0) continue;
+                if (screenX + radius < 0 || screenX - radius > width || screenY + radius < 0 || screenY - radius > height) {
+                    culledCount++;
+                    continue;
+                }
+                g.drawImage(sprite(rgb, radius), (int) (screenX - radius), (int) (screenY - radius), null);
+            } else if (current.getType(i) == Collider.Type.POLYGON) {
+                float cos = current.getCos(i);
+                float sin = current.getSin(i);
+                if (both) {
+                    cos = previous.getCos(i) + (cos - previous.getCos(i)) * alpha;
+                    sin = previous.getSin(i) + (sin - previous.getSin(i)) * alpha;
+                    float length = (float) Math.sqrt(cos * cos + sin * sin);
+                    if (length > 0.0f) {
+                        cos /= length;
+                        sin /= length;
+                    } else {
+                        cos = current.getCos(i);
+                        sin = current.getSin(i);
+                    }
+                }
+                float halfWidth = current.getHalfWidth(i);
+                float halfHeight = current.getHalfHeight(i);
+                float extentX = (Math.abs(cos) * halfWidth + Math.abs(sin) * halfHeight) * scale;
+                float extentY = (Math.abs(sin) * halfWidth + Math.abs(cos) * halfHeight) * scale;
+                if (screenX + extentX < 0 || screenX - extentX > width || screenY + extentY < 0 || screenY - extentY > height) {
+                    culledCount++;
+                    continue;
+                }
+                g.setColor(boxColor);
+                fillPolygon(g, current.getPolygon(i), screenX, screenY, cos, sin);
+            } else {
+                float halfWidth = current.getHalfWidth(i) * BOX_SCALE_X * scale;
+                float halfHeight = current.getHalfHeight(i) * BOX_SCALE_Y * scale;
+                float extentX = halfWidth + BOX_LINE;
+                float extentY = halfHeight + BOX_LINE;
+                if (screenX + extentX < 0 || screenX - extentX > width || screenY + extentY < 0 || screenY - extentY > height) {
+                    culledCount++;
+                    continue;
+                }
+                g.setColor(boxColor);
+                drawBox(g, screenX, screenY, halfWidth, halfHeight);
+            }
+            drawnCount++;
+        }
+    }
+
+    /**
+     * Gets the number of bodies drawn by the last frame, counting those of the static layer.
+     *
+     * @return The drawn body count.
+     */
+    public int getDrawnCount() {
+        return drawnCount;
+    }
+
+    /**
+     * Gets the number of moving bodies the last frame skipped because they were off-screen.
+     *
+     * @return The culled body count.
+     */
+    public int getCulledCount() {
+        return culledCount;
+    }
+
+    /**
+     * Gets the sprite of a circle, rendering it on first use.
+     */
+    private BufferedImage sprite(int rgb, int radius) {
+        long key = (long) rgb << 32 | radius;
+        if (key == lastSpriteKey) return lastSprite;
+        BufferedImage sprite = sprites.get(key);
+        if (sprite == null) {
+            if (sprites.size() == MAX_SPRITES) {
+                sprites.clear();
+            }
+            int size = 2 * radius;
+            sprite = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB_PRE);
+            Graphics2D g = sprite.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setColor(new Color(rgb, true));
+            g.fillOval(0, 0, size, size);
+            g.dispose();
+            sprites.put(key, sprite);
+        }
+        lastSprite = sprite;
+        lastSpriteKey = key;
+        return sprite;
+    }
+
+    /**
+     * Redraws the static layer if the static bodies, the target size or the colors changed since it
+     * was drawn, and counts its bodies as drawn.
+     */
+    private void updateStaticLayer(int width, int height, StateSnapshot current, Color ballColor, Color boxColor) {
+        long key = mix(mix(mix(width, height), ballColor.getRGB()), boxColor.getRGB());
+        int staticCount = 0;
+        for (int i = 0; i < current.getCount(); i++) {
+            if (!current.isStatic(i)) continue;
+            staticCount++;
+            key = mix(key, current.getHandle(i));
+            key = mix(key, Float.floatToIntBits(current.getX(i)));
+            key = mix(key, Float.floatToIntBits(current.getY(i)));
+            key = mix(key, Float.floatToIntBits(current.getRadius(i)));
+            key = mix(key, Float.floatToIntBits(current.getHalfWidth(i)));
+            key = mix(key, Float.floatToIntBits(current.getHalfHeight(i)));
+            key = mix(key, Float.floatToIntBits(current.getCos(i)));
+            key = mix(key, Float.floatToIntBits(current.getSin(i)));
+            key = mix(key, System.identityHashCode(current.getPolygon(i)));
+        }
+        drawnCount += staticCount;
+        if (staticLayer != null && key == staticKey) return;
+        staticKey = key;
+        staticEmpty = staticCount == 0;
+        if (staticEmpty) return;
+
+        if (staticLayer == null || staticLayer.getWidth() != width || staticLayer.getHeight() != height) {
+            staticLayer = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+        }
+        Graphics2D g = staticLayer.createGraphics();
+        g.setComposite(AlphaComposite.Clear);
+        g.fillRect(0, 0, width, height);
+        g.setComposite(AlphaComposite.SrcOver);
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        float originX = width / 2;
+        float originY = height / 2;
+        for (int i = 0; i < current.getCount(); i++) {
+            if (!current.isStatic(i)) continue;
+            float screenX = originX + current.getX(i) * scale;
+            float screenY = originY - current.getY(i) * scale;
+            if (current.getType(i) == Collider.Type.CIRCLE) {
+                int radius = (int) (current.getRadius(i) * scale);
+                g.setColor(ballColor);
+                g.fillOval((int) (screenX - radius), (int) (screenY - radius), 2 * radius, 2 * radius);
+            } else if (current.getType(i) == Collider.Type.POLYGON) {
+                g.setColor(boxColor);
+                fillPolygon(g, current.getPolygon(i), screenX, screenY, current.getCos(i), current.getSin(i));
+            } else {
+                g.setColor(boxColor);
+                drawBox(g, screenX, screenY, current.getHalfWidth(i) * BOX_SCALE_X * scale,
+                        current.getHalfHeight(i) * BOX_SCALE_Y * scale);
+            }
+        }
+        g.dispose();
+    }
+
+    /**
+     * Draws the outline of a box as four filled bars, each edge as thick as its length scaled by
+     * the line width over the larger side.
+     */
+    private static void drawBox(Graphics2D g, float screenX, float screenY, float halfWidth, float halfHeight) {
+        float line = BOX_LINE / Math.max(halfWidth, halfHeight);
+        float lineX = line * halfWidth; // Thickness of the vertical edges.
+        float lineY = line * halfHeight; // Thickness of the horizontal edges.
+        int left = Math.round(screenX - halfWidth - lineX / 2);
+        int right = Math.round(screenX + halfWidth + lineX / 2);
+        int top = Math.round(screenY - halfHeight - lineY / 2);
+        int bottom = Math.round(screenY + halfHeight + lineY / 2);
+        int thickX = Math.max(1, Math.round(lineX));
+        int thickY = Math.max(1, Math.round(lineY));
+        g.fillRect(left, top, right - left, thickY);
+        g.fillRect(left, bottom - thickY, right - left, thickY);
+        g.fillRect(left, top, thickX, bottom - top);
+        g.fillRect(right - thickX, top, thickX, bottom - top);
+    }
+
+    /**
+     * Fills a polygon centered on a screen position and turned by the angle of a cosine and sine.
+     */
+    private void fillPolygon(Graphics2D g, ConvexPolygon polygon, float screenX, float screenY, float cos, float sin) {
+        int n = polygon.getVertexCount();
+        for (int v = 0; v < n; v++) {
+            float x = polygon.getX(v);
+            float y = polygon.getY(v);
+            polygonX[v] = Math.round(screenX + (cos * x - sin * y) * scale);
+            polygonY[v] = Math.round(screenY - (sin * x + cos * y) * scale);
+        }
+        g.fillPolygon(polygonX, polygonY, n);
+    }
+
+    /**
+     * Folds a value into a running signature.
+     */
+    private static long mix(long key, int value) {
+        return (key ^ value) * 0x9E3779B97F4A7C15L;
+    }
+}
@@ -0,0 +1,235 @@
+package com.myproject.physics;
+
+import java.util.Arrays;
+
+/**
+ * Broad phase based on a uniform grid stored in a hash table.
+ * Every step each body is inserted into the cells covered by its bounding box, and only bodies
+ * sharing a cell are tested against each other. A pair is reported from the single cell at the
+ * lower-left corner of the overlap of the two cell ranges, so no pair is reported twice.
+ * Bodies covering a very large number of cells (such as a long static ground) are kept out of the
+ * grid and tested against every body directly.
+ */
+public class SpatialHashGrid implements BroadPhase {
+
+    private static final int MAX_CELLS_PER_BODY = 256; // Bodies covering more cells are handled separately.
+
+    private float cellSize; // The width and height of a cell; 0 picks a size automatically each step.
+
+    // Per-body cell range of the current step.
+    private int[] cellMinX = new int[0];
+    private int[] cellMinY = new int[0];
+    private int[] cellMaxX = new int[0];
+    private int[] cellMaxY = new int[0];
+
+    // Bodies too large to be inserted into the grid.
+    private int[] oversized = new int[0];
+    private int oversizedCount;
+
+    // Open-addressing hash table from cell coordinates to the head of the cell's entry list.
+    private long[] tableKeys = new long[0];
+    private int[] tableHeads = new int[0];
+    private int[] tableStamps = new int[0];
+    private int stamp;
+
+    // Table slots used in the current step, in insertion order.
+    private int[] usedSlots = new int[0];
+    private int usedCount;
+
+    // Singly linked entry lists, one entry per (body, cell).
+    private int[] entryBody = new int[0];
+    private int[] entryNext = new int[0];
+    private int entryCount;
+
+    /**
+     * Constructs a grid that picks its cell size from the average body size every step.
+     */
+    public SpatialHashGrid() {
+        this(0.0f);
+    }
+
+    /**
+     * Constructs a grid with a fixed cell size.
+     *
+     * @param cellSize The width and height of a grid cell, or 0 to pick one automatically.
+     */
+    public SpatialHashGrid(float cellSize) {
+        setCellSize(cellSize);
+    }
+
+    /**
+     * Gets the configured cell size.
+     *
+     * @return The cell size, or 0 if it is picked automatically.
+     */
+    public float getCellSize() {
+        return cellSize;
+    }
+
+    /**
+     * Sets the cell size.
+     * A good value is about the diameter of the typical body.
+     *
+     * @param cellSize The width and height of a grid cell, or 0 to pick one automatically.
+     */
+    public void setCellSize(float cellSize) {
+        if (!(cellSize >= 0.0f) || Float.isInfinite(cellSize)) {
+            throw new IllegalArgumentException("Cell size must be a finite value >= 0: " + cellSize);
+        }
+        this.cellSize = cellSize;
+    }
+
+    @Override
+    public void findPairs(int count, float[] minX, float[] minY, float[] maxX, float[] maxY, PairCallback callback) {
+        if (count < 2) return;
+        float size = cellSize > 0.0f ? cellSize : automaticCellSize(count, minX, minY, maxX, maxY);
+        float inverse = 1.0f / size;
+
+        ensureBodyCapacity(count);
+        oversizedCount = 0;
+        int totalEntries = 0;
+        for (int i = 0; i < count; i++) {
+            int x0 = cell(minX[i], inverse);
+            int y0 = cell(minY[i], inverse);
+            int x1 = cell(maxX[i], inverse);
+            int y1 = cell(maxY[i], inverse);
+            cellMinX[i] = x0;
+            cellMinY[i] = y0;
+            cellMaxX[i] = x1;
+            cellMaxY[i] = y1;
+            long cells = ((long) x1 - x0 + 1) * ((long) y1 - y0 + 1);
+            if (cells > MAX_CELLS_PER_BODY) {
+                oversized[oversizedCount++] = i;
+                cellMaxX[i] = x0 - 1; // Marks the body as not inserted.
+            } else {
+                totalEntries += (int) cells;
+            }
+        }
+
+        beginTable(totalEntries);
+        for (int i = 0; i < count; i++) {
+            for (int y = cellMinY[i]; y <= cellMaxY[i]; y++) {
+                for (int x = cellMinX[i]; x <= cellMaxX[i]; x++) {
+                    insert(x, y, i);
+                }
+            }
+        }
+
+        for (int u = 0; u < usedCount; u++) {
+            int slot = usedSlots[u];
+            long key = tableKeys[slot];
+            int x = (int) (key >> 32);
+            int y = (int) key;
+            for (int e1 = tableHeads[slot]; e1 != -1; e1 = entryNext[e1]) {
+                int a = entryBody[e1];
+                for (int e2 = entryNext[e1]; e2 != -1; e2 = entryNext[e2]) {
+                    int b = entryBody[e2];
+                    // Only the first shared cell reports the pair.
+                    if (Math.max(cellMinX[a], cellMinX[b]) != x || Math.max(cellMinY[a], cellMinY[b]) != y) continue;
+                    if (!BroadPhase.overlaps(a, b, minX, minY, maxX, maxY)) continue;
+                    callback.onPair(Math.min(a, b), Math.max(a, b));
+                }
+            }
+        }
+
+        // Oversized bodies are tested against everything, including each other once.
+        for (int k = 0; k < oversizedCount; k++) {
+            int a = oversized[k];
+            for (int b = 0; b < count; b++) {
+                if (b == a || (cellMaxX[b] < cellMinX[b] && b < a)) continue;
+                if (!BroadPhase.overlaps(a, b, minX, minY, maxX, maxY)) continue;
+                callback.onPair(Math.min(a, b), Math.max(a, b));
+            }
+        }
+    }
+
+    /**
+     * Picks a cell size equal to the average of the larger bounding box dimension of every body.
+     */
+    private static float automaticCellSize(int count, float[] minX, float[] minY, float[] maxX, float[] maxY) {
+        double sum = 0.0;
+        for (int i = 0; i < count; i++) {
+            sum += Math.max(maxX[i] - minX[i], maxY[i] - minY[i]);
+        }
+        float size = (float) (sum / count);
+        return size > 0.0f ? size : 1.0f;
+    }
+
+    /**
+     * Converts a coordinate to a cell index.
+     */
+    private static int cell(float coordinate, float inverseCellSize) {
+        return (int) Math.floor(coordinate * inverseCellSize);
+    }
+
+    /**
+     * Clears the hash table and makes sure it can hold the given number of entries.
+     */
+    private void beginTable(int entries) {
+        if (entryBody.length < entries) {
+            // Grow with headroom: the number of entries creeps up as bodies straddle more cells.
+            int capacity = Math.max(entries, entryBody.length * 2);
+            entryBody = new int[capacity];
+            entryNext = new int[capacity];
+        }
+        entryCount = 0;
+
+        int capacity = Integer.highestOneBit(Math.max(entries, 8) * 2 - 1) << 1;
+        if (tableKeys.length < capacity) {
+            tableKeys = new long[capacity];
+            tableHeads = new int[capacity];
+            tableStamps = new int[capacity];
+            usedSlots = new int[capacity];
+            stamp = 0;
+        }
+        usedCount = 0;
+        // Bumping the stamp invalidates every slot without clearing the arrays.
+        if (++stamp == 0) {
+            Arrays.fill(tableStamps, 0);
+            stamp = 1;
+        }
+    }
+
+    /**
+     * Adds a body to the entry list of a cell.
+     */
+    private void insert(int x, int y, int body) {
+        long key = ((long) x << 32) | (y & 0xffffffffL);
+        int mask = tableKeys.length - 1;
+        int slot = hash(key) & mask;
+        while (tableStamps[slot] == stamp && tableKeys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        if (tableStamps[slot] != stamp) {
+            tableStamps[slot] = stamp;
+            tableKeys[slot] = key;
+            tableHeads[slot] = -1;
+            usedSlots[usedCount++] = slot;
+        }
+        int entry = entryCount++;
+        entryBody[entry] = body;
+        entryNext[entry] = tableHeads[slot];
+        tableHeads[slot] = entry;
+    }
+
+    /**
+     * Mixes the bits of a cell key into a table index.
+     */
+    private static int hash(long key) {
+        key *= 0x9E3779B97F4A7C15L;
+        return (int) (key ^ (key >>> 32));
+    }
+
+    /**
+     * Grows the per-body arrays to hold at least the given number of bodies.
+     */
+    private void ensureBodyCapacity(int count) {
+        if (cellMinX.length >= count) return;
+        int capacity = Math.max(count, cellMinX.length * 2);
+        cellMinX = new int[capacity];
+        cellMinY = new int[capacity];
+        cellMaxX = new int[capacity];
+        cellMaxY = new int[capacity];
+        oversized = new int[capacity];
+    }
+}
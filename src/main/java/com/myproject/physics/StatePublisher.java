@@ -0,0 +1,83 @@
+package com.myproject.physics;
+
+/**
+ * Hands the state of a world to other threads after every step without locks. Attached with
+ * {@link PhysicsWorld#setStatePublisher}, it receives a copy of every body's state at the end of
+ * each step, written into one of three preallocated {@link StateSnapshot}s, and makes it the
+ * latest snapshot with a single atomic swap. Any number of threads, such as a renderer, a network
+ * broadcaster and a recorder, each read the latest snapshot at their own rate:
+ * <pre>
+ * StateSnapshot state = publisher.acquire();
+ * if (state != null) {
+ *     try {
+ *         // Read state, but never change it.
+ *     } finally {
+ *         publisher.release(state);
+ *     }
+ * }
+ * </pre>
+ * Acquiring never blocks and the snapshot is read in place: the world does not write to a
+ * snapshot while any reader holds it. Readers should release snapshots quickly; when readers hold
+ * every snapshot but the latest, the world skips publishing until one is released, and
+ * {@link #getSkippedCount()} counts those steps.
+ */
+public final class StatePublisher {
+
+    private final TripleBuffer<StateSnapshot> buffer = new TripleBuffer<>(StateSnapshot::new);
+
+    /**
+     * Copies the state of a store into a free snapshot and makes it the latest. Only the thread
+     * stepping the world calls this.
+     *
+     * @param store The body storage.
+     * @param step  The number of steps the world has taken.
+     */
+    void publish(BodyStore store, long step) {
+        StateSnapshot snapshot = buffer.beginWrite();
+        if (snapshot == null) return;
+        snapshot.copyFrom(store, step);
+        buffer.publish();
+    }
+
+    /**
+     * Acquires the latest snapshot for reading. It must be released with {@link #release} and not
+     * changed.
+     *
+     * @return The snapshot, or null if no step was published yet.
+     */
+    public StateSnapshot acquire() {
+        int index = buffer.acquire();
+        return index < 0 ? null : buffer.get(index);
+    }
+
+    /**
+     * Releases a snapshot acquired with {@link #acquire()}.
+     *
+     * @param snapshot The snapshot.
+     */
+    public void release(StateSnapshot snapshot) {
+        int index = buffer.indexOf(snapshot);
+        if (index < 0) {
+            throw new IllegalArgumentException("Snapshot does not belong to this publisher");
+        }
+        buffer.release(index);
+    }
+
+    /**
+     * Gets the number of steps published so far.
+     *
+     * @return The published step count.
+     */
+    public long getPublishedCount() {
+        return buffer.getPublishedCount();
+    }
+
+    /**
+     * Gets the number of steps not published because readers held every free snapshot.
+     *
+     * @return The skipped step count.
+     */
+    public long getSkippedCount() {
+        return buffer.getSkippedCount();
+    }
+}
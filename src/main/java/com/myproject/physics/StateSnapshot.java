@@ -0,0 +1,271 @@
+package com.myproject.physics;
+
+import java.util.Arrays;
+
+/**
+ * A copy of the state of every body of a world at the end of a step, for readers that must not
+ * touch the world while it is being stepped, such as a renderer on another thread.
+ * Bodies are listed in the order of the world's storage; use {@link #getHandle(int)} to match a
+ * body across snapshots. A snapshot can be refilled over and over without allocating once its
+ * arrays are large enough.
+ */
+public final class StateSnapshot {
+
+    private static final Collider.Type[] TYPES = Collider.Type.values();
+
+    private int count; // The number of bodies.
+    private long step; // The number of steps the world had taken.
+    private int[] handles = new int[0];
+    private int[] shapes = new int[0];
+    private float[] posX = new float[0];
+    private float[] posY = new float[0];
+    private float[] velX = new float[0];
+    private float[] velY = new float[0];
+    private float[] rotCos = new float[0]; // Orientation as the cosine and sine of the angle.
+    private float[] rotSin = new float[0];
+    private float[] angVel = new float[0];
+    private float[] radius = new float[0];
+    private float[] halfX = new float[0];
+    private float[] halfY = new float[0];
+    private ConvexPolygon[] polygons = new ConvexPolygon[0]; // Shared with the world: polygons never change.
+    private boolean[] fixed = new boolean[0]; // Whether a body has infinite mass.
+
+    /**
+     * Copies the bodies of a store.
+     *
+     * @param store The body storage.
+     * @param step  The number of steps the world has taken.
+     */
+    void copyFrom(BodyStore store, long step) {
+        int n = store.count;
+        ensureCapacity(n);
+        count = n;
+        this.step = step;
+        System.arraycopy(store.handleOf, 0, handles, 0, n);
+        System.arraycopy(store.shape, 0, shapes, 0, n);
+        System.arraycopy(store.posX, 0, posX, 0, n);
+        System.arraycopy(store.posY, 0, posY, 0, n);
+        System.arraycopy(store.velX, 0, velX, 0, n);
+        System.arraycopy(store.velY, 0, velY, 0, n);
+        System.arraycopy(store.rotCos, 0, rotCos, 0, n);
+        System.arraycopy(store.rotSin, 0, rotSin, 0, n);
+        System.arraycopy(store.angVel, 0, angVel, 0, n);
+        System.arraycopy(store.radius, 0, radius, 0, n);
+        System.arraycopy(store.halfX, 0, halfX, 0, n);
+        System.arraycopy(store.halfY, 0, halfY, 0, n);
+        System.arraycopy(store.polygon, 0, polygons, 0, n);
+        for (int i = 0; i < n; i++) {
+            fixed[i] = store.invMass[i] == 0.0f;
+        }
+    }
+
+    /**
+     * Makes this snapshot a copy of another one.
+     *
+     * @param other The snapshot to copy.
+     */
+    public void copyFrom(StateSnapshot other) {
+        int n = other.count;
+        ensureCapacity(n);
+        count = n;
+        step = other.step;
+        System.arraycopy(other.handles, 0, handles, 0, n);
+        System.arraycopy(other.shapes, 0, shapes, 0, n);
+        System.arraycopy(other.posX, 0, posX, 0, n);
+        System.arraycopy(other.posY, 0, posY, 0, n);
+        System.arraycopy(other.velX, 0, velX, 0, n);
+        System.arraycopy(other.velY, 0, velY, 0, n);
+        System.arraycopy(other.rotCos, 0, rotCos, 0, n);
+        System.arraycopy(other.rotSin, 0, rotSin, 0, n);
+        System.arraycopy(other.angVel, 0, angVel, 0, n);
+        System.arraycopy(other.radius, 0, radius, 0, n);
+        System.arraycopy(other.halfX, 0, halfX, 0, n);
+        System.arraycopy(other.halfY, 0, halfY, 0, n);
+        System.arraycopy(other.polygons, 0, polygons, 0, n);
+        System.arraycopy(other.fixed, 0, fixed, 0, n);
+    }
+
+    /**
+     * Gets the number of bodies in the snapshot.
+     *
+     * @return The number of bodies.
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Gets the number of steps the world had taken when the snapshot was made.
+     *
+     * @return The step count.
+     */
+    public long getStep() {
+        return step;
+    }
+
+    /**
+     * Gets the handle of a body.
+     *
+     * @param i The position of the body in the snapshot.
+     * @return The handle returned by {@link PhysicsWorld#addRigidbody}.
+     */
+    public int getHandle(int i) {
+        return handles[i];
+    }
+
+    /**
+     * Gets the collider type of a body.
+     *
+     * @param i The position of the body in the snapshot.
+     * @return The collider type.
+     */
+    public Collider.Type getType(int i) {
+        return TYPES[shapes[i]];
+    }
+
+    /**
+     * Gets the x coordinate of a body's position.
+     *
+     * @param i The position of the body in the snapshot.
+     * @return The x coordinate.
+     */
+    public float getX(int i) {
+        return posX[i];
+    }
+
+    /**
+     * Gets the y coordinate of a body's position.
+     *
+     * @param i The position of the body in the snapshot.
+     * @return The y coordinate.
+     */
+    public float getY(int i) {
+        return posY[i];
+    }
+
+    /**
+     * Gets the x component of a body's velocity.
+     *
+     * @param i The position of the body in the snapshot.
+     * @return The x component.
+     */
+    public float getVelocityX(int i) {
+        return velX[i];
+    }
+
+    /**
+     * Gets the y component of a body's velocity.
+     *
+     * @param i The position of the body in the snapshot.
+     * @return The y component.
+     */
+    public float getVelocityY(int i) {
+        return velY[i];
+    }
+
+    /**
+     * Gets the angle of a body, counter-clockwise from the x axis. Boxes are always at 0.
+     *
+     * @param i The position of the body in the snapshot.
+     * @return The angle in radians, from -pi to pi.
+     */
+    public float getAngle(int i) {
+        return (float) Math.atan2(rotSin[i], rotCos[i]);
+    }
+
+    /**
+     * Gets the angular velocity of a body.
+     *
+     * @param i The position of the body in the snapshot.
+     * @return The angular velocity in radians per second, counter-clockwise.
+     */
+    public float getAngularVelocity(int i) {
+        return angVel[i];
+    }
+
+    /**
+     * Gets the cosine of a body's angle, without the cost of {@link #getAngle(int)}.
+     */
+    float getCos(int i) {
+        return rotCos[i];
+    }
+
+    /**
+     * Gets the sine of a body's angle, without the cost of {@link #getAngle(int)}.
+     */
+    float getSin(int i) {
+        return rotSin[i];
+    }
+
+    /**
+     * Gets the radius of a circle body.
+     *
+     * @param i The position of the body in the snapshot.
+     * @return The radius.
+     */
+    public float getRadius(int i) {
+        return radius[i];
+    }
+
+    /**
+     * Gets the half width of a box body, or the extent of a polygon body before it turns.
+     *
+     * @param i The position of the body in the snapshot.
+     * @return The half width.
+     */
+    public float getHalfWidth(int i) {
+        return halfX[i];
+    }
+
+    /**
+     * Gets the half height of a box body, or the extent of a polygon body before it turns.
+     *
+     * @param i The position of the body in the snapshot.
+     * @return The half height.
+     */
+    public float getHalfHeight(int i) {
+        return halfY[i];
+    }
+
+    /**
+     * Gets the shape of a polygon body.
+     *
+     * @param i The position of the body in the snapshot.
+     * @return The polygon, or null if the body is not a polygon.
+     */
+    public ConvexPolygon getPolygon(int i) {
+        return polygons[i];
+    }
+
+    /**
+     * Checks whether a body is static, that is has a mass of 0.
+     *
+     * @param i The position of the body in the snapshot.
+     * @return True if the body is static.
+     */
+    public boolean isStatic(int i) {
+        return fixed[i];
+    }
+
+    /**
+     * Grows the arrays to hold at least the given number of bodies.
+     */
+    private void ensureCapacity(int n) {
+        if (posX.length >= n) return;
+        int capacity = Math.max(n, posX.length * 2);
+        handles = Arrays.copyOf(handles, capacity);
+        shapes = Arrays.copyOf(shapes, capacity);
+        posX = Arrays.copyOf(posX, capacity);
+        posY = Arrays.copyOf(posY, capacity);
+        velX = Arrays.copyOf(velX, capacity);
+        velY = Arrays.copyOf(velY, capacity);
+        rotCos = Arrays.copyOf(rotCos, capacity);
+        rotSin = Arrays.copyOf(rotSin, capacity);
+        angVel = Arrays.copyOf(angVel, capacity);
+        radius = Arrays.copyOf(radius, capacity);
+        halfX = Arrays.copyOf(halfX, capacity);
+        halfY = Arrays.copyOf(halfY, capacity);
+        polygons = Arrays.copyOf(polygons, capacity);
+        fixed = Arrays.copyOf(fixed, capacity);
+    }
+}
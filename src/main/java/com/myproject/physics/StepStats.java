@@ -0,0 +1,286 @@
+package com.myproject.physics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Timings and counters of the steps of a {@link PhysicsWorld}, collected while
+ * {@link PhysicsWorld#setStatsEnabled statistics are enabled}.
+ *
+ * Each step is split into phases (integration, broad phase, narrow phase, solver, sleep and view
+ * sync) timed with {@link System#nanoTime()}, and counts the bodies integrated, candidate pairs,
+ * contacts and impulse solves. Step durations are also kept in a rolling window of the last
+ * {@value #WINDOW} steps, from which percentiles are computed on request.
+ *
+ * The stepping thread only writes to private fields during a step and publishes them at its end
+ * under a short lock, so the statistics can be read from any thread, for example over JMX after
+ * {@link #register(String)}. With statistics disabled, a step checks one flag per phase and does
+ * nothing else.
+ */
+public final class StepStats implements StepStatsMXBean {
+
+    static final int INTEGRATION = 0;
+    static final int BROAD_PHASE = 1;
+    static final int NARROW_PHASE = 2;
+    static final int SOLVER = 3;
+    static final int SLEEP = 4;
+    static final int VIEW_SYNC = 5;
+    private static final int PHASES = 6;
+
+    private static final int WINDOW = 1024; // Steps kept for percentiles.
+
+    // Step in progress, written by the stepping thread only.
+    private long stepStart; // Time the step started.
+    private long mark; // Time the current phase started.
+    private final long[] running = new long[PHASES];
+    private int runningBodies;
+    private int runningPairs;
+    private int runningContacts;
+    private long runningImpulses;
+
+    // Published results, guarded by the lock of this object.
+    private long steps; // Steps measured.
+    private long totalNanos; // Sum of the measured step durations.
+    private long lastStepNanos;
+    private final long[] phaseNanos = new long[PHASES]; // Phase durations of the last step.
+    private int bodiesIntegrated;
+    private int candidatePairs;
+    private int contacts;
+    private long impulseSolves;
+    private final long[] window = new long[WINDOW]; // Ring of recent step durations.
+
+    private ObjectName objectName; // The name this object is registered under, or null.
+
+    /**
+     * Constructs empty statistics. Worlds create their own; see {@link PhysicsWorld#getStats()}.
+     */
+    StepStats() {
+    }
+
+    /**
+     * Starts measuring a step, and its first phase.
+     */
+    void begin() {
+        stepStart = System.nanoTime();
+        mark = stepStart;
+        Arrays.fill(running, 0L);
+        runningBodies = 0;
+        runningPairs = 0;
+        runningContacts = 0;
+        runningImpulses = 0;
+    }
+
+    /**
+     * Ends the current phase and starts the next one.
+     *
+     * @param phase The phase that just ended.
+     */
+    void phase(int phase) {
+        long now = System.nanoTime();
+        running[phase] += now - mark;
+        mark = now;
+    }
+
+    /**
+     * Records the counters of the step in progress.
+     *
+     * @param bodies        The number of bodies integrated.
+     * @param pairs         The number of candidate pairs.
+     * @param contactCount  The number of contacts solved.
+     * @param impulses      The number of impulse solves.
+     */
+    void count(int bodies, int pairs, int contactCount, long impulses) {
+        runningBodies = bodies;
+        runningPairs = pairs;
+        runningContacts = contactCount;
+        runningImpulses = impulses;
+    }
+
+    /**
+     * Ends the step in progress and publishes its results.
+     */
+    synchronized void end() {
+        long duration = System.nanoTime() - stepStart;
+        window[(int) (steps % WINDOW)] = duration;
+        steps++;
+        totalNanos += duration;
+        lastStepNanos = duration;
+        System.arraycopy(running, 0, phaseNanos, 0, PHASES);
+        bodiesIntegrated = runningBodies;
+        candidatePairs = runningPairs;
+        contacts = runningContacts;
+        impulseSolves = runningImpulses;
+    }
+
+    @Override
+    public synchronized long getSteps() {
+        return steps;
+    }
+
+    @Override
+    public synchronized long getLastStepNanos() {
+        return lastStepNanos;
+    }
+
+    @Override
+    public synchronized double getMeanStepNanos() {
+        return steps == 0 ? 0.0 : (double) totalNanos / steps;
+    }
+
+    @Override
+    public long getP50StepNanos() {
+        return getPercentileStepNanos(50.0);
+    }
+
+    @Override
+    public long getP99StepNanos() {
+        return getPercentileStepNanos(99.0);
+    }
+
+    @Override
+    public long getMaxStepNanos() {
+        return getPercentileStepNanos(100.0);
+    }
+
+    /**
+     * Gets a percentile of the durations of the recent steps, by the nearest-rank method.
+     *
+     * @param percentile The percentile, from 0 to 100.
+     * @return The duration, in nanoseconds, or 0 if no step was measured.
+     */
+    public long getPercentileStepNanos(double percentile) {
+        if (!(percentile >= 0.0 && percentile <= 100.0)) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100");
+        }
+        long[] sorted;
+        synchronized (this) {
+            int n = (int) Math.min(steps, WINDOW);
+            if (n == 0) return 0L;
+            sorted = Arrays.copyOf(window, n);
+        }
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    @Override
+    public synchronized long getIntegrationNanos() {
+        return phaseNanos[INTEGRATION];
+    }
+
+    @Override
+    public synchronized long getBroadPhaseNanos() {
+        return phaseNanos[BROAD_PHASE];
+    }
+
+    @Override
+    public synchronized long getNarrowPhaseNanos() {
+        return phaseNanos[NARROW_PHASE];
+    }
+
+    @Override
+    public synchronized long getSolverNanos() {
+        return phaseNanos[SOLVER];
+    }
+
+    @Override
+    public synchronized long getSleepNanos() {
+        return phaseNanos[SLEEP];
+    }
+
+    @Override
+    public synchronized long getViewSyncNanos() {
+        return phaseNanos[VIEW_SYNC];
+    }
+
+    @Override
+    public synchronized int getBodiesIntegrated() {
+        return bodiesIntegrated;
+    }
+
+    @Override
+    public synchronized int getCandidatePairs() {
+        return candidatePairs;
+    }
+
+    @Override
+    public synchronized int getContacts() {
+        return contacts;
+    }
+
+    @Override
+    public synchronized long getImpulseSolves() {
+        return impulseSolves;
+    }
+
+    @Override
+    public synchronized void reset() {
+        steps = 0;
+        totalNanos = 0;
+        lastStepNanos = 0;
+        Arrays.fill(phaseNanos, 0L);
+        bodiesIntegrated = 0;
+        candidatePairs = 0;
+        contacts = 0;
+        impulseSolves = 0;
+    }
+
+    /**
+     * Registers these statistics with the platform MBean server under
+     * {@code com.myproject.physics:type=StepStats,name=<name>}.
+     *
+     * @param name The name distinguishing this world from others.
+     * @return The object name registered.
+     */
+    public synchronized ObjectName register(String name) {
+        if (objectName != null) {
+            throw new IllegalStateException("Statistics are already registered as " + objectName);
+        }
+        try {
+            ObjectName on = new ObjectName("com.myproject.physics:type=StepStats,name=" + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, on);
+            objectName = on;
+            return on;
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot register statistics as " + name, e);
+        }
+    }
+
+    /**
+     * Removes these statistics from the platform MBean server. Does nothing if they are not registered.
+     */
+    public synchronized void unregister() {
+        if (objectName == null) return;
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot unregister statistics " + objectName, e);
+        } finally {
+            objectName = null;
+        }
+    }
+
+    /**
+     * Summarizes the last step and the recent percentiles on one line.
+     *
+     * @return The summary.
+     */
+    @Override
+    public String toString() {
+        synchronized (this) {
+            return String.format(java.util.Locale.ROOT,
+                    "step %.3fms [integrate %.3f, broad %.3f, narrow %.3f, solve %.3f, sleep %.3f, sync %.3f] "
+                            + "bodies=%d pairs=%d contacts=%d impulses=%d p50=%.3fms p99=%.3fms max=%.3fms",
+                    lastStepNanos / 1e6, phaseNanos[INTEGRATION] / 1e6, phaseNanos[BROAD_PHASE] / 1e6,
+                    phaseNanos[NARROW_PHASE] / 1e6, phaseNanos[SOLVER] / 1e6, phaseNanos[SLEEP] / 1e6,
+                    phaseNanos[VIEW_SYNC] / 1e6, bodiesIntegrated, candidatePairs, contacts, impulseSolves,
+                    getP50StepNanos() / 1e6, getP99StepNanos() / 1e6, getMaxStepNanos() / 1e6);
+        }
+    }
+}
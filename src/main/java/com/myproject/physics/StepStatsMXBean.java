@@ -0,0 +1,125 @@
+package com.myproject.physics;
+
+/**
+ * Management interface of {@link StepStats}, for monitoring a world over JMX.
+ * Times are in nanoseconds; per-phase times and counters are those of the last step.
+ */
+public interface StepStatsMXBean {
+
+    /**
+     * Gets the number of steps measured since the statistics were enabled or reset.
+     *
+     * @return The number of steps.
+     */
+    long getSteps();
+
+    /**
+     * Gets the duration of the last step.
+     *
+     * @return The duration, in nanoseconds.
+     */
+    long getLastStepNanos();
+
+    /**
+     * Gets the mean duration of the measured steps.
+     *
+     * @return The mean duration, in nanoseconds.
+     */
+    double getMeanStepNanos();
+
+    /**
+     * Gets the median duration of the recent steps.
+     *
+     * @return The 50th percentile, in nanoseconds.
+     */
+    long getP50StepNanos();
+
+    /**
+     * Gets the 99th percentile duration of the recent steps.
+     *
+     * @return The 99th percentile, in nanoseconds.
+     */
+    long getP99StepNanos();
+
+    /**
+     * Gets the longest duration of the recent steps.
+     *
+     * @return The maximum, in nanoseconds.
+     */
+    long getMaxStepNanos();
+
+    /**
+     * Gets the time the last step spent integrating bodies and computing their bounds.
+     *
+     * @return The duration, in nanoseconds.
+     */
+    long getIntegrationNanos();
+
+    /**
+     * Gets the time the last step spent finding and sorting candidate pairs.
+     *
+     * @return The duration, in nanoseconds.
+     */
+    long getBroadPhaseNanos();
+
+    /**
+     * Gets the time the last step spent testing candidate pairs.
+     *
+     * @return The duration, in nanoseconds.
+     */
+    long getNarrowPhaseNanos();
+
+    /**
+     * Gets the time the last step spent solving contacts.
+     *
+     * @return The duration, in nanoseconds.
+     */
+    long getSolverNanos();
+
+    /**
+     * Gets the time the last step spent putting bodies to sleep.
+     *
+     * @return The duration, in nanoseconds.
+     */
+    long getSleepNanos();
+
+    /**
+     * Gets the time the last step spent refreshing the public fields of the views.
+     *
+     * @return The duration, in nanoseconds.
+     */
+    long getViewSyncNanos();
+
+    /**
+     * Gets the number of bodies the last step integrated, which excludes static and sleeping bodies.
+     *
+     * @return The number of bodies.
+     */
+    int getBodiesIntegrated();
+
+    /**
+     * Gets the number of candidate pairs the broad phase reported in the last step.
+     *
+     * @return The number of pairs.
+     */
+    int getCandidatePairs();
+
+    /**
+     * Gets the number of touching pairs handed to the solver in the last step.
+     *
+     * @return The number of contacts.
+     */
+    int getContacts();
+
+    /**
+     * Gets the number of contact impulses the velocity iterations of the last step computed.
+     *
+     * @return The number of impulse solves.
+     */
+    long getImpulseSolves();
+
+    /**
+     * Clears every statistic.
+     */
+    void reset();
+}
@@ -0,0 +1,255 @@
+package com.myproject.physics;
+
+import java.util.Arrays;
+
+/**
+ * Broad phase that sweeps sorted bounding box endpoints along one axis.
+ * The endpoint lists persist between steps and are re-sorted with insertion sort, which is close
+ * to linear because bodies move little from one step to the next. The sweep runs along the axis
+ * on which the bodies are most spread out, and reports pairs that also overlap on the other axis;
+ * only the swept axis is kept sorted, and the other one is fully re-sorted if the sweep switches to it.
+ * Unlike a grid, it is not affected by large differences in body size.
+ */
+public class SweepAndPrune implements BroadPhase {
+
+    private static final int INCREMENTAL_ADD_LIMIT = 32; // Larger batches of new bodies trigger a full sort.
+    private static final double AXIS_SWITCH_RATIO = 1.25; // How much more spread the other axis needs to be swept.
+    private static final int RADIX_BITS = 11; // Bits sorted per pass of the radix sort of full sorts.
+
+    private final Axis xAxis = new Axis();
+    private final Axis yAxis = new Axis();
+    private int tracked; // The number of bodies that have endpoints in the lists.
+    private boolean sweepX = true; // Whether the sweep currently runs along the x axis.
+
+    // Bodies whose interval on the sweep axis contains the current sweep position.
+    private int[] active = new int[0];
+    private int[] activeIndex = new int[0];
+    private int activeCount;
+
+    @Override
+    public void findPairs(int count, float[] minX, float[] minY, float[] maxX, float[] maxY, PairCallback callback) {
+        if (count < tracked) {
+            reset();
+        }
+        if (xAxis.size > 2 * tracked) {
+            // Drop the endpoints of the bodies removed since the last search, all in one pass.
+            xAxis.prune(tracked);
+            yAxis.prune(tracked);
+        }
+        if (count > tracked) {
+            xAxis.add(tracked, count);
+            yAxis.add(tracked, count);
+            if (active.length < count) {
+                active = new int[count];
+                activeIndex = new int[count];
+            }
+            tracked = count;
+        }
+        if (count < 2) return;
+
+        // Sweep along the axis with the larger spread of box centers.
+        double sumX = 0, sumY = 0, sumXX = 0, sumYY = 0;
+        for (int i = 0; i < count; i++) {
+            double cx = 0.5 * (minX[i] + maxX[i]);
+            double cy = 0.5 * (minY[i] + maxY[i]);
+            sumX += cx;
+            sumY += cy;
+            sumXX += cx * cx;
+            sumYY += cy * cy;
+        }
+        double spreadX = sumXX - sumX * sumX / count;
+        double spreadY = sumYY - sumY * sumY / count;
+        if (sweepX ? spreadY > spreadX * AXIS_SWITCH_RATIO : spreadX > spreadY * AXIS_SWITCH_RATIO) {
+            sweepX = !sweepX;
+            // The newly swept axis has not been sorted for a while.
+            (sweepX ? xAxis : yAxis).fullSort = true;
+        }
+
+        Axis axis = sweepX ? xAxis : yAxis;
+        float[] otherMin = sweepX ? minY : minX;
+        float[] otherMax = sweepX ? maxY : maxX;
+        axis.sort(sweepX ? minX : minY, sweepX ? maxX : maxY);
+
+        activeCount = 0;
+        int[] endpoints = axis.endpoints;
+        for (int k = 0, n = 2 * count; k < n; k++) {
+            int endpoint = endpoints[k];
+            int body = endpoint >>> 1;
+            if ((endpoint & 1) == 0) {
+                for (int m = 0; m < activeCount; m++) {
+                    int other = active[m];
+                    if (otherMax[body] < otherMin[other] || otherMin[body] > otherMax[other]) continue;
+                    callback.onPair(Math.min(body, other), Math.max(body, other));
+                }
+                activeIndex[body] = activeCount;
+                active[activeCount++] = body;
+            } else {
+                int index = activeIndex[body];
+                int last = active[--activeCount];
+                active[index] = last;
+                activeIndex[last] = index;
+            }
+        }
+    }
+
+    /**
+     * Forgets the last body in constant time: its endpoints are left in the lists and dropped
+     * before the next search, and the endpoints of the removed body now stand for the moved one
+     * and are put back in order by the next sort.
+     */
+    @Override
+    public void remove(int index, int last) {
+        if (last >= tracked) return;
+        tracked--;
+    }
+
+    @Override
+    public void reset() {
+        xAxis.clear();
+        yAxis.clear();
+        tracked = 0;
+        sweepX = true;
+    }
+
+    /**
+     * The endpoint list of one axis, kept sorted between steps.
+     * Each endpoint is encoded as {@code body << 1 | isMax}.
+     */
+    private static final class Axis {
+        private int[] endpoints = new int[0];
+        private float[] values = new float[0];
+        private long[] keys = new long[0]; // Scratch space for full sorts.
+        private long[] scratch = new long[0]; // Second buffer of the radix sort, same length as keys.
+        private final int[] counts = new int[1 << RADIX_BITS];
+        private int size;
+        private boolean fullSort; // Set when too many endpoints were appended for insertion sort.
+
+        /**
+         * Appends the endpoints of bodies {@code from} to {@code to - 1}.
+         * They are moved into place by the next sort.
+         */
+        void add(int from, int to) {
+            int needed = 2 * to;
+            if (endpoints.length < needed) {
+                int capacity = Math.max(needed, endpoints.length * 2);
+                int[] grownEndpoints = new int[capacity];
+                System.arraycopy(endpoints, 0, grownEndpoints, 0, size);
+                endpoints = grownEndpoints;
+                values = new float[capacity];
+            }
+            if (to - from > INCREMENTAL_ADD_LIMIT) {
+                fullSort = true;
+            }
+            for (int body = from; body < to; body++) {
+                endpoints[size++] = body << 1;
+                endpoints[size++] = (body << 1) | 1;
+            }
+        }
+
+        /**
+         * Removes the endpoints of bodies {@code bodies} and above, keeping the others in order.
+         */
+        void prune(int bodies) {
+            int kept = 0;
+            for (int k = 0; k < size; k++) {
+                if (endpoints[k] >>> 1 < bodies) {
+                    endpoints[kept++] = endpoints[k];
+                }
+            }
+            size = kept;
+        }
+
+        /**
+         * Refreshes the endpoint values from the current bounds and restores sorted order.
+         * At equal values a minimum sorts before a maximum, so touching boxes overlap.
+         */
+        void sort(float[] min, float[] max) {
+            for (int k = 0; k < size; k++) {
+                int endpoint = endpoints[k];
+                // Adding 0 turns -0.0 into 0.0 so both sorts agree on ties.
+                values[k] = ((endpoint & 1) == 0 ? min[endpoint >>> 1] : max[endpoint >>> 1]) + 0.0f;
+            }
+            if (fullSort) {
+                sortFully();
+                fullSort = false;
+                return;
+            }
+            for (int k = 1; k < size; k++) {
+                int endpoint = endpoints[k];
+                float value = values[k];
+                int j = k - 1;
+                while (j >= 0 && (values[j] > value
+                        || (values[j] == value && (endpoints[j] & 1) == 1 && (endpoint & 1) == 0))) {
+                    endpoints[j + 1] = endpoints[j];
+                    values[j + 1] = values[j];
+                    j--;
+                }
+                endpoints[j + 1] = endpoint;
+                values[j + 1] = value;
+            }
+        }
+
+        /**
+         * Sorts all endpoints from scratch by packing value, kind and body into one long key, and
+         * sorting the keys with a radix sort over preallocated buffers so a full sort never allocates.
+         */
+        private void sortFully() {
+            if (keys.length < size) {
+                keys = new long[endpoints.length];
+                scratch = new long[endpoints.length];
+            }
+            int orBody = 0;
+            for (int k = 0; k < size; k++) {
+                orBody |= endpoints[k] >>> 1;
+            }
+            int bodyBits = 32 - Integer.numberOfLeadingZeros(orBody);
+            for (int k = 0; k < size; k++) {
+                int bits = Float.floatToIntBits(values[k]);
+                bits ^= (bits >> 31) & 0x7fffffff; // Makes the bits order like the float values.
+                bits ^= Integer.MIN_VALUE; // And unsigned, as the radix sort compares them.
+                int endpoint = endpoints[k];
+                keys[k] = ((bits & 0xffffffffL) << (bodyBits + 1)) | ((long) (endpoint & 1) << bodyBits)
+                        | (endpoint >>> 1);
+            }
+
+            long[] source = keys;
+            long[] target = scratch;
+            int mask = (1 << RADIX_BITS) - 1;
+            for (int shift = 0; shift < bodyBits + 33; shift += RADIX_BITS) {
+                Arrays.fill(counts, 0);
+                for (int k = 0; k < size; k++) {
+                    counts[(int) (source[k] >>> shift) & mask]++;
+                }
+                int offset = 0;
+                for (int digit = 0; digit <= mask; digit++) {
+                    int count = counts[digit];
+                    counts[digit] = offset;
+                    offset += count;
+                }
+                for (int k = 0; k < size; k++) {
+                    long key = source[k];
+                    target[counts[(int) (key >>> shift) & mask]++] = key;
+                }
+                long[] swap = source;
+                source = target;
+                target = swap;
+            }
+            keys = source;
+            scratch = target;
+
+            long bodyMask = (1L << bodyBits) - 1;
+            for (int k = 0; k < size; k++) {
+                long key = keys[k];
+                endpoints[k] = (int) (key & bodyMask) << 1 | (int) ((key >>> bodyBits) & 1);
+            }
+        }
+
+        /**
+         * Removes every endpoint.
+         */
+        void clear() {
+            size = 0;
+            fullSort = false;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.myproject.physics;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Receives sampled body states from a {@link HeadlessRunner}, typically to write them to a file.
+ * Samples arrive in step order from a single thread; closing the sink flushes whatever it buffered.
+ */
+public interface TrajectorySink extends Closeable {
+
+    /**
+     * Records the state of every body at one step.
+     * The snapshot is reused for later samples, so its contents must be copied, not kept.
+     *
+     * @param snapshot The state of the world, whose {@link StateSnapshot#getStep()} is the step number.
+     * @throws IOException If the sample cannot be written.
+     */
+    void write(StateSnapshot snapshot) throws IOException;
+}
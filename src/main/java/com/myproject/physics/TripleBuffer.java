@@ -0,0 +1,139 @@
+package com.myproject.physics;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.Supplier;
+
+/**
+ * Three preallocated slots handed from one writer thread to any number of reader threads without
+ * locks. The writer fills a slot that is neither the latest published one nor held by a reader,
+ * then publishes it by swapping the index of the latest slot. A reader acquires the latest slot by
+ * counting itself in and checking that the slot is still the latest, which only fails if a publish
+ * happened in between; it reads the slot in place, and the writer never touches a slot while a
+ * reader holds it.
+ *
+ * With a single reader a free slot always exists. When several readers hold the two slots that
+ * are not the latest, the writer skips the publish rather than wait.
+ *
+ * @param <T> The type of the slots.
+ */
+final class TripleBuffer<T> {
+
+    private final Object[] slots = new Object[3];
+    private final AtomicIntegerArray readers = new AtomicIntegerArray(3); // Readers holding each slot.
+    private final AtomicInteger latest = new AtomicInteger(-1); // The latest published slot, or -1.
+    private int writing = -1; // The slot being filled by the writer, or -1.
+    private volatile long publishedCount; // Slots published, written by the writer only.
+    private volatile long skippedCount; // Publishes skipped for lack of a free slot, written by the writer only.
+
+    /**
+     * Constructs a buffer.
+     *
+     * @param factory Creates each of the three slots.
+     */
+    TripleBuffer(Supplier<T> factory) {
+        for (int k = 0; k < slots.length; k++) {
+            slots[k] = factory.get();
+        }
+    }
+
+    /**
+     * Claims a free slot for the writer to fill. Only the writer thread calls this.
+     *
+     * @return The slot, or null if every slot is the latest or held by a reader.
+     */
+    @SuppressWarnings("unchecked")
+    T beginWrite() {
+        int current = latest.get();
+        for (int k = 0; k < slots.length; k++) {
+            if (k != current && readers.get(k) == 0) {
+                writing = k;
+                return (T) slots[k];
+            }
+        }
+        writing = -1;
+        skippedCount++;
+        return null;
+    }
+
+    /**
+     * Makes the slot claimed by {@link #beginWrite()} the latest one.
+     */
+    void publish() {
+        if (writing < 0) {
+            throw new IllegalStateException("No slot is being written");
+        }
+        latest.set(writing);
+        writing = -1;
+        publishedCount++;
+    }
+
+    /**
+     * Acquires the latest published slot for reading.
+     *
+     * @return The index of the slot, or -1 if nothing was published yet.
+     */
+    int acquire() {
+        while (true) {
+            int k = latest.get();
+            if (k < 0) return -1;
+            readers.incrementAndGet(k);
+            if (latest.get() == k) return k;
+            readers.decrementAndGet(k);
+        }
+    }
+
+    /**
+     * Gets a slot.
+     *
+     * @param index The index of the slot.
+     * @return The slot.
+     */
+    @SuppressWarnings("unchecked")
+    T get(int index) {
+        return (T) slots[index];
+    }
+
+    /**
+     * Finds the index of a slot.
+     *
+     * @param slot The slot.
+     * @return The index, or -1 if the slot does not belong to this buffer.
+     */
+    int indexOf(Object slot) {
+        for (int k = 0; k < slots.length; k++) {
+            if (slots[k] == slot) return k;
+        }
+        return -1;
+    }
+
+    /**
+     * Releases a slot acquired by {@link #acquire()}.
+     *
+     * @param index The index of the slot.
+     */
+    void release(int index) {
+        if (readers.decrementAndGet(index) < 0) {
+            readers.incrementAndGet(index);
+            throw new IllegalStateException("Slot was not acquired");
+        }
+    }
+
+    /**
+     * Gets the number of slots published so far.
+     *
+     * @return The published count.
+     */
+    long getPublishedCount() {
+        return publishedCount;
+    }
+
+    /**
+     * Gets the number of publishes skipped because readers held every free slot.
+     *
+     * @return The skipped count.
+     */
+    long getSkippedCount() {
+        return skippedCount;
+    }
+}
@@ -57,6 +57,80 @@ public class Vector2D {
         return new Vector2D(this.x * scalar, this.y * scalar);
     }
 
+    /**
+     * Sets both components of this vector.
+     *
+     * @param x The new x-component.
+     * @param y The new y-component.
+     * @return This vector, for chaining.
+     */
+    public Vector2D set(float x, float y) {
+        this.x = x;
+        this.y = y;
+        return this;
+    }
+
+    /**
+     * Copies the components of another vector into this vector.
+     *
+     * @param v The vector to copy.
+     * @return This vector, for chaining.
+     */
+    public Vector2D set(Vector2D v) {
+        this.x = v.x;
+        this.y = v.y;
+        return this;
+    }
+
+    /**
+     * Adds another vector to this vector in place.
+     *
+     * @param v The vector to add.
+     * @return This vector, for chaining.
+     */
+    public Vector2D addLocal(Vector2D v) {
+        this.x += v.x;
+        this.y += v.y;
+        return this;
+    }
+
+    /**
+     * Subtracts another vector from this vector in place.
+     *
+     * @param v The vector to subtract.
+     * @return This vector, for chaining.
+     */
+    public Vector2D subtractLocal(Vector2D v) {
+        this.x -= v.x;
+        this.y -= v.y;
+        return this;
+    }
+
+    /**
+     * Multiplies this vector by a scalar in place.
+     *
+     * @param scalar The scalar to multiply by.
+     * @return This vector, for chaining.
+     */
+    public Vector2D multiplyLocal(float scalar) {
+        this.x *= scalar;
+        this.y *= scalar;
+        return this;
+    }
+
+    /**
+     * Adds a scaled vector to this vector in place, computing {@code this + v * scalar}.
+     *
+     * @param scalar The scalar to multiply {@code v} by.
+     * @param v      The vector to scale and add.
+     * @return This vector, for chaining.
+     */
+    public Vector2D scaleAdd(float scalar, Vector2D v) {
+        this.x += v.x * scalar;
+        this.y += v.y * scalar;
+        return this;
+    }
+
     /**
      * Computes the dot product of this vector and another vector.
      *
@@ -0,0 +1,618 @@
+package com.myproject.physics;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * The complete state of a {@link PhysicsWorld}: every body column, the solver settings, the sleep
+ * settings, the step count and the impulses cached for warm starting. A world restored from a
+ * checkpoint takes exactly the same next step, bit for bit, as the world it was captured from.
+ *
+ * Capturing ({@link PhysicsWorld#checkpoint}) only copies arrays, so it costs about as much as a
+ * memory copy of the world and can run between steps without holding them up. The slower file
+ * write can then happen on any thread, while the world keeps stepping:
+ * <pre>
+ * loop.invokeLater(() -&gt; world.checkpoint(checkpoint)); // On the simulation thread.
+ * checkpoint.write(file);                                // Later, on a background thread.
+ * </pre>
+ * A checkpoint can be refilled over and over without allocating once its arrays are large enough.
+ *
+ * Files are written and read through a memory-mapped {@link FileChannel}, each column as one bulk
+ * copy. The layout is little-endian: a {@value #HEADER_BYTES}-byte header starting with
+ * {@link #MAGIC} and {@link #VERSION}, then the cached impulse keys, the float and int columns,
+ * the free handle slots in reuse order, the cached impulse values, the handle generations, the
+ * byte columns, and the vertices of every polygon body in storage order. Files of another version
+ * are rejected.
+ */
+public final class WorldCheckpoint {
+
+    /**
+     * The first four bytes of every file, "PWCK" in ASCII when read as a little-endian int.
+     */
+    public static final int MAGIC = 0x4B435750;
+
+    /**
+     * The version of the file format.
+     */
+    public static final int VERSION = 8;
+
+    static final int HEADER_BYTES = 72;
+    private static final int FLAG_WARM_STARTING = 1;
+    private static final int FLAG_SLEEPING = 2;
+    private static final int FLAG_SYNC_VIEWS = 4;
+    private static final int FLAG_CONTINUOUS = 8;
+
+    // World and solver settings.
+    int count; // The number of bodies.
+    int slotCount; // The number of handle slots, live or free.
+    int polygonCount; // The number of polygon bodies.
+    long stepCount; // The number of steps taken.
+    float gravityX;
+    float gravityY;
+    float restitution;
+    float restitutionThreshold;
+    int iterations;
+    int positionIterations;
+    boolean warmStarting;
+    boolean sleepingEnabled;
+    boolean syncViews;
+    boolean continuousCollision;
+    float sleepVelocity;
+    float timeToSleep;
+    int reorderInterval;
+
+    // Body columns, indexed like the store.
+    private float[] posX = new float[0];
+    private float[] posY = new float[0];
+    private float[] velX = new float[0];
+    private float[] velY = new float[0];
+    private float[] forceX = new float[0];
+    private float[] forceY = new float[0];
+    private float[] rotCos = new float[0];
+    private float[] rotSin = new float[0];
+    private float[] angVel = new float[0];
+    private float[] torque = new float[0];
+    private float[] invMass = new float[0];
+    private float[] invInertia = new float[0];
+    private float[] radius = new float[0];
+    private float[] halfX = new float[0];
+    private float[] halfY = new float[0];
+    private float[] sleepTime = new float[0];
+    private int[] handleOf = new int[0];
+    private int[] category = new int[0];
+    private int[] mask = new int[0];
+    private int[] shape = new int[0];
+    private boolean[] awake = new boolean[0];
+    private byte[] flags = new byte[0];
+    private ConvexPolygon[] polygon = new ConvexPolygon[0]; // Shared with the world: polygons never change.
+
+    // Handle slots: the generation of each, and the free ones in reuse order.
+    private short[] generation = new short[0];
+    private int[] freeSlots = new int[0];
+
+    // Impulses cached by the solver, by body pair.
+    private int cacheSize;
+    private long[] cacheKeys = new long[0];
+    private float[] cacheValues = new float[0];
+
+    /**
+     * Constructs an empty checkpoint, to be filled by {@link PhysicsWorld#checkpoint} or {@link #read}.
+     */
+    public WorldCheckpoint() {
+    }
+
+    /**
+     * Copies the state of a world.
+     *
+     * @param world  The world, for its settings.
+     * @param store  The body storage of the world.
+     * @param solver The contact solver of the world.
+     */
+    void copyFrom(PhysicsWorld world, BodyStore store, ContactSolver solver) {
+        int n = store.count;
+        ensureCapacity(n);
+        count = n;
+        slotCount = store.slotCount();
+        stepCount = world.getStepCount();
+        gravityX = store.gravityX;
+        gravityY = store.gravityY;
+        restitution = solver.restitution;
+        restitutionThreshold = solver.restitutionThreshold;
+        iterations = solver.iterations;
+        positionIterations = solver.positionIterations;
+        warmStarting = solver.warmStarting;
+        sleepingEnabled = world.isSleepingEnabled();
+        syncViews = world.isSyncViews();
+        continuousCollision = world.isContinuousCollision();
+        sleepVelocity = world.getSleepVelocity();
+        timeToSleep = world.getTimeToSleep();
+        reorderInterval = world.getReorderInterval();
+
+        System.arraycopy(store.posX, 0, posX, 0, n);
+        System.arraycopy(store.posY, 0, posY, 0, n);
+        System.arraycopy(store.velX, 0, velX, 0, n);
+        System.arraycopy(store.velY, 0, velY, 0, n);
+        System.arraycopy(store.forceX, 0, forceX, 0, n);
+        System.arraycopy(store.forceY, 0, forceY, 0, n);
+        System.arraycopy(store.rotCos, 0, rotCos, 0, n);
+        System.arraycopy(store.rotSin, 0, rotSin, 0, n);
+        System.arraycopy(store.angVel, 0, angVel, 0, n);
+        System.arraycopy(store.torque, 0, torque, 0, n);
+        System.arraycopy(store.invMass, 0, invMass, 0, n);
+        System.arraycopy(store.invInertia, 0, invInertia, 0, n);
+        System.arraycopy(store.radius, 0, radius, 0, n);
+        System.arraycopy(store.halfX, 0, halfX, 0, n);
+        System.arraycopy(store.halfY, 0, halfY, 0, n);
+        System.arraycopy(store.sleepTime, 0, sleepTime, 0, n);
+        System.arraycopy(store.handleOf, 0, handleOf, 0, n);
+        System.arraycopy(store.category, 0, category, 0, n);
+        System.arraycopy(store.mask, 0, mask, 0, n);
+        System.arraycopy(store.shape, 0, shape, 0, n);
+        System.arraycopy(store.awake, 0, awake, 0, n);
+        System.arraycopy(store.flags, 0, flags, 0, n);
+        System.arraycopy(store.polygon, 0, polygon, 0, n);
+        polygonCount = 0;
+        for (int i = 0; i < n; i++) {
+            if (shape[i] == BodyStore.POLYGON) polygonCount++;
+        }
+        ensureSlotCapacity(slotCount);
+        System.arraycopy(store.generation, 0, generation, 0, slotCount);
+        store.copyFreeSlots(freeSlots);
+
+        ensureCacheCapacity(solver.cache.size());
+        cacheSize = solver.cache.copyTo(cacheKeys, cacheValues);
+    }
+
+    /**
+     * Writes the bodies and cached impulses into the storage and solver of a new world.
+     *
+     * @param store  The empty body storage.
+     * @param solver The contact solver.
+     */
+    void copyTo(BodyStore store, ContactSolver solver) {
+        int n = count;
+        store.beginRestore(n, slotCount);
+        store.gravityX = gravityX;
+        store.gravityY = gravityY;
+        System.arraycopy(posX, 0, store.posX, 0, n);
+        System.arraycopy(posY, 0, store.posY, 0, n);
+        System.arraycopy(velX, 0, store.velX, 0, n);
+        System.arraycopy(velY, 0, store.velY, 0, n);
+        System.arraycopy(forceX, 0, store.forceX, 0, n);
+        System.arraycopy(forceY, 0, store.forceY, 0, n);
+        System.arraycopy(rotCos, 0, store.rotCos, 0, n);
+        System.arraycopy(rotSin, 0, store.rotSin, 0, n);
+        System.arraycopy(angVel, 0, store.angVel, 0, n);
+        System.arraycopy(torque, 0, store.torque, 0, n);
+        System.arraycopy(invMass, 0, store.invMass, 0, n);
+        System.arraycopy(invInertia, 0, store.invInertia, 0, n);
+        System.arraycopy(radius, 0, store.radius, 0, n);
+        System.arraycopy(halfX, 0, store.halfX, 0, n);
+        System.arraycopy(halfY, 0, store.halfY, 0, n);
+        System.arraycopy(sleepTime, 0, store.sleepTime, 0, n);
+        System.arraycopy(handleOf, 0, store.handleOf, 0, n);
+        System.arraycopy(category, 0, store.category, 0, n);
+        System.arraycopy(mask, 0, store.mask, 0, n);
+        System.arraycopy(shape, 0, store.shape, 0, n);
+        System.arraycopy(awake, 0, store.awake, 0, n);
+        System.arraycopy(flags, 0, store.flags, 0, n);
+        System.arraycopy(polygon, 0, store.polygon, 0, n);
+        System.arraycopy(generation, 0, store.generation, 0, slotCount);
+        store.endRestore(freeSlots);
+
+        solver.restitution = restitution;
+        solver.restitutionThreshold = restitutionThreshold;
+        solver.iterations = iterations;
+        solver.positionIterations = positionIterations;
+        solver.warmStarting = warmStarting;
+        solver.cache.clear();
+        for (int k = 0; k < cacheSize; k++) {
+            solver.cache.put(cacheKeys[k], cacheValues[k]);
+        }
+    }
+
+    /**
+     * Builds a new world in the captured state, using a spatial hash grid broad phase.
+     *
+     * @return The world.
+     */
+    public PhysicsWorld restore() {
+        return restore(new SpatialHashGrid());
+    }
+
+    /**
+     * Builds a new world in the captured state. The broad phase does not change the results.
+     * The world gets fresh {@link Rigidbody} and {@link Collider} views with the captured handles.
+     *
+     * @param broadPhase The broad phase of the new world.
+     * @return The world.
+     */
+    public PhysicsWorld restore(BroadPhase broadPhase) {
+        PhysicsWorld world = new PhysicsWorld(broadPhase);
+        world.restore(this);
+        return world;
+    }
+
+    /**
+     * Gets the number of bodies in the checkpoint.
+     *
+     * @return The number of bodies.
+     */
+    public int getBodyCount() {
+        return count;
+    }
+
+    /**
+     * Gets the number of steps the world had taken when it was captured.
+     *
+     * @return The step count.
+     */
+    public long getStepCount() {
+        return stepCount;
+    }
+
+    /**
+     * Gets the size of the file this checkpoint writes.
+     *
+     * @return The size, in bytes.
+     */
+    public long getFileSize() {
+        return fileSize(count, slotCount, cacheSize, polygonCount);
+    }
+
+    /**
+     * Computes the size of the file of a checkpoint.
+     */
+    private static long fileSize(int count, int slotCount, int cacheSize, int polygonCount) {
+        return HEADER_BYTES + (long) cacheSize * Long.BYTES
+                + (long) count * (16 * Float.BYTES + 3 * Integer.BYTES + 3)
+                + (long) (slotCount - count) * Integer.BYTES
+                + (long) cacheSize * Float.BYTES
+                + (long) slotCount * Short.BYTES
+                + (long) polygonCount * ConvexPolygon.BYTES;
+    }
+
+    /**
+     * Writes the checkpoint to a file, replacing its contents. The checkpoint must not be refilled
+     * while it is being written.
+     *
+     * @param file The file to write.
+     * @throws IOException If the file cannot be written.
+     */
+    public void write(Path file) throws IOException {
+        long size = getFileSize();
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Checkpoint larger than 2 GiB");
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            writeTo(buffer);
+        }
+    }
+
+    /**
+     * Writes the checkpoint in the file format at the position of a buffer, and advances the position.
+     *
+     * @param buffer The buffer, with at least {@link #getFileSize()} bytes remaining.
+     */
+    void writeTo(ByteBuffer buffer) {
+        ByteOrder order = buffer.order();
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        int start = buffer.position();
+        int settings = (warmStarting ? FLAG_WARM_STARTING : 0) | (sleepingEnabled ? FLAG_SLEEPING : 0)
+                | (syncViews ? FLAG_SYNC_VIEWS : 0) | (continuousCollision ? FLAG_CONTINUOUS : 0);
+        buffer.putInt(MAGIC).putInt(VERSION)
+                .putInt(count).putInt(slotCount).putInt(cacheSize).putInt(settings)
+                .putLong(stepCount)
+                .putFloat(gravityX).putFloat(gravityY)
+                .putFloat(restitution).putFloat(restitutionThreshold)
+                .putInt(iterations).putInt(positionIterations)
+                .putFloat(sleepVelocity).putFloat(timeToSleep)
+                .putInt(reorderInterval).putInt(polygonCount);
+        buffer.position(start + HEADER_BYTES);
+
+        putLongs(buffer, cacheKeys, cacheSize);
+        putFloats(buffer, posX, count);
+        putFloats(buffer, posY, count);
+        putFloats(buffer, velX, count);
+        putFloats(buffer, velY, count);
+        putFloats(buffer, forceX, count);
+        putFloats(buffer, forceY, count);
+        putFloats(buffer, rotCos, count);
+        putFloats(buffer, rotSin, count);
+        putFloats(buffer, angVel, count);
+        putFloats(buffer, torque, count);
+        putFloats(buffer, invMass, count);
+        putFloats(buffer, invInertia, count);
+        putFloats(buffer, radius, count);
+        putFloats(buffer, halfX, count);
+        putFloats(buffer, halfY, count);
+        putFloats(buffer, sleepTime, count);
+        putInts(buffer, handleOf, count);
+        putInts(buffer, category, count);
+        putInts(buffer, mask, count);
+        putInts(buffer, freeSlots, slotCount - count);
+        putFloats(buffer, cacheValues, cacheSize);
+        putShorts(buffer, generation, slotCount);
+        for (int i = 0; i < count; i++) {
+            buffer.put((byte) shape[i]);
+        }
+        for (int i = 0; i < count; i++) {
+            buffer.put((byte) (awake[i] ? 1 : 0));
+        }
+        buffer.put(flags, 0, count);
+        for (int i = 0; i < count; i++) {
+            if (shape[i] == BodyStore.POLYGON) {
+                polygon[i].write(buffer);
+            }
+        }
+        buffer.order(order);
+    }
+
+    /**
+     * Reads a checkpoint from a file, replacing the contents of this one.
+     *
+     * @param file The file to read.
+     * @throws IOException If the file cannot be read or is not a checkpoint of this version.
+     */
+    public void read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES || size > Integer.MAX_VALUE) {
+                throw new IOException("Not a world checkpoint: " + file);
+            }
+            readFrom(channel.map(FileChannel.MapMode.READ_ONLY, 0, size), file.toString());
+        }
+    }
+
+    /**
+     * Reads a checkpoint in the file format from the remaining bytes of a buffer, replacing the
+     * contents of this one.
+     *
+     * @param buffer The buffer, holding exactly one checkpoint between its position and limit.
+     * @param source The name of the data, for error messages.
+     * @throws IOException If the data is not a checkpoint of this version.
+     */
+    void readFrom(ByteBuffer buffer, String source) throws IOException {
+        long size = buffer.remaining();
+        int start = buffer.position();
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (size < HEADER_BYTES || buffer.getInt() != MAGIC) {
+            throw new IOException("Not a world checkpoint: " + source);
+        }
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported checkpoint version " + version + ": " + source);
+        }
+        int n = buffer.getInt();
+        int slots = buffer.getInt();
+        int cached = buffer.getInt();
+        int settings = buffer.getInt();
+        int polygons = buffer.getInt(start + 68);
+        if (n < 0 || slots < n || slots > BodyStore.SLOT_MASK + 1 || cached < 0 || polygons < 0 || polygons > n) {
+            throw new IOException("Corrupt world checkpoint: " + source);
+        }
+        // Checked before growing any array, so a corrupt count cannot ask for a huge one.
+        if (size != fileSize(n, slots, cached, polygons)) {
+            throw new IOException("Truncated world checkpoint: " + source);
+        }
+        ensureCapacity(n);
+        ensureCacheCapacity(cached);
+        ensureSlotCapacity(slots);
+        count = n;
+        slotCount = slots;
+        cacheSize = cached;
+        polygonCount = polygons;
+        warmStarting = (settings & FLAG_WARM_STARTING) != 0;
+        sleepingEnabled = (settings & FLAG_SLEEPING) != 0;
+        syncViews = (settings & FLAG_SYNC_VIEWS) != 0;
+        continuousCollision = (settings & FLAG_CONTINUOUS) != 0;
+        stepCount = buffer.getLong();
+        gravityX = buffer.getFloat();
+        gravityY = buffer.getFloat();
+        restitution = buffer.getFloat();
+        restitutionThreshold = buffer.getFloat();
+        iterations = buffer.getInt();
+        positionIterations = buffer.getInt();
+        sleepVelocity = buffer.getFloat();
+        timeToSleep = buffer.getFloat();
+        reorderInterval = buffer.getInt();
+        if (reorderInterval < 0) {
+            throw new IOException("Corrupt world checkpoint: " + source);
+        }
+        buffer.position(start + HEADER_BYTES);
+
+        getLongs(buffer, cacheKeys, cacheSize);
+        getFloats(buffer, posX, count);
+        getFloats(buffer, posY, count);
+        getFloats(buffer, velX, count);
+        getFloats(buffer, velY, count);
+        getFloats(buffer, forceX, count);
+        getFloats(buffer, forceY, count);
+        getFloats(buffer, rotCos, count);
+        getFloats(buffer, rotSin, count);
+        getFloats(buffer, angVel, count);
+        getFloats(buffer, torque, count);
+        getFloats(buffer, invMass, count);
+        getFloats(buffer, invInertia, count);
+        getFloats(buffer, radius, count);
+        getFloats(buffer, halfX, count);
+        getFloats(buffer, halfY, count);
+        getFloats(buffer, sleepTime, count);
+        getInts(buffer, handleOf, count);
+        getInts(buffer, category, count);
+        getInts(buffer, mask, count);
+        getInts(buffer, freeSlots, slotCount - count);
+        getFloats(buffer, cacheValues, cacheSize);
+        getShorts(buffer, generation, slotCount);
+        for (int i = 0; i < count; i++) {
+            shape[i] = buffer.get();
+        }
+        for (int i = 0; i < count; i++) {
+            awake[i] = buffer.get() != 0;
+        }
+        buffer.get(flags, 0, count);
+        int polygonsLeft = polygonCount;
+        for (int i = 0; i < count; i++) {
+            if (handleOf[i] < 0 || (handleOf[i] & BodyStore.SLOT_MASK) >= slotCount || shape[i] < 0
+                    || shape[i] >= Collider.Type.values().length) {
+                throw new IOException("Corrupt world checkpoint: " + source);
+            }
+            polygon[i] = null;
+            if (shape[i] != BodyStore.POLYGON) continue;
+            if (polygonsLeft-- == 0) {
+                throw new IOException("Corrupt world checkpoint: " + source);
+            }
+            try {
+                polygon[i] = ConvexPolygon.read(buffer);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Corrupt world checkpoint: " + source, e);
+            }
+        }
+        if (polygonsLeft != 0) {
+            throw new IOException("Corrupt world checkpoint: " + source);
+        }
+        // Every slot must hold exactly one body, under the handle of its current generation, or be free.
+        boolean[] taken = new boolean[slotCount];
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (generation[slot] >>> BodyStore.GENERATION_BITS != 0) {
+                throw new IOException("Corrupt world checkpoint: " + source);
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            int slot = handleOf[i] & BodyStore.SLOT_MASK;
+            if (taken[slot] || handleOf[i] >>> BodyStore.SLOT_BITS != generation[slot]) {
+                throw new IOException("Corrupt world checkpoint: " + source);
+            }
+            taken[slot] = true;
+        }
+        for (int k = 0; k < slotCount - count; k++) {
+            if (freeSlots[k] < 0 || freeSlots[k] >= slotCount || taken[freeSlots[k]]) {
+                throw new IOException("Corrupt world checkpoint: " + source);
+            }
+            taken[freeSlots[k]] = true;
+        }
+    }
+
+    /**
+     * Copies floats into a buffer at its position as one bulk copy, and advances the position.
+     */
+    private static void putFloats(ByteBuffer buffer, float[] values, int n) {
+        buffer.asFloatBuffer().put(values, 0, n);
+        buffer.position(buffer.position() + n * Float.BYTES);
+    }
+
+    /**
+     * Copies ints into a buffer at its position as one bulk copy, and advances the position.
+     */
+    private static void putInts(ByteBuffer buffer, int[] values, int n) {
+        buffer.asIntBuffer().put(values, 0, n);
+        buffer.position(buffer.position() + n * Integer.BYTES);
+    }
+
+    /**
+     * Copies shorts into a buffer at its position as one bulk copy, and advances the position.
+     */
+    private static void putShorts(ByteBuffer buffer, short[] values, int n) {
+        buffer.asShortBuffer().put(values, 0, n);
+        buffer.position(buffer.position() + n * Short.BYTES);
+    }
+
+    /**
+     * Copies longs into a buffer at its position as one bulk copy, and advances the position.
+     */
+    private static void putLongs(ByteBuffer buffer, long[] values, int n) {
+        buffer.asLongBuffer().put(values, 0, n);
+        buffer.position(buffer.position() + n * Long.BYTES);
+    }
+
+    /**
+     * Copies floats out of a buffer at its position as one bulk copy, and advances the position.
+     */
+    private static void getFloats(ByteBuffer buffer, float[] values, int n) {
+        buffer.asFloatBuffer().get(values, 0, n);
+        buffer.position(buffer.position() + n * Float.BYTES);
+    }
+
+    /**
+     * Copies ints out of a buffer at its position as one bulk copy, and advances the position.
+     */
+    private static void getInts(ByteBuffer buffer, int[] values, int n) {
+        buffer.asIntBuffer().get(values, 0, n);
+        buffer.position(buffer.position() + n * Integer.BYTES);
+    }
+
+    /**
+     * Copies shorts out of a buffer at its position as one bulk copy, and advances the position.
+     */
+    private static void getShorts(ByteBuffer buffer, short[] values, int n) {
+        buffer.asShortBuffer().get(values, 0, n);
+        buffer.position(buffer.position() + n * Short.BYTES);
+    }
+
+    /**
+     * Copies longs out of a buffer at its position as one bulk copy, and advances the position.
+     */
+    private static void getLongs(ByteBuffer buffer, long[] values, int n) {
+        buffer.asLongBuffer().get(values, 0, n);
+        buffer.position(buffer.position() + n * Long.BYTES);
+    }
+
+    /**
+     * Grows the body columns to hold at least the given number of bodies.
+     */
+    private void ensureCapacity(int n) {
+        if (posX.length >= n) return;
+        int capacity = Math.max(n, posX.length * 2);
+        posX = Arrays.copyOf(posX, capacity);
+        posY = Arrays.copyOf(posY, capacity);
+        velX = Arrays.copyOf(velX, capacity);
+        velY = Arrays.copyOf(velY, capacity);
+        forceX = Arrays.copyOf(forceX, capacity);
+        forceY = Arrays.copyOf(forceY, capacity);
+        rotCos = Arrays.copyOf(rotCos, capacity);
+        rotSin = Arrays.copyOf(rotSin, capacity);
+        angVel = Arrays.copyOf(angVel, capacity);
+        torque = Arrays.copyOf(torque, capacity);
+        invMass = Arrays.copyOf(invMass, capacity);
+        invInertia = Arrays.copyOf(invInertia, capacity);
+        radius = Arrays.copyOf(radius, capacity);
+        halfX = Arrays.copyOf(halfX, capacity);
+        halfY = Arrays.copyOf(halfY, capacity);
+        sleepTime = Arrays.copyOf(sleepTime, capacity);
+        handleOf = Arrays.copyOf(handleOf, capacity);
+        category = Arrays.copyOf(category, capacity);
+        mask = Arrays.copyOf(mask, capacity);
+        shape = Arrays.copyOf(shape, capacity);
+        awake = Arrays.copyOf(awake, capacity);
+        flags = Arrays.copyOf(flags, capacity);
+        polygon = Arrays.copyOf(polygon, capacity);
+    }
+
+    /**
+     * Grows the slot arrays to hold at least the given number of slots.
+     */
+    private void ensureSlotCapacity(int n) {
+        if (generation.length >= n) return;
+        int capacity = Math.max(n, generation.length * 2);
+        generation = Arrays.copyOf(generation, capacity);
+        freeSlots = Arrays.copyOf(freeSlots, capacity);
+    }
+
+    /**
+     * Grows the cache arrays to hold at least the given number of entries.
+     */
+    private void ensureCacheCapacity(int n) {
+        if (cacheKeys.length >= n) return;
+        int capacity = Math.max(n, cacheKeys.length * 2);
+        cacheKeys = Arrays.copyOf(cacheKeys, capacity);
+        cacheValues = Arrays.copyOf(cacheValues, capacity);
+    }
+}
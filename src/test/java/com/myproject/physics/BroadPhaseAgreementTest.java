@@ -0,0 +1,72 @@
+package com.myproject.physics;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that every broad phase gives the same results as the brute-force one, while bodies are
+ * added and removed every few steps, so the state they keep between steps is patched for removals
+ * and additions over and over.
+ */
+class BroadPhaseAgreementTest {
+
+    private static final int BODIES = 400;
+    private static final int STEPS = 300;
+
+    static Stream<Arguments> broadPhases() {
+        return Stream.of(
+                Arguments.of("SweepAndPrune", (Supplier<BroadPhase>) SweepAndPrune::new),
+                Arguments.of("DynamicAABBTree", (Supplier<BroadPhase>) DynamicAABBTree::new),
+                Arguments.of("SpatialHashGrid", (Supplier<BroadPhase>) SpatialHashGrid::new));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("broadPhases")
+    void matchesBruteForceUnderChurn(String name, Supplier<BroadPhase> broadPhase) {
+        Churn expected = new Churn(new BruteForceBroadPhase());
+        Churn actual = new Churn(broadPhase.get());
+        for (int step = 0; step < STEPS; step++) {
+            expected.step(step);
+            actual.step(step);
+            assertEquals(expected.world.stateHash(), actual.world.stateHash(), "Diverged at step " + step);
+        }
+    }
+
+    /**
+     * A scene that spawns bodies and despawns random ones every few steps.
+     */
+    private static final class Churn {
+        final PhysicsWorld world;
+        private final Random rand = new Random(21);
+        private final List<Integer> spawned = new ArrayList<>();
+
+        Churn(BroadPhase broadPhase) {
+            world = TestScenes.mixed(broadPhase, BODIES, 13);
+        }
+
+        void step(int step) {
+            if (step % 2 == 0) {
+                spawned.add(TestScenes.addBody(world, rand, step % 3, 4));
+            }
+            // Removals move the last body into the removed one's index, often one the broad phase
+            // has not seen yet.
+            if (step % 3 == 0 && !spawned.isEmpty()) {
+                world.removeRigidbody(spawned.remove(rand.nextInt(spawned.size())));
+            }
+            if (step % 5 == 0 && spawned.size() > 1) {
+                world.removeRigidbody(spawned.remove(0));
+                world.removeRigidbody(spawned.remove(spawned.size() - 1));
+            }
+            world.update(TestScenes.DT);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.myproject.physics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Checks the contact events of bodies that fall asleep or are removed.
+ */
+class ContactTrackerTest {
+
+    private static final float DT = 1 / 60.0f;
+
+    @Test
+    void removedSleepingBodyEndsItsContactWhenItsSlotIsReused() {
+        PhysicsWorld world = new PhysicsWorld();
+        world.setGravity(0, -9.8f);
+        ContactEvents events = new ContactEvents(64);
+        world.setContactEvents(events);
+        int ground = world.addRigidbody(new Rigidbody(0.0f),
+                new Collider(Collider.Type.AABB, new Vector2D(0, 0), new Vector2D(10, 0.5f)));
+        Rigidbody box = new Rigidbody(1.0f);
+        box.setPosition(0, 0.7f);
+        int handle = world.addRigidbody(box, new Collider(Collider.Type.AABB, new Vector2D(0, 0.7f), new Vector2D(0.2f, 0.2f)));
+        for (int i = 0; i < 300; i++) {
+            world.update(DT);
+        }
+        assertFalse(box.isAwake(), "The box should have fallen asleep on the ground");
+        events.drain(new Counter());
+
+        // A static body far away takes the slot of the removed box, and is not awake either.
+        world.removeRigidbody(handle);
+        Rigidbody post = new Rigidbody(0.0f);
+        post.setPosition(5, 5);
+        int reused = world.addRigidbody(post, new Collider(Collider.Type.AABB, new Vector2D(5, 5), new Vector2D(0.2f, 0.2f)));
+        assertEquals(handle & BodyStore.SLOT_MASK, reused & BodyStore.SLOT_MASK);
+        world.update(DT);
+
+        Counter counter = new Counter();
+        events.drain(counter);
+        assertEquals(1, counter.ends);
+        assertEquals(Math.min(ground, handle), counter.lastEndA);
+        assertEquals(Math.max(ground, handle), counter.lastEndB);
+    }
+
+    /**
+     * Counts the end events drained from a stream.
+     */
+    private static final class Counter implements ContactListener {
+
+        int ends;
+        int lastEndA;
+        int lastEndB;
+
+        @Override
+        public void onContactBegin(long step, int bodyA, int bodyB) {
+        }
+
+        @Override
+        public void onContactEnd(long step, int bodyA, int bodyB) {
+            ends++;
+            lastEndA = bodyA;
+            lastEndB = bodyB;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.myproject.physics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks the validation of polygon vertices and rays cast against polygons.
+ */
+class ConvexPolygonTest {
+
+    private static final float EPSILON = 1e-5f;
+
+    @Test
+    void rejectsPolygonsThatAreNotStrictlyConvex() {
+        // A square with its top edge pushed in.
+        assertThrows(IllegalArgumentException.class, () -> new ConvexPolygon(-1, -1, 1, -1, 1, 1, 0, 0.5f, -1, 1));
+        // A square with a vertex in the middle of its bottom edge.
+        assertThrows(IllegalArgumentException.class, () -> new ConvexPolygon(-1, -1, 0, -1, 1, -1, 1, 1, -1, 1));
+        // A star drawn in one stroke, which winds around twice.
+        assertThrows(IllegalArgumentException.class,
+                () -> new ConvexPolygon(0, 1, 0.59f, -0.81f, -0.95f, 0.31f, 0.95f, 0.31f, -0.59f, -0.81f));
+        assertThrows(IllegalArgumentException.class, () -> new ConvexPolygon(0, 0, 1, 0, 1, 0));
+    }
+
+    @Test
+    void rejectsBadVertexCounts() {
+        assertThrows(IllegalArgumentException.class, () -> new ConvexPolygon(0, 0, 1, 0));
+        assertThrows(IllegalArgumentException.class, () -> new ConvexPolygon(0, 0, 1, 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new ConvexPolygon(new float[2 * (ConvexPolygon.MAX_VERTICES + 1)]));
+    }
+
+    @Test
+    void clockwiseVerticesAreReversed() {
+        ConvexPolygon clockwise = new ConvexPolygon(-1, 1, 1, 1, 1, -1, -1, -1);
+        float[] expectedX = {-1, 1, 1, -1};
+        float[] expectedY = {-1, -1, 1, 1};
+        float[] expectedNormalX = {0, 1, 0, -1};
+        float[] expectedNormalY = {-1, 0, 1, 0};
+        assertEquals(4, clockwise.getVertexCount());
+        for (int i = 0; i < 4; i++) {
+            assertEquals(expectedX[i], clockwise.getX(i));
+            assertEquals(expectedY[i], clockwise.getY(i));
+            assertEquals(expectedNormalX[i], clockwise.getNormalX(i), EPSILON);
+            assertEquals(expectedNormalY[i], clockwise.getNormalY(i), EPSILON);
+        }
+        assertEquals(new ConvexPolygon(-1, -1, 1, -1, 1, 1, -1, 1).getInertia(1.0f), clockwise.getInertia(1.0f));
+    }
+
+    @Test
+    void raycastHitsTheFacingEdge() {
+        // A triangle with its left edge upright at x = 4.
+        Collider collider = new Collider(new ConvexPolygon(-1, -1, 1, 0, -1, 1), new Vector2D(5, 0));
+        RaycastHit hit = collider.raycast(new Vector2D(0, 0.5f), new Vector2D(2, 0), 10);
+        assertNotNull(hit);
+        assertEquals(2.0f, hit.getT(), EPSILON);
+        assertEquals(4.0f, hit.getPoint().x, EPSILON);
+        assertEquals(0.5f, hit.getPoint().y, EPSILON);
+        assertEquals(-1.0f, hit.getNormal().x, EPSILON);
+        assertEquals(0.0f, hit.getNormal().y, EPSILON);
+
+        // The slanted edge from (6, 0) to (4, 1), hit from above.
+        hit = collider.raycast(new Vector2D(5, 5), new Vector2D(0, -1), 10);
+        assertNotNull(hit);
+        assertEquals(4.5f, hit.getT(), EPSILON);
+        assertEquals(1 / (float) Math.sqrt(5), hit.getNormal().x, EPSILON);
+        assertEquals(2 / (float) Math.sqrt(5), hit.getNormal().y, EPSILON);
+    }
+
+    @Test
+    void raycastMissesAndStartsInside() {
+        Collider collider = new Collider(new ConvexPolygon(-1, -1, 1, 0, -1, 1), new Vector2D(5, 0));
+        assertNull(collider.raycast(new Vector2D(0, 2), new Vector2D(1, 0), 10));
+        assertNull(collider.raycast(new Vector2D(0, 0), new Vector2D(1, 0), 3.9f));
+        assertNull(collider.raycast(new Vector2D(0, 0), new Vector2D(-1, 0), 10));
+        RaycastHit inside = collider.raycast(new Vector2D(5, 0), new Vector2D(1, 0), 10);
+        assertNotNull(inside);
+        assertEquals(0.0f, inside.getT());
+    }
+}
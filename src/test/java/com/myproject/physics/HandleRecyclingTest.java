@@ -0,0 +1,66 @@
+package com.myproject.physics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks that the handles of removed bodies stay invalid while their slots are recycled.
+ */
+class HandleRecyclingTest {
+
+    private static final int BODIES = 100;
+    private static final int FREE_SLOTS = 50;
+    private static final int CYCLES = 50_000; // Fewer than 2048 reuses of every free slot.
+
+    @Test
+    void removedHandleStaysInvalidThroughHighChurn() {
+        PhysicsWorld world = new PhysicsWorld();
+        ArrayDeque<Integer> live = new ArrayDeque<>();
+        for (int i = 0; i < BODIES; i++) {
+            live.add(addBall(world, i));
+        }
+        for (int i = 0; i < FREE_SLOTS; i++) {
+            world.removeRigidbody(live.poll());
+        }
+
+        // Despawn the oldest body and spawn a new one, like a stream of projectiles.
+        int stale = live.peek();
+        for (int cycle = 0; cycle < CYCLES; cycle++) {
+            world.removeRigidbody(live.poll());
+            live.add(addBall(world, cycle));
+            assertFalse(world.containsBody(stale), "Stale handle accepted after " + cycle + " cycles");
+        }
+        assertThrows(IllegalArgumentException.class, () -> world.getRigidbody(stale));
+        assertThrows(IllegalArgumentException.class, () -> world.getCollider(stale));
+        assertThrows(IllegalArgumentException.class, () -> world.removeRigidbody(stale));
+        assertEquals(BODIES - FREE_SLOTS, world.getBodyCount());
+    }
+
+    @Test
+    void recycledSlotsAreReusedOldestFirst() {
+        PhysicsWorld world = new PhysicsWorld();
+        int first = addBall(world, 0);
+        int second = addBall(world, 1);
+        addBall(world, 2);
+        world.removeRigidbody(first);
+        world.removeRigidbody(second);
+
+        assertEquals(first & BodyStore.SLOT_MASK, addBall(world, 3) & BodyStore.SLOT_MASK);
+        assertEquals(second & BodyStore.SLOT_MASK, addBall(world, 4) & BodyStore.SLOT_MASK);
+    }
+
+    /**
+     * Adds a small ball to a world.
+     */
+    private static int addBall(PhysicsWorld world, int i) {
+        Rigidbody rb = new Rigidbody(1.0f);
+        float x = i % 100;
+        rb.setPosition(x, 0);
+        return world.addRigidbody(rb, new Collider(Collider.Type.CIRCLE, new Vector2D(x, 0), 0.1f));
+    }
+}
@@ -0,0 +1,115 @@
+package com.myproject.physics;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that a recorded session replays without divergence, and that a replay stops at the first
+ * step whose hash does not match.
+ */
+class InputReplayerTest {
+
+    private static final int STEPS = 240;
+    private static final int HASH_INTERVAL = 4;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void recordedSessionReplaysWithoutDivergence() throws IOException {
+        Path journal = dir.resolve("session.journal");
+        long finalHash = record(journal);
+
+        InputReplayer.Result result = InputReplayer.replay(journal);
+        assertFalse(result.isDiverged(), result.toString());
+        assertFalse(result.isTruncated());
+        assertEquals(STEPS, result.getSteps());
+        assertEquals(STEPS / HASH_INTERVAL, result.getHashesChecked());
+        assertEquals(finalHash, result.getWorld().stateHash());
+
+        // Results do not depend on the broad phase or the thread count.
+        assertFalse(InputReplayer.replay(journal, new SweepAndPrune(), 2).isDiverged());
+    }
+
+    @Test
+    void corruptedHashIsReportedAtItsStep() throws IOException {
+        Path journal = dir.resolve("session.journal");
+        record(journal);
+
+        byte[] bytes = Files.readAllBytes(journal);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        int position = InputRecorder.HEADER_BYTES + (int) buffer.getLong(12);
+        int hashes = 0;
+        long corruptedStep = -1;
+        while (position < bytes.length) {
+            byte tag = bytes[position];
+            if (tag == InputRecorder.STEP_HASH && ++hashes == 20) {
+                corruptedStep = buffer.getLong(position + 1 + Float.BYTES);
+                int hash = position + 1 + Float.BYTES + Long.BYTES;
+                buffer.putLong(hash, ~buffer.getLong(hash));
+                break;
+            }
+            position += 1 + InputRecorder.PAYLOAD_BYTES[tag];
+        }
+        Files.write(journal, bytes);
+
+        InputReplayer.Result result = InputReplayer.replay(journal);
+        assertTrue(result.isDiverged());
+        assertEquals(20 * HASH_INTERVAL, corruptedStep);
+        assertEquals(corruptedStep, result.getDivergentStep());
+        assertEquals(20, result.getHashesChecked());
+    }
+
+    /**
+     * Records a session that adds and removes bodies, writes velocities and forces, and changes
+     * gravity and the reordering of the bodies along the way.
+     *
+     * @return The hash of the world at the end of the session.
+     */
+    private static long record(Path journal) throws IOException {
+        PhysicsWorld world = TestScenes.mixed(new SpatialHashGrid(), 200, 11);
+        Random rand = new Random(3);
+        List<Integer> spawned = new ArrayList<>();
+        Vector2D force = new Vector2D(0, 0);
+        try (InputRecorder recorder = new InputRecorder(world, journal, HASH_INTERVAL)) {
+            for (int step = 0; step < STEPS; step++) {
+                if (step % 3 == 0) {
+                    spawned.add(TestScenes.addBody(world, rand, step % 3, 3));
+                }
+                if (step % 7 == 0 && spawned.size() > 4) {
+                    world.removeRigidbody(spawned.remove(rand.nextInt(spawned.size())));
+                }
+                if (step % 5 == 0 && !spawned.isEmpty()) {
+                    Rigidbody rb = world.getRigidbody(spawned.get(rand.nextInt(spawned.size())));
+                    rb.setVelocity(rand.nextFloat() * 6 - 3, rand.nextFloat() * 6);
+                    rb.applyForce(force.set(rand.nextFloat() * 20 - 10, 30));
+                    rb.applyTorque(rand.nextFloat() - 0.5f);
+                }
+                if (step == 60) {
+                    world.setGravity(1.5f, -4.0f);
+                }
+                if (step == 90) {
+                    world.setReorderInterval(16);
+                }
+                if (step == 150) {
+                    world.reorderBodies();
+                }
+                world.update(TestScenes.DT);
+            }
+        }
+        return world.stateHash();
+    }
+}
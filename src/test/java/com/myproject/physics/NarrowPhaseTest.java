@@ -0,0 +1,127 @@
+package com.myproject.physics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the manifolds of polygon pairs against normals, depths and contact points worked out by
+ * hand.
+ */
+class NarrowPhaseTest {
+
+    private static final float EPSILON = 1e-4f;
+    private static final float SQRT_2 = (float) Math.sqrt(2.0);
+
+    /** The triangle (-1, -1), (1, -1), (0, 1), with its bottom edge facing down. */
+    private static final ConvexPolygon TRIANGLE = new ConvexPolygon(-1, -1, 1, -1, 0, 1);
+
+    private final BodyStore store = new BodyStore();
+    private final float[] normalX = new float[1];
+    private final float[] normalY = new float[1];
+    private final float[] penetration = new float[1];
+    private final float[] pointX = new float[1];
+    private final float[] pointY = new float[1];
+
+    @Test
+    void polygonsOverlappingSideBySide() {
+        int a = polygon(ConvexPolygon.box(1, 1, 0), 0, 0);
+        int b = polygon(ConvexPolygon.box(1, 1, 0), 1.8f, 0.5f);
+        assertContact(a, b, 1, 0, 0.2f, 0.9f, 0.25f);
+        assertContact(b, a, -1, 0, 0.2f, 0.9f, 0.25f);
+    }
+
+    @Test
+    void turnedPolygonRestingOnAVertex() {
+        // A square turned into a diamond, its bottom vertex 0.1 into the top of the other square.
+        int a = polygon(ConvexPolygon.box(1, 1, 0), 0, 0);
+        int b = polygon(ConvexPolygon.box(1, 1, (float) (Math.PI / 4)), 0, 1 + SQRT_2 - 0.1f);
+        assertContact(a, b, 0, 1, 0.1f, 0, 0.95f);
+    }
+
+    @Test
+    void polygonsApartDoNotTouch() {
+        int a = polygon(ConvexPolygon.box(1, 1, 0), 0, 0);
+        int b = polygon(TRIANGLE, 0, 2.01f);
+        assertFalse(collide(a, b));
+    }
+
+    @Test
+    void circleAgainstAPolygonFace() {
+        int circle = circle(0.5f, 0, -1.3f);
+        int triangle = polygon(TRIANGLE, 0, 0);
+        assertContact(circle, triangle, 0, 1, 0.2f, 0, -0.9f);
+        assertContact(triangle, circle, 0, -1, 0.2f, 0, -0.9f);
+    }
+
+    @Test
+    void circleAgainstAPolygonVertex() {
+        int circle = circle(0.5f, 1.3f, -1.3f);
+        int triangle = polygon(TRIANGLE, 0, 0);
+        float depth = 0.5f - 0.3f * SQRT_2;
+        float reach = 0.5f - depth * 0.5f;
+        assertContact(circle, triangle, -SQRT_2 / 2, SQRT_2 / 2, depth,
+                1.3f - reach * SQRT_2 / 2, -1.3f + reach * SQRT_2 / 2);
+        // Off the vertex by more than the radius, though within it of the bottom edge's line.
+        store.posX[circle] = 1.45f;
+        store.posY[circle] = -1.45f;
+        assertFalse(collide(circle, triangle));
+    }
+
+    @Test
+    void circleAgainstATurnedPolygon() {
+        // The triangle turned a quarter turn counter-clockwise, so its bottom edge faces right.
+        int triangle = polygon(TRIANGLE, 0, 0);
+        store.setAngle(triangle, (float) (Math.PI / 2));
+        int circle = circle(0.5f, 1.3f, 0);
+        assertContact(triangle, circle, 1, 0, 0.2f, 0.9f, 0);
+    }
+
+    @Test
+    void boxAgainstAPolygon() {
+        int box = box(1, 0.5f, 0, 0);
+        int triangle = polygon(TRIANGLE, 0.2f, 1.4f);
+        assertContact(box, triangle, 0, 1, 0.1f, 0.1f, 0.45f);
+        assertContact(triangle, box, 0, -1, 0.1f, 0.1f, 0.45f);
+    }
+
+    /**
+     * Collides two bodies and checks the manifold.
+     */
+    private void assertContact(int a, int b, float expectedNormalX, float expectedNormalY, float expectedDepth,
+                               float expectedPointX, float expectedPointY) {
+        assertTrue(collide(a, b), "The bodies should touch");
+        assertEquals(expectedNormalX, normalX[0], EPSILON, "normal x");
+        assertEquals(expectedNormalY, normalY[0], EPSILON, "normal y");
+        assertEquals(expectedDepth, penetration[0], EPSILON, "penetration");
+        assertEquals(expectedPointX, pointX[0], EPSILON, "point x");
+        assertEquals(expectedPointY, pointY[0], EPSILON, "point y");
+    }
+
+    private boolean collide(int a, int b) {
+        return NarrowPhase.collide(store, a, b, normalX, normalY, penetration, pointX, pointY, 0);
+    }
+
+    private int polygon(ConvexPolygon polygon, float x, float y) {
+        return add(new Collider(polygon, new Vector2D(x, y)), x, y);
+    }
+
+    private int circle(float radius, float x, float y) {
+        return add(new Collider(Collider.Type.CIRCLE, new Vector2D(x, y), radius), x, y);
+    }
+
+    private int box(float halfWidth, float halfHeight, float x, float y) {
+        return add(new Collider(Collider.Type.AABB, new Vector2D(x, y), new Vector2D(halfWidth, halfHeight)), x, y);
+    }
+
+    /**
+     * Adds a body to the store and returns its index.
+     */
+    private int add(Collider collider, float x, float y) {
+        Rigidbody rb = new Rigidbody(1.0f);
+        rb.setPosition(x, y);
+        return store.index(store.add(rb, collider));
+    }
+}
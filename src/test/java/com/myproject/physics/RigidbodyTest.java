@@ -0,0 +1,39 @@
+package com.myproject.physics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that a body turns the same whether or not it belongs to a world.
+ */
+class RigidbodyTest {
+
+    @Test
+    void spinningBodyTurnsTheSameInAndOutOfAWorld() {
+        PhysicsWorld world = new PhysicsWorld();
+        world.setGravity(0, 0);
+        Rigidbody inWorld = new Rigidbody(1.0f);
+        inWorld.setAngularVelocity(9.0f);
+        world.addRigidbody(inWorld, new Collider(Collider.Type.CIRCLE, new Vector2D(0, 0), 0.5f));
+        Rigidbody alone = new Rigidbody(1.0f);
+        alone.setInertia(inWorld.getInertia());
+        alone.setAngularVelocity(9.0f);
+
+        for (int step = 0; step < 120; step++) {
+            world.update(TestScenes.DT);
+            alone.integrate(TestScenes.DT);
+            assertEquals(0.0, turnBetween(alone.getAngle(), inWorld.getAngle()), 1e-3, "Apart at step " + step);
+        }
+        // 18 radians at 0.15 radians a step, turned about 0.4% too far.
+        double expected = 120 * Math.atan2(0.15, 1 - 0.15 * 0.15 / 2);
+        assertEquals(0.0, turnBetween(expected, inWorld.getAngle()), 1e-3);
+    }
+
+    /**
+     * Gets the angle from one orientation to another, in [-pi, pi].
+     */
+    private static double turnBetween(double from, double to) {
+        return Math.IEEEremainder(to - from, 2 * Math.PI);
+    }
+}
@@ -0,0 +1,86 @@
+package com.myproject.physics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that bodies migrate between shards and that sharded steps are deterministic.
+ */
+class ShardedWorldTest {
+
+    @Test
+    void bodyMigratesAcrossABoundary() {
+        try (ShardedWorld world = new ShardedWorld(-10, 10, 2, 1.0f)) {
+            Rigidbody rb = new Rigidbody(1.0f);
+            rb.setPosition(-2, 0);
+            rb.setVelocity(6, 0);
+            int id = world.addRigidbody(rb, new Collider(Collider.Type.CIRCLE, new Vector2D(-2, 0), 0.25f));
+            assertEquals(0, world.getShardOf(id));
+
+            for (int step = 0; step < 60; step++) {
+                world.update(TestScenes.DT);
+            }
+            assertEquals(1, world.getShardOf(id));
+            assertEquals(4.0f, world.getRigidbody(id).getPosition().x, 0.01f);
+            // Far from the boundary, so the ghost left behind has been removed too.
+            assertEquals(0, world.getShard(0).getBodyCount());
+            assertEquals(1, world.getShard(1).getBodyCount());
+        }
+    }
+
+    @Test
+    void twoRunsGiveIdenticalState() {
+        try (ShardedWorld first = crowd(); ShardedWorld second = crowd()) {
+            int[] initialShards = new int[first.getBodyCount()];
+            for (int id = 0; id < initialShards.length; id++) {
+                initialShards[id] = first.getShardOf(id);
+            }
+            for (int step = 0; step < 200; step++) {
+                first.update(TestScenes.DT);
+                second.update(TestScenes.DT);
+                assertEquals(hash(first), hash(second), "Diverged at step " + step);
+            }
+            int migrated = 0;
+            for (int id = 0; id < initialShards.length; id++) {
+                assertEquals(first.getShardOf(id), second.getShardOf(id));
+                if (first.getShardOf(id) != initialShards[id]) migrated++;
+            }
+            assertTrue(migrated > 0, "Some bodies should have changed shards");
+        }
+    }
+
+    /**
+     * Builds four shards of circles moving in random directions.
+     */
+    private static ShardedWorld crowd() {
+        ShardedWorld world = new ShardedWorld(-20, 20, 4, 0.5f);
+        for (int shard = 0; shard < 4; shard++) {
+            world.getShard(shard).setGravity(0, 0);
+        }
+        Random rand = new Random(17);
+        for (int i = 0; i < 400; i++) {
+            Rigidbody rb = new Rigidbody(1.0f);
+            float x = rand.nextFloat() * 40 - 20;
+            float y = rand.nextFloat() * 10 - 5;
+            rb.setPosition(x, y);
+            rb.setVelocity(rand.nextFloat() * 8 - 4, rand.nextFloat() * 2 - 1);
+            world.addRigidbody(rb, new Collider(Collider.Type.CIRCLE, new Vector2D(x, y), 0.2f));
+        }
+        return world;
+    }
+
+    /**
+     * Combines the state hashes of every shard.
+     */
+    private static long hash(ShardedWorld world) {
+        long hash = 0;
+        for (int shard = 0; shard < world.getShardCount(); shard++) {
+            hash = hash * 31 + world.getShard(shard).stateHash();
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,29 @@
+package com.myproject.physics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Checks that the vectorized step gives bit-identical results to the scalar one.
+ */
+class SimdStepTest {
+
+    private static final int BODIES = 2000;
+    private static final int STEPS = 300;
+
+    @Test
+    void vectorizedAndScalarStepsAgree() {
+        assumeTrue(PhysicsWorld.isSimdAvailable(), "Vector API not available");
+        PhysicsWorld scalar = TestScenes.mixed(new SpatialHashGrid(), BODIES, 9);
+        PhysicsWorld simd = TestScenes.mixed(new SpatialHashGrid(), BODIES, 9);
+        scalar.setSimdEnabled(false);
+        simd.setSimdEnabled(true);
+        for (int step = 0; step < STEPS; step++) {
+            scalar.update(TestScenes.DT);
+            simd.update(TestScenes.DT);
+            assertEquals(scalar.stateHash(), simd.stateHash(), "Diverged at step " + step);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.myproject.physics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that region and ray queries see bodies moved through their views between steps.
+ */
+class SpatialQueryTest {
+
+    @Test
+    void queriesFindABodyTeleportedThroughItsRigidbody() {
+        for (BroadPhase broadPhase : new BroadPhase[] {new SpatialHashGrid(), new DynamicAABBTree()}) {
+            PhysicsWorld world = new PhysicsWorld(broadPhase);
+            Rigidbody rb = new Rigidbody(1.0f);
+            Collider collider = new Collider(Collider.Type.CIRCLE, new Vector2D(0, 0), 0.5f);
+            world.addRigidbody(rb, collider);
+            world.update(TestScenes.DT);
+            assertEquals(List.of(collider), world.queryRegion(-1, -1, 1, 1));
+
+            rb.setPosition(20, 0);
+            assertTrue(world.queryRegion(-1, -1, 1, 1).isEmpty());
+            assertEquals(List.of(collider), world.queryRegion(19, -1, 21, 1));
+            RaycastHit hit = world.raycast(new Vector2D(10, 0), new Vector2D(1, 0), 100);
+            assertNotNull(hit);
+            assertSame(collider, hit.getCollider());
+            assertEquals(9.5f, hit.getT(), 1e-4f);
+        }
+    }
+
+    @Test
+    void queriesFindABodyTeleportedThroughItsCollider() {
+        PhysicsWorld world = new PhysicsWorld(new SweepAndPrune());
+        Collider collider = new Collider(Collider.Type.AABB, new Vector2D(0, 0), new Vector2D(0.5f, 0.5f));
+        world.addRigidbody(new Rigidbody(1.0f), collider);
+        assertEquals(List.of(collider), world.queryRegion(-1, -1, 1, 1));
+
+        collider.setCenter(new Vector2D(0, -30));
+        assertTrue(world.queryRegion(-1, -1, 1, 1).isEmpty());
+        assertEquals(List.of(collider), world.queryRegion(-1, -31, 1, -29));
+    }
+}
@@ -0,0 +1,139 @@
+package com.myproject.physics;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Checks that a warmed-up world steps without allocating, with every broad phase, on both the
+ * scalar and the vectorized path. Allocation is read from the per-thread counters of the
+ * {@code com.sun.management.ThreadMXBean}, and the world is stepped on the calling thread.
+ */
+class StepAllocationTest {
+
+    private static final float DT = 0.016f;
+    private static final int BODIES = 1000;
+    private static final int WARMUP_STEPS = 4000; // Enough for the step to be compiled by C2 and every buffer to reach its peak size.
+    private static final int MEASURED_STEPS = 200;
+    private static final int REORDER_INTERVAL = 5;
+    private static final float WALL_THICKNESS = 0.5f;
+
+    @Test
+    void gridStepDoesNotAllocate() {
+        assertSteadyStateAllocation(SpatialHashGrid::new, false, 0);
+    }
+
+    @Test
+    void sweepAndPruneStepDoesNotAllocate() {
+        assertSteadyStateAllocation(SweepAndPrune::new, false, 0);
+    }
+
+    @Test
+    void treeStepDoesNotAllocate() {
+        assertSteadyStateAllocation(DynamicAABBTree::new, false, 0);
+    }
+
+    @Test
+    void simdGridStepDoesNotAllocate() {
+        assumeTrue(PhysicsWorld.isSimdAvailable(), "Vector API not available");
+        assertSteadyStateAllocation(SpatialHashGrid::new, true, 0);
+    }
+
+    @Test
+    void simdSweepAndPruneStepDoesNotAllocate() {
+        assumeTrue(PhysicsWorld.isSimdAvailable(), "Vector API not available");
+        assertSteadyStateAllocation(SweepAndPrune::new, true, 0);
+    }
+
+    @Test
+    void simdTreeStepDoesNotAllocate() {
+        assumeTrue(PhysicsWorld.isSimdAvailable(), "Vector API not available");
+        assertSteadyStateAllocation(DynamicAABBTree::new, true, 0);
+    }
+
+    @Test
+    void gridStepWithReorderingDoesNotAllocate() {
+        assertSteadyStateAllocation(SpatialHashGrid::new, false, REORDER_INTERVAL);
+    }
+
+    @Test
+    void sweepAndPruneStepWithReorderingDoesNotAllocate() {
+        assertSteadyStateAllocation(SweepAndPrune::new, false, REORDER_INTERVAL);
+    }
+
+    @Test
+    void treeStepWithReorderingDoesNotAllocate() {
+        assertSteadyStateAllocation(DynamicAABBTree::new, false, REORDER_INTERVAL);
+    }
+
+    /**
+     * Warms a world up, then steps it again and asserts the steps allocated nothing.
+     */
+    private static void assertSteadyStateAllocation(Supplier<BroadPhase> broadPhase, boolean simd, int reorderInterval) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported(), "Allocation counters not supported");
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        PhysicsWorld world = scene(broadPhase.get());
+        world.setSimdEnabled(simd);
+        world.setReorderInterval(reorderInterval);
+        for (int i = 0; i < WARMUP_STEPS; i++) {
+            world.update(DT);
+        }
+        long thread = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < MEASURED_STEPS; i++) {
+            world.update(DT);
+        }
+        long allocated = threads.getThreadAllocatedBytes(thread) - before;
+        assertEquals(0, allocated, "Bytes allocated by " + MEASURED_STEPS + " steps");
+    }
+
+    /**
+     * Builds a closed box of circles, boxes and polygons moving in random directions. Sleeping is
+     * disabled so every step does the same kind of work.
+     */
+    private static PhysicsWorld scene(BroadPhase broadPhase) {
+        PhysicsWorld world = new PhysicsWorld(broadPhase);
+        world.setSleepingEnabled(false);
+        Random rand = new Random(42);
+        float half = (float) Math.sqrt(BODIES * 0.25f) / 2;
+        ConvexPolygon triangle = new ConvexPolygon(0.0f, 0.12f, -0.1f, -0.08f, 0.1f, -0.08f);
+
+        for (int i = 0; i < BODIES; i++) {
+            Rigidbody rb = new Rigidbody(1.0f);
+            float x = (rand.nextFloat() * 2 - 1) * (half - 0.2f);
+            float y = (rand.nextFloat() * 2 - 1) * (half - 0.2f);
+            rb.setPosition(x, y);
+            rb.setVelocity(rand.nextFloat() * 10 - 5, rand.nextFloat() * 10 - 5);
+            Collider collider = switch (i % 3) {
+                case 0 -> new Collider(Collider.Type.CIRCLE, new Vector2D(x, y), 0.1f);
+                case 1 -> new Collider(Collider.Type.AABB, new Vector2D(x, y), new Vector2D(0.1f, 0.1f));
+                default -> new Collider(triangle, new Vector2D(x, y));
+            };
+            world.addRigidbody(rb, collider);
+        }
+
+        float offset = half + WALL_THICKNESS;
+        float length = half + 2 * WALL_THICKNESS;
+        addWall(world, 0, -offset, length, WALL_THICKNESS);
+        addWall(world, 0, offset, length, WALL_THICKNESS);
+        addWall(world, -offset, 0, WALL_THICKNESS, length);
+        addWall(world, offset, 0, WALL_THICKNESS, length);
+        return world;
+    }
+
+    /**
+     * Adds a static box to a world.
+     */
+    private static void addWall(PhysicsWorld world, float x, float y, float halfWidth, float halfHeight) {
+        Rigidbody rb = new Rigidbody(0.0f);
+        rb.setPosition(x, y);
+        world.addRigidbody(rb, new Collider(Collider.Type.AABB, new Vector2D(x, y), new Vector2D(halfWidth, halfHeight)));
+    }
+}
@@ -0,0 +1,75 @@
+package com.myproject.physics;
+
+import java.util.Random;
+
+/**
+ * Seeded scenes shared by the tests.
+ */
+final class TestScenes {
+
+    static final float DT = 1 / 60.0f;
+    private static final float WALL_THICKNESS = 0.5f;
+    private static final ConvexPolygon TRIANGLE = new ConvexPolygon(0.0f, 0.12f, -0.1f, -0.08f, 0.1f, -0.08f);
+
+    private TestScenes() {
+    }
+
+    /**
+     * Builds a closed box under gravity holding circles, boxes and polygons at seeded random
+     * positions, moving and spinning in random directions.
+     *
+     * @param broadPhase The broad phase of the world.
+     * @param bodies     The number of bodies inside the box.
+     * @param seed       The seed of the positions and velocities.
+     * @return The world.
+     */
+    static PhysicsWorld mixed(BroadPhase broadPhase, int bodies, long seed) {
+        PhysicsWorld world = new PhysicsWorld(broadPhase);
+        world.setGravity(0, -9.8f);
+        Random rand = new Random(seed);
+        float half = (float) Math.sqrt(bodies * 0.25f) / 2;
+        for (int i = 0; i < bodies; i++) {
+            addBody(world, rand, i % 3, half);
+        }
+        float offset = half + WALL_THICKNESS;
+        float length = half + 2 * WALL_THICKNESS;
+        addWall(world, 0, -offset, length, WALL_THICKNESS);
+        addWall(world, 0, offset, length, WALL_THICKNESS);
+        addWall(world, -offset, 0, WALL_THICKNESS, length);
+        addWall(world, offset, 0, WALL_THICKNESS, length);
+        return world;
+    }
+
+    /**
+     * Adds a circle, a box or a triangle at a random position inside a box of the given half size.
+     *
+     * @param world The world.
+     * @param rand  The source of the position and velocities.
+     * @param shape 0 for a circle, 1 for a box, 2 for a triangle.
+     * @param half  The half size of the box.
+     * @return The handle of the new body.
+     */
+    static int addBody(PhysicsWorld world, Random rand, int shape, float half) {
+        Rigidbody rb = new Rigidbody(1.0f);
+        float x = (rand.nextFloat() * 2 - 1) * (half - 0.2f);
+        float y = (rand.nextFloat() * 2 - 1) * (half - 0.2f);
+        rb.setPosition(x, y);
+        rb.setVelocity(rand.nextFloat() * 4 - 2, rand.nextFloat() * 4 - 2);
+        rb.setAngularVelocity(rand.nextFloat() * 6 - 3);
+        Collider collider = switch (shape) {
+            case 0 -> new Collider(Collider.Type.CIRCLE, new Vector2D(x, y), 0.1f);
+            case 1 -> new Collider(Collider.Type.AABB, new Vector2D(x, y), new Vector2D(0.1f, 0.1f));
+            default -> new Collider(TRIANGLE, new Vector2D(x, y));
+        };
+        return world.addRigidbody(rb, collider);
+    }
+
+    /**
+     * Adds a static box to a world.
+     */
+    private static void addWall(PhysicsWorld world, float x, float y, float halfWidth, float halfHeight) {
+        Rigidbody rb = new Rigidbody(0.0f);
+        rb.setPosition(x, y);
+        world.addRigidbody(rb, new Collider(Collider.Type.AABB, new Vector2D(x, y), new Vector2D(halfWidth, halfHeight)));
+    }
+}
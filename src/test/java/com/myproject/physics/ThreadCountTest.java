@@ -0,0 +1,35 @@
+package com.myproject.physics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that a world steps to the same state whatever the number of threads stepping it.
+ */
+class ThreadCountTest {
+
+    private static final int BODIES = 3000;
+    private static final int STEPS = 150;
+
+    @Test
+    void resultsAreIdenticalForEveryThreadCount() {
+        PhysicsWorld single = TestScenes.mixed(new SpatialHashGrid(), BODIES, 5);
+        PhysicsWorld two = TestScenes.mixed(new SpatialHashGrid(), BODIES, 5);
+        PhysicsWorld eight = TestScenes.mixed(new SpatialHashGrid(), BODIES, 5);
+        two.setThreadCount(2);
+        eight.setThreadCount(8);
+        try {
+            for (int step = 0; step < STEPS; step++) {
+                single.update(TestScenes.DT);
+                two.update(TestScenes.DT);
+                eight.update(TestScenes.DT);
+                assertEquals(single.stateHash(), two.stateHash(), "2 threads diverged at step " + step);
+                assertEquals(single.stateHash(), eight.stateHash(), "8 threads diverged at step " + step);
+            }
+        } finally {
+            two.setThreadCount(1);
+            eight.setThreadCount(1);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.myproject.physics;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks that a world restored from a checkpoint file takes exactly the steps of the original,
+ * and that damaged files are rejected.
+ */
+class WorldCheckpointTest {
+
+    private static final int BODIES = 300;
+    private static final int STEPS = 200;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void restoredWorldStepsLikeTheOriginal() throws IOException {
+        PhysicsWorld original = churnedScene();
+        original.setReorderInterval(10);
+        for (int i = 0; i < 60; i++) {
+            original.update(TestScenes.DT);
+        }
+        PhysicsWorld restored = writeAndRestore(original, new DynamicAABBTree());
+
+        assertEquals(original.stateHash(), restored.stateHash());
+        for (int step = 0; step < STEPS; step++) {
+            original.update(TestScenes.DT);
+            restored.update(TestScenes.DT);
+            assertEquals(original.stateHash(), restored.stateHash(), "Diverged at step " + step);
+        }
+    }
+
+    @Test
+    void restoredWorldHandsOutTheSameHandles() throws IOException {
+        PhysicsWorld original = churnedScene();
+        PhysicsWorld restored = writeAndRestore(original, new SweepAndPrune());
+
+        Random originalRand = new Random(7);
+        Random restoredRand = new Random(7);
+        for (int i = 0; i < 40; i++) {
+            int handle = TestScenes.addBody(original, originalRand, i % 3, 2);
+            assertEquals(handle, TestScenes.addBody(restored, restoredRand, i % 3, 2));
+        }
+    }
+
+    @Test
+    void truncatedFileIsRejected() throws IOException {
+        Path file = write(churnedScene());
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 1));
+        assertThrows(IOException.class, () -> new WorldCheckpoint().read(file));
+    }
+
+    @Test
+    void otherVersionIsRejected() throws IOException {
+        Path file = write(churnedScene());
+        corruptInt(file, 4, WorldCheckpoint.VERSION + 1);
+        assertThrows(IOException.class, () -> new WorldCheckpoint().read(file));
+    }
+
+    @Test
+    void handleOutsideTheSlotsIsRejected() throws IOException {
+        Path file = write(churnedScene());
+        corruptInt(file, handleOffset(file), BodyStore.SLOT_MASK);
+        assertThrows(IOException.class, () -> new WorldCheckpoint().read(file));
+    }
+
+    @Test
+    void handleOfAnotherGenerationIsRejected() throws IOException {
+        Path file = write(churnedScene());
+        int offset = handleOffset(file);
+        corruptInt(file, offset, readInt(file, offset) + (1 << BodyStore.SLOT_BITS));
+        assertThrows(IOException.class, () -> new WorldCheckpoint().read(file));
+    }
+
+    @Test
+    void freeSlotOfALiveBodyIsRejected() throws IOException {
+        Path file = write(churnedScene());
+        int liveSlot = readInt(file, handleOffset(file)) & BodyStore.SLOT_MASK;
+        corruptInt(file, freeSlotOffset(file), liveSlot);
+        assertThrows(IOException.class, () -> new WorldCheckpoint().read(file));
+    }
+
+    @Test
+    void freeSlotOutsideTheSlotsIsRejected() throws IOException {
+        Path file = write(churnedScene());
+        corruptInt(file, freeSlotOffset(file), -1);
+        assertThrows(IOException.class, () -> new WorldCheckpoint().read(file));
+    }
+
+    /**
+     * Builds a mixed scene and removes every fifth body, so the checkpoint holds free slots.
+     */
+    private static PhysicsWorld churnedScene() {
+        PhysicsWorld world = TestScenes.mixed(new SpatialHashGrid(), BODIES, 42);
+        int[] handles = new int[BODIES];
+        for (int i = 0; i < BODIES; i++) {
+            handles[i] = world.getColliders().get(i).handle;
+        }
+        for (int i = 0; i < BODIES; i += 5) {
+            world.removeRigidbody(handles[i]);
+        }
+        return world;
+    }
+
+    /**
+     * Checkpoints a world to a file, reads the file back and restores it with another broad phase.
+     */
+    private PhysicsWorld writeAndRestore(PhysicsWorld world, BroadPhase broadPhase) throws IOException {
+        WorldCheckpoint read = new WorldCheckpoint();
+        read.read(write(world));
+        return read.restore(broadPhase);
+    }
+
+    /**
+     * Checkpoints a world to a new file.
+     */
+    private Path write(PhysicsWorld world) throws IOException {
+        WorldCheckpoint checkpoint = new WorldCheckpoint();
+        world.checkpoint(checkpoint);
+        Path file = Files.createTempFile(dir, "world", ".ckpt");
+        checkpoint.write(file);
+        return file;
+    }
+
+    /**
+     * Gets the offset of the handle of the first body: after the header, the cached impulse keys
+     * and the 16 float columns.
+     */
+    private static int handleOffset(Path file) throws IOException {
+        int count = readInt(file, 8);
+        int cached = readInt(file, 16);
+        return WorldCheckpoint.HEADER_BYTES + cached * Long.BYTES + count * 16 * Float.BYTES;
+    }
+
+    /**
+     * Gets the offset of the first free slot: after the handle, category and mask columns.
+     */
+    private static int freeSlotOffset(Path file) throws IOException {
+        return handleOffset(file) + readInt(file, 8) * 3 * Integer.BYTES;
+    }
+
+    private static int readInt(Path file, int offset) throws IOException {
+        return ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.LITTLE_ENDIAN).getInt(offset);
+    }
+
+    private static void corruptInt(Path file, int offset, int value) throws IOException {
+        byte[] bytes = Files.readAllBytes(file);
+        ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).putInt(offset, value);
+        Files.write(file, bytes);
+    }
+}